@@ -0,0 +1,193 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.neural.flat;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import org.encog.engine.network.activation.ActivationFunction;
+import org.encog.engine.network.activation.ActivationReLU;
+import org.encog.engine.network.activation.ActivationSigmoid;
+import org.encog.engine.network.activation.ActivationTANH;
+import org.encog.mathutil.BoundNumbers;
+
+/**
+ * A layer kernel built on the incubating Vector API of Java 16 and later. The
+ * dot product, the axpy, and the sigmoid, hyperbolic tangent and ReLU
+ * activation functions are computed a full vector register at a time. Other
+ * activation functions are applied by the activation function itself.
+ *
+ * This class is in its own source directory, because the rest of Encog is
+ * built for Java 8. It is compiled by the compile-vector target of build.xml
+ * when Ant runs on Java 16 or later. To use it, run with
+ * --add-modules jdk.incubator.vector and set the system property
+ * encog.layer.kernel to LayerKernelFactory.VECTOR_KERNEL. If either is
+ * missing, LayerKernelFactory falls back to ScalarLayerKernel.
+ *
+ * The lanes of the dot product are summed in a different order than
+ * ScalarLayerKernel, and the vector exp and tanh may differ from Math in the
+ * last bit, so results are close to, but not the same as, the scalar kernel.
+ */
+public class VectorLayerKernel implements LayerKernel {
+
+	/**
+	 * The widest vector shape supported by the processor.
+	 */
+	private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double dot(final double[] a, final int aOffset, final double[] b, final int bOffset, final int length) {
+		final int bound = SPECIES.loopBound(length);
+		DoubleVector acc = DoubleVector.zero(SPECIES);
+		int i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			final DoubleVector va = DoubleVector.fromArray(SPECIES, a, aOffset + i);
+			final DoubleVector vb = DoubleVector.fromArray(SPECIES, b, bOffset + i);
+			acc = va.fma(vb, acc);
+		}
+		double sum = acc.reduceLanes(VectorOperators.ADD);
+		for (; i < length; i++) {
+			sum += a[aOffset + i] * b[bOffset + i];
+		}
+		return sum;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void axpy(final double alpha, final double[] x, final int xOffset, final double[] y, final int yOffset,
+			final int length) {
+		final int bound = SPECIES.loopBound(length);
+		final DoubleVector va = DoubleVector.broadcast(SPECIES, alpha);
+		int i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			final DoubleVector vx = DoubleVector.fromArray(SPECIES, x, xOffset + i);
+			final DoubleVector vy = DoubleVector.fromArray(SPECIES, y, yOffset + i);
+			vx.fma(va, vy).intoArray(y, yOffset + i);
+		}
+		for (; i < length; i++) {
+			y[yOffset + i] += alpha * x[xOffset + i];
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void activationFunction(final ActivationFunction af, final double[] x, final int start, final int size) {
+		// exact classes only, a subclass may have changed the function
+		final Class<?> type = af.getClass();
+		if (type == ActivationSigmoid.class) {
+			this.sigmoid(x, start, size);
+		} else if (type == ActivationTANH.class) {
+			this.tanh(x, start, size);
+		} else if (type == ActivationReLU.class) {
+			this.relu(x, start, size, af.getParams()[ActivationReLU.PARAM_RELU_LOW_THRESHOLD],
+					af.getParams()[ActivationReLU.PARAM_RELU_LOW]);
+		} else {
+			af.activationFunction(x, start, size);
+		}
+	}
+
+	/**
+	 * Apply the sigmoid, bounding exp the way BoundMath does.
+	 *
+	 * @param x
+	 *            The values to activate, in place.
+	 * @param start
+	 *            The first value to activate.
+	 * @param size
+	 *            The number of values.
+	 */
+	private void sigmoid(final double[] x, final int start, final int size) {
+		final int bound = SPECIES.loopBound(size);
+		final DoubleVector one = DoubleVector.broadcast(SPECIES, 1.0);
+		int i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			final DoubleVector v = DoubleVector.fromArray(SPECIES, x, start + i);
+			final DoubleVector e = v.neg().lanewise(VectorOperators.EXP).min(BoundNumbers.TOO_BIG);
+			one.div(e.add(one)).intoArray(x, start + i);
+		}
+		for (; i < size; i++) {
+			x[start + i] = 1.0 / (1.0 + Math.min(Math.exp(-x[start + i]), BoundNumbers.TOO_BIG));
+		}
+	}
+
+	/**
+	 * Apply the hyperbolic tangent.
+	 *
+	 * @param x
+	 *            The values to activate, in place.
+	 * @param start
+	 *            The first value to activate.
+	 * @param size
+	 *            The number of values.
+	 */
+	private void tanh(final double[] x, final int start, final int size) {
+		final int bound = SPECIES.loopBound(size);
+		int i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			DoubleVector.fromArray(SPECIES, x, start + i).lanewise(VectorOperators.TANH).intoArray(x, start + i);
+		}
+		for (; i < size; i++) {
+			x[start + i] = Math.tanh(x[start + i]);
+		}
+	}
+
+	/**
+	 * Apply ReLU, replacing every value at or below the threshold.
+	 *
+	 * @param x
+	 *            The values to activate, in place.
+	 * @param start
+	 *            The first value to activate.
+	 * @param size
+	 *            The number of values.
+	 * @param threshold
+	 *            The low threshold.
+	 * @param low
+	 *            The value that replaces values at or below the threshold.
+	 */
+	private void relu(final double[] x, final int start, final int size, final double threshold, final double low) {
+		final int bound = SPECIES.loopBound(size);
+		final DoubleVector lowVector = DoubleVector.broadcast(SPECIES, low);
+		int i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			final DoubleVector v = DoubleVector.fromArray(SPECIES, x, start + i);
+			final VectorMask<Double> below = v.compare(VectorOperators.LE, threshold);
+			v.blend(lowVector, below).intoArray(x, start + i);
+		}
+		for (; i < size; i++) {
+			if (x[start + i] <= threshold) {
+				x[start + i] = low;
+			}
+		}
+	}
+}
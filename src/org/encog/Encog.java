@@ -33,6 +33,8 @@ import java.util.Set;
 
 import org.encog.mathutil.randomize.factory.BasicRandomFactory;
 import org.encog.mathutil.randomize.factory.RandomFactory;
+import org.encog.neural.flat.LayerKernel;
+import org.encog.neural.flat.LayerKernelFactory;
 import org.encog.plugin.EncogPluginBase;
 import org.encog.plugin.EncogPluginLogging1;
 import org.encog.plugin.system.SystemActivationPlugin;
@@ -103,6 +105,12 @@ public final class Encog {
 	 */
 	private RandomFactory randomFactory = new BasicRandomFactory();
 
+	/**
+	 * The kernel used to compute and train flat networks, created on first
+	 * use.
+	 */
+	private volatile LayerKernel layerKernel;
+
 	private Set<EncogShutdownTask> shutdownTasks = new HashSet<>();
 
 	/**
@@ -253,6 +261,26 @@ public final class Encog {
 		this.randomFactory = randomFactory;
 	}
 
+	/**
+	 * @return The kernel used to compute and train flat networks.
+	 */
+	public LayerKernel getLayerKernel() {
+		LayerKernel result = this.layerKernel;
+		if (result == null) {
+			result = LayerKernelFactory.create();
+			this.layerKernel = result;
+		}
+		return result;
+	}
+
+	/**
+	 * @param theLayerKernel
+	 *            The kernel used to compute and train flat networks.
+	 */
+	public void setLayerKernel(final LayerKernel theLayerKernel) {
+		this.layerKernel = theLayerKernel;
+	}
+
 	/**
 	 * Add a shutdown task.
 	 *
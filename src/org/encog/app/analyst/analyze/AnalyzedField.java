@@ -205,6 +205,49 @@ public class AnalyzedField extends DataField {
 		this.setStandardDeviation(Math.sqrt(this.devTotal / this.instances));
 	}
 
+	/**
+	 * Complete the analysis from the statistics of every row of the field.
+	 * This has the same result as both analysis passes.
+	 *
+	 * @param stats
+	 *            The statistics of the field, merged in row order.
+	 */
+	public void completeAnalysis(final FieldStatistics stats) {
+		this.instances = stats.getInstances();
+		this.total = stats.getTotal();
+
+		if (!stats.isComplete()) {
+			this.setComplete(false);
+		}
+
+		this.setReal(!stats.isInvalidReal());
+		this.setInteger(!stats.isInvalidInteger());
+
+		if (this.isReal() || this.isInteger()) {
+			this.setMax(Math.max(stats.getMax(), this.getMax()));
+			this.setMin(Math.min(stats.getMin(), this.getMin()));
+			this.devTotal = stats.getSquaredDeviation();
+		} else {
+			this.setMax(0);
+			this.setMin(0);
+			this.devTotal = 0;
+		}
+
+		this.classMap.clear();
+		if (stats.isClassOverflow()) {
+			this.setClass(false);
+		} else {
+			this.classMap.putAll(stats.getClassMap());
+		}
+
+		if (this.instances == 0) {
+			this.setMean(0);
+		} else {
+			this.setMean(this.total / this.instances);
+		}
+		this.setStandardDeviation(Math.sqrt(this.devTotal / this.instances));
+	}
+
 	/**
 	 * Finalize the field, and create a DataField.
 	 *
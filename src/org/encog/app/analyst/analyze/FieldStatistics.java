@@ -0,0 +1,344 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.app.analyst.analyze;
+
+import java.text.NumberFormat;
+import java.text.ParseException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.encog.app.analyst.script.AnalystClassItem;
+import org.encog.util.csv.CSVFormat;
+
+/**
+ * Streaming statistics for one field, over a contiguous block of rows. The
+ * statistics of adjacent blocks can be merged, so a file can be split into
+ * blocks that are analyzed on separate threads, in a single pass.
+ *
+ * The mean and variance are accumulated with Welford's method, and merged
+ * with the method of Chan et al. The field stops being real, or integer, at
+ * the first value that does not parse as one. The totals are kept for each
+ * combination of these flags at the start of the block, so that merged blocks
+ * produce the same totals as reading the rows in order.
+ */
+public class FieldStatistics {
+
+	/**
+	 * The number format, owned by this object, as number formats are not
+	 * thread safe.
+	 */
+	private final NumberFormat numberFormat;
+
+	/**
+	 * The most classes a field can have.
+	 */
+	private final int maxClassCount;
+
+	/**
+	 * The number of values that are not missing.
+	 */
+	private int instances;
+
+	/**
+	 * True, if no values are missing.
+	 */
+	private boolean complete = true;
+
+	/**
+	 * True, if a value did not parse as a real.
+	 */
+	private boolean invalidReal;
+
+	/**
+	 * True, if a value did not parse as an integer.
+	 */
+	private boolean invalidInteger;
+
+	/**
+	 * The total, if the field was both real and integer at the start of the
+	 * block.
+	 */
+	private double totalBoth;
+
+	/**
+	 * The total, if the field was only real at the start of the block.
+	 */
+	private double totalReal;
+
+	/**
+	 * The total, if the field was only integer at the start of the block.
+	 */
+	private double totalInteger;
+
+	/**
+	 * The smallest number.
+	 */
+	private double min = Double.POSITIVE_INFINITY;
+
+	/**
+	 * The largest number.
+	 */
+	private double max = Double.NEGATIVE_INFINITY;
+
+	/**
+	 * The count of numbers.
+	 */
+	private long count;
+
+	/**
+	 * The mean of the numbers.
+	 */
+	private double mean;
+
+	/**
+	 * The sum of the squared differences from the mean.
+	 */
+	private double m2;
+
+	/**
+	 * The class items, by code.
+	 */
+	private final Map<String, AnalystClassItem> classMap = new HashMap<>();
+
+	/**
+	 * True, if there are more classes than are allowed.
+	 */
+	private boolean classOverflow;
+
+	/**
+	 * Construct the statistics.
+	 *
+	 * @param format
+	 *            The format of the numbers.
+	 * @param theMaxClassCount
+	 *            The most classes a field can have.
+	 */
+	public FieldStatistics(final CSVFormat format, final int theMaxClassCount) {
+		this.numberFormat = new CSVFormat(format.getDecimal(), format.getSeparator()).getNumberFormatter();
+		this.maxClassCount = theMaxClassCount;
+	}
+
+	/**
+	 * Add the next value of the field.
+	 *
+	 * @param v
+	 *            The value.
+	 */
+	public void add(final String v) {
+		final String str = v.trim();
+
+		if (str.length() == 0 || str.equals("?")) {
+			this.complete = false;
+			return;
+		}
+
+		this.instances++;
+
+		// once both parsers have failed, the numbers no longer matter
+		double d = 0;
+		boolean realOk = false;
+		if (!this.invalidReal) {
+			if (!str.equalsIgnoreCase("NaN")) {
+				try {
+					d = this.numberFormat.parse(str).doubleValue();
+					realOk = true;
+				} catch (final ParseException ex) {
+					// not a real
+				}
+			}
+			if (realOk) {
+				this.totalBoth += d;
+				this.totalReal += d;
+			} else {
+				this.invalidReal = true;
+			}
+		}
+
+		int i = 0;
+		boolean intOk = false;
+		if (!this.invalidInteger) {
+			try {
+				i = Integer.parseInt(str);
+				intOk = true;
+			} catch (final NumberFormatException ex) {
+				this.invalidInteger = true;
+			}
+			if (intOk) {
+				this.totalInteger += i;
+				if (this.invalidReal) {
+					this.totalBoth += i;
+				}
+			}
+		}
+
+		if (realOk || intOk) {
+			final double x = realOk ? d : i;
+			this.min = Math.min(this.min, x);
+			this.max = Math.max(this.max, x);
+			this.count++;
+			final double delta = x - this.mean;
+			this.mean += delta / this.count;
+			this.m2 += delta * (x - this.mean);
+		}
+
+		if (!this.classOverflow) {
+			final AnalystClassItem item = this.classMap.get(str);
+			if (item == null) {
+				this.classMap.put(str, new AnalystClassItem(str, str, 1));
+				this.checkClassCount();
+			} else {
+				item.increaseCount();
+			}
+		}
+	}
+
+	/**
+	 * Stop counting classes, if there are too many.
+	 */
+	private void checkClassCount() {
+		if (this.classMap.size() > this.maxClassCount) {
+			this.classOverflow = true;
+			this.classMap.clear();
+		}
+	}
+
+	/**
+	 * Merge the statistics of the block that follows this one.
+	 *
+	 * @param next
+	 *            The statistics of the next block.
+	 */
+	public void merge(final FieldStatistics next) {
+		if (this.invalidReal) {
+			this.totalBoth += this.invalidInteger ? 0 : next.totalInteger;
+		} else {
+			this.totalBoth += this.invalidInteger ? next.totalReal : next.totalBoth;
+			this.totalReal += next.totalReal;
+		}
+		if (!this.invalidInteger) {
+			this.totalInteger += next.totalInteger;
+		}
+		this.invalidReal |= next.invalidReal;
+		this.invalidInteger |= next.invalidInteger;
+
+		this.instances += next.instances;
+		this.complete &= next.complete;
+		this.min = Math.min(this.min, next.min);
+		this.max = Math.max(this.max, next.max);
+
+		if (next.count > 0) {
+			final long n = this.count + next.count;
+			final double delta = next.mean - this.mean;
+			this.mean += delta * next.count / n;
+			this.m2 += next.m2 + delta * delta * this.count * next.count / n;
+			this.count = n;
+		}
+
+		if (!this.classOverflow) {
+			if (next.classOverflow) {
+				this.classOverflow = true;
+				this.classMap.clear();
+			} else {
+				for (final AnalystClassItem item : next.classMap.values()) {
+					final AnalystClassItem current = this.classMap.get(item.getCode());
+					final int c = current == null ? item.getCount() : current.getCount() + item.getCount();
+					this.classMap.put(item.getCode(), new AnalystClassItem(item.getCode(), item.getName(), c));
+				}
+				this.checkClassCount();
+			}
+		}
+	}
+
+	/**
+	 * @return The class items, by code, empty if there are too many classes.
+	 */
+	public Map<String, AnalystClassItem> getClassMap() {
+		return this.classMap;
+	}
+
+	/**
+	 * @return The number of values that are not missing.
+	 */
+	public int getInstances() {
+		return this.instances;
+	}
+
+	/**
+	 * @return The largest number.
+	 */
+	public double getMax() {
+		return this.max;
+	}
+
+	/**
+	 * @return The smallest number.
+	 */
+	public double getMin() {
+		return this.min;
+	}
+
+	/**
+	 * @return The sum of the squared differences from the mean, of the
+	 *         numbers.
+	 */
+	public double getSquaredDeviation() {
+		return this.m2;
+	}
+
+	/**
+	 * @return The total of the field, as it would be summed reading the rows
+	 *         in order from the start of the file.
+	 */
+	public double getTotal() {
+		return this.totalBoth;
+	}
+
+	/**
+	 * @return True, if there are more classes than are allowed.
+	 */
+	public boolean isClassOverflow() {
+		return this.classOverflow;
+	}
+
+	/**
+	 * @return True, if no values are missing.
+	 */
+	public boolean isComplete() {
+		return this.complete;
+	}
+
+	/**
+	 * @return True, if a value did not parse as an integer.
+	 */
+	public boolean isInvalidInteger() {
+		return this.invalidInteger;
+	}
+
+	/**
+	 * @return True, if a value did not parse as a real.
+	 */
+	public boolean isInvalidReal() {
+		return this.invalidReal;
+	}
+}
@@ -23,6 +23,12 @@
  */
 package org.encog.app.analyst.analyze;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
 import java.util.List;
 
 import org.encog.app.analyst.AnalystError;
@@ -34,6 +40,8 @@ import org.encog.app.analyst.script.DataField;
 import org.encog.app.analyst.script.prop.ScriptProperties;
 import org.encog.app.analyst.util.CSVHeaders;
 import org.encog.app.analyst.util.ConvertStringConst;
+import org.encog.util.concurrency.RangeTask;
+import org.encog.util.concurrency.SharedExecutor;
 import org.encog.util.csv.CSVFormat;
 import org.encog.util.csv.ReadCSV;
 
@@ -44,6 +52,92 @@ import org.encog.util.csv.ReadCSV;
  */
 public class PerformAnalysis {
 
+	/**
+	 * The smallest block of the file, in bytes, that is analyzed on its own
+	 * thread.
+	 */
+	public static final long MIN_BLOCK_SIZE = 1 << 20;
+
+	/**
+	 * An input stream that reads a block of another stream.
+	 */
+	private static class BlockInputStream extends FilterInputStream {
+
+		/**
+		 * The number of bytes left in the block.
+		 */
+		private long remaining;
+
+		/**
+		 * Construct the stream.
+		 *
+		 * @param in
+		 *            The stream, positioned at the start of the block.
+		 * @param length
+		 *            The length of the block.
+		 */
+		BlockInputStream(final InputStream in, final long length) {
+			super(in);
+			this.remaining = length;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public int available() throws IOException {
+			return (int) Math.min(super.available(), this.remaining);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean markSupported() {
+			return false;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public int read() throws IOException {
+			if (this.remaining <= 0) {
+				return -1;
+			}
+			final int result = super.read();
+			if (result >= 0) {
+				this.remaining--;
+			}
+			return result;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public int read(final byte[] b, final int off, final int len) throws IOException {
+			if (this.remaining <= 0) {
+				return -1;
+			}
+			final int result = super.read(b, off, (int) Math.min(len, this.remaining));
+			if (result > 0) {
+				this.remaining -= result;
+			}
+			return result;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public long skip(final long n) throws IOException {
+			final long result = super.skip(Math.min(n, this.remaining));
+			this.remaining -= result;
+			return result;
+		}
+	}
+
 	/**
 	 * The file name to analyze.
 	 */
@@ -89,6 +183,107 @@ public class PerformAnalysis {
 		this.script = theScript;
 	}
 
+	/**
+	 * Analyze one block of the file.
+	 *
+	 * @param csvFormat
+	 *            The format of the file.
+	 * @param numberFormat
+	 *            The format of the numbers.
+	 * @param maxClassCount
+	 *            The most classes a field can have.
+	 * @param start
+	 *            The offset of the first line of the block.
+	 * @param end
+	 *            The offset after the last line of the block.
+	 * @param first
+	 *            True, if this is the first block, which holds the headers.
+	 * @return The statistics of each field, for the block.
+	 */
+	private FieldStatistics[] analyzeBlock(final CSVFormat csvFormat, final CSVFormat numberFormat,
+			final int maxClassCount, final long start, final long end, final boolean first) {
+		final FieldStatistics[] result = new FieldStatistics[this.fields.length];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = new FieldStatistics(numberFormat, maxClassCount);
+		}
+
+		final InputStream is;
+		try {
+			final FileInputStream fis = new FileInputStream(this.filename);
+			fis.getChannel().position(start);
+			is = new BlockInputStream(fis, end - start);
+		} catch (final IOException ex) {
+			throw new AnalystError(ex);
+		}
+
+		final ReadCSV csv = new ReadCSV(is, first && this.headers, csvFormat);
+		try {
+			while (csv.next()) {
+				final int columns = Math.min(csv.getColumnCount(), result.length);
+				for (int i = 0; i < columns; i++) {
+					result[i].add(csv.get(i));
+				}
+			}
+		} finally {
+			csv.close();
+		}
+
+		return result;
+	}
+
+	/**
+	 * Split the file into blocks that start on a line boundary. Small files
+	 * are a single block.
+	 *
+	 * @return The offset of the start of each block, followed by the length of
+	 *         the file.
+	 */
+	private long[] findBlocks() {
+		final File file = new File(this.filename);
+		final long length = file.length();
+		final int threads = SharedExecutor.getInstance().getPool().getParallelism();
+		final int blockCount = (int) Math.max(1,
+				Math.min(threads * SharedExecutor.CHUNKS_PER_THREAD, length / PerformAnalysis.MIN_BLOCK_SIZE));
+
+		final long[] result = new long[blockCount + 1];
+		result[blockCount] = length;
+
+		if (blockCount > 1) {
+			RandomAccessFile raf = null;
+			try {
+				raf = new RandomAccessFile(file, "r");
+				for (int i = 1; i < blockCount; i++) {
+					// move forward to the start of the next line
+					long pos = Math.max(result[i - 1], (length * i) / blockCount);
+					if (pos > 0) {
+						raf.seek(pos - 1);
+						int ch = raf.read();
+						while ((ch != -1) && (ch != '\n')) {
+							pos++;
+							ch = raf.read();
+						}
+						if (ch == -1) {
+							pos = length;
+						}
+					}
+					result[i] = pos;
+				}
+			} catch (final IOException ex) {
+				throw new AnalystError(ex);
+			} finally {
+				if (raf != null) {
+					try {
+						raf.close();
+					} catch (final IOException ex) {
+						// ignore
+					}
+				}
+			}
+		}
+
+		return result;
+	}
+
 	/**
 	 * Generate the header fields.
 	 *
@@ -134,52 +329,51 @@ public class PerformAnalysis {
 	}
 
 	/**
-	 * Perform the analysis.
+	 * Perform the analysis. The file is read in a single pass, large files are
+	 * split into blocks on line boundaries, which are analyzed in parallel.
 	 *
 	 * @param target
 	 *            The Encog analyst object to analyze.
 	 */
 	public void process(final EncogAnalyst target) {
-		int count = 0;
 		final CSVFormat csvFormat = ConvertStringConst.convertToCSVFormat(this.format);
-		ReadCSV csv = new ReadCSV(this.filename, this.headers, csvFormat);
-
-		// pass one, calculate the min/max
-		while (csv.next()) {
-			if (this.fields == null) {
-				this.generateFields(csv);
-			}
 
-			for (int i = 0; i < csv.getColumnCount(); i++) {
-				this.fields[i].analyze1(csv.get(i));
+		// read the first row, to find the fields
+		final ReadCSV csv = new ReadCSV(this.filename, this.headers, csvFormat);
+		try {
+			if (!csv.next()) {
+				throw new AnalystError("Can't analyze file, it is empty.");
 			}
-			count++;
-		}
-
-		if (count == 0) {
-			throw new AnalystError("Can't analyze file, it is empty.");
-		}
-
-		for (final AnalyzedField field : this.fields) {
-			field.completePass1();
+			this.generateFields(csv);
+		} finally {
+			csv.close();
 		}
 
-		csv.close();
-
-		// pass two, standard deviation
-		csv = new ReadCSV(this.filename, this.headers, csvFormat);
-		while (csv.next()) {
-			for (int i = 0; i < csv.getColumnCount(); i++) {
-				this.fields[i].analyze2(csv.get(i));
+		// analyze each block of the file on its own thread, in one pass
+		final CSVFormat numberFormat = this.script.determineFormat();
+		final int maxClassCount = this.script.getProperties()
+				.getPropertyInt(ScriptProperties.SETUP_CONFIG_MAX_CLASS_COUNT);
+		final long[] blocks = this.findBlocks();
+		final FieldStatistics[][] stats = new FieldStatistics[blocks.length - 1][];
+
+		SharedExecutor.getInstance().process(stats.length, new RangeTask() {
+			@Override
+			public void run(final int low, final int high) {
+				for (int i = low; i < high; i++) {
+					stats[i] = PerformAnalysis.this.analyzeBlock(csvFormat, numberFormat, maxClassCount, blocks[i],
+							blocks[i + 1], i == 0);
+				}
 			}
-		}
+		});
 
-		for (final AnalyzedField field : this.fields) {
-			field.completePass2();
+		// merge the blocks in file order
+		for (int i = 0; i < this.fields.length; i++) {
+			for (int b = 1; b < stats.length; b++) {
+				stats[0][i].merge(stats[b][i]);
+			}
+			this.fields[i].completeAnalysis(stats[0][i]);
 		}
 
-		csv.close();
-
 		String str = this.script.getProperties().getPropertyString(ScriptProperties.SETUP_CONFIG_ALLOWED_CLASSES);
 		if (str == null) {
 			str = "";
@@ -27,6 +27,7 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.Arrays;
 
 import org.encog.app.analyst.EncogAnalyst;
 import org.encog.app.analyst.csv.basic.BasicFile;
@@ -34,11 +35,6 @@ import org.encog.app.analyst.csv.basic.LoadedRow;
 import org.encog.app.analyst.csv.normalize.AnalystNormalizeCSV;
 import org.encog.app.analyst.util.CSVHeaders;
 import org.encog.app.quant.QuantError;
-import org.encog.ml.MLCluster;
-import org.encog.ml.data.MLData;
-import org.encog.ml.data.basic.BasicMLData;
-import org.encog.ml.data.basic.BasicMLDataPair;
-import org.encog.ml.data.basic.BasicMLDataSet;
 import org.encog.ml.kmeans.KMeansClustering;
 import org.encog.util.csv.CSVFormat;
 import org.encog.util.csv.ReadCSV;
@@ -60,9 +56,19 @@ public class AnalystClusterCSV extends BasicFile {
 	private CSVHeaders analystHeaders;
 
 	/**
-	 * The training data used to send to KMeans.
+	 * The rows to send to KMeans, one after another.
 	 */
-	private BasicMLDataSet data;
+	private double[] data;
+
+	/**
+	 * The number of values in each row.
+	 */
+	private int rowSize;
+
+	/**
+	 * The number of rows.
+	 */
+	private int rowCount;
 
 	/**
 	 * Analyze the data. This counts the records and prepares the data to be
@@ -85,11 +91,13 @@ public class AnalystClusterCSV extends BasicFile {
 
 		this.setAnalyzed(true);
 		this.analyst = theAnalyst;
-		this.data = new BasicMLDataSet();
 		this.resetStatus();
 		int recordCount = 0;
 
 		final int outputLength = this.analyst.determineTotalColumns();
+		this.rowSize = outputLength;
+		this.rowCount = 0;
+		this.data = new double[Math.max(1, outputLength) * 1024];
 		final ReadCSV csv = new ReadCSV(this.getInputFilename().toString(), this.isExpectInputHeaders(),
 				this.getFormat());
 		this.readHeaders(csv);
@@ -100,8 +108,12 @@ public class AnalystClusterCSV extends BasicFile {
 			this.updateStatus(true);
 			final double[] inputArray = AnalystNormalizeCSV.extractFields(this.analyst, this.analystHeaders, csv,
 					outputLength, true);
-			final MLData input = new BasicMLData(inputArray);
-			this.data.add(new BasicMLDataPair(input));
+			if ((long) (this.rowCount + 1) * outputLength > this.data.length) {
+				this.data = Arrays.copyOf(this.data, (int) Math.min(Integer.MAX_VALUE - 8,
+						Math.max((long) this.data.length * 2, (long) (this.rowCount + 1) * outputLength)));
+			}
+			System.arraycopy(inputArray, 0, this.data, this.rowCount * outputLength, outputLength);
+			this.rowCount++;
 
 			recordCount++;
 		}
@@ -175,18 +187,32 @@ public class AnalystClusterCSV extends BasicFile {
 
 		this.resetStatus();
 
-		final KMeansClustering cluster = new KMeansClustering(clusters, this.data);
-		cluster.iteration(iterations);
+		if (this.rowCount > 0) {
+			final KMeansClustering cluster = new KMeansClustering(clusters, this.data, this.rowCount, this.rowSize);
+			cluster.iteration(iterations);
+
+			// write the rows grouped by cluster, in their original order
+			// within each cluster
+			final int[] assignment = cluster.getAssignment();
+			final int[] start = new int[clusters + 1];
+			for (int i = 0; i < this.rowCount; i++) {
+				start[assignment[i] + 1]++;
+			}
+			for (int c = 0; c < clusters; c++) {
+				start[c + 1] += start[c];
+			}
+			final int[] order = new int[this.rowCount];
+			for (int i = 0; i < this.rowCount; i++) {
+				order[start[assignment[i]]++] = i;
+			}
 
-		int clusterNum = 0;
-		for (final MLCluster cl : cluster.getClusters()) {
-			for (final MLData item : cl.getData()) {
-				final int clsIndex = item.size();
-				final LoadedRow lr = new LoadedRow(this.getFormat(), item.getData(), 1);
-				lr.getData()[clsIndex] = "" + clusterNum;
+			final double[] row = new double[this.rowSize];
+			for (final int i : order) {
+				System.arraycopy(this.data, i * this.rowSize, row, 0, this.rowSize);
+				final LoadedRow lr = new LoadedRow(this.getFormat(), row, 1);
+				lr.getData()[this.rowSize] = "" + assignment[i];
 				this.writeRow(tw, lr);
 			}
-			clusterNum++;
 		}
 
 		this.reportDone(false);
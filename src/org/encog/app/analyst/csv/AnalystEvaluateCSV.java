@@ -27,6 +27,8 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.encog.app.analyst.EncogAnalyst;
 import org.encog.app.analyst.csv.basic.BasicFile;
@@ -35,6 +37,7 @@ import org.encog.app.analyst.csv.normalize.AnalystNormalizeCSV;
 import org.encog.app.analyst.script.normalize.AnalystField;
 import org.encog.app.analyst.util.CSVHeaders;
 import org.encog.app.quant.QuantError;
+import org.encog.ml.MLBatchRegression;
 import org.encog.ml.MLClassification;
 import org.encog.ml.MLMethod;
 import org.encog.ml.MLRegression;
@@ -189,6 +192,12 @@ public class AnalystEvaluateCSV extends BasicFile {
 		final PrintWriter tw = this.prepareOutputFile(method, outputFile,
 				this.analyst.getScript().getNormalize().countActiveFields() - 1, 1);
 
+		// methods that can compute a block of rows at once are given the rows
+		// in blocks, the rows are written once their block is computed
+		final boolean batch = method instanceof MLBatchRegression;
+		final List<LoadedRow> pendingRows = new ArrayList<>();
+		final List<double[]> pendingInput = new ArrayList<>();
+
 		this.resetStatus();
 		while (csv.next()) {
 			this.updateStatus(false);
@@ -200,6 +209,15 @@ public class AnalystEvaluateCSV extends BasicFile {
 				inputArray = this.series.process(inputArray);
 			}
 
+			if (batch) {
+				pendingRows.add(row);
+				pendingInput.add(inputArray);
+				if (pendingRows.size() >= MLBatchRegression.DEFAULT_BATCH_ROWS) {
+					this.processBatch(tw, (MLBatchRegression) method, pendingRows, pendingInput);
+				}
+				continue;
+			}
+
 			if (inputArray != null) {
 				final MLData input = new BasicMLData(inputArray);
 
@@ -213,44 +231,110 @@ public class AnalystEvaluateCSV extends BasicFile {
 					output = ((MLRegression) method).compute(input);
 				}
 
-				// skip file data
-				int index = this.fileColumns;
-				int outputIndex = 0;
-
-				String otherOutput = "";
-				if (method instanceof BayesianNetwork) {
-					otherOutput = ((BayesianNetwork) method).getClassificationTargetEvent().getLabel();
-				}
-
-				// display output
-				for (final AnalystField field : this.analyst.getScript().getNormalize().getNormalizedFields()) {
-					if (this.analystHeaders.find(field.getName()) != -1) {
-
-						if (field.isOutput() || field.getName().equals(otherOutput)) {
-							if (field.isClassify()) {
-								// classification
-								final ClassItem cls = field.determineClass(outputIndex, output.getData());
-								outputIndex += field.getColumnsNeeded();
-								if (cls == null) {
-									row.getData()[index++] = "?Unknown?";
-								} else {
-									row.getData()[index++] = cls.getName();
-								}
-							} else {
-								// regression
-								double n = output.getData(outputIndex++);
-								n = field.deNormalize(n);
-								row.getData()[index++] = this.getFormat().format(n, this.getPrecision());
-							}
-						}
-					}
-				}
+				this.fillOutput(row, output, method);
 			}
 
 			this.writeRow(tw, row);
 		}
+
+		if (batch) {
+			this.processBatch(tw, (MLBatchRegression) method, pendingRows, pendingInput);
+		}
+
 		this.reportDone(false);
 		tw.close();
 		csv.close();
 	}
+
+	/**
+	 * Compute a block of pending rows, and write them. Rows that have no input
+	 * yet, such as the first rows of a time series, are written without
+	 * output.
+	 *
+	 * @param tw
+	 *            The output file.
+	 * @param method
+	 *            The method to use.
+	 * @param pendingRows
+	 *            The rows to write, cleared once written.
+	 * @param pendingInput
+	 *            The input for each row, or null, cleared once written.
+	 */
+	private void processBatch(final PrintWriter tw, final MLBatchRegression method, final List<LoadedRow> pendingRows,
+			final List<double[]> pendingInput) {
+		int count = 0;
+		for (final double[] inputArray : pendingInput) {
+			if (inputArray != null) {
+				count++;
+			}
+		}
+
+		final double[][] input = new double[count][];
+		final double[][] actual = new double[count][method.getOutputCount()];
+		int index = 0;
+		for (final double[] inputArray : pendingInput) {
+			if (inputArray != null) {
+				input[index++] = inputArray;
+			}
+		}
+
+		method.compute(input, actual);
+
+		index = 0;
+		for (int i = 0; i < pendingRows.size(); i++) {
+			final LoadedRow row = pendingRows.get(i);
+			if (pendingInput.get(i) != null) {
+				this.fillOutput(row, new BasicMLData(actual[index++]), method);
+			}
+			this.writeRow(tw, row);
+		}
+
+		pendingRows.clear();
+		pendingInput.clear();
+	}
+
+	/**
+	 * Place the output of the method into the output columns of a row.
+	 *
+	 * @param row
+	 *            The row.
+	 * @param output
+	 *            The output of the method.
+	 * @param method
+	 *            The method used.
+	 */
+	private void fillOutput(final LoadedRow row, final MLData output, final MLMethod method) {
+		// skip file data
+		int index = this.fileColumns;
+		int outputIndex = 0;
+
+		String otherOutput = "";
+		if (method instanceof BayesianNetwork) {
+			otherOutput = ((BayesianNetwork) method).getClassificationTargetEvent().getLabel();
+		}
+
+		// display output
+		for (final AnalystField field : this.analyst.getScript().getNormalize().getNormalizedFields()) {
+			if (this.analystHeaders.find(field.getName()) != -1) {
+
+				if (field.isOutput() || field.getName().equals(otherOutput)) {
+					if (field.isClassify()) {
+						// classification
+						final ClassItem cls = field.determineClass(outputIndex, output.getData());
+						outputIndex += field.getColumnsNeeded();
+						if (cls == null) {
+							row.getData()[index++] = "?Unknown?";
+						} else {
+							row.getData()[index++] = cls.getName();
+						}
+					} else {
+						// regression
+						double n = output.getData(outputIndex++);
+						n = field.deNormalize(n);
+						row.getData()[index++] = this.getFormat().format(n, this.getPrecision());
+					}
+				}
+			}
+		}
+	}
 }
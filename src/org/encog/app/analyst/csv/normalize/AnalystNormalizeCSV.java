@@ -79,10 +79,9 @@ public class AnalystNormalizeCSV extends BasicFile {
 			}
 
 			int index = headers.find(stat.getName());
-			final String str = csv.get(index).trim();
 
 			// is this an unknown value?
-			if (str.equals("?") || str.length() == 0) {
+			if (csv.isMissing(index)) {
 				HandleMissingValues handler = analyst.getScript().getNormalize().getMissingValues();
 				double[] d = handler.handleMissing(analyst, stat);
 
@@ -98,14 +97,14 @@ public class AnalystNormalizeCSV extends BasicFile {
 			} else {
 				// known value
 				if (stat.getAction() == NormalizationAction.Normalize) {
-					double d = csv.getFormat().parse(str);
+					double d = csv.getDouble(index);
 					d = stat.normalize(d);
 					output[outputIndex++] = d;
 				} else if (stat.getAction() == NormalizationAction.PassThrough) {
-					double d = csv.getFormat().parse(str);
+					double d = csv.getDouble(index);
 					output[outputIndex++] = d;
 				} else {
-					final double[] d = stat.encode(str);
+					final double[] d = stat.encode(csv.get(index).trim());
 					for (final double element : d) {
 						output[outputIndex++] = element;
 					}
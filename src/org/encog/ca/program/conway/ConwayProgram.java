@@ -27,8 +27,18 @@ import org.encog.ca.program.basic.BasicProgram;
 import org.encog.ca.program.basic.Movement;
 import org.encog.ca.universe.Universe;
 import org.encog.ca.universe.UniverseCell;
+import org.encog.ca.universe.packed.BitUniverse;
+import org.encog.util.concurrency.MultiThreadable;
+import org.encog.util.concurrency.RangeTask;
+import org.encog.util.concurrency.SharedExecutor;
 
-public class ConwayProgram extends BasicProgram {
+/**
+ * Conway's game of life. When both universes are {@link BitUniverse}s of the
+ * same size, a generation is computed 64 cells at a time with bitwise
+ * adders, and bands of rows are processed in parallel. Otherwise each cell is
+ * processed on its own.
+ */
+public class ConwayProgram extends BasicProgram implements MultiThreadable {
 
 	public ConwayProgram(Universe theSourceUniverse) {
 		super(Movement.MOVE_8WAY);
@@ -38,8 +48,21 @@ public class ConwayProgram extends BasicProgram {
 	private Universe sourceUniverse;
 	private Universe targetUniverse;
 
+	/**
+	 * The number of threads to use for bit packed universes, zero for all
+	 * available.
+	 */
+	private int threadCount;
+
 	@Override
 	public void iteration() {
+		if (this.sourceUniverse instanceof BitUniverse && this.targetUniverse instanceof BitUniverse
+				&& this.sourceUniverse.getRows() == this.targetUniverse.getRows()
+				&& this.sourceUniverse.getColumns() == this.targetUniverse.getColumns()) {
+			this.iteration((BitUniverse) this.sourceUniverse, (BitUniverse) this.targetUniverse);
+			return;
+		}
+
 		int height = this.sourceUniverse.getRows();
 		int width = this.targetUniverse.getColumns();
 
@@ -50,6 +73,150 @@ public class ConwayProgram extends BasicProgram {
 		}
 	}
 
+	/**
+	 * Compute one generation of a bit packed universe.
+	 *
+	 * @param source
+	 *            The current generation.
+	 * @param target
+	 *            The universe to hold the next generation, may be the source.
+	 */
+	private void iteration(final BitUniverse source, final BitUniverse target) {
+		final int rows = source.getRows();
+		final int words = source.getWordsPerRow();
+		final long lastWordMask = source.getLastWordMask();
+		final long[] src = source.getData();
+		final long[] dst = source == target ? new long[src.length] : target.getData();
+
+		SharedExecutor.getInstance().process(rows, this.threadCount > 0 ? this.threadCount : Integer.MAX_VALUE,
+				new RangeTask() {
+					@Override
+					public void run(final int low, final int high) {
+						ConwayProgram.processRows(src, dst, rows, words, lastWordMask, low, high);
+					}
+				});
+
+		if (source == target) {
+			System.arraycopy(dst, 0, src, 0, src.length);
+		}
+	}
+
+	/**
+	 * Compute the next generation of a band of rows. Each word is handled at
+	 * once: the eight neighbor words are formed by shifting the rows above,
+	 * below and beside it, and summed into a four bit count per cell.
+	 *
+	 * @param src
+	 *            The current generation.
+	 * @param dst
+	 *            The next generation.
+	 * @param rows
+	 *            The number of rows.
+	 * @param words
+	 *            The number of words in each row.
+	 * @param lastWordMask
+	 *            The used bits of the last word of each row.
+	 * @param low
+	 *            The first row.
+	 * @param high
+	 *            One past the last row.
+	 */
+	private static void processRows(final long[] src, final long[] dst, final int rows, final int words,
+			final long lastWordMask, final int low, final int high) {
+		for (int row = low; row < high; row++) {
+			final int mid = row * words;
+			final int up = row > 0 ? mid - words : -1;
+			final int down = row < rows - 1 ? mid + words : -1;
+
+			for (int w = 0; w < words; w++) {
+				// cells above, as a two bit count
+				final long nw = west(src, up, w);
+				final long n = up < 0 ? 0 : src[up + w];
+				final long ne = east(src, up, w, words);
+				final long u0 = nw ^ n ^ ne;
+				final long u1 = (nw & n) | (ne & (nw ^ n));
+
+				// cells below, as a two bit count
+				final long sw = west(src, down, w);
+				final long s = down < 0 ? 0 : src[down + w];
+				final long se = east(src, down, w, words);
+				final long d0 = sw ^ s ^ se;
+				final long d1 = (sw & s) | (se & (sw ^ s));
+
+				// cells beside
+				final long we = west(src, mid, w);
+				final long ea = east(src, mid, w, words);
+				final long m0 = we ^ ea;
+				final long m1 = we & ea;
+
+				// above + below
+				final long carry = u0 & d0;
+				final long t0 = u0 ^ d0;
+				final long t1 = u1 ^ d1 ^ carry;
+				final long t2 = (u1 & d1) | (carry & (u1 ^ d1));
+
+				// + beside
+				final long c0 = t0 & m0;
+				final long r0 = t0 ^ m0;
+				final long r1 = t1 ^ m1 ^ c0;
+				final long c1 = (t1 & m1) | (c0 & (t1 ^ m1));
+				final long r2 = t2 ^ c1;
+
+				// a count of 3 gives birth, a count of 2 keeps a live cell;
+				// a count of 8 has r1 clear
+				long result = ~r2 & r1 & (r0 | src[mid + w]);
+				if (w == words - 1) {
+					result &= lastWordMask;
+				}
+				dst[mid + w] = result;
+			}
+		}
+	}
+
+	/**
+	 * @param data
+	 *            The packed cells.
+	 * @param offset
+	 *            The first word of the row, or -1 for a row outside the
+	 *            universe.
+	 * @param w
+	 *            The word.
+	 * @return For each cell of the word, the cell to its west.
+	 */
+	private static long west(final long[] data, final int offset, final int w) {
+		if (offset < 0) {
+			return 0;
+		}
+		long result = data[offset + w] << 1;
+		if (w > 0) {
+			result |= data[offset + w - 1] >>> 63;
+		}
+		return result;
+	}
+
+	/**
+	 * @param data
+	 *            The packed cells.
+	 * @param offset
+	 *            The first word of the row, or -1 for a row outside the
+	 *            universe.
+	 * @param w
+	 *            The word.
+	 * @param words
+	 *            The number of words in each row.
+	 * @return For each cell of the word, the cell to its east.
+	 */
+	private static long east(final long[] data, final int offset, final int w, final int words) {
+		if (offset < 0) {
+			return 0;
+		}
+		long result = data[offset + w] >>> 1;
+		if (w + 1 < words) {
+			result |= data[offset + w + 1] << 63;
+		}
+		return result;
+	}
+
 	public void processCell(int row, int col) {
 		Movement[] movements = this.getMovements();
 
@@ -139,4 +306,20 @@ public class ConwayProgram extends BasicProgram {
 		this.targetUniverse = targetUniverse;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getThreadCount() {
+		return this.threadCount;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setThreadCount(final int numThreads) {
+		this.threadCount = numThreads;
+	}
+
 }
@@ -23,10 +23,17 @@
  */
 package org.encog.ca.program.elementary;
 
+import org.encog.ca.CellularAutomataError;
 import org.encog.ca.program.basic.BasicProgram;
 import org.encog.ca.program.basic.Movement;
 import org.encog.ca.universe.Universe;
+import org.encog.ca.universe.packed.BitUniverse;
 
+/**
+ * An elementary (one dimensional) automaton. Each iteration computes the next
+ * row from the row above it. When both universes are {@link BitUniverse}s of
+ * the same size, the row is computed 64 cells at a time.
+ */
 public class ElementaryCA extends BasicProgram {
 
 	private boolean[] output = new boolean[8];
@@ -54,6 +61,14 @@ public class ElementaryCA extends BasicProgram {
 
 	@Override
 	public void iteration() {
+		if (this.sourceUniverse instanceof BitUniverse && this.targetUniverse instanceof BitUniverse
+				&& this.sourceUniverse.getRows() == this.targetUniverse.getRows()
+				&& this.sourceUniverse.getColumns() == this.targetUniverse.getColumns()) {
+			this.iteration((BitUniverse) this.sourceUniverse, (BitUniverse) this.targetUniverse);
+			this.currentRow++;
+			return;
+		}
+
 		int prevRow = this.currentRow - 1;
 
 		for (int i = 0; i < this.sourceUniverse.getColumns() - 2; i++) {
@@ -87,6 +102,68 @@ public class ElementaryCA extends BasicProgram {
 
 	}
 
+	/**
+	 * Compute the current row of a bit packed universe. As with the cell by
+	 * cell version, the first and last columns are left alone.
+	 *
+	 * @param source
+	 *            The universe holding the previous row.
+	 * @param target
+	 *            The universe to hold the current row.
+	 */
+	private void iteration(final BitUniverse source, final BitUniverse target) {
+		final int columns = source.getColumns();
+		final int words = source.getWordsPerRow();
+		final long[] src = source.getData();
+		final long[] dst = target.getData();
+		final int prev = (this.currentRow - 1) * words;
+		final int cur = this.currentRow * words;
+		if (cur >= dst.length) {
+			throw new CellularAutomataError("No rows left in the universe.");
+		}
+
+		for (int w = 0; w < words; w++) {
+			final long b = src[prev + w];
+			long a = b << 1;
+			long c = b >>> 1;
+			if (w > 0) {
+				a |= src[prev + w - 1] >>> 63;
+			}
+			if (w + 1 < words) {
+				c |= src[prev + w + 1] << 63;
+			}
+
+			// output[7 - p] is the result for the pattern p = abc
+			long result = 0;
+			for (int p = 0; p < 8; p++) {
+				if (this.output[7 - p]) {
+					result |= ((p & 4) != 0 ? a : ~a) & ((p & 2) != 0 ? b : ~b) & ((p & 1) != 0 ? c : ~c);
+				}
+			}
+
+			final long mask = ElementaryCA.interiorMask(w, columns);
+			dst[cur + w] = (dst[cur + w] & ~mask) | (result & mask);
+		}
+	}
+
+	/**
+	 * @param w
+	 *            The word.
+	 * @param columns
+	 *            The number of columns.
+	 * @return The bits of the word that hold columns 1 to columns-2.
+	 */
+	private static long interiorMask(final int w, final int columns) {
+		final int first = Math.max(1, w << 6);
+		final int last = Math.min(columns - 2, (w << 6) + 63);
+		if (first > last) {
+			return 0;
+		}
+		final int count = last - first + 1;
+		final long bits = count == 64 ? -1L : (1L << count) - 1;
+		return bits << (first & 63);
+	}
+
 	@Override
 	public void randomize() {
 		// TODO Auto-generated method stub
@@ -0,0 +1,113 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ca.universe.packed;
+
+import org.encog.ca.universe.DiscreteCell;
+import org.encog.ca.universe.UniverseCell;
+import org.encog.mathutil.randomize.RangeRandomizer;
+
+/**
+ * A view of one cell of a {@link BitUniverse}. The cell has a single element,
+ * which is 1 if the bit is set and 0 if not. Setting any value above zero sets
+ * the bit.
+ */
+public class BitCell implements DiscreteCell {
+
+	/**
+	 * The universe that holds the bit.
+	 */
+	private final BitUniverse universe;
+
+	/**
+	 * The row.
+	 */
+	private final int row;
+
+	/**
+	 * The column.
+	 */
+	private final int col;
+
+	/**
+	 * Construct the view.
+	 *
+	 * @param theUniverse
+	 *            The universe that holds the bit.
+	 * @param theRow
+	 *            The row.
+	 * @param theCol
+	 *            The column.
+	 */
+	public BitCell(final BitUniverse theUniverse, final int theRow, final int theCol) {
+		this.universe = theUniverse;
+		this.row = theRow;
+		this.col = theCol;
+	}
+
+	@Override
+	public void randomize() {
+		this.universe.set(this.row, this.col, RangeRandomizer.randomInt(0, 1) > 0);
+	}
+
+	@Override
+	public void copy(final UniverseCell sourceCell) {
+		this.set(0, sourceCell.get(0));
+	}
+
+	@Override
+	public double getAvg() {
+		return this.get(0);
+	}
+
+	@Override
+	public double get(final int i) {
+		return this.universe.isSet(this.row, this.col) ? 1 : 0;
+	}
+
+	@Override
+	public void set(final int i, final double d) {
+		this.universe.set(this.row, this.col, ((int) d) > 0);
+	}
+
+	@Override
+	public void set(final int idx, final double[] d) {
+		this.set(0, d[idx]);
+	}
+
+	@Override
+	public int size() {
+		return 1;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder();
+		result.append("'[");
+		result.append(this.getClass().getSimpleName());
+		result.append(":0=");
+		result.append((int) this.get(0));
+		result.append("]");
+		return result.toString();
+	}
+}
@@ -0,0 +1,283 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ca.universe.packed;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.encog.ca.CellularAutomataError;
+import org.encog.ca.universe.Universe;
+import org.encog.ca.universe.UniverseCell;
+import org.encog.ca.universe.UniverseCellFactory;
+import org.encog.ca.universe.basic.BasicCellFactory;
+
+/**
+ * A universe of single bit cells, packed 64 to a long. Each row starts on a
+ * new word; column c of a row is bit (c mod 64) of word (c / 64). The unused
+ * high bits of the last word of each row are always zero.
+ *
+ * The cells returned by {@link #get(int, int)} are views of the packed words.
+ * Programs such as the Conway and elementary automata recognize this universe
+ * and work on the words directly.
+ */
+public class BitUniverse implements Universe, Serializable {
+
+	/**
+	 * The serial id.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The number of rows.
+	 */
+	private final int rows;
+
+	/**
+	 * The number of columns.
+	 */
+	private final int columns;
+
+	/**
+	 * The number of words in each row.
+	 */
+	private final int wordsPerRow;
+
+	/**
+	 * The mask of the used bits of the last word of each row.
+	 */
+	private final long lastWordMask;
+
+	/**
+	 * The packed cells, row by row.
+	 */
+	private final long[] data;
+
+	/**
+	 * The cell factory, for programs that need a scratch cell.
+	 */
+	private final UniverseCellFactory cellFactory = new BasicCellFactory(1, 1);
+
+	/**
+	 * Construct an empty universe.
+	 *
+	 * @param theRows
+	 *            The number of rows.
+	 * @param theColumns
+	 *            The number of columns.
+	 */
+	public BitUniverse(final int theRows, final int theColumns) {
+		if (theRows < 1 || theColumns < 1) {
+			throw new CellularAutomataError("A universe must have at least one row and column.");
+		}
+		this.rows = theRows;
+		this.columns = theColumns;
+		this.wordsPerRow = (theColumns + 63) >>> 6;
+		final int lastBits = theColumns & 63;
+		this.lastWordMask = lastBits == 0 ? -1L : (1L << lastBits) - 1;
+		this.data = new long[theRows * this.wordsPerRow];
+	}
+
+	@Override
+	public Object clone() {
+		final BitUniverse result = new BitUniverse(this.rows, this.columns);
+		result.copy(this);
+		return result;
+	}
+
+	@Override
+	public void copy(final Universe source) {
+		if (source instanceof BitUniverse && this.isSameSize(source)) {
+			System.arraycopy(((BitUniverse) source).data, 0, this.data, 0, this.data.length);
+			return;
+		}
+		if (source.getRows() != this.rows || source.getColumns() != this.columns) {
+			throw new CellularAutomataError("Can only copy a universe of the same size.");
+		}
+		for (int row = 0; row < this.rows; row++) {
+			for (int col = 0; col < this.columns; col++) {
+				this.set(row, col, ((int) source.get(row, col).get(0)) > 0);
+			}
+		}
+	}
+
+	@Override
+	public double compare(final Universe otherWorld) {
+		if (otherWorld instanceof BitUniverse && this.isSameSize(otherWorld)) {
+			final long[] other = ((BitUniverse) otherWorld).data;
+			long result = 0;
+			for (int i = 0; i < this.data.length; i++) {
+				result += Long.bitCount(this.data[i] ^ other[i]);
+			}
+			return (double) result / ((double) this.rows * this.columns);
+		}
+
+		int result = 0;
+		int total = 0;
+		for (int row = 0; row < otherWorld.getRows(); row++) {
+			for (int col = 0; col < otherWorld.getColumns(); col++) {
+				int d1 = Math.abs((int) (255 * this.get(row, col).getAvg()));
+				int d2 = Math.abs((int) (255 * otherWorld.get(row, col).getAvg()));
+				if (Math.abs(d1 - d2) > 10) {
+					result++;
+				}
+				total++;
+			}
+		}
+
+		return (double) result / (double) total;
+	}
+
+	/**
+	 * @param other
+	 *            The other universe.
+	 * @return True if the other universe has the same rows and columns.
+	 */
+	private boolean isSameSize(final Universe other) {
+		return other.getRows() == this.rows && other.getColumns() == this.columns;
+	}
+
+	@Override
+	public int getRows() {
+		return this.rows;
+	}
+
+	@Override
+	public int getColumns() {
+		return this.columns;
+	}
+
+	@Override
+	public void randomize() {
+		final ThreadLocalRandom random = ThreadLocalRandom.current();
+		for (int i = 0; i < this.data.length; i++) {
+			this.data[i] = random.nextLong();
+		}
+		this.clearUnusedBits();
+	}
+
+	/**
+	 * Clear every cell.
+	 */
+	public void clear() {
+		Arrays.fill(this.data, 0);
+	}
+
+	/**
+	 * Zero the unused high bits of the last word of each row.
+	 */
+	public void clearUnusedBits() {
+		for (int i = this.wordsPerRow - 1; i < this.data.length; i += this.wordsPerRow) {
+			this.data[i] &= this.lastWordMask;
+		}
+	}
+
+	@Override
+	public UniverseCell get(final int row, final int col) {
+		if (!this.isValid(row, col)) {
+			throw new CellularAutomataError("Cell out of range: " + row + "," + col);
+		}
+		return new BitCell(this, row, col);
+	}
+
+	/**
+	 * @param row
+	 *            The row.
+	 * @param col
+	 *            The column.
+	 * @return True if the cell is set.
+	 */
+	public boolean isSet(final int row, final int col) {
+		return (this.data[row * this.wordsPerRow + (col >>> 6)] & (1L << col)) != 0;
+	}
+
+	/**
+	 * Set or clear one cell.
+	 *
+	 * @param row
+	 *            The row.
+	 * @param col
+	 *            The column.
+	 * @param value
+	 *            True to set the cell.
+	 */
+	public void set(final int row, final int col, final boolean value) {
+		final int index = row * this.wordsPerRow + (col >>> 6);
+		if (value) {
+			this.data[index] |= 1L << col;
+		} else {
+			this.data[index] &= ~(1L << col);
+		}
+	}
+
+	@Override
+	public boolean isValid(final int row, final int col) {
+		if (row < 0 || col < 0 || row >= this.rows || col >= this.columns) {
+			return false;
+		}
+		return true;
+	}
+
+	@Override
+	public UniverseCellFactory getCellFactory() {
+		return this.cellFactory;
+	}
+
+	@Override
+	public double calculatePercentInvalid() {
+		return 0;
+	}
+
+	/**
+	 * @return The packed cells, row by row.
+	 */
+	public long[] getData() {
+		return this.data;
+	}
+
+	/**
+	 * @return The number of words in each row.
+	 */
+	public int getWordsPerRow() {
+		return this.wordsPerRow;
+	}
+
+	/**
+	 * @return The mask of the used bits of the last word of each row.
+	 */
+	public long getLastWordMask() {
+		return this.lastWordMask;
+	}
+
+	/**
+	 * @return The number of cells that are set.
+	 */
+	public long countSet() {
+		long result = 0;
+		for (final long word : this.data) {
+			result += Long.bitCount(word);
+		}
+		return result;
+	}
+}
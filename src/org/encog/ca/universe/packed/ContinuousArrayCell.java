@@ -0,0 +1,155 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ca.universe.packed;
+
+import org.encog.ca.universe.ContinuousCell;
+import org.encog.ca.universe.UniverseCell;
+import org.encog.ca.universe.basic.BasicCellFactory;
+import org.encog.mathutil.randomize.RangeRandomizer;
+import org.encog.util.Format;
+
+/**
+ * A view of one cell of a {@link ContinuousUniverse}.
+ */
+public class ContinuousArrayCell implements ContinuousCell {
+
+	/**
+	 * The universe that holds the cell.
+	 */
+	private final ContinuousUniverse universe;
+
+	/**
+	 * The index of the first element of the cell.
+	 */
+	private final int offset;
+
+	/**
+	 * Construct the view.
+	 *
+	 * @param theUniverse
+	 *            The universe that holds the cell.
+	 * @param theOffset
+	 *            The index of the first element of the cell.
+	 */
+	public ContinuousArrayCell(final ContinuousUniverse theUniverse, final int theOffset) {
+		this.universe = theUniverse;
+		this.offset = theOffset;
+	}
+
+	@Override
+	public void randomize() {
+		final double[] data = this.universe.getData();
+		final BasicCellFactory factory = (BasicCellFactory) this.universe.getCellFactory();
+		final double min = factory.getMin();
+		final double max = factory.getMax();
+		for (int i = 0; i < this.size(); i++) {
+			data[this.offset + i] = RangeRandomizer.randomize(min, max);
+		}
+	}
+
+	@Override
+	public void copy(final UniverseCell sourceCell) {
+		final double[] data = this.universe.getData();
+		for (int i = 0; i < this.size(); i++) {
+			data[this.offset + i] = sourceCell.get(i);
+		}
+	}
+
+	@Override
+	public double getAvg() {
+		final double[] data = this.universe.getData();
+		double result = 0;
+		for (int i = 0; i < this.size(); i++) {
+			result += data[this.offset + i];
+		}
+		return result / this.size();
+	}
+
+	@Override
+	public double get(final int i) {
+		return this.universe.getData()[this.offset + i];
+	}
+
+	@Override
+	public void set(final int i, final double d) {
+		this.universe.getData()[this.offset + i] = d;
+	}
+
+	@Override
+	public int size() {
+		return this.universe.getCellSize();
+	}
+
+	@Override
+	public void add(final UniverseCell otherCell) {
+		final double[] data = this.universe.getData();
+		for (int i = 0; i < this.size(); i++) {
+			data[this.offset + i] += otherCell.get(i);
+		}
+	}
+
+	@Override
+	public void multiply(final UniverseCell otherCell) {
+		final double[] data = this.universe.getData();
+		for (int i = 0; i < this.size(); i++) {
+			data[this.offset + i] *= otherCell.get(i);
+		}
+	}
+
+	@Override
+	public void set(final int idx, final double[] d) {
+		System.arraycopy(d, idx, this.universe.getData(), this.offset, this.size());
+	}
+
+	@Override
+	public void clamp(final double low, final double high) {
+		final double[] data = this.universe.getData();
+		for (int i = 0; i < this.size(); i++) {
+			if (data[this.offset + i] < low) {
+				data[this.offset + i] = low;
+			}
+			if (data[this.offset + i] > high) {
+				data[this.offset + i] = high;
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder();
+		result.append("'[");
+		result.append(this.getClass().getSimpleName());
+		result.append(":");
+		for (int i = 0; i < this.size(); i++) {
+			if (i > 0) {
+				result.append(',');
+			}
+			result.append(i);
+			result.append("=");
+			result.append(Format.formatDouble(this.get(i), 4));
+		}
+		result.append("]");
+		return result.toString();
+	}
+}
@@ -0,0 +1,239 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ca.universe.packed;
+
+import java.io.Serializable;
+
+import org.encog.ca.CellularAutomataError;
+import org.encog.ca.universe.Universe;
+import org.encog.ca.universe.UniverseCell;
+import org.encog.ca.universe.UniverseCellFactory;
+import org.encog.ca.universe.basic.BasicCellFactory;
+import org.encog.mathutil.randomize.RangeRandomizer;
+
+/**
+ * A universe of continuous cells held in one flat array. The elements of the
+ * cell at (row, col) start at ((row * columns) + col) * cellSize.
+ *
+ * The cells returned by {@link #get(int, int)} are views of the array.
+ */
+public class ContinuousUniverse implements Universe, Serializable {
+
+	/**
+	 * The serial id.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The number of rows.
+	 */
+	private final int rows;
+
+	/**
+	 * The number of columns.
+	 */
+	private final int columns;
+
+	/**
+	 * The number of elements in each cell.
+	 */
+	private final int cellSize;
+
+	/**
+	 * The cell elements, row by row.
+	 */
+	private final double[] data;
+
+	/**
+	 * The cell factory, also holds the random range of the elements.
+	 */
+	private final BasicCellFactory cellFactory;
+
+	/**
+	 * Construct the universe.
+	 *
+	 * @param theRows
+	 *            The number of rows.
+	 * @param theColumns
+	 *            The number of columns.
+	 * @param theCellSize
+	 *            The number of elements in each cell.
+	 * @param theMin
+	 *            The low end of the random range.
+	 * @param theMax
+	 *            The high end of the random range.
+	 */
+	public ContinuousUniverse(final int theRows, final int theColumns, final int theCellSize, final double theMin,
+			final double theMax) {
+		if (theRows < 1 || theColumns < 1) {
+			throw new CellularAutomataError("A universe must have at least one row and column.");
+		}
+		this.rows = theRows;
+		this.columns = theColumns;
+		this.cellSize = theCellSize;
+		this.cellFactory = new BasicCellFactory(theCellSize, theMin, theMax);
+		this.data = new double[theRows * theColumns * theCellSize];
+	}
+
+	@Override
+	public Object clone() {
+		final ContinuousUniverse result = new ContinuousUniverse(this.rows, this.columns, this.cellSize,
+				this.cellFactory.getMin(), this.cellFactory.getMax());
+		result.copy(this);
+		return result;
+	}
+
+	@Override
+	public void copy(final Universe source) {
+		if (source instanceof ContinuousUniverse && ((ContinuousUniverse) source).data.length == this.data.length
+				&& source.getColumns() == this.columns) {
+			System.arraycopy(((ContinuousUniverse) source).data, 0, this.data, 0, this.data.length);
+			return;
+		}
+		if (source.getRows() != this.rows || source.getColumns() != this.columns) {
+			throw new CellularAutomataError("Can only copy a universe of the same size.");
+		}
+		for (int row = 0; row < this.rows; row++) {
+			for (int col = 0; col < this.columns; col++) {
+				final UniverseCell cell = source.get(row, col);
+				final int offset = this.offset(row, col);
+				for (int i = 0; i < this.cellSize; i++) {
+					this.data[offset + i] = cell.get(i);
+				}
+			}
+		}
+	}
+
+	@Override
+	public double compare(final Universe otherWorld) {
+		final boolean packed = otherWorld instanceof ContinuousUniverse
+				&& ((ContinuousUniverse) otherWorld).cellSize == this.cellSize;
+		int result = 0;
+		int total = 0;
+		for (int row = 0; row < otherWorld.getRows(); row++) {
+			for (int col = 0; col < otherWorld.getColumns(); col++) {
+				final double avg2 = packed ? ((ContinuousUniverse) otherWorld).getAvg(row, col)
+						: otherWorld.get(row, col).getAvg();
+				int d1 = Math.abs((int) (255 * this.getAvg(row, col)));
+				int d2 = Math.abs((int) (255 * avg2));
+				if (Math.abs(d1 - d2) > 10) {
+					result++;
+				}
+				total++;
+			}
+		}
+
+		return (double) result / (double) total;
+	}
+
+	/**
+	 * @param row
+	 *            The row.
+	 * @param col
+	 *            The column.
+	 * @return The mean of the elements of the cell.
+	 */
+	public double getAvg(final int row, final int col) {
+		final int offset = this.offset(row, col);
+		double result = 0;
+		for (int i = 0; i < this.cellSize; i++) {
+			result += this.data[offset + i];
+		}
+		return result / this.cellSize;
+	}
+
+	/**
+	 * @param row
+	 *            The row.
+	 * @param col
+	 *            The column.
+	 * @return The index of the first element of the cell.
+	 */
+	public int offset(final int row, final int col) {
+		return ((row * this.columns) + col) * this.cellSize;
+	}
+
+	@Override
+	public int getRows() {
+		return this.rows;
+	}
+
+	@Override
+	public int getColumns() {
+		return this.columns;
+	}
+
+	/**
+	 * @return The number of elements in each cell.
+	 */
+	public int getCellSize() {
+		return this.cellSize;
+	}
+
+	@Override
+	public void randomize() {
+		for (int i = 0; i < this.data.length; i++) {
+			this.data[i] = RangeRandomizer.randomize(this.cellFactory.getMin(), this.cellFactory.getMax());
+		}
+	}
+
+	@Override
+	public UniverseCell get(final int row, final int col) {
+		if (!this.isValid(row, col)) {
+			throw new CellularAutomataError("Cell out of range: " + row + "," + col);
+		}
+		return new ContinuousArrayCell(this, this.offset(row, col));
+	}
+
+	@Override
+	public boolean isValid(final int row, final int col) {
+		if (row < 0 || col < 0 || row >= this.rows || col >= this.columns) {
+			return false;
+		}
+		return true;
+	}
+
+	@Override
+	public UniverseCellFactory getCellFactory() {
+		return this.cellFactory;
+	}
+
+	@Override
+	public double calculatePercentInvalid() {
+		int result = 0;
+		for (int i = 0; i < this.data.length; i++) {
+			if (this.data[i] < -1 || this.data[i] > 1) {
+				result++;
+			}
+		}
+		return (double) result / (double) this.data.length;
+	}
+
+	/**
+	 * @return The cell elements, row by row.
+	 */
+	public double[] getData() {
+		return this.data;
+	}
+}
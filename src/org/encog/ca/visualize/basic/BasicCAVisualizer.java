@@ -30,6 +30,7 @@ import java.awt.image.WritableRaster;
 import org.encog.ca.universe.DiscreteCell;
 import org.encog.ca.universe.Universe;
 import org.encog.ca.universe.UniverseCell;
+import org.encog.ca.universe.packed.BitUniverse;
 import org.encog.ca.visualize.CAVisualizer;
 
 public class BasicCAVisualizer implements CAVisualizer {
@@ -47,31 +48,34 @@ public class BasicCAVisualizer implements CAVisualizer {
 	}
 
 	private void fillCell(int row, int col, UniverseCell cell) {
+		if (cell instanceof DiscreteCell) {
+			this.fillCell(row, col, cell.get(0) > 0);
+			return;
+		}
 
 		for (int y = 0; y < this.currentZoom; y++) {
 			int idx = (((row * this.currentZoom) + y) * (this.width * this.currentZoom) * 3)
 					+ ((col * this.currentZoom) * 3);
 			for (int x = 0; x < this.currentZoom; x++) {
-				if (cell instanceof DiscreteCell) {
-					if (cell.get(0) > 0) {
-						this.pixels[idx++] = 255;
-						this.pixels[idx++] = 255;
-						this.pixels[idx++] = 255;
-					} else {
-						this.pixels[idx++] = 0;
-						this.pixels[idx++] = 0;
-						this.pixels[idx++] = 0;
-					}
-				} else {
-					for (int i = 0; i < 3; i++) {
-						double d = (cell.get(i) + 1.0) / 2.0;
-						this.pixels[idx++] = Math.min((int) (d * 255.0), 255);
-					}
+				for (int i = 0; i < 3; i++) {
+					double d = (cell.get(i) + 1.0) / 2.0;
+					this.pixels[idx++] = Math.min((int) (d * 255.0), 255);
 				}
 			}
 		}
 	}
 
+	private void fillCell(int row, int col, boolean alive) {
+		int value = alive ? 255 : 0;
+		for (int y = 0; y < this.currentZoom; y++) {
+			int idx = (((row * this.currentZoom) + y) * (this.width * this.currentZoom) * 3)
+					+ ((col * this.currentZoom) * 3);
+			for (int x = 0; x < this.currentZoom * 3; x++) {
+				this.pixels[idx++] = value;
+			}
+		}
+	}
+
 	@Override
 	public Image visualize() {
 		this.currentZoom = this.zoom;
@@ -88,10 +92,19 @@ public class BasicCAVisualizer implements CAVisualizer {
 			this.pixels = new int[imageSize];
 		}
 
-		for (int row = 0; row < this.height; row++) {
-			for (int col = 0; col < this.width; col++) {
-				UniverseCell cell = this.universe.get(row, col);
-				this.fillCell(row, col, cell);
+		if (this.universe instanceof BitUniverse) {
+			BitUniverse bits = (BitUniverse) this.universe;
+			for (int row = 0; row < this.height; row++) {
+				for (int col = 0; col < this.width; col++) {
+					this.fillCell(row, col, bits.isSet(row, col));
+				}
+			}
+		} else {
+			for (int row = 0; row < this.height; row++) {
+				for (int col = 0; col < this.width; col++) {
+					UniverseCell cell = this.universe.get(row, col);
+					this.fillCell(row, col, cell);
+				}
 			}
 		}
 
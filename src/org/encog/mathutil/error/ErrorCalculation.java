@@ -172,6 +172,31 @@ public class ErrorCalculation {
 		this.setSize = 0;
 	}
 
+	/**
+	 * Add the values accumulated by another error calculation to this one, as
+	 * if every update made to the other had been made to this one.
+	 *
+	 * @param other
+	 *            The error calculation to merge into this one.
+	 */
+	public final void merge(final ErrorCalculation other) {
+		if (other.setSize == 0) {
+			return;
+		}
+
+		if (this.setSize == 0) {
+			this.min = other.min;
+			this.max = other.max;
+		} else {
+			this.min = Math.min(other.min, this.min);
+			this.max = Math.max(other.max, this.max);
+		}
+
+		this.globalError += other.globalError;
+		this.sum += other.sum;
+		this.setSize += other.setSize;
+	}
+
 	/**
 	 * Update the error with single values.
 	 *
@@ -230,6 +230,12 @@ abstract class Kernel extends QMatrix {
 	private svm_node[][] x;
 	private final double[] x_square;
 
+	// Encog: dense copy of x, used when every row holds indexes 1..width in
+	// order. Rows are swapped through the row offsets, not copied.
+	private final double[] dense;
+	private final int[] denseRow;
+	private final int width;
+
 	// svm_parameter
 	private final int kernel_type;
 	private final int degree;
@@ -246,6 +252,9 @@ abstract class Kernel extends QMatrix {
 	void swap_index(int i, int j) {
 		Array.swap(this.x, i, j);
 		;
+		if (this.denseRow != null) {
+			Array.swap(this.denseRow, i, j);
+		}
 		if (this.x_square != null) {
 			Array.swap(this.x_square, i, j);
 		}
@@ -263,7 +272,36 @@ abstract class Kernel extends QMatrix {
 		return ret;
 	}
 
+	private double dense_dot(int i, int j) {
+		final double[] d = this.dense;
+		final int a = this.denseRow[i];
+		final int b = this.denseRow[j];
+		double sum = 0;
+		for (int k = 0; k < this.width; k++) {
+			sum += d[a + k] * d[b + k];
+		}
+		return sum;
+	}
+
+	private double dense_kernel_function(int i, int j) {
+		switch (this.kernel_type) {
+		case svm_parameter.LINEAR:
+			return dense_dot(i, j);
+		case svm_parameter.POLY:
+			return powi(this.gamma * dense_dot(i, j) + this.coef0, this.degree);
+		case svm_parameter.RBF:
+			return Math.exp(-this.gamma * (this.x_square[i] + this.x_square[j] - 2 * dense_dot(i, j)));
+		case svm_parameter.SIGMOID:
+			return Math.tanh(this.gamma * dense_dot(i, j) + this.coef0);
+		default:
+			return 0; // java
+		}
+	}
+
 	double kernel_function(int i, int j) {
+		if (this.dense != null) {
+			return dense_kernel_function(i, j);
+		}
 		switch (this.kernel_type) {
 		case svm_parameter.LINEAR:
 			return dot(this.x[i], this.x[j]);
@@ -288,16 +326,54 @@ abstract class Kernel extends QMatrix {
 
 		this.x = x_.clone();
 
+		if (this.kernel_type != svm_parameter.PRECOMPUTED && is_dense(l, this.x)) {
+			this.width = this.x[0].length;
+			this.dense = new double[l * this.width];
+			this.denseRow = new int[l];
+			for (int i = 0; i < l; i++) {
+				this.denseRow[i] = i * this.width;
+				for (int k = 0; k < this.width; k++) {
+					this.dense[i * this.width + k] = this.x[i][k].value;
+				}
+			}
+		} else {
+			this.width = 0;
+			this.dense = null;
+			this.denseRow = null;
+		}
+
 		if (this.kernel_type == svm_parameter.RBF) {
 			this.x_square = new double[l];
 			for (int i = 0; i < l; i++) {
-				this.x_square[i] = dot(this.x[i], this.x[i]);
+				this.x_square[i] = this.dense != null ? dense_dot(i, i) : dot(this.x[i], this.x[i]);
 			}
 		} else {
 			this.x_square = null;
 		}
 	}
 
+	/**
+	 * @return True if every row has the same length, and holds the indexes 1
+	 *         to length in order.
+	 */
+	static boolean is_dense(int l, svm_node[][] x) {
+		if (l == 0) {
+			return false;
+		}
+		int w = x[0].length;
+		for (int i = 0; i < l; i++) {
+			if (x[i].length != w) {
+				return false;
+			}
+			for (int k = 0; k < w; k++) {
+				if (x[i][k].index != k + 1) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
 	static double dot(svm_node[] x, svm_node[] y) {
 		double sum = 0;
 		int xlen = x.length;
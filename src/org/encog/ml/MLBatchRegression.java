@@ -0,0 +1,49 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml;
+
+/**
+ * A regression method that can compute a block of inputs in one call. This
+ * lets the method reuse its parameters across many rows, rather than paying
+ * the full cost of reading them for every row, and spread the rows across
+ * threads. Methods that have context compute the rows in order.
+ */
+public interface MLBatchRegression extends MLRegression {
+
+	/**
+	 * The number of rows that callers scoring a large data set should pass in
+	 * each call.
+	 */
+	int DEFAULT_BATCH_ROWS = 1024;
+
+	/**
+	 * Compute the output for each row of the input.
+	 *
+	 * @param input
+	 *            The input rows.
+	 * @param output
+	 *            The output rows, must be at least as many as the input rows.
+	 */
+	void compute(double[][] input, double[][] output);
+}
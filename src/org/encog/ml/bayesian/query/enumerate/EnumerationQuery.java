@@ -25,16 +25,17 @@ package org.encog.ml.bayesian.query.enumerate;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
-import org.encog.Encog;
 import org.encog.ml.bayesian.BayesianError;
 import org.encog.ml.bayesian.BayesianEvent;
 import org.encog.ml.bayesian.BayesianNetwork;
 import org.encog.ml.bayesian.EventType;
 import org.encog.ml.bayesian.query.BasicQuery;
 import org.encog.ml.bayesian.query.sample.EventState;
-import org.encog.ml.bayesian.table.TableLine;
+import org.encog.ml.bayesian.table.BayesianTable;
 import org.encog.util.Format;
 
 /**
@@ -57,6 +58,21 @@ public class EnumerationQuery extends BasicQuery implements Serializable {
 	 */
 	private double probability;
 
+	/**
+	 * The event states, in the order they are multiplied.
+	 */
+	private EventState[] states;
+
+	/**
+	 * The truth tables of the event states.
+	 */
+	private BayesianTable[] tables;
+
+	/**
+	 * For each event state, the index of each parent's state.
+	 */
+	private int[][] parentStates;
+
 	/**
 	 * Construct the enumeration query.
 	 *
@@ -143,44 +159,53 @@ public class EnumerationQuery extends BasicQuery implements Serializable {
 	}
 
 	/**
-	 * Obtain the arguments for an event.
-	 *
-	 * @param event
-	 *            The event.
-	 * @return The arguments.
+	 * Index the event states and their parents, so that each probability can
+	 * be read straight from the dense truth tables.
 	 */
-	private int[] obtainArgs(BayesianEvent event) {
-		int[] result = new int[event.getParents().size()];
-
-		int index = 0;
-		for (BayesianEvent parentEvent : event.getParents()) {
-			EventState state = this.getEventState(parentEvent);
-			result[index++] = state.getValue();
+	private void indexStates() {
+		this.states = this.getEvents().values().toArray(new EventState[0]);
+		this.tables = new BayesianTable[this.states.length];
+		this.parentStates = new int[this.states.length][];
+
+		Map<BayesianEvent, Integer> position = new HashMap<>();
+		for (int i = 0; i < this.states.length; i++) {
+			position.put(this.states[i].getEvent(), i);
+		}
 
+		for (int i = 0; i < this.states.length; i++) {
+			BayesianEvent event = this.states[i].getEvent();
+			this.tables[i] = event.getTable();
+			List<BayesianEvent> parents = event.getParents();
+			this.parentStates[i] = new int[parents.size()];
+			for (int j = 0; j < parents.size(); j++) {
+				this.parentStates[i][j] = position.get(parents.get(j));
+			}
 		}
-		return result;
 	}
 
 	/**
 	 * Calculate the probability for a state.
 	 *
-	 * @param state
-	 *            The state to calculate.
+	 * @param index
+	 *            The index of the state to calculate.
 	 * @return The probability.
 	 */
-	private double calculateProbability(EventState state) {
-
-		int[] args = this.obtainArgs(state.getEvent());
+	private double calculateProbability(int index) {
+		BayesianTable table = this.tables[index];
+		int[] strides = table.getStrides();
+		int[] parents = this.parentStates[index];
+
+		int configuration = 0;
+		for (int j = 0; j < parents.length; j++) {
+			configuration += this.states[parents[j]].getValue() * strides[j];
+		}
 
-		for (TableLine line : state.getEvent().getTable().getLines()) {
-			if (line.compareArgs(args)) {
-				if (Math.abs(line.getResult() - state.getValue()) < Encog.DEFAULT_DOUBLE_EQUAL) {
-					return line.getProbability();
-				}
-			}
+		int value = this.states[index].getValue();
+		if (value < 0 || value >= table.getChoiceCount()) {
+			throw new BayesianError("Could not determine the probability for " + this.states[index].toString());
 		}
 
-		throw new BayesianError("Could not determine the probability for " + state.toString());
+		return table.getProbability(value, configuration);
 	}
 
 	/**
@@ -192,15 +217,9 @@ public class EnumerationQuery extends BasicQuery implements Serializable {
 		double result = 0;
 
 		do {
-			boolean first = true;
-			double prob = 0;
-			for (EventState state : this.getEvents().values()) {
-				if (first) {
-					prob = this.calculateProbability(state);
-					first = false;
-				} else {
-					prob *= this.calculateProbability(state);
-				}
+			double prob = this.states.length > 0 ? 1 : 0;
+			for (int i = 0; i < this.states.length; i++) {
+				prob *= this.calculateProbability(i);
 			}
 			result += prob;
 		} while (this.forward());
@@ -213,6 +232,7 @@ public class EnumerationQuery extends BasicQuery implements Serializable {
 	@Override
 	public void execute() {
 		this.locateEventTypes();
+		this.indexStates();
 		this.resetEnumeration(false, false);
 		double numerator = this.performEnumeration();
 		this.resetEnumeration(false, true);
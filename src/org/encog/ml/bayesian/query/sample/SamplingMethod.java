@@ -0,0 +1,47 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.bayesian.query.sample;
+
+/**
+ * The way a SamplingQuery draws its samples.
+ */
+public enum SamplingMethod {
+	/**
+	 * Sample every event from its truth table, and discard samples that do not
+	 * match the evidence.
+	 */
+	Rejection,
+
+	/**
+	 * Fix the evidence events to their values, sample the others, and weight
+	 * each sample by the likelihood of the evidence.
+	 */
+	LikelihoodWeighting,
+
+	/**
+	 * Run Gibbs sampling Markov chains with the evidence fixed, resampling each
+	 * other event from its Markov blanket.
+	 */
+	Gibbs
+}
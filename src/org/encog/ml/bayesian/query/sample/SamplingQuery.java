@@ -24,12 +24,22 @@
 package org.encog.ml.bayesian.query.sample;
 
 import java.io.Serializable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
+import org.encog.mathutil.randomize.generate.GenerateRandom;
+import org.encog.mathutil.randomize.generate.MersenneTwisterGenerateRandom;
 import org.encog.ml.bayesian.BayesianError;
 import org.encog.ml.bayesian.BayesianEvent;
 import org.encog.ml.bayesian.BayesianNetwork;
+import org.encog.ml.bayesian.EventType;
 import org.encog.ml.bayesian.query.BasicQuery;
+import org.encog.ml.bayesian.table.BayesianTable;
 import org.encog.util.Format;
+import org.encog.util.concurrency.MultiThreadable;
+import org.encog.util.concurrency.RangeTask;
+import org.encog.util.concurrency.SharedExecutor;
 
 /**
  * A sampling query allows probabilistic queries on a Bayesian network. Sampling
@@ -41,14 +51,48 @@ import org.encog.util.Format;
  * An enumeration query is more precise than the sampling query. However, the
  * enumeration query will become slow as the size of the Bayesian network grows.
  * Sampling can often be used for a quick estimation of a probability.
+ *
+ * The samples are drawn by a fixed number of independent streams, each with
+ * its own random number generator and counters, which run on the shared
+ * executor and are added up in stream order. The seeds of the streams come
+ * from the query's random number generator, so a seeded generator gives a
+ * repeatable result on any number of threads. If a confidence target is set,
+ * sampling runs in rounds and stops once the confidence interval of the
+ * probability is narrow enough, or the sample size is reached.
  */
-public class SamplingQuery extends BasicQuery implements Serializable {
+public class SamplingQuery extends BasicQuery implements Serializable, MultiThreadable {
 
 	/**
 	 * The default sample size.
 	 */
 	public static final int DEFAULT_SAMPLE_SIZE = 100000;
 
+	/**
+	 * The number of independent sampling streams.
+	 */
+	public static final int STREAM_COUNT = 32;
+
+	/**
+	 * The number of samples in each round, when a confidence target is set.
+	 */
+	public static final int ROUND_SIZE = 10000;
+
+	/**
+	 * The default z-score of the confidence interval, 95%.
+	 */
+	public static final double DEFAULT_CONFIDENCE_Z = 1.96;
+
+	/**
+	 * The default number of Gibbs sweeps each chain discards before sampling.
+	 */
+	public static final int DEFAULT_BURN_IN = 100;
+
+	/**
+	 * The smallest effective sample count the confidence interval is trusted
+	 * for.
+	 */
+	private static final int MIN_CONFIDENCE_SAMPLES = 100;
+
 	/**
 	 * The sample size.
 	 */
@@ -67,10 +111,86 @@ public class SamplingQuery extends BasicQuery implements Serializable {
 
 	/**
 	 * The total number of samples generated. This should match sampleSize at
-	 * the end of a query.
+	 * the end of a query, unless the confidence target stopped it early.
 	 */
 	private int totalSamples;
 
+	/**
+	 * The total weight of the usable samples.
+	 */
+	private double usableWeight;
+
+	/**
+	 * The total weight of the samples that matched the outcome.
+	 */
+	private double goodWeight;
+
+	/**
+	 * The half-width of the confidence interval of the last query.
+	 */
+	private double confidenceInterval;
+
+	/**
+	 * The sampling method.
+	 */
+	private SamplingMethod method = SamplingMethod.Rejection;
+
+	/**
+	 * The confidence interval half-width to stop at, zero to always draw the
+	 * full sample size.
+	 */
+	private double confidenceTarget;
+
+	/**
+	 * The z-score of the confidence interval.
+	 */
+	private double confidenceZ = DEFAULT_CONFIDENCE_Z;
+
+	/**
+	 * The number of sweeps each Gibbs chain discards before sampling.
+	 */
+	private int burnIn = DEFAULT_BURN_IN;
+
+	/**
+	 * The number of threads to use, zero for all available.
+	 */
+	private int threadCount;
+
+	/**
+	 * The random number generator that seeds the streams.
+	 */
+	private transient GenerateRandom random;
+
+	/**
+	 * The event states, in topological order.
+	 */
+	private transient EventState[] states;
+
+	/**
+	 * The truth table of each event.
+	 */
+	private transient BayesianTable[] tables;
+
+	/**
+	 * For each event, the position of each parent.
+	 */
+	private transient int[][] parents;
+
+	/**
+	 * For each event, the position of each child.
+	 */
+	private transient int[][] children;
+
+	/**
+	 * The type of each event.
+	 */
+	private transient EventType[] types;
+
+	/**
+	 * The value each evidence and outcome event is compared to.
+	 */
+	private transient int[] compare;
+
 	/**
 	 * Construct a sampling query.
 	 *
@@ -97,96 +217,493 @@ public class SamplingQuery extends BasicQuery implements Serializable {
 	}
 
 	/**
-	 * Obtain the arguments for an event.
-	 *
-	 * @param event
-	 *            The event.
-	 * @return The arguments for that event, based on the other event values.
-	 */
-	private int[] obtainArgs(BayesianEvent event) {
-		int[] result = new int[event.getParents().size()];
-
-		int index = 0;
-		for (BayesianEvent parentEvent : event.getParents()) {
-			EventState state = this.getEventState(parentEvent);
-			if (!state.isCalculated()) {
-				return null;
-			}
-			result[index++] = state.getValue();
+	 * @return The sampling method.
+	 */
+	public SamplingMethod getMethod() {
+		return this.method;
+	}
+
+	/**
+	 * @param theMethod
+	 *            The sampling method.
+	 */
+	public void setMethod(SamplingMethod theMethod) {
+		this.method = theMethod;
+	}
+
+	/**
+	 * @return The confidence interval half-width to stop at, zero if the full
+	 *         sample size is always drawn.
+	 */
+	public double getConfidenceTarget() {
+		return this.confidenceTarget;
+	}
 
+	/**
+	 * @param theConfidenceTarget
+	 *            The confidence interval half-width to stop at, zero to always
+	 *            draw the full sample size.
+	 */
+	public void setConfidenceTarget(double theConfidenceTarget) {
+		this.confidenceTarget = theConfidenceTarget;
+	}
+
+	/**
+	 * @return The z-score of the confidence interval.
+	 */
+	public double getConfidenceZ() {
+		return this.confidenceZ;
+	}
+
+	/**
+	 * @param theConfidenceZ
+	 *            The z-score of the confidence interval, for example 1.96 for
+	 *            95%.
+	 */
+	public void setConfidenceZ(double theConfidenceZ) {
+		this.confidenceZ = theConfidenceZ;
+	}
+
+	/**
+	 * @return The number of sweeps each Gibbs chain discards before sampling.
+	 */
+	public int getBurnIn() {
+		return this.burnIn;
+	}
+
+	/**
+	 * @param theBurnIn
+	 *            The number of sweeps each Gibbs chain discards before
+	 *            sampling.
+	 */
+	public void setBurnIn(int theBurnIn) {
+		this.burnIn = theBurnIn;
+	}
+
+	/**
+	 * @return The random number generator that seeds the streams.
+	 */
+	public GenerateRandom getRandom() {
+		if (this.random == null) {
+			this.random = new MersenneTwisterGenerateRandom();
 		}
-		return result;
+		return this.random;
 	}
 
 	/**
-	 * Set all events to random values, based on their probabilities.
-	 *
-	 * @param eventState
-	 */
-	private void randomizeEvents(EventState eventState) {
-		// first, has this event already been randomized
-		if (!eventState.isCalculated()) {
-			// next, see if we can randomize the event passed
-			int[] args = this.obtainArgs(eventState.getEvent());
-			if (args != null) {
-				eventState.randomize(args);
+	 * @param theRandom
+	 *            The random number generator that seeds the streams.
+	 */
+	public void setRandom(GenerateRandom theRandom) {
+		this.random = theRandom;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getThreadCount() {
+		return this.threadCount;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setThreadCount(int numThreads) {
+		this.threadCount = numThreads;
+	}
+
+	/**
+	 * @return The number of samples drawn by the last query.
+	 */
+	public int getTotalSamples() {
+		return this.totalSamples;
+	}
+
+	/**
+	 * @return The half-width of the confidence interval of the last query.
+	 *         For Gibbs sampling this ignores the correlation between the
+	 *         samples of a chain, so it is optimistic.
+	 */
+	public double getConfidenceInterval() {
+		return this.confidenceInterval;
+	}
+
+	/**
+	 * Index the events in topological order, so that every parent is sampled
+	 * before its children.
+	 */
+	private void compile() {
+		List<BayesianEvent> events = this.getNetwork().getEvents();
+		int n = events.size();
+		this.states = new EventState[n];
+		this.tables = new BayesianTable[n];
+		this.parents = new int[n][];
+		this.children = new int[n][];
+		this.types = new EventType[n];
+		this.compare = new int[n];
+
+		Map<BayesianEvent, Integer> position = new HashMap<>();
+		boolean progress = true;
+		while (position.size() < n && progress) {
+			progress = false;
+			for (BayesianEvent event : events) {
+				if (position.containsKey(event)) {
+					continue;
+				}
+				boolean ready = true;
+				for (BayesianEvent parent : event.getParents()) {
+					if (!position.containsKey(parent)) {
+						ready = false;
+						break;
+					}
+				}
+				if (ready) {
+					position.put(event, position.size());
+					progress = true;
+				}
 			}
 		}
 
-		// randomize children
-		for (BayesianEvent childEvent : eventState.getEvent().getChildren()) {
-			this.randomizeEvents(this.getEventState(childEvent));
+		if (position.size() < n) {
+			throw new BayesianError("Unable to calculate all nodes in the graph.");
+		}
+
+		for (BayesianEvent event : events) {
+			int i = position.get(event);
+			EventState state = this.getEventState(event);
+			this.states[i] = state;
+			this.tables[i] = event.getTable();
+			this.types[i] = state.getEventType();
+			this.compare[i] = state.getCompareValue();
+
+			List<BayesianEvent> p = event.getParents();
+			this.parents[i] = new int[p.size()];
+			for (int j = 0; j < p.size(); j++) {
+				this.parents[i][j] = position.get(p.get(j));
+			}
+
+			List<BayesianEvent> c = event.getChildren();
+			this.children[i] = new int[c.size()];
+			for (int j = 0; j < c.size(); j++) {
+				this.children[i][j] = position.get(c.get(j));
+			}
 		}
 	}
 
 	/**
-	 * @return The number of events that are still uncalculated.
+	 * Find the parent configuration of an event.
+	 *
+	 * @param i
+	 *            The position of the event.
+	 * @param values
+	 *            The current value of every event.
+	 * @return The configuration, as used by the event's truth table.
 	 */
-	private int countUnCalculated() {
+	private int configuration(int i, int[] values) {
+		int[] p = this.parents[i];
+		int[] strides = this.tables[i].getStrides();
 		int result = 0;
-		for (EventState state : this.getEvents().values()) {
-			if (!state.isCalculated()) {
-				result++;
-			}
+		for (int j = 0; j < p.length; j++) {
+			result += values[p[j]] * strides[j];
 		}
 		return result;
 	}
 
+	/**
+	 * @return True, if the values satisfy the desired outcome.
+	 */
+	private boolean isOutcome(int[] values) {
+		for (int i = 0; i < values.length; i++) {
+			if (this.types[i] == EventType.Outcome && values[i] != this.compare[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * One sampling stream, with its own random number generator, counters and,
+	 * for Gibbs sampling, Markov chain.
+	 */
+	private class Stream {
+
+		/**
+		 * The random number generator.
+		 */
+		private final GenerateRandom rnd;
+
+		/**
+		 * The value of every event.
+		 */
+		private final int[] values;
+
+		/**
+		 * The unnormalized probability of each choice, for Gibbs sampling.
+		 */
+		private double[] choiceWeights = new double[0];
+
+		/**
+		 * True once the Gibbs chain has been started and burned in.
+		 */
+		private boolean started;
+
+		/**
+		 * The number of samples drawn.
+		 */
+		private int total;
+
+		/**
+		 * The number of samples with a non-zero weight.
+		 */
+		private int usable;
+
+		/**
+		 * The number of usable samples that matched the outcome.
+		 */
+		private int good;
+
+		/**
+		 * The total weight of the usable samples.
+		 */
+		private double usableWeight;
+
+		/**
+		 * The total squared weight of the usable samples.
+		 */
+		private double usableWeightSq;
+
+		/**
+		 * The total weight of the samples that matched the outcome.
+		 */
+		private double goodWeight;
+
+		/**
+		 * Construct a stream.
+		 *
+		 * @param seed
+		 *            The seed of the random number generator.
+		 */
+		Stream(long seed) {
+			this.rnd = new MersenneTwisterGenerateRandom(seed);
+			this.values = new int[SamplingQuery.this.states.length];
+		}
+
+		/**
+		 * Draw samples.
+		 *
+		 * @param count
+		 *            The number of samples to draw.
+		 */
+		void run(int count) {
+			for (int s = 0; s < count; s++) {
+				switch (SamplingQuery.this.method) {
+				case LikelihoodWeighting:
+					this.count(this.weighted());
+					break;
+				case Gibbs:
+					if (!this.started) {
+						this.weighted();
+						for (int b = 0; b < SamplingQuery.this.burnIn; b++) {
+							this.sweep();
+						}
+						this.started = true;
+					}
+					this.sweep();
+					this.count(1);
+					break;
+				default:
+					this.count(this.rejection() ? 1 : 0);
+					break;
+				}
+			}
+		}
+
+		/**
+		 * Add the current sample to the counters.
+		 *
+		 * @param weight
+		 *            The weight of the sample, zero if it is not usable.
+		 */
+		private void count(double weight) {
+			this.total++;
+			if (weight > 0) {
+				this.usable++;
+				this.usableWeight += weight;
+				this.usableWeightSq += weight * weight;
+				if (SamplingQuery.this.isOutcome(this.values)) {
+					this.good++;
+					this.goodWeight += weight;
+				}
+			}
+		}
+
+		/**
+		 * Sample every event from its truth table, stopping at the first
+		 * evidence event that does not match.
+		 *
+		 * @return True, if the sample matches the evidence.
+		 */
+		private boolean rejection() {
+			for (int i = 0; i < this.values.length; i++) {
+				int v = SamplingQuery.this.tables[i].generateRandom(this.rnd.nextDouble(),
+						SamplingQuery.this.configuration(i, this.values));
+				this.values[i] = v;
+				if (SamplingQuery.this.types[i] == EventType.Evidence && v != SamplingQuery.this.compare[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Sample every non-evidence event from its truth table, with the
+		 * evidence events fixed.
+		 *
+		 * @return The likelihood of the evidence.
+		 */
+		private double weighted() {
+			double weight = 1;
+			for (int i = 0; i < this.values.length; i++) {
+				int cfg = SamplingQuery.this.configuration(i, this.values);
+				if (SamplingQuery.this.types[i] == EventType.Evidence) {
+					this.values[i] = SamplingQuery.this.compare[i];
+					weight *= SamplingQuery.this.tables[i].getProbability(this.values[i], cfg);
+				} else {
+					this.values[i] = SamplingQuery.this.tables[i].generateRandom(this.rnd.nextDouble(), cfg);
+				}
+			}
+			return weight;
+		}
+
+		/**
+		 * Resample every non-evidence event from its Markov blanket.
+		 */
+		private void sweep() {
+			for (int i = 0; i < this.values.length; i++) {
+				if (SamplingQuery.this.types[i] == EventType.Evidence) {
+					continue;
+				}
+
+				BayesianTable table = SamplingQuery.this.tables[i];
+				int choices = table.getChoiceCount();
+				if (this.choiceWeights.length < choices) {
+					this.choiceWeights = new double[choices];
+				}
+
+				int cfg = SamplingQuery.this.configuration(i, this.values);
+				double sum = 0;
+				for (int k = 0; k < choices; k++) {
+					this.values[i] = k;
+					double w = table.getProbability(k, cfg);
+					for (int c : SamplingQuery.this.children[i]) {
+						if (w == 0) {
+							break;
+						}
+						w *= SamplingQuery.this.tables[c].getProbability(this.values[c],
+								SamplingQuery.this.configuration(c, this.values));
+					}
+					this.choiceWeights[k] = w;
+					sum += w;
+				}
+
+				// a state with no support keeps a uniform choice
+				double r = this.rnd.nextDouble();
+				int v = choices - 1;
+				if (sum > 0) {
+					r *= sum;
+					for (int k = 0; k < choices - 1; k++) {
+						r -= this.choiceWeights[k];
+						if (r < 0) {
+							v = k;
+							break;
+						}
+					}
+				} else {
+					v = Math.min(choices - 1, (int) (r * choices));
+				}
+				this.values[i] = v;
+			}
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
 	public void execute() {
 		this.locateEventTypes();
+		this.compile();
 		this.usableSamples = 0;
 		this.goodSamples = 0;
 		this.totalSamples = 0;
+		this.usableWeight = 0;
+		this.goodWeight = 0;
+		this.confidenceInterval = 0;
 
-		for (int i = 0; i < this.sampleSize; i++) {
-			this.reset();
+		final Stream[] streams = new Stream[STREAM_COUNT];
+		GenerateRandom seeds = this.getRandom();
+		for (int s = 0; s < streams.length; s++) {
+			streams[s] = new Stream(seeds.nextLong());
+		}
 
-			int lastUncalculated = Integer.MAX_VALUE;
-			int uncalculated;
-			do {
-				for (EventState state : this.getEvents().values()) {
-					this.randomizeEvents(state);
-				}
-				uncalculated = this.countUnCalculated();
-				if (uncalculated == lastUncalculated) {
-					throw new BayesianError("Unable to calculate all nodes in the graph.");
-				}
-				lastUncalculated = uncalculated;
-			} while (uncalculated > 0);
-
-			// System.out.println("Sample:\n" + this.dumpCurrentState());
-			this.totalSamples++;
-			if (this.isNeededEvidence()) {
-				this.usableSamples++;
-				if (this.satisfiesDesiredOutcome()) {
-					this.goodSamples++;
+		int threads = this.threadCount > 0 ? this.threadCount : Integer.MAX_VALUE;
+		int drawn = 0;
+		while (drawn < this.sampleSize) {
+			final int round = this.confidenceTarget > 0 ? Math.min(ROUND_SIZE, this.sampleSize - drawn)
+					: this.sampleSize - drawn;
+			SharedExecutor.getInstance().process(streams.length, threads, new RangeTask() {
+				@Override
+				public void run(final int low, final int high) {
+					for (int s = low; s < high; s++) {
+						int first = (int) (((long) s * round) / streams.length);
+						int last = (int) (((long) (s + 1) * round) / streams.length);
+						streams[s].run(last - first);
+					}
 				}
+			});
+			drawn += round;
+
+			// merge in stream order, so the sums do not depend on scheduling
+			int total = 0;
+			int usable = 0;
+			int good = 0;
+			double uw = 0;
+			double uwSq = 0;
+			double gw = 0;
+			for (Stream stream : streams) {
+				total += stream.total;
+				usable += stream.usable;
+				good += stream.good;
+				uw += stream.usableWeight;
+				uwSq += stream.usableWeightSq;
+				gw += stream.goodWeight;
+			}
+			this.totalSamples = total;
+			this.usableSamples = usable;
+			this.goodSamples = good;
+			this.usableWeight = uw;
+			this.goodWeight = gw;
+
+			double effective = uwSq > 0 ? (uw * uw) / uwSq : 0;
+			if (effective > 0) {
+				double p = this.getProbability();
+				this.confidenceInterval = this.confidenceZ * Math.sqrt(p * (1 - p) / effective);
+			} else {
+				this.confidenceInterval = Double.POSITIVE_INFINITY;
+			}
+
+			if (this.confidenceTarget > 0 && effective >= MIN_CONFIDENCE_SAMPLES
+					&& this.confidenceInterval <= this.confidenceTarget) {
+				break;
 			}
 		}
+
+		// leave the last sample of the first stream in the event states
+		for (int i = 0; i < this.states.length; i++) {
+			this.states[i].setValue(streams[0].values[i]);
+		}
 	}
 
 	/**
@@ -194,7 +711,7 @@ public class SamplingQuery extends BasicQuery implements Serializable {
 	 */
 	@Override
 	public double getProbability() {
-		return (double) this.goodSamples / (double) this.usableSamples;
+		return this.goodWeight / this.usableWeight;
 	}
 
 	/**
@@ -211,7 +728,14 @@ public class SamplingQuery extends BasicQuery implements Serializable {
 
 	@Override
 	public SamplingQuery clone() {
-		return new SamplingQuery(this.getNetwork());
+		SamplingQuery result = new SamplingQuery(this.getNetwork());
+		result.setSampleSize(this.sampleSize);
+		result.setMethod(this.method);
+		result.setConfidenceTarget(this.confidenceTarget);
+		result.setConfidenceZ(this.confidenceZ);
+		result.setBurnIn(this.burnIn);
+		result.setThreadCount(this.threadCount);
+		return result;
 	}
 
 	/**
@@ -27,13 +27,16 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
-import org.encog.Encog;
 import org.encog.ml.bayesian.BayesianError;
 import org.encog.ml.bayesian.BayesianEvent;
 import org.encog.ml.bayesian.query.enumerate.EnumerationQuery;
 
 /**
- * Holds a Bayesian truth table.
+ * Holds a Bayesian truth table. The probabilities are held in a dense array,
+ * indexed by (configuration * choiceCount) + result. The configuration is a
+ * mixed-radix encoding of the parent values, with the first parent as the
+ * least significant digit, so a lookup does not need to search the lines. The
+ * lines are views onto this array, in the same order.
  */
 public class BayesianTable implements Serializable {
 
@@ -47,6 +50,31 @@ public class BayesianTable implements Serializable {
 	 */
 	private final List<TableLine> lines = new ArrayList<>();
 
+	/**
+	 * The probabilities, indexed by (configuration * choiceCount) + result.
+	 */
+	private double[] probabilities;
+
+	/**
+	 * The number of choices each parent had when the table was reset.
+	 */
+	private int[] radix;
+
+	/**
+	 * The amount that each parent's value contributes to the configuration.
+	 */
+	private int[] strides;
+
+	/**
+	 * The number of choices of the event.
+	 */
+	private int choiceCount;
+
+	/**
+	 * The number of parent configurations.
+	 */
+	private int configurationCount;
+
 	public BayesianTable(BayesianEvent theEvent) {
 		this.event = theEvent;
 		this.reset();
@@ -60,11 +88,24 @@ public class BayesianTable implements Serializable {
 		List<BayesianEvent> parents = this.event.getParents();
 		int l = parents.size();
 
-		int[] args = new int[l];
+		this.radix = new int[l];
+		this.strides = new int[l];
+		this.configurationCount = 1;
+		for (int i = 0; i < l; i++) {
+			this.radix[i] = parents.get(i).getChoices().size();
+			this.strides[i] = this.configurationCount;
+			this.configurationCount *= this.radix[i];
+		}
+		this.choiceCount = this.event.getChoices().size();
+		this.probabilities = new double[this.configurationCount * this.choiceCount];
 
+		// roll() counts with the first parent fastest, so this visits the
+		// configurations in ascending order
+		int[] args = new int[l];
+		int index = 0;
 		do {
-			for (int k = 0; k < this.event.getChoices().size(); k++) {
-				this.addLine(0, k, args);
+			for (int k = 0; k < this.choiceCount; k++) {
+				this.lines.add(new TableLine(this.probabilities, index++, k, args));
 			}
 		} while (EnumerationQuery.roll(parents, args));
 	}
@@ -124,18 +165,48 @@ public class BayesianTable implements Serializable {
 					+ this.event.getParents().size() + " parents.  These numbers must be the same");
 		}
 
-		TableLine line = this.findLine(result, args);
+		int configuration = this.encodeArgs(args);
 
-		if (line == null) {
-			if (this.lines.size() == this.getMaxLines()) {
-				throw new BayesianError("This truth table is already full.");
-			}
+		if (configuration == -1 || result < 0 || result >= this.choiceCount) {
+			throw new BayesianError("Truth table line is out of range for event " + this.event.toString());
+		}
+
+		this.probabilities[configuration * this.choiceCount + result] = prob;
+	}
+
+	/**
+	 * Encode parent values as a configuration number.
+	 *
+	 * @param args
+	 *            The parent values.
+	 * @return The configuration, or -1 if the values do not fit this table.
+	 */
+	public int encodeArgs(int[] args) {
+		if (args.length != this.radix.length) {
+			return -1;
+		}
 
-			line = new TableLine(prob, result, args);
-			this.lines.add(line);
-		} else {
-			line.setProbability(prob);
+		int result = 0;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i] < 0 || args[i] >= this.radix[i]) {
+				return -1;
+			}
+			result += args[i] * this.strides[i];
 		}
+		return result;
+	}
+
+	/**
+	 * Get a probability by configuration.
+	 *
+	 * @param result
+	 *            The result.
+	 * @param configuration
+	 *            The parent configuration, from encodeArgs.
+	 * @return The probability.
+	 */
+	public double getProbability(int result, int configuration) {
+		return this.probabilities[configuration * this.choiceCount + result];
 	}
 
 	/**
@@ -157,15 +228,30 @@ public class BayesianTable implements Serializable {
 	 * @return The result.
 	 */
 	public int generateRandom(int... args) {
-		double r = Math.random();
+		int configuration = this.encodeArgs(args);
+		if (configuration == -1) {
+			throw new BayesianError("Incomplete logic table for event: " + this.event.toString());
+		}
+		return this.generateRandom(Math.random(), configuration);
+	}
+
+	/**
+	 * Generate a random sampling based on this truth table.
+	 *
+	 * @param r
+	 *            A uniform random number in [0,1).
+	 * @param configuration
+	 *            The parent configuration, from encodeArgs.
+	 * @return The result.
+	 */
+	public int generateRandom(double r, int configuration) {
+		int base = configuration * this.choiceCount;
 		double limit = 0;
 
-		for (TableLine line : this.lines) {
-			if (line != null && line.compareArgs(args)) {
-				limit += line.getProbability();
-				if (r < limit) {
-					return line.getResult();
-				}
+		for (int k = 0; k < this.choiceCount; k++) {
+			limit += this.probabilities[base + k];
+			if (r < limit) {
+				return k;
 			}
 		}
 
@@ -202,16 +288,43 @@ public class BayesianTable implements Serializable {
 	 * @return The line that matches.
 	 */
 	public TableLine findLine(int result, int[] args) {
+		int configuration = this.encodeArgs(args);
 
-		for (TableLine line : this.lines) {
-			if (line != null && line.compareArgs(args)) {
-				if (Math.abs(line.getResult() - result) < Encog.DEFAULT_DOUBLE_EQUAL) {
-					return line;
-				}
-			}
+		if (configuration == -1 || result < 0 || result >= this.choiceCount) {
+			return null;
 		}
 
-		return null;
+		return this.lines.get(configuration * this.choiceCount + result);
+	}
+
+	/**
+	 * @return The probabilities, indexed by (configuration * choiceCount) +
+	 *         result. Changes write through to the lines.
+	 */
+	public double[] getProbabilities() {
+		return this.probabilities;
+	}
+
+	/**
+	 * @return The amount each parent's value contributes to the
+	 *         configuration.
+	 */
+	public int[] getStrides() {
+		return this.strides;
+	}
+
+	/**
+	 * @return The number of choices of the event.
+	 */
+	public int getChoiceCount() {
+		return this.choiceCount;
+	}
+
+	/**
+	 * @return The number of parent configurations.
+	 */
+	public int getConfigurationCount() {
+		return this.configurationCount;
 	}
 
 	/**
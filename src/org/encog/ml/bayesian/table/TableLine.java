@@ -35,9 +35,15 @@ import org.encog.util.Format;
  */
 public class TableLine implements Serializable {
 	/**
-	 * The probability.
+	 * The array that holds the probability, usually the dense table of the
+	 * owning BayesianTable.
 	 */
-	private double probability;
+	private final double[] store;
+
+	/**
+	 * The index of the probability within the store.
+	 */
+	private final int storeIndex;
 
 	/**
 	 * The result.
@@ -60,7 +66,25 @@ public class TableLine implements Serializable {
 	 *            The arguments.
 	 */
 	public TableLine(double prob, int result, int[] args) {
-		this.probability = prob;
+		this(new double[] { prob }, 0, result, args);
+	}
+
+	/**
+	 * Construct a truth table line that reads and writes its probability
+	 * through an element of a shared array.
+	 *
+	 * @param theStore
+	 *            The array holding the probability.
+	 * @param theStoreIndex
+	 *            The index of the probability within the array.
+	 * @param result
+	 *            The result.
+	 * @param args
+	 *            The arguments.
+	 */
+	TableLine(double[] theStore, int theStoreIndex, int result, int[] args) {
+		this.store = theStore;
+		this.storeIndex = theStoreIndex;
 		this.result = result;
 		this.arguments = EngineArray.arrayCopy(args);
 	}
@@ -69,7 +93,7 @@ public class TableLine implements Serializable {
 	 * @return the probability
 	 */
 	public double getProbability() {
-		return this.probability;
+		return this.store[this.storeIndex];
 	}
 
 	/**
@@ -95,7 +119,7 @@ public class TableLine implements Serializable {
 		r.append("result=");
 		r.append(this.result);
 		r.append(",probability=");
-		r.append(Format.formatDouble(this.probability, 2));
+		r.append(Format.formatDouble(this.getProbability(), 2));
 		r.append("|");
 		for (int i = 0; i < this.arguments.length; i++) {
 			r.append(Format.formatDouble(this.arguments[i], 2));
@@ -133,7 +157,7 @@ public class TableLine implements Serializable {
 	 *            The probability of this line.
 	 */
 	public void setProbability(double probability) {
-		this.probability = probability;
+		this.store[this.storeIndex] = probability;
 	}
 
 }
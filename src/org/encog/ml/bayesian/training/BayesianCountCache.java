@@ -0,0 +1,225 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.bayesian.training;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.encog.ml.bayesian.BayesianError;
+import org.encog.ml.bayesian.BayesianNetwork;
+import org.encog.ml.data.MLDataPair;
+import org.encog.ml.data.MLDataSet;
+
+/**
+ * Holds training data, discretized once into one column of classes per event,
+ * and answers the count queries used by structure search and probability
+ * estimation. A count query builds a whole contingency table for an event and
+ * a set of parents in a single pass over the columns, rather than one pass
+ * over the data for every parent instance. K2 scores are cached by event and
+ * parent set.
+ *
+ * The contingency tables use the same layout as BayesianTable, entry
+ * (configuration * choiceCount) + value, where the configuration is a
+ * mixed-radix encoding of the parent values with the first parent as the
+ * least significant digit.
+ *
+ * The count and score methods may be called from several threads at once.
+ */
+public class BayesianCountCache {
+
+	/**
+	 * The number of records.
+	 */
+	private final int recordCount;
+
+	/**
+	 * The number of choices of each event.
+	 */
+	private final int[] choiceCounts;
+
+	/**
+	 * The class of every record, one column per event.
+	 */
+	private final short[][] columns;
+
+	/**
+	 * The natural log of n!, for n up to the record count plus the largest
+	 * choice count.
+	 */
+	private final double[] logFactorial;
+
+	/**
+	 * Cached K2 log scores, keyed by event and sorted parent set.
+	 */
+	private final Map<String, Double> scores = new ConcurrentHashMap<>();
+
+	/**
+	 * Discretize the training data.
+	 *
+	 * @param network
+	 *            The network, which defines the events and their choices.
+	 * @param data
+	 *            The training data.
+	 */
+	public BayesianCountCache(BayesianNetwork network, MLDataSet data) {
+		int eventCount = network.getEvents().size();
+		long count = data.getRecordCount();
+		if (count > Integer.MAX_VALUE) {
+			throw new BayesianError("Too many records to count: " + count);
+		}
+		this.recordCount = (int) count;
+
+		this.choiceCounts = new int[eventCount];
+		int maxChoices = 1;
+		for (int i = 0; i < eventCount; i++) {
+			this.choiceCounts[i] = network.getEvents().get(i).getChoices().size();
+			if (this.choiceCounts[i] > Short.MAX_VALUE) {
+				throw new BayesianError("Too many choices to count for event " + network.getEvents().get(i));
+			}
+			maxChoices = Math.max(maxChoices, this.choiceCounts[i]);
+		}
+
+		this.columns = new short[eventCount][this.recordCount];
+		int row = 0;
+		for (MLDataPair pair : data) {
+			int[] d = network.determineClasses(pair.getInput());
+			for (int i = 0; i < eventCount; i++) {
+				if (d[i] < 0 || d[i] >= this.choiceCounts[i]) {
+					throw new BayesianError("Record " + row + " has no valid choice for event "
+							+ network.getEvents().get(i));
+				}
+				this.columns[i][row] = (short) d[i];
+			}
+			row++;
+		}
+
+		this.logFactorial = new double[this.recordCount + maxChoices + 1];
+		for (int i = 2; i < this.logFactorial.length; i++) {
+			this.logFactorial[i] = this.logFactorial[i - 1] + Math.log(i);
+		}
+	}
+
+	/**
+	 * @return The number of records.
+	 */
+	public int getRecordCount() {
+		return this.recordCount;
+	}
+
+	/**
+	 * @param event
+	 *            The event index.
+	 * @return The class of every record for the event.
+	 */
+	public short[] getColumn(int event) {
+		return this.columns[event];
+	}
+
+	/**
+	 * Count how often each value of an event occurs with each configuration of
+	 * its parents.
+	 *
+	 * @param event
+	 *            The event index.
+	 * @param parents
+	 *            The parent event indexes.
+	 * @return The contingency table, indexed by (configuration * choiceCount)
+	 *         + value.
+	 */
+	public int[] count(int event, int[] parents) {
+		int r = this.choiceCounts[event];
+		long size = r;
+		for (int parent : parents) {
+			size *= this.choiceCounts[parent];
+		}
+		if (size > Integer.MAX_VALUE) {
+			throw new BayesianError("Contingency table is too large for event " + event);
+		}
+
+		int[] result = new int[(int) size];
+		short[] column = this.columns[event];
+
+		if (parents.length == 0) {
+			for (int row = 0; row < this.recordCount; row++) {
+				result[column[row]]++;
+			}
+			return result;
+		}
+
+		// build the configuration of every record one parent at a time, which
+		// walks each column in order
+		int[] configuration = new int[this.recordCount];
+		int stride = r;
+		for (int parent : parents) {
+			short[] p = this.columns[parent];
+			for (int row = 0; row < this.recordCount; row++) {
+				configuration[row] += p[row] * stride;
+			}
+			stride *= this.choiceCounts[parent];
+		}
+
+		for (int row = 0; row < this.recordCount; row++) {
+			result[configuration[row] + column[row]]++;
+		}
+		return result;
+	}
+
+	/**
+	 * Calculate the natural log of the K2 score of an event with a set of
+	 * parents. The score does not depend on the order of the parents, and is
+	 * cached.
+	 *
+	 * @param event
+	 *            The event index.
+	 * @param parents
+	 *            The parent event indexes.
+	 * @return The log of the K2 score.
+	 */
+	public double logScore(int event, int[] parents) {
+		int[] sorted = parents.clone();
+		Arrays.sort(sorted);
+		String key = event + ":" + Arrays.toString(sorted);
+
+		Double cached = this.scores.get(key);
+		if (cached != null) {
+			return cached;
+		}
+
+		int r = this.choiceCounts[event];
+		int[] counts = this.count(event, sorted);
+		double result = 0;
+		for (int base = 0; base < counts.length; base += r) {
+			int n = 0;
+			for (int k = 0; k < r; k++) {
+				n += counts[base + k];
+				result += this.logFactorial[counts[base + k]];
+			}
+			result += this.logFactorial[r - 1] - this.logFactorial[n + r - 1];
+		}
+
+		this.scores.put(key, result);
+		return result;
+	}
+}
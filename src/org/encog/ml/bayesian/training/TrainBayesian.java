@@ -110,6 +110,11 @@ public class TrainBayesian extends BasicTraining {
 	 */
 	private String holdQuery;
 
+	/**
+	 * The discretized training data, created when first needed.
+	 */
+	private BayesianCountCache countCache;
+
 	/**
 	 * Construct a Bayesian trainer. Use K2 to search, and the SimpleEstimator
 	 * to estimate probability. Init as Naive Bayes
@@ -330,6 +335,17 @@ public class TrainBayesian extends BasicTraining {
 		return this.search;
 	}
 
+	/**
+	 * @return The training data, discretized for counting. This is shared by
+	 *         the search and the estimator.
+	 */
+	public synchronized BayesianCountCache getCountCache() {
+		if (this.countCache == null) {
+			this.countCache = new BayesianCountCache(this.network, this.data);
+		}
+		return this.countCache;
+	}
+
 	/**
 	 * @return The init method.
 	 */
@@ -27,7 +27,6 @@ import org.encog.ml.bayesian.BayesianEvent;
 import org.encog.ml.bayesian.BayesianNetwork;
 import org.encog.ml.bayesian.table.TableLine;
 import org.encog.ml.bayesian.training.TrainBayesian;
-import org.encog.ml.data.MLDataPair;
 import org.encog.ml.data.MLDataSet;
 
 /**
@@ -37,6 +36,7 @@ public class SimpleEstimator implements BayesEstimator {
 
 	private MLDataSet data;
 	private BayesianNetwork network;
+	private TrainBayesian train;
 	private int index;
 
 	/**
@@ -46,6 +46,7 @@ public class SimpleEstimator implements BayesEstimator {
 	public void init(TrainBayesian theTrainer, BayesianNetwork theNetwork, MLDataSet theData) {
 		this.network = theNetwork;
 		this.data = theData;
+		this.train = theTrainer;
 		this.index = 0;
 	}
 
@@ -61,41 +62,59 @@ public class SimpleEstimator implements BayesEstimator {
 	 * @return The probability.
 	 */
 	public double calculateProbability(BayesianEvent event, int result, int[] args) {
-		int eventIndex = this.network.getEvents().indexOf(event);
-		int x = 0;
-		int y = 0;
-
-		// calculate overall probability
-		for (MLDataPair pair : this.data) {
-			int[] d = this.network.determineClasses(pair.getInput());
+		int[] counts = this.obtainCounts(event);
+		return this.calculateProbability(event, result, args, counts);
+	}
 
-			if (args.length == 0) {
-				x++;
-				if (d[eventIndex] == result) {
-					y++;
-				}
-			} else if (d[eventIndex] == result) {
-				x++;
+	/**
+	 * Count the values of an event against its parents' configurations.
+	 *
+	 * @param event
+	 *            The event.
+	 * @return The contingency table.
+	 */
+	private int[] obtainCounts(BayesianEvent event) {
+		int[] parents = new int[event.getParents().size()];
+		for (int i = 0; i < parents.length; i++) {
+			parents[i] = this.network.getEventIndex(event.getParents().get(i));
+		}
+		return this.train.getCountCache().count(this.network.getEventIndex(event), parents);
+	}
 
-				int i = 0;
-				boolean givenMatch = true;
-				for (BayesianEvent givenEvent : event.getParents()) {
-					int givenIndex = this.network.getEventIndex(givenEvent);
-					if (args[i] != d[givenIndex]) {
-						givenMatch = false;
-						break;
-					}
-					i++;
-				}
+	/**
+	 * Calculate the probability from a contingency table.
+	 *
+	 * @param event
+	 *            The event.
+	 * @param result
+	 *            The result.
+	 * @param args
+	 *            The arguments.
+	 * @param counts
+	 *            The contingency table of the event and its parents.
+	 * @return The probability.
+	 */
+	private double calculateProbability(BayesianEvent event, int result, int[] args, int[] counts) {
+		int r = event.getChoices().size();
+		int x = 0;
+		int y = 0;
 
-				if (givenMatch) {
-					y++;
-				}
+		if (args.length == 0) {
+			x = this.train.getCountCache().getRecordCount();
+			y = counts[result];
+		} else {
+			// every case with the result, and those where the parents match
+			for (int base = 0; base < counts.length; base += r) {
+				x += counts[base + result];
+			}
+			int configuration = event.getTable().encodeArgs(args);
+			if (configuration != -1) {
+				y = counts[configuration * r + result];
 			}
 		}
 
 		double num = y + 1;
-		double den = x + event.getChoices().size();
+		double den = x + r;
 
 		return num / den;
 	}
@@ -106,8 +125,9 @@ public class SimpleEstimator implements BayesEstimator {
 	@Override
 	public boolean iteration() {
 		BayesianEvent event = this.network.getEvents().get(this.index);
+		int[] counts = this.obtainCounts(event);
 		for (TableLine line : event.getTable().getLines()) {
-			line.setProbability(this.calculateProbability(event, line.getResult(), line.getArguments()));
+			line.setProbability(this.calculateProbability(event, line.getResult(), line.getArguments(), counts));
 		}
 		this.index++;
 
@@ -24,21 +24,27 @@
 package org.encog.ml.bayesian.training.search.k2;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
-import org.encog.mathutil.EncogMath;
 import org.encog.ml.bayesian.BayesianEvent;
 import org.encog.ml.bayesian.BayesianNetwork;
-import org.encog.ml.bayesian.query.enumerate.EnumerationQuery;
+import org.encog.ml.bayesian.training.BayesianCountCache;
 import org.encog.ml.bayesian.training.TrainBayesian;
-import org.encog.ml.data.MLDataPair;
 import org.encog.ml.data.MLDataSet;
+import org.encog.util.concurrency.MultiThreadable;
+import org.encog.util.concurrency.RangeTask;
+import org.encog.util.concurrency.SharedExecutor;
 
 /**
  * Search for optimal Bayes structure with K2.
  *
+ * Counts come from the trainer's BayesianCountCache, so the data is only read
+ * once. Scores are compared as logs, which do not overflow on large data sets,
+ * and the candidate parents for each step are scored in parallel.
+ *
  */
-public class SearchK2 implements BayesSearch {
+public class SearchK2 implements BayesSearch, MultiThreadable {
 
 	/**
 	 * The data to use.
@@ -56,7 +62,7 @@ public class SearchK2 implements BayesSearch {
 	private TrainBayesian train;
 
 	/**
-	 * The last calculated value for p.
+	 * The log of the last calculated value for p.
 	 */
 	private double lastCalculatedP;
 
@@ -70,6 +76,22 @@ public class SearchK2 implements BayesSearch {
 	 */
 	private int index = -1;
 
+	/**
+	 * The number of threads to use, zero for all available.
+	 */
+	private int threadCount;
+
+	/**
+	 * The event and parents of the last contingency table used by
+	 * calculateN.
+	 */
+	private String lastCountKey;
+
+	/**
+	 * The last contingency table used by calculateN.
+	 */
+	private int[] lastCounts;
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -78,6 +100,8 @@ public class SearchK2 implements BayesSearch {
 		this.network = theNetwork;
 		this.data = theData;
 		this.train = theTrainer;
+		this.lastCountKey = null;
+		this.lastCounts = null;
 		this.orderNodes();
 		this.index = -1;
 	}
@@ -113,24 +137,32 @@ public class SearchK2 implements BayesSearch {
 	 *            The old value.
 	 * @return The new value for z.
 	 */
-	private BayesianEvent findZ(BayesianEvent event, int n, double old) {
+	private BayesianEvent findZ(final BayesianEvent event, int n, double old) {
+		final BayesianCountCache cache = this.train.getCountCache();
+		final int eventIndex = this.network.getEventIndex(event);
+		final int[] current = this.eventIndexes(event.getParents());
+		final double[] trial = new double[n];
+
+		SharedExecutor.getInstance().process(n, this.threadCount > 0 ? this.threadCount : Integer.MAX_VALUE,
+				new RangeTask() {
+					@Override
+					public void run(final int low, final int high) {
+						int[] parents = Arrays.copyOf(current, current.length + 1);
+						for (int i = low; i < high; i++) {
+							parents[current.length] = SearchK2.this.network
+									.getEventIndex(SearchK2.this.nodeOrdering.get(i));
+							trial[i] = cache.logScore(eventIndex, parents);
+						}
+					}
+				});
+
+		// pick in order, so that ties go to the earliest node as before
 		BayesianEvent result = null;
 		double maxChildP = Double.NEGATIVE_INFINITY;
-		// System.out.println("Finding parent for: " + event.toString());
 		for (int i = 0; i < n; i++) {
-			BayesianEvent trialParent = this.nodeOrdering.get(i);
-			List<BayesianEvent> parents = new ArrayList<>();
-			parents.addAll(event.getParents());
-			parents.add(trialParent);
-			// System.out.println("Calculating adding " + trialParent.toString()
-			// + " to " + event.toString());
-			this.lastCalculatedP = this.calculateG(this.network, event, parents);
-			// System.out.println("lastP:" + this.lastCalculatedP);
-			// System.out.println("old:" + old);
-			if (this.lastCalculatedP > old && this.lastCalculatedP > maxChildP) {
-				result = trialParent;
-				maxChildP = this.lastCalculatedP;
-				// System.out.println("Current best is: " + result.toString());
+			if (trial[i] > old && trial[i] > maxChildP) {
+				result = this.nodeOrdering.get(i);
+				maxChildP = trial[i];
 			}
 		}
 
@@ -138,6 +170,71 @@ public class SearchK2 implements BayesSearch {
 		return result;
 	}
 
+	/**
+	 * Find the network indexes of a list of events.
+	 *
+	 * @param events
+	 *            The events.
+	 * @return The index of each event.
+	 */
+	private int[] eventIndexes(List<BayesianEvent> events) {
+		int[] result = new int[events.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = this.network.getEventIndex(events.get(i));
+		}
+		return result;
+	}
+
+	/**
+	 * Get the contingency table for an event and parents, reusing the last one
+	 * if it matches.
+	 *
+	 * @param network
+	 *            The network to calculate for.
+	 * @param event
+	 *            The event.
+	 * @param parents
+	 *            The parents.
+	 * @return The contingency table.
+	 */
+	private int[] obtainCounts(BayesianNetwork network, BayesianEvent event, List<BayesianEvent> parents) {
+		int eventIndex = network.getEventIndex(event);
+		int[] parentIndexes = new int[parents.size()];
+		for (int i = 0; i < parentIndexes.length; i++) {
+			parentIndexes[i] = network.getEventIndex(parents.get(i));
+		}
+
+		String key = eventIndex + ":" + Arrays.toString(parentIndexes);
+		if (!key.equals(this.lastCountKey)) {
+			this.lastCounts = this.train.getCountCache().count(eventIndex, parentIndexes);
+			this.lastCountKey = key;
+		}
+		return this.lastCounts;
+	}
+
+	/**
+	 * Find the position of a parent instance in a contingency table.
+	 *
+	 * @param parents
+	 *            The parents.
+	 * @param parentInstance
+	 *            The parent instance.
+	 * @return The configuration, or -1 if a value is out of range.
+	 */
+	private int encodeInstance(List<BayesianEvent> parents, int[] parentInstance) {
+		int result = 0;
+		int stride = 1;
+		for (int i = 0; i < parentInstance.length; i++) {
+			int choices = parents.get(i).getChoices().size();
+			if (parentInstance[i] < 0 || parentInstance[i] >= choices) {
+				return -1;
+			}
+			result += parentInstance[i] * stride;
+			stride *= choices;
+		}
+		return result;
+	}
+
 	/**
 	 * Calculate the value N, which is the number of cases, from the training
 	 * data, where the desiredValue matches the training data. Only cases where
@@ -157,30 +254,12 @@ public class SearchK2 implements BayesSearch {
 	 */
 	public int calculateN(BayesianNetwork network, BayesianEvent event, List<BayesianEvent> parents,
 			int[] parentInstance, int desiredValue) {
-		int result = 0;
-		int eventIndex = network.getEventIndex(event);
-
-		for (MLDataPair pair : this.data) {
-			int[] d = this.network.determineClasses(pair.getInput());
-
-			if (d[eventIndex] == desiredValue) {
-				boolean reject = false;
-
-				for (int i = 0; i < parentInstance.length; i++) {
-					BayesianEvent parentEvent = parents.get(i);
-					int parentIndex = network.getEventIndex(parentEvent);
-					if (parentInstance[i] != d[parentIndex]) {
-						reject = true;
-						break;
-					}
-				}
-
-				if (!reject) {
-					result++;
-				}
-			}
+		int configuration = this.encodeInstance(parents, parentInstance);
+		int r = event.getChoices().size();
+		if (configuration == -1 || desiredValue < 0 || desiredValue >= r) {
+			return 0;
 		}
-		return result;
+		return this.obtainCounts(network, event, parents)[configuration * r + desiredValue];
 	}
 
 	/**
@@ -200,25 +279,16 @@ public class SearchK2 implements BayesSearch {
 	 */
 	public int calculateN(BayesianNetwork network, BayesianEvent event, List<BayesianEvent> parents,
 			int[] parentInstance) {
-		int result = 0;
-
-		for (MLDataPair pair : this.data) {
-			int[] d = this.network.determineClasses(pair.getInput());
-
-			boolean reject = false;
-
-			for (int i = 0; i < parentInstance.length; i++) {
-				BayesianEvent parentEvent = parents.get(i);
-				int parentIndex = network.getEventIndex(parentEvent);
-				if (parentInstance[i] != (d[parentIndex])) {
-					reject = true;
-					break;
-				}
-			}
+		int configuration = this.encodeInstance(parents, parentInstance);
+		if (configuration == -1) {
+			return 0;
+		}
 
-			if (!reject) {
-				result++;
-			}
+		int r = event.getChoices().size();
+		int[] counts = this.obtainCounts(network, event, parents);
+		int result = 0;
+		for (int k = 0; k < r; k++) {
+			result += counts[configuration * r + k];
 		}
 		return result;
 	}
@@ -235,25 +305,43 @@ public class SearchK2 implements BayesSearch {
 	 * @return The value for G.
 	 */
 	public double calculateG(BayesianNetwork network, BayesianEvent event, List<BayesianEvent> parents) {
-		double result = 1.0;
-		int r = event.getChoices().size();
-
-		int[] args = new int[parents.size()];
-
-		do {
-			double n = EncogMath.factorial(r - 1);
-			double d = EncogMath.factorial(this.calculateN(network, event, parents, args) + r - 1);
-			double p1 = n / d;
+		return Math.exp(this.calculateLogG(network, event, parents));
+	}
 
-			double p2 = 1;
-			for (int k = 0; k < event.getChoices().size(); k++) {
-				p2 *= EncogMath.factorial(this.calculateN(network, event, parents, args, k));
-			}
+	/**
+	 * Calculate the natural log of G. Unlike G itself, this does not overflow
+	 * for large data sets.
+	 *
+	 * @param network
+	 *            The network to calculate for.
+	 * @param event
+	 *            The event to calculate for.
+	 * @param parents
+	 *            The parents.
+	 * @return The log of G.
+	 */
+	public double calculateLogG(BayesianNetwork network, BayesianEvent event, List<BayesianEvent> parents) {
+		int[] parentIndexes = new int[parents.size()];
+		for (int i = 0; i < parentIndexes.length; i++) {
+			parentIndexes[i] = network.getEventIndex(parents.get(i));
+		}
+		return this.train.getCountCache().logScore(network.getEventIndex(event), parentIndexes);
+	}
 
-			result *= p1 * p2;
-		} while (EnumerationQuery.roll(parents, args));
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getThreadCount() {
+		return this.threadCount;
+	}
 
-		return result;
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setThreadCount(int numThreads) {
+		this.threadCount = numThreads;
 	}
 
 	/**
@@ -266,7 +354,7 @@ public class SearchK2 implements BayesSearch {
 			this.orderNodes();
 		} else {
 			BayesianEvent event = this.nodeOrdering.get(this.index);
-			double oldP = this.calculateG(this.network, event, event.getParents());
+			double oldP = this.calculateLogG(this.network, event, event.getParents());
 
 			while (event.getParents().size() < this.train.getMaximumParents()) {
 				BayesianEvent z = this.findZ(event, this.index, oldP);
@@ -0,0 +1,173 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.data.basic;
+
+import java.util.Arrays;
+
+import org.encog.ml.data.MLDataPair;
+import org.encog.ml.data.MLDataSet;
+import org.encog.util.EngineArray;
+
+/**
+ * Reads a data set a block of rows at a time into primitive arrays, so that
+ * a method that computes many rows in one call can score the data set. The
+ * arrays are reused for every block.
+ *
+ * A typical use is:
+ *
+ * <pre>
+ * final BasicMLDataBlock block = new BasicMLDataBlock(data, outputCount, rows);
+ * while (block.next()) {
+ * 	network.compute(block.getInput(), block.getActual());
+ * 	// use the first block.getCount() rows
+ * }
+ * </pre>
+ */
+public class BasicMLDataBlock {
+
+	/**
+	 * The data set being read.
+	 */
+	private final MLDataSet data;
+
+	/**
+	 * The number of records in the data set.
+	 */
+	private final long recordCount;
+
+	/**
+	 * The pair used to read each record.
+	 */
+	private final MLDataPair pair;
+
+	/**
+	 * The input rows of the current block.
+	 */
+	private final double[][] input;
+
+	/**
+	 * The ideal rows of the current block.
+	 */
+	private final double[][] ideal;
+
+	/**
+	 * The significance of each row of the current block.
+	 */
+	private final double[] significance;
+
+	/**
+	 * Rows to receive the computed output of the current block.
+	 */
+	private final double[][] actual;
+
+	/**
+	 * The first record of the next block.
+	 */
+	private long position;
+
+	/**
+	 * The number of rows in the current block.
+	 */
+	private int count;
+
+	/**
+	 * Construct the block reader.
+	 *
+	 * @param theData
+	 *            The data set to read.
+	 * @param outputCount
+	 *            The length of each output row.
+	 * @param blockRows
+	 *            The largest number of rows in one block.
+	 */
+	public BasicMLDataBlock(final MLDataSet theData, final int outputCount, final int blockRows) {
+		this.data = theData;
+		this.recordCount = theData.getRecordCount();
+		final int rows = (int) Math.max(1, Math.min(blockRows, this.recordCount));
+		this.pair = BasicMLDataPair.createPair(theData.getInputSize(), theData.getIdealSize());
+		this.input = new double[rows][theData.getInputSize()];
+		this.ideal = new double[rows][theData.getIdealSize()];
+		this.significance = new double[rows];
+		this.actual = new double[rows][outputCount];
+	}
+
+	/**
+	 * Read the next block of rows.
+	 *
+	 * @return True if a block was read, false if every record has been read.
+	 */
+	public boolean next() {
+		if (this.position >= this.recordCount) {
+			this.count = 0;
+			return false;
+		}
+
+		this.count = (int) Math.min(this.input.length, this.recordCount - this.position);
+		for (int i = 0; i < this.count; i++) {
+			this.data.getRecord(this.position + i, this.pair);
+			EngineArray.arrayCopy(this.pair.getInputArray(), this.input[i]);
+			EngineArray.arrayCopy(this.pair.getIdealArray(), this.ideal[i]);
+			this.significance[i] = this.pair.getSignificance();
+		}
+		this.position += this.count;
+		return true;
+	}
+
+	/**
+	 * @return The input rows of the current block, exactly getCount() rows
+	 *         long.
+	 */
+	public double[][] getInput() {
+		return this.count == this.input.length ? this.input : Arrays.copyOf(this.input, this.count);
+	}
+
+	/**
+	 * @return The ideal rows, only the first getCount() rows are valid.
+	 */
+	public double[][] getIdeal() {
+		return this.ideal;
+	}
+
+	/**
+	 * @return The significance of each row, only the first getCount() are
+	 *         valid.
+	 */
+	public double[] getSignificance() {
+		return this.significance;
+	}
+
+	/**
+	 * @return Rows to receive the computed output of the current block.
+	 */
+	public double[][] getActual() {
+		return this.actual;
+	}
+
+	/**
+	 * @return The number of rows in the current block.
+	 */
+	public int getCount() {
+		return this.count;
+	}
+}
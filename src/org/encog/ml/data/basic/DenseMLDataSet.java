@@ -0,0 +1,406 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.data.basic;
+
+import java.io.File;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.encog.EncogError;
+import org.encog.ml.data.MLData;
+import org.encog.ml.data.MLDataPair;
+import org.encog.ml.data.MLDataSet;
+import org.encog.ml.data.buffer.MappedMLDataSet;
+import org.encog.util.EngineArray;
+
+/**
+ * A data set that stores all of its records in flat arrays. Every input is
+ * held in one array, every ideal in another, and every significance in a
+ * third, one row after another. Compared to BasicMLDataSet, which holds a
+ * pair object and two data objects per row, this removes the per-row object
+ * headers and keeps the rows next to each other in memory, which is much
+ * friendlier to the cache when training loops over every record.
+ *
+ * getRecord copies a row into the arrays of the pair that is passed in, so a
+ * single pair can be reused for every record, and the caller is free to
+ * modify the pair without changing the data set.
+ */
+public class DenseMLDataSet implements Serializable, MLDataSet {
+
+	/**
+	 * An iterator to be used with the DenseMLDataSet. This iterator does not
+	 * support removes.
+	 */
+	public class DenseMLDataSetIterator implements Iterator<MLDataPair> {
+
+		/**
+		 * The index that the iterator is currently at.
+		 */
+		private int currentIndex = 0;
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public final boolean hasNext() {
+			return this.currentIndex < DenseMLDataSet.this.recordCount;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public final MLDataPair next() {
+			if (!this.hasNext()) {
+				return null;
+			}
+
+			return DenseMLDataSet.this.get(this.currentIndex++);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public final void remove() {
+			throw new EncogError("Called remove, unsupported operation.");
+		}
+	}
+
+	/**
+	 * The serial id.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The default number of rows to allocate room for.
+	 */
+	public static final int DEFAULT_CAPACITY = 16;
+
+	/**
+	 * The number of input values in each row.
+	 */
+	private final int inputSize;
+
+	/**
+	 * The number of ideal values in each row, zero for unsupervised.
+	 */
+	private final int idealSize;
+
+	/**
+	 * The number of rows.
+	 */
+	private int recordCount;
+
+	/**
+	 * The input values, stored row after row.
+	 */
+	private double[] input;
+
+	/**
+	 * The ideal values, stored row after row.
+	 */
+	private double[] ideal;
+
+	/**
+	 * The significance of each row.
+	 */
+	private double[] significance;
+
+	/**
+	 * Construct an empty data set.
+	 *
+	 * @param theInputSize
+	 *            The number of input values in each row.
+	 * @param theIdealSize
+	 *            The number of ideal values in each row, zero for
+	 *            unsupervised.
+	 */
+	public DenseMLDataSet(final int theInputSize, final int theIdealSize) {
+		this(theInputSize, theIdealSize, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Construct an empty data set, with room for the specified number of rows.
+	 *
+	 * @param theInputSize
+	 *            The number of input values in each row.
+	 * @param theIdealSize
+	 *            The number of ideal values in each row, zero for
+	 *            unsupervised.
+	 * @param capacity
+	 *            The number of rows to allocate room for.
+	 */
+	public DenseMLDataSet(final int theInputSize, final int theIdealSize, final int capacity) {
+		this.inputSize = theInputSize;
+		this.idealSize = theIdealSize;
+		this.input = new double[capacity * theInputSize];
+		this.ideal = new double[capacity * theIdealSize];
+		this.significance = new double[capacity];
+	}
+
+	/**
+	 * Construct a data set from two arrays.
+	 *
+	 * @param theInput
+	 *            The input, one array per row.
+	 * @param theIdeal
+	 *            The ideal, one array per row, or null for unsupervised.
+	 */
+	public DenseMLDataSet(final double[][] theInput, final double[][] theIdeal) {
+		this(theInput.length == 0 ? 0 : theInput[0].length,
+				(theIdeal == null || theIdeal.length == 0) ? 0 : theIdeal[0].length, theInput.length);
+		for (int i = 0; i < theInput.length; i++) {
+			this.add(theInput[i], theIdeal == null ? null : theIdeal[i], 1.0);
+		}
+	}
+
+	/**
+	 * Construct a data set by copying every row of another data set. This can
+	 * be used to convert a BasicMLDataSet, a normalized VersatileMLDataSet, or
+	 * an EGB backed BufferedMLDataSet or MappedMLDataSet.
+	 *
+	 * @param set
+	 *            The data set to copy.
+	 */
+	public DenseMLDataSet(final MLDataSet set) {
+		this(set.getInputSize(), set.getIdealSize(), (int) set.getRecordCount());
+		final MLDataPair pair = BasicMLDataPair.createPair(this.inputSize, this.idealSize);
+		final long count = set.getRecordCount();
+		for (long i = 0; i < count; i++) {
+			set.getRecord(i, pair);
+			this.add(pair);
+		}
+	}
+
+	/**
+	 * Load an Encog binary (EGB) file into a dense data set.
+	 *
+	 * @param file
+	 *            The EGB file to load.
+	 * @return The data set.
+	 */
+	public static DenseMLDataSet loadEGB(final File file) {
+		final MappedMLDataSet mapped = new MappedMLDataSet(file);
+		try {
+			return new DenseMLDataSet(mapped);
+		} finally {
+			mapped.close();
+		}
+	}
+
+	/**
+	 * Make sure there is room for at least the specified number of rows.
+	 *
+	 * @param capacity
+	 *            The number of rows.
+	 */
+	private void ensureCapacity(final int capacity) {
+		if (capacity > this.significance.length) {
+			final int newCapacity = Math.max(capacity, this.significance.length * 2);
+			this.input = Arrays.copyOf(this.input, newCapacity * this.inputSize);
+			this.ideal = Arrays.copyOf(this.ideal, newCapacity * this.idealSize);
+			this.significance = Arrays.copyOf(this.significance, newCapacity);
+		}
+	}
+
+	/**
+	 * Add a row.
+	 *
+	 * @param inputData
+	 *            The input values.
+	 * @param idealData
+	 *            The ideal values, or null for unsupervised.
+	 * @param theSignificance
+	 *            The significance of the row.
+	 */
+	public void add(final double[] inputData, final double[] idealData, final double theSignificance) {
+		if (this.idealSize > 0 && idealData == null) {
+			throw new EncogError("This data set is supervised and needs " + this.idealSize
+					+ " ideal values for each row, but none were given.");
+		}
+		this.ensureCapacity(this.recordCount + 1);
+		EngineArray.arrayCopy(inputData, 0, this.input, this.recordCount * this.inputSize, this.inputSize);
+		if (this.idealSize > 0) {
+			EngineArray.arrayCopy(idealData, 0, this.ideal, this.recordCount * this.idealSize, this.idealSize);
+		}
+		this.significance[this.recordCount] = theSignificance;
+		this.recordCount++;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void add(final MLData data1) {
+		this.add(data1.getData(), null, 1.0);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void add(final MLData inputData, final MLData idealData) {
+		this.add(inputData.getData(), idealData == null ? null : idealData.getData(), 1.0);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void add(final MLDataPair inputData) {
+		this.add(inputData.getInputArray(), inputData.getIdealArray(), inputData.getSignificance());
+	}
+
+	/**
+	 * Copy a row into the specified pair.
+	 *
+	 * @param index
+	 *            The row to copy.
+	 * @param pair
+	 *            The pair to copy into.
+	 */
+	@Override
+	public void getRecord(final long index, final MLDataPair pair) {
+		final int row = (int) index;
+		EngineArray.arrayCopy(this.input, row * this.inputSize, pair.getInputArray(), 0, this.inputSize);
+		if (this.idealSize > 0 && pair.getIdealArray() != null) {
+			EngineArray.arrayCopy(this.ideal, row * this.idealSize, pair.getIdealArray(), 0, this.idealSize);
+		}
+		pair.setSignificance(this.significance[row]);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public MLDataPair get(final int index) {
+		final MLDataPair result = BasicMLDataPair.createPair(this.inputSize, this.idealSize);
+		this.getRecord(index, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getRecordCount() {
+		return this.recordCount;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int size() {
+		return this.recordCount;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getIdealSize() {
+		return this.idealSize;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getInputSize() {
+		return this.inputSize;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isSupervised() {
+		return this.idealSize > 0;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Iterator<MLDataPair> iterator() {
+		return new DenseMLDataSetIterator();
+	}
+
+	/**
+	 * Reading a dense data set does not change it, so it can be shared between
+	 * threads.
+	 *
+	 * @return This data set.
+	 */
+	@Override
+	public MLDataSet openAdditional() {
+		return this;
+	}
+
+	/**
+	 * Release any unused capacity.
+	 */
+	public void trimToSize() {
+		if (this.recordCount < this.significance.length) {
+			this.input = Arrays.copyOf(this.input, this.recordCount * this.inputSize);
+			this.ideal = Arrays.copyOf(this.ideal, this.recordCount * this.idealSize);
+			this.significance = Arrays.copyOf(this.significance, this.recordCount);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void close() {
+		// nothing to close
+	}
+
+	/**
+	 * @return The input values, stored row after row. The array may be larger
+	 *         than the number of rows.
+	 */
+	public double[] getInputArray() {
+		return this.input;
+	}
+
+	/**
+	 * @return The ideal values, stored row after row. The array may be larger
+	 *         than the number of rows.
+	 */
+	public double[] getIdealArray() {
+		return this.ideal;
+	}
+
+	/**
+	 * @return The significance of each row. The array may be larger than the
+	 *         number of rows.
+	 */
+	public double[] getSignificanceArray() {
+		return this.significance;
+	}
+}
@@ -0,0 +1,209 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.data.buffer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A read-only view of an Encog binary (EGB) file that is mapped into memory.
+ * Records are read with absolute gets from the mapping, so reads do not
+ * require a system call, do not move a shared file position and can be made
+ * by any number of threads at once.
+ *
+ * A single mapping is limited to 2GB, so larger files are mapped as several
+ * segments. Each segment holds a whole number of records, so a record never
+ * spans two segments.
+ */
+public class MappedEGBFile {
+
+	/**
+	 * The largest number of bytes in a single mapped segment.
+	 */
+	public static final long MAX_SEGMENT_SIZE = Integer.MAX_VALUE;
+
+	/**
+	 * The file that is mapped.
+	 */
+	private final File file;
+
+	/**
+	 * The number of input values in each record.
+	 */
+	private final int inputCount;
+
+	/**
+	 * The number of ideal values in each record.
+	 */
+	private final int idealCount;
+
+	/**
+	 * The number of doubles in each record, input, ideal and significance.
+	 */
+	private final int recordCount;
+
+	/**
+	 * The number of records in the file.
+	 */
+	private final long numberOfRecords;
+
+	/**
+	 * The number of records held by each segment.
+	 */
+	private final long recordsPerSegment;
+
+	/**
+	 * The mapped segments, viewed as doubles.
+	 */
+	private DoubleBuffer[] segments;
+
+	/**
+	 * Map the specified EGB file.
+	 *
+	 * @param theFile
+	 *            The file to map.
+	 */
+	public MappedEGBFile(final File theFile) {
+		this(theFile, MAX_SEGMENT_SIZE);
+	}
+
+	/**
+	 * Map the specified EGB file, using segments of at most the specified
+	 * size. A segment always holds at least one record.
+	 *
+	 * @param theFile
+	 *            The file to map.
+	 * @param segmentSize
+	 *            The largest number of bytes in a single segment.
+	 */
+	MappedEGBFile(final File theFile, final long segmentSize) {
+		this.file = theFile;
+
+		// use the regular EGB reader to validate and read the header
+		final EncogEGBFile egb = new EncogEGBFile(theFile);
+		egb.open();
+		this.inputCount = egb.getInputCount();
+		this.idealCount = egb.getIdealCount();
+		this.recordCount = egb.getRecordCount();
+		egb.close();
+
+		final long recordSize = (long) this.recordCount * EncogEGBFile.DOUBLE_SIZE;
+		this.numberOfRecords = (theFile.length() - EncogEGBFile.HEADER_SIZE) / recordSize;
+		this.recordsPerSegment = Math.max(1, Math.min(segmentSize, MAX_SEGMENT_SIZE) / recordSize);
+
+		final int segmentCount = (int) ((this.numberOfRecords + this.recordsPerSegment - 1) / this.recordsPerSegment);
+		this.segments = new DoubleBuffer[segmentCount];
+
+		try (RandomAccessFile raf = new RandomAccessFile(theFile, "r"); FileChannel fc = raf.getChannel()) {
+			for (int i = 0; i < segmentCount; i++) {
+				final long firstRecord = i * this.recordsPerSegment;
+				final long records = Math.min(this.recordsPerSegment, this.numberOfRecords - firstRecord);
+				final MappedByteBuffer buffer = fc.map(FileChannel.MapMode.READ_ONLY,
+						EncogEGBFile.HEADER_SIZE + (firstRecord * recordSize), records * recordSize);
+				buffer.order(ByteOrder.LITTLE_ENDIAN);
+				this.segments[i] = buffer.asDoubleBuffer();
+			}
+		} catch (final IOException ex) {
+			throw new BufferedDataError(ex);
+		}
+	}
+
+	/**
+	 * Read one record. This method is thread safe.
+	 *
+	 * @param index
+	 *            The record to read.
+	 * @param input
+	 *            The array to read the input into.
+	 * @param ideal
+	 *            The array to read the ideal into, or null to skip the ideal.
+	 * @return The significance of the record.
+	 */
+	public double read(final long index, final double[] input, final double[] ideal) {
+		final DoubleBuffer segment = this.segments[(int) (index / this.recordsPerSegment)];
+		int position = (int) (index % this.recordsPerSegment) * this.recordCount;
+
+		for (int i = 0; i < this.inputCount; i++) {
+			input[i] = segment.get(position++);
+		}
+
+		if (ideal != null) {
+			for (int i = 0; i < this.idealCount; i++) {
+				ideal[i] = segment.get(position++);
+			}
+		} else {
+			position += this.idealCount;
+		}
+
+		return segment.get(position);
+	}
+
+	/**
+	 * Release the mapping. The memory is returned to the operating system
+	 * once the segments are garbage collected.
+	 */
+	public void close() {
+		this.segments = new DoubleBuffer[0];
+	}
+
+	/**
+	 * @return The file that is mapped.
+	 */
+	public File getFile() {
+		return this.file;
+	}
+
+	/**
+	 * @return The number of input values in each record.
+	 */
+	public int getInputCount() {
+		return this.inputCount;
+	}
+
+	/**
+	 * @return The number of ideal values in each record.
+	 */
+	public int getIdealCount() {
+		return this.idealCount;
+	}
+
+	/**
+	 * @return The number of records in the file.
+	 */
+	public long getNumberOfRecords() {
+		return this.numberOfRecords;
+	}
+
+	/**
+	 * @return The number of segments the file is mapped as.
+	 */
+	public int getSegmentCount() {
+		return this.segments.length;
+	}
+}
@@ -0,0 +1,222 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.data.buffer;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.encog.ml.data.MLData;
+import org.encog.ml.data.MLDataError;
+import org.encog.ml.data.MLDataPair;
+import org.encog.ml.data.MLDataSet;
+import org.encog.ml.data.basic.BasicMLDataPair;
+
+/**
+ * A read-only data set that is backed by a memory mapped Encog binary (EGB)
+ * file. Unlike BufferedMLDataSet, getRecord does not lock and does not make a
+ * system call, so every training thread can read records at the same time.
+ * Once the file is in the operating system's page cache, records are read at
+ * close to memory speed.
+ *
+ * Because the data set is thread safe, openAdditional returns the same data
+ * set rather than opening the file again. Use BufferedMLDataSet to create or
+ * modify EGB files.
+ */
+public class MappedMLDataSet implements MLDataSet {
+
+	/**
+	 * Error message for adds.
+	 */
+	public static final String ERROR_ADD = "A MappedMLDataSet is read-only, use BufferedMLDataSet to add data.";
+
+	/**
+	 * The mapped file.
+	 */
+	private final MappedEGBFile egb;
+
+	/**
+	 * Construct a data set by mapping the specified EGB file.
+	 *
+	 * @param binaryFile
+	 *            The file to map.
+	 */
+	public MappedMLDataSet(final File binaryFile) {
+		this.egb = new MappedEGBFile(binaryFile);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Iterator<MLDataPair> iterator() {
+		return new Iterator<MLDataPair>() {
+			private long current;
+
+			@Override
+			public boolean hasNext() {
+				return this.current < getRecordCount();
+			}
+
+			@Override
+			public MLDataPair next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				final MLDataPair pair = BasicMLDataPair.createPair(getInputSize(), getIdealSize());
+				getRecord(this.current++, pair);
+				return pair;
+			}
+
+			@Override
+			public void remove() {
+				throw new MLDataError(BufferedMLDataSet.ERROR_REMOVE);
+			}
+		};
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getIdealSize() {
+		return this.egb.getIdealCount();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getInputSize() {
+		return this.egb.getInputCount();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isSupervised() {
+		return this.egb.getIdealCount() > 0;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getRecordCount() {
+		return this.egb.getNumberOfRecords();
+	}
+
+	/**
+	 * Read a record. This method is thread safe.
+	 *
+	 * @param index
+	 *            The record to read.
+	 * @param pair
+	 *            The pair to read into.
+	 */
+	@Override
+	public void getRecord(final long index, final MLDataPair pair) {
+		pair.setSignificance(this.egb.read(index, pair.getInputArray(), pair.getIdealArray()));
+	}
+
+	/**
+	 * The mapped data set can be shared between threads, so no additional
+	 * data set is opened.
+	 *
+	 * @return This data set.
+	 */
+	@Override
+	public MLDataSet openAdditional() {
+		return this;
+	}
+
+	/**
+	 * Not supported, the data set is read-only.
+	 *
+	 * @param data1
+	 *            Not used.
+	 */
+	@Override
+	public void add(final MLData data1) {
+		throw new MLDataError(MappedMLDataSet.ERROR_ADD);
+	}
+
+	/**
+	 * Not supported, the data set is read-only.
+	 *
+	 * @param inputData
+	 *            Not used.
+	 * @param idealData
+	 *            Not used.
+	 */
+	@Override
+	public void add(final MLData inputData, final MLData idealData) {
+		throw new MLDataError(MappedMLDataSet.ERROR_ADD);
+	}
+
+	/**
+	 * Not supported, the data set is read-only.
+	 *
+	 * @param inputData
+	 *            Not used.
+	 */
+	@Override
+	public void add(final MLDataPair inputData) {
+		throw new MLDataError(MappedMLDataSet.ERROR_ADD);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void close() {
+		this.egb.close();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int size() {
+		return (int) this.getRecordCount();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public MLDataPair get(final int index) {
+		final MLDataPair result = BasicMLDataPair.createPair(this.getInputSize(), this.getIdealSize());
+		this.getRecord(index, result);
+		return result;
+	}
+
+	/**
+	 * @return The mapped EGB file.
+	 */
+	public MappedEGBFile getEGB() {
+		return this.egb;
+	}
+}
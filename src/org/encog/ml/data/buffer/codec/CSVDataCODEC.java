@@ -204,17 +204,11 @@ public class CSVDataCODEC implements DataSetCODEC {
 	@Override
 	public boolean read(final double[] input, final double[] ideal, double[] significance) {
 		if (this.readCSV.next()) {
-			int index = 0;
-			for (int i = 0; i < input.length; i++) {
-				input[i] = this.readCSV.getDouble(index++);
-			}
-
-			for (int i = 0; i < ideal.length; i++) {
-				ideal[i] = this.readCSV.getDouble(index++);
-			}
+			this.readCSV.getDoubles(0, input);
+			this.readCSV.getDoubles(input.length, ideal);
 
 			if (this.expectSignificance) {
-				significance[0] = this.readCSV.getDouble(index++);
+				significance[0] = this.readCSV.getDouble(input.length + ideal.length);
 			} else {
 				significance[0] = 1.0;
 			}
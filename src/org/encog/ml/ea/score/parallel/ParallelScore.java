@@ -23,10 +23,8 @@
  */
 package org.encog.ml.ea.score.parallel;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
 
 import org.encog.ml.CalculateScore;
 import org.encog.ml.ea.codec.GeneticCODEC;
@@ -36,6 +34,8 @@ import org.encog.ml.ea.score.AdjustScore;
 import org.encog.ml.ea.species.Species;
 import org.encog.ml.genetic.GeneticError;
 import org.encog.util.concurrency.MultiThreadable;
+import org.encog.util.concurrency.RangeTask;
+import org.encog.util.concurrency.SharedExecutor;
 
 /**
  * This class is used to calculate the scores for an entire population. This is
@@ -75,7 +75,12 @@ public class ParallelScore implements MultiThreadable {
 	/**
 	 * An error from one of the threads.
 	 */
-	private Exception reportedError;
+	private volatile Exception reportedError;
+
+	/**
+	 * The time taken by the last call to process, in nanoseconds.
+	 */
+	private long lastProcessTime;
 
 	/**
 	 * Construct the parallel score calculation object.
@@ -97,6 +102,7 @@ public class ParallelScore implements MultiThreadable {
 		this.population = thePopulation;
 		this.scoreFunction = theScoreFunction;
 		this.adjusters = theAdjusters;
+		this.threads = theThreadCount;
 		this.actualThreads = 0;
 	}
 
@@ -134,33 +140,35 @@ public class ParallelScore implements MultiThreadable {
 			this.actualThreads = this.threads;
 		}
 
-		// start up
-		ExecutorService taskExecutor = null;
-
-		if (this.threads == 1) {
-			taskExecutor = Executors.newSingleThreadScheduledExecutor();
-		} else {
-			taskExecutor = Executors.newFixedThreadPool(this.actualThreads);
+		final List<Genome> genomes = new ArrayList<>();
+		for (final Species species : this.population.getSpecies()) {
+			genomes.addAll(species.getMembers());
 		}
 
-		for (Species species : this.population.getSpecies()) {
-			for (Genome genome : species.getMembers()) {
-				taskExecutor.execute(new ParallelScoreTask(genome, this));
+		// score the genomes in chunks on the shared pool
+		final long start = System.nanoTime();
+		SharedExecutor.getInstance().process(genomes.size(), this.actualThreads, new RangeTask() {
+			@Override
+			public void run(final int low, final int high) {
+				for (int i = low; i < high; i++) {
+					new ParallelScoreTask(genomes.get(i), ParallelScore.this).run();
+				}
 			}
-		}
-
-		taskExecutor.shutdown();
-		try {
-			taskExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.MINUTES);
-		} catch (InterruptedException e) {
-			throw new GeneticError(e);
-		}
+		});
+		this.lastProcessTime = System.nanoTime() - start;
 
 		if (this.reportedError != null) {
 			throw new GeneticError(this.reportedError);
 		}
 	}
 
+	/**
+	 * @return The time taken by the last call to process, in nanoseconds.
+	 */
+	public long getLastProcessTime() {
+		return this.lastProcessTime;
+	}
+
 	/**
 	 * @return The score adjusters.
 	 */
@@ -36,6 +36,9 @@ import org.encog.ml.ea.sort.SortGenomesForSpecies;
 import org.encog.ml.ea.sort.SpeciesComparator;
 import org.encog.ml.ea.train.EvolutionaryAlgorithm;
 import org.encog.ml.genetic.GeneticError;
+import org.encog.util.concurrency.MultiThreadable;
+import org.encog.util.concurrency.RangeTask;
+import org.encog.util.concurrency.SharedExecutor;
 
 /**
  * Speciate based on threshold. Any genomes with a compatibility score below a
@@ -411,19 +414,37 @@ public abstract class ThresholdSpeciation implements Speciation, Serializable {
 		// calculate compatibility between genomes and species
 		this.adjustCompatibilityThreshold();
 
+		// find the first existing species that each genome is compatible with,
+		// spread over the threads
+		final int initialCount = speciesCollection.size();
+		final Genome[] leaders = new Genome[initialCount];
+		for (int i = 0; i < initialCount; i++) {
+			leaders[i] = speciesCollection.get(i).getLeader();
+		}
+		final int[] firstMatch = this.findFirstMatches(genomes, leaders);
+
 		// assign genomes to species (if any exist)
-		for (final Genome g : genomes) {
+		for (int gi = 0; gi < genomes.size(); gi++) {
 			Species currentSpecies = null;
-			final Genome genome = g;
+			final Genome genome = genomes.get(gi);
 
 			if (!Double.isNaN(genome.getAdjustedScore()) && !Double.isInfinite(genome.getAdjustedScore())) {
 				maxScore = Math.max(genome.getAdjustedScore(), maxScore);
 			}
 
-			for (final Species s : speciesCollection) {
-				final double compatibility = this.getCompatibilityScore(genome, s.getLeader());
+			for (int i = 0; i < speciesCollection.size(); i++) {
+				final Species s = speciesCollection.get(i);
+				final boolean compatible;
 
-				if (compatibility <= this.compatibilityThreshold) {
+				// the precomputed match holds, unless an earlier genome became
+				// the leader of this species
+				if ((i < initialCount) && (i <= firstMatch[gi]) && (s.getLeader() == leaders[i])) {
+					compatible = i == firstMatch[gi];
+				} else {
+					compatible = this.getCompatibilityScore(genome, s.getLeader()) <= this.compatibilityThreshold;
+				}
+
+				if (compatible) {
 					currentSpecies = s;
 					this.addSpeciesMember(s, genome);
 					genome.setSpecies(s);
@@ -464,6 +485,45 @@ public abstract class ThresholdSpeciation implements Speciation, Serializable {
 
 	}
 
+	/**
+	 * Find the first species leader that each genome is compatible with. The
+	 * genomes are compared on the threads of the shared executor, using the
+	 * thread count of the owner.
+	 *
+	 * @param genomes
+	 *            The genomes to compare.
+	 * @param leaders
+	 *            The species leaders, in species order.
+	 * @return The index of the first compatible leader for each genome, or the
+	 *         number of leaders if there is none.
+	 */
+	private int[] findFirstMatches(final List<Genome> genomes, final Genome[] leaders) {
+		final int[] result = new int[genomes.size()];
+		final double threshold = this.compatibilityThreshold;
+
+		int threads = Integer.MAX_VALUE;
+		if (this.owner instanceof MultiThreadable && ((MultiThreadable) this.owner).getThreadCount() > 0) {
+			threads = ((MultiThreadable) this.owner).getThreadCount();
+		}
+
+		SharedExecutor.getInstance().process(genomes.size(), threads, new RangeTask() {
+			@Override
+			public void run(final int low, final int high) {
+				for (int gi = low; gi < high; gi++) {
+					final Genome genome = genomes.get(gi);
+					int match = 0;
+					while ((match < leaders.length)
+							&& !(ThresholdSpeciation.this.getCompatibilityScore(genome, leaders[match]) <= threshold)) {
+						match++;
+					}
+					result[gi] = match;
+				}
+			}
+		});
+
+		return result;
+	}
+
 	/**
 	 * Determine how compatible two genomes are. More compatible genomes will be
 	 * placed into the same species. The lower the number, the more compatible.
@@ -26,10 +26,6 @@ package org.encog.ml.ea.train.basic;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
 
 import org.encog.Encog;
 import org.encog.EncogError;
@@ -61,6 +57,8 @@ import org.encog.ml.ea.species.Species;
 import org.encog.ml.ea.train.EvolutionaryAlgorithm;
 import org.encog.ml.genetic.GeneticError;
 import org.encog.util.concurrency.MultiThreadable;
+import org.encog.util.concurrency.RangeTask;
+import org.encog.util.concurrency.SharedExecutor;
 import org.encog.util.logging.EncogLogging;
 
 /**
@@ -206,14 +204,14 @@ public class BasicEA implements EvolutionaryAlgorithm, MultiThreadable, EncogShu
 	private Genome bestGenome;
 
 	/**
-	 * The thread pool executor.
+	 * Holds the workers used each iteration.
 	 */
-	private ExecutorService taskExecutor;
+	private final List<EAWorker> threadList = new ArrayList<>();
 
 	/**
-	 * Holds the threads used each iteration.
+	 * The time taken by the last iteration, in nanoseconds.
 	 */
-	private final List<Callable<Object>> threadList = new ArrayList<>();
+	private long lastIterationTime;
 
 	/**
 	 * Holds rewrite and constraint rules.
@@ -349,18 +347,8 @@ public class BasicEA implements EvolutionaryAlgorithm, MultiThreadable, EncogShu
 	@Override
 	public void finishTraining() {
 
-		// wait for threadpool to shutdown
-		if (this.taskExecutor != null) {
-			this.taskExecutor.shutdown();
-			try {
-				this.taskExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.MINUTES);
-			} catch (final InterruptedException e) {
-				throw new GeneticError(e);
-			} finally {
-				this.taskExecutor = null;
-				Encog.getInstance().removeShutdownTask(this);
-			}
-		}
+		// the shared pool is not shut down, it is used by other trainers
+		Encog.getInstance().removeShutdownTask(this);
 	}
 
 	/**
@@ -553,6 +541,8 @@ public class BasicEA implements EvolutionaryAlgorithm, MultiThreadable, EncogShu
 	 */
 	@Override
 	public void iteration() {
+		final long start = System.nanoTime();
+
 		if (this.actualThreadCount == -1) {
 			this.preIteration();
 		}
@@ -595,12 +585,15 @@ public class BasicEA implements EvolutionaryAlgorithm, MultiThreadable, EncogShu
 			}
 		}
 
-		// run all threads and wait for them to finish
-		try {
-			this.taskExecutor.invokeAll(this.threadList);
-		} catch (final InterruptedException e) {
-			EncogLogging.log(e);
-		}
+		// run the workers in chunks on the shared pool, and wait for them
+		SharedExecutor.getInstance().process(this.threadList.size(), this.actualThreadCount, new RangeTask() {
+			@Override
+			public void run(final int low, final int high) {
+				for (int i = low; i < high; i++) {
+					BasicEA.this.threadList.get(i).call();
+				}
+			}
+		});
 
 		// handle any errors that might have happened in the threads
 		if (this.reportedError != null && !this.getShouldIgnoreExceptions()) {
@@ -624,6 +617,18 @@ public class BasicEA implements EvolutionaryAlgorithm, MultiThreadable, EncogShu
 
 		// purge invalid genomes
 		this.population.purgeInvalidGenomes();
+
+		this.lastIterationTime = System.nanoTime() - start;
+		EncogLogging.log(EncogLogging.LEVEL_DEBUG, "Generation " + this.iteration + " took "
+				+ (this.lastIterationTime / 1000000.0) + "ms, " + this.threadList.size() + " offspring");
+	}
+
+	/**
+	 * @return The time taken by the last iteration, in nanoseconds. This
+	 *         includes scoring the initial population on the first iteration.
+	 */
+	public long getLastIterationTime() {
+		return this.lastIterationTime;
 	}
 
 	/**
@@ -656,13 +661,6 @@ public class BasicEA implements EvolutionaryAlgorithm, MultiThreadable, EncogShu
 		pscore.process();
 		this.actualThreadCount = pscore.getThreadCount();
 
-		// start up the thread pool
-		if (this.actualThreadCount == 1) {
-			this.taskExecutor = Executors.newSingleThreadScheduledExecutor();
-		} else {
-			this.taskExecutor = Executors.newFixedThreadPool(this.actualThreadCount);
-		}
-
 		// register for shutdown
 		Encog.getInstance().addShutdownTask(this);
 
@@ -821,6 +819,10 @@ public class BasicEA implements EvolutionaryAlgorithm, MultiThreadable, EncogShu
 	@Override
 	public void setThreadCount(final int numThreads) {
 		this.threadCount = numThreads;
+		// once training has started, the next generation uses the new count
+		if (this.actualThreadCount != -1) {
+			this.actualThreadCount = numThreads == 0 ? Runtime.getRuntime().availableProcessors() : numThreads;
+		}
 	}
 
 	/**
@@ -0,0 +1,232 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.graph;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.encog.EncogError;
+
+/**
+ * A read-only, compressed sparse row (CSR) encoding of a graph of BasicNode objects. Every node is given a dense
+ * integer id, and the outbound edges of node i are stored at positions edgeStart[i] to edgeStart[i+1]-1 of the edgeTo
+ * and edgeCost arrays, in the same order as BasicNode.getConnections.
+ *
+ * The graph is a snapshot, nodes or edges added after compilation are not seen.
+ */
+public class CompiledGraph {
+
+	/**
+	 * The nodes, indexed by id.
+	 */
+	private final BasicNode[] nodes;
+
+	/**
+	 * The id of each node.
+	 */
+	private final Map<BasicNode, Integer> index = new IdentityHashMap<>();
+
+	/**
+	 * The offset of each node's first edge, with one extra trailing entry holding the edge count.
+	 */
+	private final int[] edgeStart;
+
+	/**
+	 * The target node id of each edge.
+	 */
+	private final int[] edgeTo;
+
+	/**
+	 * The cost of each edge.
+	 */
+	private final double[] edgeCost;
+
+	/**
+	 * Compile the nodes of a graph, along with any nodes reachable from them.
+	 *
+	 * @param graph
+	 *            The graph to compile.
+	 */
+	public CompiledGraph(final BasicGraph graph) {
+		this(graph.getNodes());
+	}
+
+	/**
+	 * Compile the specified nodes, along with any nodes reachable from them. Ids are assigned in the order the nodes
+	 * are given, followed by reachable nodes in breadth-first order.
+	 *
+	 * @param seeds
+	 *            The nodes to compile.
+	 */
+	public CompiledGraph(final Collection<BasicNode> seeds) {
+		final List<BasicNode> list = new ArrayList<>();
+		for (final BasicNode node : seeds) {
+			this.register(node, list);
+		}
+
+		// pull in anything reachable that was never added to the graph
+		int edgeCount = 0;
+		for (int i = 0; i < list.size(); i++) {
+			final List<BasicEdge> connections = list.get(i).getConnections();
+			edgeCount += connections.size();
+			for (final BasicEdge edge : connections) {
+				this.register(edge.getTo(), list);
+			}
+		}
+
+		this.nodes = list.toArray(new BasicNode[list.size()]);
+		this.edgeStart = new int[this.nodes.length + 1];
+		this.edgeTo = new int[edgeCount];
+		this.edgeCost = new double[edgeCount];
+
+		int e = 0;
+		for (int i = 0; i < this.nodes.length; i++) {
+			this.edgeStart[i] = e;
+			for (final BasicEdge edge : this.nodes[i].getConnections()) {
+				this.edgeTo[e] = this.index.get(edge.getTo());
+				this.edgeCost[e] = edge.getCost();
+				e++;
+			}
+		}
+		this.edgeStart[this.nodes.length] = e;
+	}
+
+	/**
+	 * Give a node the next id, if it does not have one yet.
+	 *
+	 * @param node
+	 *            The node.
+	 * @param list
+	 *            The nodes that have an id, in id order.
+	 */
+	private void register(final BasicNode node, final List<BasicNode> list) {
+		if (!this.index.containsKey(node)) {
+			this.index.put(node, list.size());
+			list.add(node);
+		}
+	}
+
+	/**
+	 * @return The number of nodes.
+	 */
+	public int getNodeCount() {
+		return this.nodes.length;
+	}
+
+	/**
+	 * @return The number of edges.
+	 */
+	public int getEdgeCount() {
+		return this.edgeTo.length;
+	}
+
+	/**
+	 * Get a node by id.
+	 *
+	 * @param id
+	 *            The node id.
+	 * @return The node with the specified id.
+	 */
+	public BasicNode getNode(final int id) {
+		return this.nodes[id];
+	}
+
+	/**
+	 * Get the id of a node.
+	 *
+	 * @param node
+	 *            The node to look up.
+	 * @return The id of the node, or -1 if it is not part of this graph.
+	 */
+	public int getNodeIndex(final BasicNode node) {
+		final Integer result = this.index.get(node);
+		return result == null ? -1 : result;
+	}
+
+	/**
+	 * Get the id of a node that must be part of this graph.
+	 *
+	 * @param node
+	 *            The node to look up.
+	 * @return The id of the node.
+	 */
+	public int requireNodeIndex(final BasicNode node) {
+		final int result = this.getNodeIndex(node);
+		if (result == -1) {
+			throw new EncogError("Node is not part of the compiled graph: " + node);
+		}
+		return result;
+	}
+
+	/**
+	 * @return The offset of each node's first edge, indexed by node id. The array has one extra trailing entry holding
+	 *         the edge count.
+	 */
+	public int[] getEdgeStart() {
+		return this.edgeStart;
+	}
+
+	/**
+	 * @return The target node id of each edge.
+	 */
+	public int[] getEdgeTo() {
+		return this.edgeTo;
+	}
+
+	/**
+	 * @return The cost of each edge.
+	 */
+	public double[] getEdgeCost() {
+		return this.edgeCost;
+	}
+
+	/**
+	 * Build a path by following parent ids back from a node.
+	 *
+	 * @param parent
+	 *            The parent id of each node, -1 for the start node.
+	 * @param node
+	 *            The destination node id.
+	 * @return The path from the start node to the destination.
+	 */
+	public BasicPath buildPath(final int[] parent, final int node) {
+		int length = 0;
+		for (int n = node; n != -1; n = parent[n]) {
+			length++;
+		}
+		final BasicNode[] list = new BasicNode[length];
+		for (int n = node; n != -1; n = parent[n]) {
+			list[--length] = this.nodes[n];
+		}
+
+		final BasicPath result = new BasicPath(list[0]);
+		for (int i = 1; i < list.length; i++) {
+			result.getNodes().add(list[i]);
+		}
+		return result;
+	}
+}
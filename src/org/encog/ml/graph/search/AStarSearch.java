@@ -71,4 +71,23 @@ public class AStarSearch extends AbstractGraphSearch {
 		return firstCost < secondCost;
 	}
 
+	@Override
+	protected boolean supportsIndexedFrontier() {
+		return true;
+	}
+
+	@Override
+	protected boolean isDecreaseKey() {
+		return true;
+	}
+
+	/**
+	 * Extends the parent's cost by one node, giving the same value as calculatePathCost without walking the whole path.
+	 */
+	@Override
+	protected double calculatePriority(final double parentPriority, final int size, final BasicNode node,
+			final double stepCost) {
+		return parentPriority + this.estimator.estimateCost(node, this.getGoal()) + stepCost;
+	}
+
 }
@@ -23,27 +23,43 @@
  */
 package org.encog.ml.graph.search;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
 
 import org.encog.EncogError;
 import org.encog.ml.graph.BasicEdge;
 import org.encog.ml.graph.BasicGraph;
 import org.encog.ml.graph.BasicNode;
 import org.encog.ml.graph.BasicPath;
+import org.encog.ml.graph.CompiledGraph;
 
+/**
+ * Base class for graph searches. The graph is compiled to a CompiledGraph the first time iteration is called, and
+ * explored nodes are tracked in a bit set indexed by node id.
+ *
+ * Searches that can express their priority as a number, built up one edge at a time, override supportsIndexedFrontier
+ * and calculatePriority. These keep their frontier in an IndexedFrontier heap. Other searches fall back to a
+ * FrontierHolder, which orders paths with isHigherPriority.
+ */
 public abstract class AbstractGraphSearch implements GraphSearch {
 
 	private final BasicGraph graph;
 	private final SearchGoal goal;
+	private final BasicNode startingPoint;
 	private final FrontierHolder frontier = new FrontierHolder(this);
-	private final Set<BasicNode> explored = new HashSet<>();
+	private CompiledGraph compiled;
+	private IndexedFrontier heap;
+	private BitSet explored;
+	private int[] parent;
+	private int[] pathSize;
+	private int goalNode = -1;
 	private BasicPath solution;
 
 	public AbstractGraphSearch(BasicGraph theGraph, BasicNode startingPoint, SearchGoal theGoal) {
 		this.graph = theGraph;
 		this.goal = theGoal;
-		this.frontier.add(new BasicPath(startingPoint));
+		this.startingPoint = startingPoint;
 	}
 
 	@Override
@@ -56,9 +72,76 @@ public abstract class AbstractGraphSearch implements GraphSearch {
 		return this.goal;
 	}
 
+	/**
+	 * @return True if this search's ordering is given by calculatePriority, and can use the indexed heap frontier.
+	 */
+	protected boolean supportsIndexedFrontier() {
+		return false;
+	}
+
+	/**
+	 * @return True if a node already on the frontier should be moved to a newly found path with a lower priority.
+	 */
+	protected boolean isDecreaseKey() {
+		return false;
+	}
+
+	/**
+	 * Calculate the priority of a path, lower values are searched first. Only called when supportsIndexedFrontier
+	 * returns true.
+	 *
+	 * @param parentPriority
+	 *            The priority of the path without its last node, or zero for the starting path.
+	 * @param size
+	 *            The number of nodes in the path.
+	 * @param node
+	 *            The last node of the path.
+	 * @param stepCost
+	 *            The cost of the edge to the last node, or zero for the starting path.
+	 * @return The priority.
+	 */
+	protected double calculatePriority(final double parentPriority, final int size, final BasicNode node,
+			final double stepCost) {
+		throw new EncogError("This search does not support an indexed frontier.");
+	}
+
+	private void init() {
+		final List<BasicNode> seeds = new ArrayList<>(this.graph.getNodes());
+		seeds.add(this.startingPoint);
+		this.compiled = new CompiledGraph(seeds);
+
+		final int count = this.compiled.getNodeCount();
+		final int start = this.compiled.requireNodeIndex(this.startingPoint);
+		this.explored = new BitSet(count);
+
+		// a plain destination goal is checked by id, without building paths
+		if (this.goal.getClass() == SimpleDestinationGoal.class) {
+			this.goalNode = this.compiled.getNodeIndex(((SimpleDestinationGoal) this.goal).getGoalDestination());
+		}
+
+		if (this.supportsIndexedFrontier()) {
+			this.heap = new IndexedFrontier(count);
+			this.parent = new int[count];
+			this.pathSize = new int[count];
+			this.parent[start] = -1;
+			this.pathSize[start] = 1;
+			this.heap.add(start, this.calculatePriority(0, 1, this.startingPoint, 0));
+		} else {
+			this.frontier.add(new BasicPath(this.startingPoint));
+		}
+	}
+
 	@Override
 	public void iteration() {
 		if (this.solution == null) {
+			if (this.compiled == null) {
+				this.init();
+			}
+
+			if (this.heap != null) {
+				this.indexedIteration();
+				return;
+			}
 
 			if (this.frontier.size() == 0) {
 				throw new EncogError("Frontier is empty, cannot find solution.");
@@ -72,10 +155,10 @@ public abstract class AbstractGraphSearch implements GraphSearch {
 			}
 
 			BasicNode state = path.getDestinationNode();
-			this.explored.add(state);
+			this.explored.set(this.compiled.getNodeIndex(state));
 
 			for (BasicEdge connection : state.getConnections()) {
-				if (!this.explored.contains(connection.getTo())
+				if (!this.explored.get(this.compiled.getNodeIndex(connection.getTo()))
 						&& !this.frontier.containsDestination(connection.getTo())) {
 					BasicPath path2 = new BasicPath(path, connection.getTo());
 					this.frontier.add(path2);
@@ -84,6 +167,64 @@ public abstract class AbstractGraphSearch implements GraphSearch {
 		}
 	}
 
+	private void indexedIteration() {
+		if (this.heap.size() == 0) {
+			throw new EncogError("Frontier is empty, cannot find solution.");
+		}
+
+		final int state = this.heap.pop();
+		final double p = this.heap.getPriority(state);
+
+		if (this.goal.getClass() == SimpleDestinationGoal.class) {
+			if (state == this.goalNode) {
+				this.solution = this.compiled.buildPath(this.parent, state);
+				return;
+			}
+		} else {
+			final BasicPath path = this.compiled.buildPath(this.parent, state);
+			if (this.goal.isGoalMet(path)) {
+				this.solution = path;
+				return;
+			}
+		}
+
+		this.explored.set(state);
+
+		final int[] edgeStart = this.compiled.getEdgeStart();
+		final int[] edgeTo = this.compiled.getEdgeTo();
+		final double[] edgeCost = this.compiled.getEdgeCost();
+		final int size = this.pathSize[state] + 1;
+		final boolean decrease = this.isDecreaseKey();
+
+		for (int e = edgeStart[state]; e < edgeStart[state + 1]; e++) {
+			final int to = edgeTo[e];
+			if (this.explored.get(to)) {
+				continue;
+			}
+			if (this.heap.contains(to)) {
+				if (decrease) {
+					final double p2 = this.calculatePriority(p, size, this.compiled.getNode(to), edgeCost[e]);
+					if (p2 < this.heap.getPriority(to)) {
+						this.parent[to] = state;
+						this.pathSize[to] = size;
+						this.heap.decrease(to, p2);
+					}
+				}
+			} else {
+				this.parent[to] = state;
+				this.pathSize[to] = size;
+				this.heap.add(to, this.calculatePriority(p, size, this.compiled.getNode(to), edgeCost[e]));
+			}
+		}
+	}
+
+	/**
+	 * @return The compiled form of the graph, or null if the search has not started.
+	 */
+	public CompiledGraph getCompiledGraph() {
+		return this.compiled;
+	}
+
 	/**
 	 * @return the solution
 	 */
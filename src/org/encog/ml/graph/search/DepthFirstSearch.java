@@ -38,4 +38,15 @@ public class DepthFirstSearch extends AbstractGraphSearch {
 		return first.size() > second.size();
 	}
 
+	@Override
+	protected boolean supportsIndexedFrontier() {
+		return true;
+	}
+
+	@Override
+	protected double calculatePriority(final double parentPriority, final int size, final BasicNode node,
+			final double stepCost) {
+		return -size;
+	}
+
 }
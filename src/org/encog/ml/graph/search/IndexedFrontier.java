@@ -0,0 +1,227 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.graph.search;
+
+import java.util.Arrays;
+
+/**
+ * A binary min-heap of node ids, keyed by a double priority, with a position index so that membership tests and
+ * decrease-key run without scanning. Lower priorities are popped first. Entries of equal priority are popped in the
+ * order they were added, which matches the ordering of FrontierHolder.
+ */
+public class IndexedFrontier {
+
+	/**
+	 * The node ids on the frontier, in heap order.
+	 */
+	private final int[] heap;
+
+	/**
+	 * The position of each node in the heap, indexed by node id, or -1 if the node is not on the frontier.
+	 */
+	private final int[] position;
+
+	/**
+	 * The priority of each node, indexed by node id.
+	 */
+	private final double[] priority;
+
+	/**
+	 * The order in which each node was added, used to break ties between equal priorities.
+	 */
+	private final long[] sequence;
+
+	/**
+	 * The number of nodes on the frontier.
+	 */
+	private int size;
+
+	/**
+	 * The sequence number to give the next node that is added.
+	 */
+	private long nextSequence;
+
+	/**
+	 * Construct a frontier for node ids 0 to nodeCount-1.
+	 *
+	 * @param nodeCount
+	 *            The number of nodes.
+	 */
+	public IndexedFrontier(final int nodeCount) {
+		this.heap = new int[nodeCount];
+		this.position = new int[nodeCount];
+		this.priority = new double[nodeCount];
+		this.sequence = new long[nodeCount];
+		Arrays.fill(this.position, -1);
+	}
+
+	/**
+	 * @return The number of nodes on the frontier.
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Determine if a node is on the frontier.
+	 *
+	 * @param node
+	 *            The node id.
+	 * @return True if the node is on the frontier.
+	 */
+	public boolean contains(final int node) {
+		return this.position[node] != -1;
+	}
+
+	/**
+	 * Get the priority of a node.
+	 *
+	 * @param node
+	 *            A node id that is, or was, on the frontier.
+	 * @return The last priority given to the node.
+	 */
+	public double getPriority(final int node) {
+		return this.priority[node];
+	}
+
+	/**
+	 * Add a node that is not already on the frontier.
+	 *
+	 * @param node
+	 *            The node id.
+	 * @param p
+	 *            The priority.
+	 */
+	public void add(final int node, final double p) {
+		this.priority[node] = p;
+		this.sequence[node] = this.nextSequence++;
+		this.heap[this.size] = node;
+		this.position[node] = this.size;
+		this.siftUp(this.size++);
+	}
+
+	/**
+	 * Lower the priority of a node on the frontier. The node is ordered as if it had just been added.
+	 *
+	 * @param node
+	 *            The node id.
+	 * @param p
+	 *            The new priority, must not be greater than the current one.
+	 */
+	public void decrease(final int node, final double p) {
+		this.priority[node] = p;
+		this.sequence[node] = this.nextSequence++;
+		this.siftUp(this.position[node]);
+	}
+
+	/**
+	 * Remove the node with the lowest priority.
+	 *
+	 * @return The node id, or -1 if the frontier is empty.
+	 */
+	public int pop() {
+		if (this.size == 0) {
+			return -1;
+		}
+		final int result = this.heap[0];
+		this.position[result] = -1;
+		this.size--;
+		if (this.size > 0) {
+			final int last = this.heap[this.size];
+			this.heap[0] = last;
+			this.position[last] = 0;
+			this.siftDown(0);
+		}
+		return result;
+	}
+
+	/**
+	 * Determine if one node should be popped before another.
+	 *
+	 * @param a
+	 *            The first node id.
+	 * @param b
+	 *            The second node id.
+	 * @return True if the first node has the lower priority, or the same priority and was added first.
+	 */
+	private boolean before(final int a, final int b) {
+		final double pa = this.priority[a];
+		final double pb = this.priority[b];
+		if (pa < pb) {
+			return true;
+		} else if (pa > pb) {
+			return false;
+		}
+		return this.sequence[a] < this.sequence[b];
+	}
+
+	/**
+	 * Move the node at a heap position up until its parent comes before it.
+	 *
+	 * @param i
+	 *            The heap position.
+	 */
+	private void siftUp(int i) {
+		final int node = this.heap[i];
+		while (i > 0) {
+			final int parent = (i - 1) >>> 1;
+			final int other = this.heap[parent];
+			if (!this.before(node, other)) {
+				break;
+			}
+			this.heap[i] = other;
+			this.position[other] = i;
+			i = parent;
+		}
+		this.heap[i] = node;
+		this.position[node] = i;
+	}
+
+	/**
+	 * Move the node at a heap position down until it comes before both of its children.
+	 *
+	 * @param i
+	 *            The heap position.
+	 */
+	private void siftDown(int i) {
+		final int node = this.heap[i];
+		final int half = this.size >>> 1;
+		while (i < half) {
+			int child = 2 * i + 1;
+			final int right = child + 1;
+			if (right < this.size && this.before(this.heap[right], this.heap[child])) {
+				child = right;
+			}
+			final int other = this.heap[child];
+			if (!this.before(other, node)) {
+				break;
+			}
+			this.heap[i] = other;
+			this.position[other] = i;
+			i = child;
+		}
+		this.heap[i] = node;
+		this.position[node] = i;
+	}
+}
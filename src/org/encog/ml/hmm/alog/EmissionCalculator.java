@@ -0,0 +1,102 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.hmm.alog;
+
+import org.encog.ml.data.MLDataPair;
+import org.encog.ml.data.MLDataSet;
+import org.encog.ml.hmm.HiddenMarkovModel;
+import org.encog.ml.hmm.distributions.ContinousDistribution;
+import org.encog.ml.hmm.distributions.DiscreteDistribution;
+import org.encog.ml.hmm.distributions.StateDistribution;
+
+/**
+ * Computes the emission probability of every state for every observation of
+ * a sequence, into one contiguous table indexed by observation and then
+ * state. Discrete and continuous distributions are evaluated by their own
+ * primitive kernels, other distributions through StateDistribution. The
+ * table and the other buffers are reused between sequences.
+ */
+public class EmissionCalculator {
+
+	/**
+	 * The emission table, observation count by state count.
+	 */
+	private double[] table = new double[0];
+
+	/**
+	 * Copies of the input arrays of the observations. They are copied because
+	 * some data sets reuse one pair while iterating.
+	 */
+	private double[][] inputs = new double[0][];
+
+	/**
+	 * Compute the emission table for a sequence.
+	 *
+	 * @param hmm
+	 *            The hidden markov model.
+	 * @param oseq
+	 *            The sequence.
+	 * @return The table, the probability of state j at observation t is at
+	 *         t*stateCount+j. The table can be longer than needed.
+	 */
+	public double[] calculate(final HiddenMarkovModel hmm, final MLDataSet oseq) {
+		final int count = oseq.size();
+		final int stateCount = hmm.getStateCount();
+
+		if (this.inputs.length < count) {
+			final double[][] grown = new double[count][];
+			System.arraycopy(this.inputs, 0, grown, 0, this.inputs.length);
+			this.inputs = grown;
+		}
+		if (this.table.length < count * stateCount) {
+			this.table = new double[count * stateCount];
+		}
+
+		int t = 0;
+		for (final MLDataPair pair : oseq) {
+			final double[] input = pair.getInputArray();
+			if (this.inputs[t] == null || this.inputs[t].length != input.length) {
+				this.inputs[t] = new double[input.length];
+			}
+			System.arraycopy(input, 0, this.inputs[t++], 0, input.length);
+		}
+
+		for (int j = 0; j < stateCount; j++) {
+			final StateDistribution dist = hmm.getStateDistribution(j);
+			if (dist instanceof DiscreteDistribution) {
+				((DiscreteDistribution) dist).probabilities(this.inputs, count, this.table, j, stateCount);
+			} else if (dist instanceof ContinousDistribution) {
+				((ContinousDistribution) dist).probabilities(this.inputs, count, this.table, j, stateCount);
+			} else {
+				int index = j;
+				for (final MLDataPair pair : oseq) {
+					this.table[index] = dist.probability(pair);
+					index += stateCount;
+				}
+			}
+		}
+
+		return this.table;
+	}
+}
@@ -87,6 +87,22 @@ public class ForwardBackwardCalculator {
 	 */
 	public ForwardBackwardCalculator(final MLDataSet oseq, final HiddenMarkovModel hmm,
 			final EnumSet<Computation> flags) {
+		this.compute(oseq, hmm, flags);
+	}
+
+	/**
+	 * Compute for another sequence, reusing the alpha and beta matrices when
+	 * they are large enough. Rows past the end of the sequence are left over
+	 * from earlier sequences.
+	 *
+	 * @param oseq
+	 *            The sequence.
+	 * @param hmm
+	 *            The hidden markov model to use.
+	 * @param flags
+	 *            Flags, alpha or beta.
+	 */
+	public void compute(final MLDataSet oseq, final HiddenMarkovModel hmm, final EnumSet<Computation> flags) {
 		if (oseq.size() < 1) {
 			throw new IllegalArgumentException("Empty sequence");
 		}
@@ -102,6 +118,24 @@ public class ForwardBackwardCalculator {
 		this.computeProbability(oseq, hmm, flags);
 	}
 
+	/**
+	 * Reuse a matrix if it is large enough, otherwise allocate a new one.
+	 *
+	 * @param matrix
+	 *            The matrix to reuse, or null.
+	 * @param rows
+	 *            The number of rows needed.
+	 * @param cols
+	 *            The number of columns needed.
+	 * @return A matrix with at least the requested number of rows.
+	 */
+	protected static double[][] reuse(final double[][] matrix, final int rows, final int cols) {
+		if (matrix != null && matrix.length >= rows && matrix[0].length == cols) {
+			return matrix;
+		}
+		return new double[rows][cols];
+	}
+
 	/**
 	 * Alpha element.
 	 *
@@ -145,7 +179,7 @@ public class ForwardBackwardCalculator {
 	 *            The sequence.
 	 */
 	protected void computeAlpha(final HiddenMarkovModel hmm, final MLDataSet oseq) {
-		this.alpha = new double[oseq.size()][hmm.getStateCount()];
+		this.alpha = ForwardBackwardCalculator.reuse(this.alpha, oseq.size(), hmm.getStateCount());
 
 		for (int i = 0; i < hmm.getStateCount(); i++) {
 			this.computeAlphaInit(hmm, oseq.get(0), i);
@@ -210,7 +244,7 @@ public class ForwardBackwardCalculator {
 	 *            The sequence.
 	 */
 	protected void computeBeta(final HiddenMarkovModel hmm, final MLDataSet oseq) {
-		this.beta = new double[oseq.size()][hmm.getStateCount()];
+		this.beta = ForwardBackwardCalculator.reuse(this.beta, oseq.size(), hmm.getStateCount());
 
 		for (int i = 0; i < hmm.getStateCount(); i++) {
 			this.beta[oseq.size() - 1][i] = 1.;
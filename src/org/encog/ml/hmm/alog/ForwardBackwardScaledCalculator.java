@@ -23,11 +23,8 @@
  */
 package org.encog.ml.hmm.alog;
 
-import java.util.Arrays;
 import java.util.EnumSet;
-import java.util.Iterator;
 
-import org.encog.ml.data.MLDataPair;
 import org.encog.ml.data.MLDataSet;
 import org.encog.ml.hmm.HiddenMarkovModel;
 
@@ -37,69 +34,173 @@ import org.encog.ml.hmm.HiddenMarkovModel;
  * given a sequence of observations. This version makes use of scaling, and will
  * not generate underflows with long sequences.
  *
+ * The emission probabilities are computed once into a flat table, and alpha
+ * and beta are kept in flat arrays indexed by observation and then state. All
+ * of these are reused when the calculator is computed again.
+ *
  */
 public class ForwardBackwardScaledCalculator extends ForwardBackwardCalculator {
-	private final double[] ctFactors;
+	private double[] ctFactors;
 	private double lnProbability;
 
+	/**
+	 * Computes the emission table.
+	 */
+	private final EmissionCalculator emissions = new EmissionCalculator();
+
+	/**
+	 * The emission table of the current sequence.
+	 */
+	private double[] emission;
+
+	/**
+	 * The transposed transition matrix, indexed by target and then source state.
+	 */
+	private double[] transition = new double[0];
+
+	/**
+	 * Scaled alpha, indexed by observation and then state.
+	 */
+	private double[] scaledAlpha = new double[0];
+
+	/**
+	 * Scaled beta, indexed by observation and then state.
+	 */
+	private double[] scaledBeta;
+
+	/**
+	 * The number of states.
+	 */
+	private int stateCount;
+
 	public ForwardBackwardScaledCalculator(final MLDataSet oseq, final HiddenMarkovModel hmm) {
 		this(oseq, hmm, EnumSet.of(Computation.ALPHA));
 	}
 
 	public ForwardBackwardScaledCalculator(final MLDataSet oseq, final HiddenMarkovModel hmm,
 			final EnumSet<Computation> flags) {
+		this.compute(oseq, hmm, flags);
+	}
+
+	@Override
+	public void compute(final MLDataSet oseq, final HiddenMarkovModel hmm, final EnumSet<Computation> flags) {
 		if (oseq.size() < 1) {
 			throw new IllegalArgumentException();
 		}
 
-		this.ctFactors = new double[oseq.size()];
-		Arrays.fill(this.ctFactors, 0.);
+		final int size = oseq.size();
+		final int n = hmm.getStateCount();
+		this.stateCount = n;
+
+		if (this.ctFactors == null || this.ctFactors.length < size) {
+			this.ctFactors = new double[size];
+		}
+		if (this.transition.length != n * n) {
+			this.transition = new double[n * n];
+		}
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < n; j++) {
+				this.transition[(j * n) + i] = hmm.getTransitionProbability(i, j);
+			}
+		}
+
+		this.emission = this.emissions.calculate(hmm, oseq);
 
 		this.computeAlpha(hmm, oseq);
 
 		if (flags.contains(Computation.BETA)) {
 			this.computeBeta(hmm, oseq);
+		} else {
+			this.scaledBeta = null;
 		}
 
 		this.computeProbability(oseq, hmm, flags);
 	}
 
 	@Override
-	protected void computeAlpha(final HiddenMarkovModel hmm, final MLDataSet oseq) {
-		this.alpha = new double[oseq.size()][hmm.getStateCount()];
+	public double alphaElement(final int t, final int i) {
+		return this.scaledAlpha[(t * this.stateCount) + i];
+	}
 
-		for (int i = 0; i < hmm.getStateCount(); i++) {
-			this.computeAlphaInit(hmm, oseq.get(0), i);
+	@Override
+	public double betaElement(final int t, final int i) {
+		if (this.scaledBeta == null) {
+			throw new UnsupportedOperationException("Beta array has not " + "been computed");
 		}
-		this.scale(this.ctFactors, this.alpha, 0);
 
-		final Iterator<MLDataPair> seqIterator = oseq.iterator();
-		if (seqIterator.hasNext()) {
-			seqIterator.next();
-		}
+		return this.scaledBeta[(t * this.stateCount) + i];
+	}
 
-		for (int t = 1; t < oseq.size(); t++) {
-			final MLDataPair observation = seqIterator.next();
+	/**
+	 * The emission probability of a state, as computed for the current
+	 * sequence.
+	 *
+	 * @param t
+	 *            The observation.
+	 * @param i
+	 *            The state.
+	 * @return The emission probability.
+	 */
+	public double emissionElement(final int t, final int i) {
+		return this.emission[(t * this.stateCount) + i];
+	}
 
-			for (int i = 0; i < hmm.getStateCount(); i++) {
-				this.computeAlphaStep(hmm, observation, t, i);
+	@Override
+	protected void computeAlpha(final HiddenMarkovModel hmm, final MLDataSet oseq) {
+		final int size = oseq.size();
+		final int n = this.stateCount;
+		if (this.scaledAlpha.length < size * n) {
+			this.scaledAlpha = new double[size * n];
+		}
+		final double[] a = this.scaledAlpha;
+		final double[] b = this.emission;
+		final double[] tr = this.transition;
+
+		for (int i = 0; i < n; i++) {
+			a[i] = hmm.getPi(i) * b[i];
+		}
+		this.scale(a, 0);
+
+		for (int t = 1; t < size; t++) {
+			final int prev = (t - 1) * n;
+			final int row = t * n;
+			for (int j = 0; j < n; j++) {
+				final int col = j * n;
+				double sum = 0.;
+				for (int i = 0; i < n; i++) {
+					sum += a[prev + i] * tr[col + i];
+				}
+				a[row + j] = sum * b[row + j];
 			}
-			this.scale(this.ctFactors, this.alpha, t);
+			this.scale(a, t);
 		}
 	}
 
 	@Override
 	protected void computeBeta(final HiddenMarkovModel hmm, final MLDataSet oseq) {
-		this.beta = new double[oseq.size()][hmm.getStateCount()];
+		final int size = oseq.size();
+		final int n = this.stateCount;
+		if (this.scaledBeta == null || this.scaledBeta.length < size * n) {
+			this.scaledBeta = new double[Math.max(size * n, this.scaledAlpha.length)];
+		}
+		final double[] beta = this.scaledBeta;
+		final double[] b = this.emission;
+		final double[] tr = this.transition;
 
-		for (int i = 0; i < hmm.getStateCount(); i++) {
-			this.beta[oseq.size() - 1][i] = 1. / this.ctFactors[oseq.size() - 1];
+		final int lastRow = (size - 1) * n;
+		for (int i = 0; i < n; i++) {
+			beta[lastRow + i] = 1. / this.ctFactors[size - 1];
 		}
 
-		for (int t = oseq.size() - 2; t >= 0; t--) {
-			for (int i = 0; i < hmm.getStateCount(); i++) {
-				this.computeBetaStep(hmm, oseq.get(t + 1), t, i);
-				this.beta[t][i] /= this.ctFactors[t];
+		for (int t = size - 2; t >= 0; t--) {
+			final int row = t * n;
+			final int next = row + n;
+			for (int i = 0; i < n; i++) {
+				double sum = 0.;
+				for (int j = 0; j < n; j++) {
+					sum += beta[next + j] * tr[(j * n) + i] * b[next + j];
+				}
+				beta[row + i] = sum / this.ctFactors[t];
 			}
 		}
 	}
@@ -119,17 +220,18 @@ public class ForwardBackwardScaledCalculator extends ForwardBackwardCalculator {
 		return this.lnProbability;
 	}
 
-	private void scale(final double[] ctFactors, final double[][] array, final int t) {
-		final double[] table = array[t];
+	private void scale(final double[] array, final int t) {
+		final int start = t * this.stateCount;
+		final int end = start + this.stateCount;
 		double sum = 0.;
 
-		for (final double element : table) {
-			sum += element;
+		for (int i = start; i < end; i++) {
+			sum += array[i];
 		}
 
-		ctFactors[t] = sum;
-		for (int i = 0; i < table.length; i++) {
-			table[i] /= sum;
+		this.ctFactors[t] = sum;
+		for (int i = start; i < end; i++) {
+			array[i] /= sum;
 		}
 	}
 }
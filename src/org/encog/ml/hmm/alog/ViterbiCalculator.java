@@ -23,9 +23,8 @@
  */
 package org.encog.ml.hmm.alog;
 
-import java.util.Iterator;
+import java.util.Arrays;
 
-import org.encog.ml.data.MLDataPair;
 import org.encog.ml.data.MLDataSet;
 import org.encog.ml.hmm.HiddenMarkovModel;
 
@@ -35,77 +34,156 @@ import org.encog.ml.hmm.HiddenMarkovModel;
  * events. Used for the Markov information sources, and more generally, hidden
  * Markov models (HMM).
  *
+ * The calculation is done in log space, from flat tables of the logarithms
+ * of the initial, transition and emission probabilities. Only two rows of
+ * delta are kept. A calculator can be computed again for another sequence,
+ * which reuses all of its buffers.
+ *
  * Viterbi AJ (April 1967). "Error bounds for convolutional codes and an
  * asymptotically optimum decoding algorithm" . IEEE Transactions on Information
  * Theory 13 (2): 260-269. doi:10.1109/TIT.1967.1054010.
  */
 public class ViterbiCalculator {
-	private final double[][] delta;
-	private final int[][] psy;
-	private final int[] stateSequence;
+
+	/**
+	 * The hidden markov model.
+	 */
+	private final HiddenMarkovModel hmm;
+
+	/**
+	 * Computes the emission table.
+	 */
+	private final EmissionCalculator emissions = new EmissionCalculator();
+
+	/**
+	 * The log of the initial probabilities.
+	 */
+	private final double[] logPi;
+
+	/**
+	 * The log of the transition probabilities, indexed by target and then
+	 * source state.
+	 */
+	private final double[] logTransition;
+
+	/**
+	 * The previous and current rows of delta.
+	 */
+	private final double[] delta;
+
+	/**
+	 * The best predecessor of each state, indexed by observation and then
+	 * state.
+	 */
+	private int[] psy = new int[0];
+
+	/**
+	 * The most likely states.
+	 */
+	private int[] stateSequence = new int[0];
+
+	/**
+	 * The length of the last sequence.
+	 */
+	private int length;
+
 	private double lnProbability;
 
+	/**
+	 * Construct a calculator for a model, to compute one or more sequences.
+	 *
+	 * @param hmm
+	 *            The hidden markov model.
+	 */
+	public ViterbiCalculator(final HiddenMarkovModel hmm) {
+		final int n = hmm.getStateCount();
+		this.hmm = hmm;
+		this.logPi = new double[n];
+		this.logTransition = new double[n * n];
+		this.delta = new double[2 * n];
+	}
+
 	public ViterbiCalculator(final MLDataSet oseq, final HiddenMarkovModel hmm) {
-		if (oseq.size() < 1) {
+		this(hmm);
+		this.compute(oseq);
+	}
+
+	/**
+	 * Find the most likely states for a sequence. The model is read again for
+	 * every sequence, so it may change between calls, as long as the number of
+	 * states does not.
+	 *
+	 * @param oseq
+	 *            The sequence.
+	 */
+	public void compute(final MLDataSet oseq) {
+		final int size = oseq.size();
+		if (size < 1) {
 			throw new IllegalArgumentException("Must not have empty sequence");
 		}
 
-		this.delta = new double[oseq.size()][hmm.getStateCount()];
-		this.psy = new int[oseq.size()][hmm.getStateCount()];
-		this.stateSequence = new int[oseq.size()];
+		final int n = this.hmm.getStateCount();
+		for (int i = 0; i < n; i++) {
+			this.logPi[i] = Math.log(this.hmm.getPi(i));
+			for (int j = 0; j < n; j++) {
+				this.logTransition[(j * n) + i] = Math.log(this.hmm.getTransitionProbability(i, j));
+			}
+		}
 
-		for (int i = 0; i < hmm.getStateCount(); i++) {
-			this.delta[0][i] = -Math.log(hmm.getPi(i)) - Math.log(hmm.getStateDistribution(i).probability(oseq.get(0)));
-			this.psy[0][i] = 0;
+		if (this.psy.length < size * n) {
+			this.psy = new int[size * n];
+			this.stateSequence = new int[size];
 		}
+		this.length = size;
 
-		final Iterator<MLDataPair> oseqIterator = oseq.iterator();
-		if (oseqIterator.hasNext()) {
-			oseqIterator.next();
+		final double[] b = this.emissions.calculate(this.hmm, oseq);
+		final double[] d = this.delta;
+
+		for (int i = 0; i < n; i++) {
+			d[i] = -this.logPi[i] - Math.log(b[i]);
+			this.psy[i] = 0;
 		}
 
-		int t = 1;
-		while (oseqIterator.hasNext()) {
-			final MLDataPair observation = oseqIterator.next();
+		int current = 0;
+		for (int t = 1; t < size; t++) {
+			final int previous = current;
+			current = n - current;
+			final int row = t * n;
 
-			for (int i = 0; i < hmm.getStateCount(); i++) {
-				this.computeStep(hmm, observation, t, i);
-			}
+			for (int j = 0; j < n; j++) {
+				final int col = j * n;
+				double minDelta = Double.MAX_VALUE;
+				int minPsy = 0;
 
-			t++;
+				for (int i = 0; i < n; i++) {
+					final double thisDelta = d[previous + i] - this.logTransition[col + i];
+
+					if (minDelta > thisDelta) {
+						minDelta = thisDelta;
+						minPsy = i;
+					}
+				}
+
+				d[current + j] = minDelta - Math.log(b[row + j]);
+				this.psy[row + j] = minPsy;
+			}
 		}
 
 		this.lnProbability = Double.MAX_VALUE;
-		for (int i = 0; i < hmm.getStateCount(); i++) {
-			final double thisProbability = this.delta[oseq.size() - 1][i];
+		this.stateSequence[size - 1] = 0;
+		for (int i = 0; i < n; i++) {
+			final double thisProbability = d[current + i];
 
 			if (this.lnProbability > thisProbability) {
 				this.lnProbability = thisProbability;
-				this.stateSequence[oseq.size() - 1] = i;
+				this.stateSequence[size - 1] = i;
 			}
 		}
 		this.lnProbability = -this.lnProbability;
 
-		for (int t2 = oseq.size() - 2; t2 >= 0; t2--) {
-			this.stateSequence[t2] = this.psy[t2 + 1][this.stateSequence[t2 + 1]];
-		}
-	}
-
-	private void computeStep(final HiddenMarkovModel hmm, final MLDataPair o, final int t, final int j) {
-		double minDelta = Double.MAX_VALUE;
-		int min_psy = 0;
-
-		for (int i = 0; i < hmm.getStateCount(); i++) {
-			final double thisDelta = this.delta[t - 1][i] - Math.log(hmm.getTransitionProbability(i, j));
-
-			if (minDelta > thisDelta) {
-				minDelta = thisDelta;
-				min_psy = i;
-			}
+		for (int t2 = size - 2; t2 >= 0; t2--) {
+			this.stateSequence[t2] = this.psy[((t2 + 1) * n) + this.stateSequence[t2 + 1]];
 		}
-
-		this.delta[t][j] = minDelta - Math.log(hmm.getStateDistribution(j).probability(o));
-		this.psy[t][j] = min_psy;
 	}
 
 	public double lnProbability() {
@@ -113,6 +191,6 @@ public class ViterbiCalculator {
 	}
 
 	public int[] stateSequence() {
-		return this.stateSequence.clone();
+		return Arrays.copyOf(this.stateSequence, this.length);
 	}
 }
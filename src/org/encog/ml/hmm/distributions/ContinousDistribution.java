@@ -212,6 +212,43 @@ public class ContinousDistribution implements StateDistribution {
 		return Math.exp(expArg) / (Math.pow(2.0 * Math.PI, this.dimension / 2.0) * Math.pow(this.covarianceDet, 0.5));
 	}
 
+	/**
+	 * Determine the probability of each of a series of observations, without
+	 * allocating matrices. The results are the same as probability, and are
+	 * written to one column of a table.
+	 *
+	 * @param inputs
+	 *            The input arrays of the observations.
+	 * @param count
+	 *            The number of observations.
+	 * @param target
+	 *            The table to write to.
+	 * @param offset
+	 *            The index of the first result in the table.
+	 * @param stride
+	 *            The distance between results in the table.
+	 */
+	public void probabilities(final double[][] inputs, final int count, final double[] target, final int offset,
+			final int stride) {
+		final double[][] inv = this.covarianceInv.getData();
+		final double[] m = this.mean;
+		final double denominator = Math.pow(2.0 * Math.PI, this.dimension / 2.0) * Math.pow(this.covarianceDet, 0.5);
+
+		for (int t = 0, index = offset; t < count; t++, index += stride) {
+			final double[] v = inputs[t];
+			double quad = 0;
+			for (int i = 0; i < this.dimension; i++) {
+				final double[] row = inv[i];
+				double s = 0;
+				for (int k = 0; k < this.dimension; k++) {
+					s += row[k] * (v[k] - m[k]);
+				}
+				quad += (v[i] - m[i]) * s;
+			}
+			target[index] = Math.exp(quad * -0.5) / denominator;
+		}
+	}
+
 	/**
 	 * Update the covariance.
 	 *
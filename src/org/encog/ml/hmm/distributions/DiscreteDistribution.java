@@ -205,6 +205,40 @@ public class DiscreteDistribution implements StateDistribution {
 		return result;
 	}
 
+	/**
+	 * Determine the probability of each of a series of observations, without
+	 * going through MLDataPair. The results are written to one column of a
+	 * table.
+	 *
+	 * @param inputs
+	 *            The input arrays of the observations.
+	 * @param count
+	 *            The number of observations.
+	 * @param target
+	 *            The table to write to.
+	 * @param offset
+	 *            The index of the first result in the table.
+	 * @param stride
+	 *            The distance between results in the table.
+	 */
+	public void probabilities(final double[][] inputs, final int count, final double[] target, final int offset,
+			final int stride) {
+		for (int t = 0, index = offset; t < count; t++, index += stride) {
+			final double[] input = inputs[t];
+			double result = 1;
+
+			for (int i = 0; i < this.probabilities.length; i++) {
+				final double[] p = this.probabilities[i];
+				if (input[i] > (p.length - 1)) {
+					throw new IllegalArgumentException("Wrong observation value");
+				}
+				result *= p[(int) input[i]];
+			}
+
+			target[index] = result;
+		}
+	}
+
 	/**
 	 * @return The state probabilities.
 	 */
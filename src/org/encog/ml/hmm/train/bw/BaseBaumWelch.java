@@ -23,7 +23,9 @@
  */
 package org.encog.ml.hmm.train.bw;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
 
 import org.encog.ml.MLMethod;
@@ -36,6 +38,9 @@ import org.encog.ml.hmm.distributions.StateDistribution;
 import org.encog.ml.train.MLTrain;
 import org.encog.ml.train.strategy.Strategy;
 import org.encog.neural.networks.training.propagation.TrainingContinuation;
+import org.encog.util.concurrency.MultiThreadable;
+import org.encog.util.concurrency.RangeTask;
+import org.encog.util.concurrency.SharedExecutor;
 
 /**
  * This class provides the base implementation for Baum-Welch learning for
@@ -53,12 +58,32 @@ import org.encog.neural.networks.training.propagation.TrainingContinuation;
  * Hidden Markov Models and the Baum-Welch Algorithm, IEEE Information Theory
  * Society Newsletter, Dec. 2003.
  *
+ * The expectation step runs on the shared executor. The sequences are split
+ * into fixed chunks, each with its own worker and transition sums, and the
+ * sums are added up in chunk order, so the result does not depend on how the
+ * chunks were scheduled.
+ *
  */
-public abstract class BaseBaumWelch implements MLTrain {
+public abstract class BaseBaumWelch implements MLTrain, MultiThreadable {
 	private int iterations;
 	private HiddenMarkovModel method;
 	private final MLSequenceSet training;
 
+	/**
+	 * The number of threads to use, zero to use all of the shared executor.
+	 */
+	private int threadCount;
+
+	/**
+	 * The expectation step workers, one per chunk of sequences.
+	 */
+	private BaumWelchWorker[] workers;
+
+	/**
+	 * Gamma for every observation, indexed by state and then observation.
+	 */
+	private double[][] gamma;
+
 	public BaseBaumWelch(final HiddenMarkovModel hmm, final MLSequenceSet training) {
 		this.method = hmm;
 		this.training = training;
@@ -74,6 +99,20 @@ public abstract class BaseBaumWelch implements MLTrain {
 		return false;
 	}
 
+	/**
+	 * Estimate gamma from xi.
+	 *
+	 * @param xi
+	 *            Xi for a sequence.
+	 * @param fbc
+	 *            The forward-backward calculator for the sequence.
+	 * @return Gamma, indexed by observation and then state.
+	 * @deprecated Not called by {@link #iteration()}, which writes gamma for
+	 *             every sequence into one matrix. Override
+	 *             {@link #estimateGamma(double[][][], int, ForwardBackwardCalculator, double[][], int)}
+	 *             instead.
+	 */
+	@Deprecated
 	protected double[][] estimateGamma(final double[][][] xi, final ForwardBackwardCalculator fbc) {
 		final double[][] gamma = new double[xi.length + 1][xi[0].length];
 
@@ -98,8 +137,96 @@ public abstract class BaseBaumWelch implements MLTrain {
 		return gamma;
 	}
 
+	/**
+	 * Estimate gamma for one sequence from its xi, and write it into the
+	 * gamma matrix. The expectation step calls this for every sequence, from
+	 * several threads at once, each with its own xi. Gamma at each
+	 * observation but the last is the sum of xi over the next state, and at
+	 * the last observation it is the sum of the last xi over the previous
+	 * state.
+	 *
+	 * @param xi
+	 *            Xi for the sequence, it can have more rows than the sequence
+	 *            needs.
+	 * @param length
+	 *            The number of observations in the sequence.
+	 * @param fbc
+	 *            The forward-backward calculator for the sequence.
+	 * @param gamma
+	 *            The gamma matrix, indexed by state and then observation.
+	 * @param offset
+	 *            The column of the first observation of the sequence.
+	 */
+	protected void estimateGamma(final double[][][] xi, final int length, final ForwardBackwardCalculator fbc,
+			final double[][] gamma, final int offset) {
+		final int stateCount = gamma.length;
+		final int last = length - 1;
+
+		for (int i = 0; i < stateCount; i++) {
+			final double[] g = gamma[i];
+			for (int t = 0; t < last; t++) {
+				final double[] x = xi[t][i];
+				double sum = 0;
+				for (int j = 0; j < stateCount; j++) {
+					sum += x[j];
+				}
+				g[offset + t] = sum;
+			}
+		}
+
+		final double[][] x = xi[last - 1];
+		for (int j = 0; j < stateCount; j++) {
+			double sum = 0;
+			for (int i = 0; i < stateCount; i++) {
+				sum += x[i][j];
+			}
+			gamma[j][offset + last] = sum;
+		}
+	}
+
 	public abstract double[][][] estimateXi(MLDataSet sequence, ForwardBackwardCalculator fbc, HiddenMarkovModel hmm);
 
+	/**
+	 * Estimate xi, reusing a tensor from an earlier sequence when it is large
+	 * enough. The returned tensor can have more rows than the sequence needs.
+	 * By default a new tensor is allocated.
+	 *
+	 * @param sequence
+	 *            The sequence.
+	 * @param fbc
+	 *            The forward-backward calculator for the sequence.
+	 * @param hmm
+	 *            The model.
+	 * @param buffer
+	 *            The tensor to reuse, or null.
+	 * @param emission
+	 *            Space for the emission probabilities of one observation, one
+	 *            per state, or null to allocate it.
+	 * @return Xi for the sequence.
+	 */
+	protected double[][][] estimateXi(final MLDataSet sequence, final ForwardBackwardCalculator fbc,
+			final HiddenMarkovModel hmm, final double[][][] buffer, final double[] emission) {
+		return this.estimateXi(sequence, fbc, hmm);
+	}
+
+	/**
+	 * Reuse a xi tensor if it is large enough, otherwise allocate a new one.
+	 *
+	 * @param xi
+	 *            The tensor to reuse, or null.
+	 * @param rows
+	 *            The number of rows needed.
+	 * @param stateCount
+	 *            The number of states.
+	 * @return A tensor with at least the requested number of rows.
+	 */
+	protected static double[][][] reuseXi(final double[][][] xi, final int rows, final int stateCount) {
+		if (xi != null && xi.length >= rows && xi[0].length == stateCount) {
+			return xi;
+		}
+		return new double[rows][stateCount][stateCount];
+	}
+
 	@Override
 	public void finishTraining() {
 
@@ -108,6 +235,27 @@ public abstract class BaseBaumWelch implements MLTrain {
 	public abstract ForwardBackwardCalculator generateForwardBackwardCalculator(MLDataSet sequence,
 			HiddenMarkovModel hmm);
 
+	/**
+	 * Compute a calculator for a sequence, reusing the calculator of an
+	 * earlier sequence when there is one.
+	 *
+	 * @param fbc
+	 *            The calculator to reuse, or null.
+	 * @param sequence
+	 *            The sequence.
+	 * @param hmm
+	 *            The model.
+	 * @return The calculator for the sequence.
+	 */
+	protected ForwardBackwardCalculator reuseForwardBackwardCalculator(final ForwardBackwardCalculator fbc,
+			final MLDataSet sequence, final HiddenMarkovModel hmm) {
+		if (fbc == null) {
+			return this.generateForwardBackwardCalculator(sequence, hmm);
+		}
+		fbc.compute(sequence, hmm, EnumSet.allOf(ForwardBackwardCalculator.Computation.class));
+		return fbc;
+	}
+
 	@Override
 	public double getError() {
 		return 0;
@@ -152,72 +300,61 @@ public abstract class BaseBaumWelch implements MLTrain {
 			throw new InternalError();
 		}
 
-		final double allGamma[][][] = new double[this.training.getSequenceCount()][][];
-		final double aijNum[][] = new double[this.method.getStateCount()][this.method.getStateCount()];
-		final double aijDen[] = new double[this.method.getStateCount()];
-
-		Arrays.fill(aijDen, 0.0);
-		for (int i = 0; i < this.method.getStateCount(); i++) {
-			Arrays.fill(aijNum[i], 0.);
+		final int stateCount = this.method.getStateCount();
+		final List<MLDataSet> sequences = new ArrayList<>(this.training.getSequences());
+		final int sequenceCount = sequences.size();
+		final int[] offsets = new int[sequenceCount + 1];
+		for (int o = 0; o < sequenceCount; o++) {
+			offsets[o + 1] = offsets[o] + sequences.get(o).size();
 		}
 
-		int g = 0;
-		for (final MLDataSet obsSeq : this.training.getSequences()) {
-			final ForwardBackwardCalculator fbc = this.generateForwardBackwardCalculator(obsSeq, this.method);
-
-			final double xi[][][] = this.estimateXi(obsSeq, fbc, this.method);
-			final double gamma[][] = allGamma[g++] = this.estimateGamma(xi, fbc);
+		if (this.gamma == null || this.gamma.length != stateCount || this.gamma[0].length != offsets[sequenceCount]) {
+			this.gamma = new double[stateCount][offsets[sequenceCount]];
+		}
 
-			for (int i = 0; i < this.method.getStateCount(); i++) {
-				for (int t = 0; t < (obsSeq.size() - 1); t++) {
-					aijDen[i] += gamma[t][i];
+		this.expectation(sequences, offsets);
 
-					for (int j = 0; j < this.method.getStateCount(); j++) {
-						aijNum[i][j] += xi[t][i][j];
-					}
+		final double aijNum[][] = new double[stateCount][stateCount];
+		final double aijDen[] = new double[stateCount];
+		for (final BaumWelchWorker worker : this.workers) {
+			for (int i = 0; i < stateCount; i++) {
+				aijDen[i] += worker.getAijDen()[i];
+				for (int j = 0; j < stateCount; j++) {
+					aijNum[i][j] += worker.getAijNum()[i][j];
 				}
 			}
 		}
 
-		for (int i = 0; i < this.method.getStateCount(); i++) {
+		for (int i = 0; i < stateCount; i++) {
 			if (aijDen[i] == 0.0) {
-				for (int j = 0; j < this.method.getStateCount(); j++) {
+				for (int j = 0; j < stateCount; j++) {
 					nhmm.setTransitionProbability(i, j, this.method.getTransitionProbability(i, j));
 				}
 			} else {
-				for (int j = 0; j < this.method.getStateCount(); j++) {
+				for (int j = 0; j < stateCount; j++) {
 					nhmm.setTransitionProbability(i, j, aijNum[i][j] / aijDen[i]);
 				}
 			}
 		}
 
 		/* compute pi */
-		for (int i = 0; i < this.method.getStateCount(); i++) {
-			nhmm.setPi(i, 0.);
-		}
-
-		for (int o = 0; o < this.training.getSequenceCount(); o++) {
-			for (int i = 0; i < this.method.getStateCount(); i++) {
-				nhmm.setPi(i, nhmm.getPi(i) + (allGamma[o][0][i] / this.training.getSequenceCount()));
+		for (int i = 0; i < stateCount; i++) {
+			double pi = 0.;
+			for (int o = 0; o < sequenceCount; o++) {
+				pi += this.gamma[i][offsets[o]] / sequenceCount;
 			}
+			nhmm.setPi(i, pi);
 		}
 
 		/* compute pdfs */
-		for (int i = 0; i < this.method.getStateCount(); i++) {
-
-			final double[] weights = new double[this.training.size()];
+		for (int i = 0; i < stateCount; i++) {
+			final double[] weights = this.gamma[i];
 			double sum = 0.;
-			int j = 0;
-
-			int o = 0;
-			for (final MLDataSet obsSeq : this.training.getSequences()) {
-				for (int t = 0; t < obsSeq.size(); t++, j++) {
-					sum += weights[j] = allGamma[o][t][i];
-				}
-				o++;
+			for (final double weight : weights) {
+				sum += weight;
 			}
 
-			for (j--; j >= 0; j--) {
+			for (int j = 0; j < weights.length; j++) {
 				weights[j] /= sum;
 			}
 
@@ -228,6 +365,45 @@ public abstract class BaseBaumWelch implements MLTrain {
 		this.method = nhmm;
 	}
 
+	/**
+	 * Run the expectation step over all sequences. Fills the gamma matrix and
+	 * the transition sums of the workers.
+	 *
+	 * @param sequences
+	 *            The sequences.
+	 * @param offsets
+	 *            The offset of the first observation of each sequence.
+	 */
+	private void expectation(final List<MLDataSet> sequences, final int[] offsets) {
+		final SharedExecutor executor = SharedExecutor.getInstance();
+		final int threads = this.threadCount > 0 ? this.threadCount : Integer.MAX_VALUE;
+		final int parallelism = Math.min(threads, executor.getPool().getParallelism());
+		final int sequenceCount = sequences.size();
+		final int chunkCount = Math.max(1,
+				Math.min(sequenceCount, parallelism * SharedExecutor.CHUNKS_PER_THREAD));
+
+		if (this.workers == null || this.workers.length != chunkCount) {
+			this.workers = new BaumWelchWorker[chunkCount];
+			for (int c = 0; c < chunkCount; c++) {
+				this.workers[c] = new BaumWelchWorker(this, this.method.getStateCount());
+			}
+		}
+
+		final HiddenMarkovModel hmm = this.method;
+		final double[][] g = this.gamma;
+		final BaumWelchWorker[] w = this.workers;
+		executor.process(chunkCount, threads, new RangeTask() {
+			@Override
+			public void run(final int low, final int high) {
+				for (int c = low; c < high; c++) {
+					final int first = (int) (((long) c * sequenceCount) / chunkCount);
+					final int last = (int) (((long) (c + 1) * sequenceCount) / chunkCount);
+					w[c].run(hmm, sequences, offsets, first, last, g);
+				}
+			}
+		});
+	}
+
 	@Override
 	public void iteration(final int count) {
 		for (int i = 0; i < count; i++) {
@@ -254,4 +430,20 @@ public abstract class BaseBaumWelch implements MLTrain {
 	public void setIteration(final int iteration) {
 		this.iterations = iteration;
 	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getThreadCount() {
+		return this.threadCount;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setThreadCount(final int numThreads) {
+		this.threadCount = numThreads;
+	}
 }
@@ -0,0 +1,152 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.hmm.train.bw;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.encog.ml.data.MLDataSet;
+import org.encog.ml.hmm.HiddenMarkovModel;
+import org.encog.ml.hmm.alog.ForwardBackwardCalculator;
+
+/**
+ * Runs the expectation step of Baum-Welch for a range of sequences. Each
+ * worker keeps its own transition sums, so workers can run at the same time,
+ * and keeps its forward-backward calculator, xi tensor and emission buffer
+ * between sequences and iterations. Xi and gamma are estimated by the hooks
+ * of the trainer.
+ */
+class BaumWelchWorker {
+
+	/**
+	 * The trainer that estimates xi.
+	 */
+	private final BaseBaumWelch owner;
+
+	/**
+	 * The sum of xi for each transition.
+	 */
+	private final double[][] aijNum;
+
+	/**
+	 * The sum of gamma for each state, over all but the last observation of
+	 * each sequence.
+	 */
+	private final double[] aijDen;
+
+	/**
+	 * The calculator, reused between sequences.
+	 */
+	private ForwardBackwardCalculator fbc;
+
+	/**
+	 * The xi tensor, reused between sequences.
+	 */
+	private double[][][] xi;
+
+	/**
+	 * The emission probabilities of one observation, used while estimating
+	 * xi.
+	 */
+	private final double[] emission;
+
+	/**
+	 * Construct the worker.
+	 *
+	 * @param theOwner
+	 *            The trainer.
+	 * @param stateCount
+	 *            The number of states.
+	 */
+	BaumWelchWorker(final BaseBaumWelch theOwner, final int stateCount) {
+		this.owner = theOwner;
+		this.aijNum = new double[stateCount][stateCount];
+		this.aijDen = new double[stateCount];
+		this.emission = new double[stateCount];
+	}
+
+	/**
+	 * Process a range of sequences. Gamma is written to the rows of the gamma
+	 * matrix, one row per state, at the offsets of the sequences.
+	 *
+	 * @param hmm
+	 *            The model being trained.
+	 * @param sequences
+	 *            All of the sequences.
+	 * @param offsets
+	 *            The offset of the first observation of each sequence.
+	 * @param low
+	 *            The first sequence to process.
+	 * @param high
+	 *            One past the last sequence to process.
+	 * @param gamma
+	 *            The gamma matrix, indexed by state and then observation.
+	 */
+	public void run(final HiddenMarkovModel hmm, final List<MLDataSet> sequences, final int[] offsets,
+			final int low, final int high, final double[][] gamma) {
+		final int stateCount = hmm.getStateCount();
+
+		Arrays.fill(this.aijDen, 0.0);
+		for (int i = 0; i < stateCount; i++) {
+			Arrays.fill(this.aijNum[i], 0.0);
+		}
+
+		for (int o = low; o < high; o++) {
+			final MLDataSet obsSeq = sequences.get(o);
+			final int last = obsSeq.size() - 1;
+			final int offset = offsets[o];
+
+			this.fbc = this.owner.reuseForwardBackwardCalculator(this.fbc, obsSeq, hmm);
+			this.xi = this.owner.estimateXi(obsSeq, this.fbc, hmm, this.xi, this.emission);
+			this.owner.estimateGamma(this.xi, last + 1, this.fbc, gamma, offset);
+
+			for (int i = 0; i < stateCount; i++) {
+				final double[] g = gamma[i];
+				final double[] num = this.aijNum[i];
+				for (int t = 0; t < last; t++) {
+					this.aijDen[i] += g[offset + t];
+
+					final double[] x = this.xi[t][i];
+					for (int j = 0; j < stateCount; j++) {
+						num[j] += x[j];
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return The sum of gamma for each state, except at the last observation.
+	 */
+	public double[] getAijDen() {
+		return this.aijDen;
+	}
+
+	/**
+	 * @return The sum of xi for each transition.
+	 */
+	public double[][] getAijNum() {
+		return this.aijNum;
+	}
+}
@@ -23,7 +23,6 @@
  */
 package org.encog.ml.hmm.train.bw;
 
-import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.Iterator;
 
@@ -55,39 +54,21 @@ public class TrainBaumWelch extends BaseBaumWelch {
 	}
 
 	@Override
-	protected double[][] estimateGamma(final double[][][] xi, final ForwardBackwardCalculator fbc) {
-		final double[][] gamma = new double[xi.length + 1][xi[0].length];
-
-		for (int t = 0; t < (xi.length + 1); t++) {
-			Arrays.fill(gamma[t], 0.);
-		}
-
-		for (int t = 0; t < xi.length; t++) {
-			for (int i = 0; i < xi[0].length; i++) {
-				for (int j = 0; j < xi[0].length; j++) {
-					gamma[t][i] += xi[t][i][j];
-				}
-			}
-		}
-
-		for (int j = 0; j < xi[0].length; j++) {
-			for (int i = 0; i < xi[0].length; i++) {
-				gamma[xi.length][j] += xi[xi.length - 1][i][j];
-			}
-		}
-
-		return gamma;
+	public double[][][] estimateXi(final MLDataSet sequence, final ForwardBackwardCalculator fbc,
+			final HiddenMarkovModel hmm) {
+		return this.estimateXi(sequence, fbc, hmm, null, null);
 	}
 
 	@Override
-	public double[][][] estimateXi(final MLDataSet sequence, final ForwardBackwardCalculator fbc,
-			final HiddenMarkovModel hmm) {
+	protected double[][][] estimateXi(final MLDataSet sequence, final ForwardBackwardCalculator fbc,
+			final HiddenMarkovModel hmm, final double[][][] buffer, final double[] emissionBuffer) {
 		if (sequence.size() <= 1) {
 			throw new IllegalArgumentException("Must have more than one observation");
 		}
 
-		final double xi[][][] = new double[sequence.size() - 1][hmm.getStateCount()][hmm.getStateCount()];
+		final double xi[][][] = BaseBaumWelch.reuseXi(buffer, sequence.size() - 1, hmm.getStateCount());
 		final double probability = fbc.probability();
+		final double[] emission = (emissionBuffer != null) ? emissionBuffer : new double[hmm.getStateCount()];
 
 		final Iterator<MLDataPair> seqIterator = sequence.iterator();
 		seqIterator.next();
@@ -95,10 +76,14 @@ public class TrainBaumWelch extends BaseBaumWelch {
 		for (int t = 0; t < (sequence.size() - 1); t++) {
 			final MLDataPair o = seqIterator.next();
 
+			for (int j = 0; j < hmm.getStateCount(); j++) {
+				emission[j] = hmm.getStateDistribution(j).probability(o);
+			}
+
 			for (int i = 0; i < hmm.getStateCount(); i++) {
 				for (int j = 0; j < hmm.getStateCount(); j++) {
-					xi[t][i][j] = (fbc.alphaElement(t, i) * hmm.getTransitionProbability(i, j)
-							* hmm.getStateDistribution(j).probability(o) * fbc.betaElement(t + 1, j)) / probability;
+					xi[t][i][j] = (fbc.alphaElement(t, i) * hmm.getTransitionProbability(i, j) * emission[j]
+							* fbc.betaElement(t + 1, j)) / probability;
 				}
 			}
 		}
@@ -58,11 +58,20 @@ public class TrainBaumWelchScaled extends BaseBaumWelch {
 	@Override
 	public double[][][] estimateXi(final MLDataSet sequence, final ForwardBackwardCalculator fbc,
 			final HiddenMarkovModel hmm) {
+		return this.estimateXi(sequence, fbc, hmm, null, null);
+	}
+
+	@Override
+	protected double[][][] estimateXi(final MLDataSet sequence, final ForwardBackwardCalculator fbc,
+			final HiddenMarkovModel hmm, final double[][][] buffer, final double[] emissionBuffer) {
 		if (sequence.size() <= 1) {
 			throw new IllegalArgumentException("Must have more than one observation");
 		}
 
-		final double xi[][][] = new double[sequence.size() - 1][hmm.getStateCount()][hmm.getStateCount()];
+		final double xi[][][] = BaseBaumWelch.reuseXi(buffer, sequence.size() - 1, hmm.getStateCount());
+		final double[] emission = (emissionBuffer != null) ? emissionBuffer : new double[hmm.getStateCount()];
+		final ForwardBackwardScaledCalculator scaled = (fbc instanceof ForwardBackwardScaledCalculator)
+				? (ForwardBackwardScaledCalculator) fbc : null;
 
 		final Iterator<MLDataPair> seqIterator = sequence.iterator();
 		seqIterator.next();
@@ -70,10 +79,16 @@ public class TrainBaumWelchScaled extends BaseBaumWelch {
 		for (int t = 0; t < (sequence.size() - 1); t++) {
 			final MLDataPair observation = seqIterator.next();
 
+			// the scaled calculator already has the emission probabilities
+			for (int j = 0; j < hmm.getStateCount(); j++) {
+				emission[j] = (scaled != null) ? scaled.emissionElement(t + 1, j)
+						: hmm.getStateDistribution(j).probability(observation);
+			}
+
 			for (int i = 0; i < hmm.getStateCount(); i++) {
 				for (int j = 0; j < hmm.getStateCount(); j++) {
-					xi[t][i][j] = fbc.alphaElement(t, i) * hmm.getTransitionProbability(i, j)
-							* hmm.getStateDistribution(j).probability(observation) * fbc.betaElement(t + 1, j);
+					xi[t][i][j] = fbc.alphaElement(t, i) * hmm.getTransitionProbability(i, j) * emission[j]
+							* fbc.betaElement(t + 1, j);
 				}
 			}
 		}
@@ -30,6 +30,7 @@ import org.encog.ml.MLCluster;
 import org.encog.ml.data.MLData;
 import org.encog.ml.data.MLDataPair;
 import org.encog.ml.data.MLDataSet;
+import org.encog.ml.data.basic.BasicMLData;
 import org.encog.ml.data.basic.BasicMLDataPair;
 import org.encog.ml.data.basic.BasicMLDataPairCentroid;
 import org.encog.ml.data.basic.BasicMLDataSet;
@@ -52,6 +53,16 @@ public class BasicCluster implements MLCluster {
 	 */
 	private final List<MLData> data = new ArrayList<>();
 
+	/**
+	 * Construct an empty cluster around a centroid.
+	 *
+	 * @param theCentroid
+	 *            The centroid values.
+	 */
+	public BasicCluster(final double[] theCentroid) {
+		this.centroid = new BasicMLDataPairCentroid(new BasicMLDataPair(new BasicMLData(theCentroid)));
+	}
+
 	/**
 	 * Construct a cluster from another.
 	 *
@@ -23,36 +23,79 @@
  */
 package org.encog.ml.kmeans;
 
-import java.util.ArrayList;
-import java.util.List;
-
+import org.encog.EncogError;
+import org.encog.mathutil.randomize.generate.GenerateRandom;
 import org.encog.ml.MLCluster;
 import org.encog.ml.MLClustering;
+import org.encog.ml.data.MLData;
 import org.encog.ml.data.MLDataPair;
 import org.encog.ml.data.MLDataSet;
+import org.encog.ml.data.basic.BasicMLData;
 import org.encog.ml.data.basic.BasicMLDataPair;
-import org.encog.util.kmeans.KMeansUtil;
+import org.encog.util.concurrency.MultiThreadable;
 
 /**
  * This class performs a basic K-Means clustering. This class can be used on
  * either supervised or unsupervised data. For supervised data, the ideal values
  * will be ignored.
  *
+ * The clustering is done by a {@link KMeansEngine} over a flat copy of the
+ * input values, seeded with k-means++. For data sets too large to copy, a
+ * batch size can be given; each iteration then reads the next batch of records
+ * and performs a mini-batch update.
+ *
  * http://en.wikipedia.org/wiki/Kmeans
  *
  */
-public class KMeansClustering implements MLClustering {
+public class KMeansClustering implements MLClustering, MultiThreadable {
+
+	/**
+	 * The kmeans engine.
+	 */
+	private final KMeansEngine engine;
+
+	/**
+	 * The data set being clustered, null if the data was given as an array.
+	 */
+	private final MLDataSet set;
+
+	/**
+	 * The input values of every record, row after row. Null in mini-batch
+	 * mode.
+	 */
+	private final double[] data;
 
 	/**
-	 * The kmeans utility.
+	 * The number of records.
 	 */
-	private KMeansUtil<BasicMLDataPair> kmeans;
+	private final int count;
 
 	/**
-	 * The clusters
+	 * The number of records in each mini-batch, zero for full batch
+	 * iterations.
+	 */
+	private final int batchSize;
+
+	/**
+	 * The next record to read in mini-batch mode.
+	 */
+	private long batchPosition;
+
+	/**
+	 * The rows of the current mini-batch.
+	 */
+	private double[] batch;
+
+	/**
+	 * The clusters, built when first requested after an iteration.
 	 */
 	private MLCluster[] clusters;
 
+	/**
+	 * True once at least one iteration has been performed.
+	 */
+	private boolean trained;
+
 	/**
 	 * Number of clusters.
 	 */
@@ -67,12 +110,64 @@ public class KMeansClustering implements MLClustering {
 	 *            The dataset to cluster.
 	 */
 	public KMeansClustering(final int theK, final MLDataSet theSet) {
-		List<BasicMLDataPair> list = new ArrayList<>();
-		for (MLDataPair pair : theSet) {
-			list.add((BasicMLDataPair) pair);
+		this(theK, theSet, 0);
+	}
+
+	/**
+	 * Construct the K-Means object.
+	 *
+	 * @param theK
+	 *            The number of clusters to use.
+	 * @param theSet
+	 *            The dataset to cluster.
+	 * @param theBatchSize
+	 *            The number of records in each mini-batch, or zero to copy
+	 *            the whole data set and perform full batch iterations.
+	 */
+	public KMeansClustering(final int theK, final MLDataSet theSet, final int theBatchSize) {
+		final long records = theSet.getRecordCount();
+		final int dimensions = theSet.getInputSize();
+		if (theBatchSize == 0 && records * dimensions > Integer.MAX_VALUE) {
+			throw new EncogError("Data set too large to cluster in memory, use a batch size.");
+		}
+		this.k = theK;
+		this.set = theSet;
+		this.count = (int) Math.min(records, Integer.MAX_VALUE);
+		this.batchSize = theBatchSize;
+		this.engine = new KMeansEngine(theK, dimensions);
+
+		if (theBatchSize == 0) {
+			this.data = new double[this.count * dimensions];
+			int row = 0;
+			for (final MLDataPair pair : theSet) {
+				System.arraycopy(pair.getInputArray(), 0, this.data, row * dimensions, dimensions);
+				row++;
+			}
+		} else {
+			this.data = null;
 		}
+	}
+
+	/**
+	 * Construct the K-Means object over rows that are already in an array.
+	 * The clusters will hold new data objects for the rows.
+	 *
+	 * @param theK
+	 *            The number of clusters to use.
+	 * @param theData
+	 *            The rows, one after another.
+	 * @param theCount
+	 *            The number of rows.
+	 * @param theDimensions
+	 *            The number of values in each row.
+	 */
+	public KMeansClustering(final int theK, final double[] theData, final int theCount, final int theDimensions) {
 		this.k = theK;
-		this.kmeans = new KMeansUtil<>(this.k, list);
+		this.set = null;
+		this.data = theData;
+		this.count = theCount;
+		this.batchSize = 0;
+		this.engine = new KMeansEngine(theK, theDimensions);
 	}
 
 	/**
@@ -80,12 +175,34 @@ public class KMeansClustering implements MLClustering {
 	 */
 	@Override
 	public final void iteration() {
-		this.kmeans.process();
-		this.clusters = new MLCluster[this.k];
-		for (int i = 0; i < this.k; i++) {
-			this.clusters[i] = new BasicCluster(this.kmeans.getCluster(i));
+		if (this.batchSize == 0) {
+			this.engine.iteration(this.data, this.count);
+		} else {
+			final int rows = this.readBatch();
+			this.engine.miniBatch(this.batch, rows);
 		}
+		this.trained = true;
+		this.clusters = null;
+	}
 
+	/**
+	 * Read the next mini-batch, wrapping around at the end of the data set.
+	 *
+	 * @return The number of rows read.
+	 */
+	private int readBatch() {
+		final int d = this.engine.getDimensions();
+		final int rows = Math.min(this.batchSize, this.count);
+		if (this.batch == null) {
+			this.batch = new double[rows * d];
+		}
+		final MLDataPair pair = BasicMLDataPair.createPair(this.set.getInputSize(), this.set.getIdealSize());
+		for (int i = 0; i < rows; i++) {
+			this.set.getRecord(this.batchPosition, pair);
+			System.arraycopy(pair.getInputArray(), 0, this.batch, i * d, d);
+			this.batchPosition = (this.batchPosition + 1) % this.count;
+		}
+		return rows;
 	}
 
 	/**
@@ -101,11 +218,55 @@ public class KMeansClustering implements MLClustering {
 		}
 	}
 
+	/**
+	 * Build the clusters. In full batch mode the rows are grouped as they
+	 * were assigned by the last iteration; in mini-batch mode every record is
+	 * read again and assigned to the current centroids.
+	 */
+	private void buildClusters() {
+		final int d = this.engine.getDimensions();
+		final double[] centroids = this.engine.getCentroids();
+		final MLCluster[] result = new MLCluster[this.k];
+		for (int i = 0; i < this.k; i++) {
+			final double[] centroid = new double[d];
+			System.arraycopy(centroids, i * d, centroid, 0, d);
+			result[i] = new BasicCluster(centroid);
+		}
+
+		if (this.batchSize != 0) {
+			for (long r = 0; r < this.count; r++) {
+				final MLDataPair pair = BasicMLDataPair.createPair(this.set.getInputSize(), this.set.getIdealSize());
+				this.set.getRecord(r, pair);
+				result[this.engine.nearest(pair.getInputArray(), 0)].add(pair.getInput());
+			}
+		} else {
+			final int[] assignment = this.engine.getAssignment();
+			if (this.set != null) {
+				int r = 0;
+				for (final MLDataPair pair : this.set) {
+					result[assignment[r++]].add(pair.getInput());
+				}
+			} else {
+				for (int r = 0; r < this.count; r++) {
+					final double[] row = new double[d];
+					System.arraycopy(this.data, r * d, row, 0, d);
+					final MLData item = new BasicMLData(row);
+					result[assignment[r]].add(item);
+				}
+			}
+		}
+
+		this.clusters = result;
+	}
+
 	/**
 	 * @return The clusters.
 	 */
 	@Override
 	public MLCluster[] getClusters() {
+		if (this.clusters == null && this.trained) {
+			this.buildClusters();
+		}
 		return this.clusters;
 	}
 
@@ -117,4 +278,58 @@ public class KMeansClustering implements MLClustering {
 		return this.k;
 	}
 
+	/**
+	 * @return The cluster of each row from the last full batch iteration, or
+	 *         null in mini-batch mode.
+	 */
+	public int[] getAssignment() {
+		return this.engine.getAssignment();
+	}
+
+	/**
+	 * @return The centroids, one after another.
+	 */
+	public double[] getCentroids() {
+		return this.engine.getCentroids();
+	}
+
+	/**
+	 * @return The engine that performs the clustering.
+	 */
+	public KMeansEngine getEngine() {
+		return this.engine;
+	}
+
+	/**
+	 * @param pruning
+	 *            True to use Hamerly's bounds to skip distance calculations.
+	 */
+	public void setPruning(final boolean pruning) {
+		this.engine.setPruning(pruning);
+	}
+
+	/**
+	 * @param random
+	 *            The random number generator used to seed the centroids.
+	 */
+	public void setRandom(final GenerateRandom random) {
+		this.engine.setRandom(random);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getThreadCount() {
+		return this.engine.getThreadCount();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setThreadCount(final int numThreads) {
+		this.engine.setThreadCount(numThreads);
+	}
+
 }
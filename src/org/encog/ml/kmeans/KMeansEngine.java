@@ -0,0 +1,778 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.kmeans;
+
+import java.util.Arrays;
+
+import org.encog.EncogError;
+import org.encog.mathutil.randomize.generate.GenerateRandom;
+import org.encog.mathutil.randomize.generate.MersenneTwisterGenerateRandom;
+import org.encog.util.concurrency.MultiThreadable;
+import org.encog.util.concurrency.RangeTask;
+import org.encog.util.concurrency.SharedExecutor;
+
+/**
+ * A K-Means engine that works on flat arrays of rows, row after row, and
+ * keeps its centroids in one flat array.
+ *
+ * Centroids are seeded with greedy k-means++: each new centroid is the best of
+ * a few candidates drawn with probability proportional to the squared
+ * distance to the nearest existing centroid.
+ *
+ * A full batch iteration assigns every row to its nearest centroid and moves
+ * each centroid to the mean of its rows. The rows are split into fixed
+ * chunks that run on the shared executor, each with its own partial sums,
+ * which are added up in chunk order. With pruning enabled, Hamerly's bounds
+ * skip the distance calculations for rows that cannot have changed cluster;
+ * the result is the same as without pruning, apart from rounding in exact
+ * ties.
+ *
+ * Mini-batch iterations move the centroids towards the rows of each batch
+ * with a per-centroid learning rate, so data that does not fit in memory can
+ * be clustered one batch at a time.
+ */
+public class KMeansEngine implements MultiThreadable {
+
+	/**
+	 * The number of clusters.
+	 */
+	private final int k;
+
+	/**
+	 * The number of values in each row.
+	 */
+	private final int dimensions;
+
+	/**
+	 * The centroids, one after another.
+	 */
+	private final double[] centroids;
+
+	/**
+	 * The random number generator used for seeding.
+	 */
+	private GenerateRandom random = new MersenneTwisterGenerateRandom();
+
+	/**
+	 * True to use Hamerly's bounds in full batch iterations.
+	 */
+	private boolean pruning = true;
+
+	/**
+	 * The number of threads to use, zero for all available.
+	 */
+	private int threadCount;
+
+	/**
+	 * True once the centroids have been seeded.
+	 */
+	private boolean seeded;
+
+	/**
+	 * The cluster of each row, from the last full batch iteration.
+	 */
+	private int[] assignment;
+
+	/**
+	 * An upper bound on the distance from each row to its centroid.
+	 */
+	private double[] upper;
+
+	/**
+	 * A lower bound on the distance from each row to every other centroid.
+	 */
+	private double[] lower;
+
+	/**
+	 * The number of rows in each cluster, from the last full batch iteration.
+	 */
+	private final long[] clusterSizes;
+
+	/**
+	 * The number of rows each centroid has absorbed in mini-batch mode.
+	 */
+	private final long[] batchCounts;
+
+	/**
+	 * The partial sums of each chunk.
+	 */
+	private double[][] chunkSums;
+
+	/**
+	 * The partial counts of each chunk.
+	 */
+	private long[][] chunkCounts;
+
+	/**
+	 * The number of rows that changed cluster in each chunk.
+	 */
+	private int[] chunkChanged;
+
+	/**
+	 * Half the distance from each centroid to its nearest other centroid.
+	 */
+	private final double[] halfGap;
+
+	/**
+	 * The distance each centroid moved in the last update.
+	 */
+	private final double[] moved;
+
+	/**
+	 * Construct the engine.
+	 *
+	 * @param theK
+	 *            The number of clusters.
+	 * @param theDimensions
+	 *            The number of values in each row.
+	 */
+	public KMeansEngine(final int theK, final int theDimensions) {
+		if (theK < 1) {
+			throw new EncogError("There must be at least one cluster.");
+		}
+		this.k = theK;
+		this.dimensions = theDimensions;
+		this.centroids = new double[theK * theDimensions];
+		this.clusterSizes = new long[theK];
+		this.batchCounts = new long[theK];
+		this.halfGap = new double[theK];
+		this.moved = new double[theK];
+	}
+
+	/**
+	 * Seed the centroids from a set of rows with greedy k-means++.
+	 *
+	 * @param data
+	 *            The rows.
+	 * @param count
+	 *            The number of rows.
+	 */
+	public void seed(final double[] data, final int count) {
+		if (count < 1) {
+			throw new EncogError("Can't seed K-Means without data.");
+		}
+		final int d = this.dimensions;
+		final int trials = 2 + (int) Math.log(this.k);
+		final double[] nearest = new double[count];
+		final double[] candidate = new double[count];
+
+		final int first = this.random.nextInt(count);
+		System.arraycopy(data, first * d, this.centroids, 0, d);
+		this.updateNearest(data, count, 0, nearest, nearest, true);
+
+		final int chunkCount = this.chunkCount(count);
+		final double[] chunkTotals = new double[chunkCount];
+
+		for (int c = 1; c < this.k; c++) {
+			final double total = this.sum(nearest, count, chunkTotals);
+			double bestPotential = Double.POSITIVE_INFINITY;
+			int best = -1;
+
+			for (int t = 0; t < trials; t++) {
+				final int row = total > 0 ? this.sample(nearest, count, chunkTotals, this.random.nextDouble() * total)
+						: this.random.nextInt(count);
+				System.arraycopy(data, row * d, this.centroids, c * d, d);
+				this.updateNearest(data, count, c, nearest, candidate, false);
+				final double potential = this.sum(candidate, count, null);
+				if (potential < bestPotential) {
+					bestPotential = potential;
+					best = row;
+				}
+			}
+
+			System.arraycopy(data, best * d, this.centroids, c * d, d);
+			this.updateNearest(data, count, c, nearest, nearest, false);
+		}
+
+		this.seeded = true;
+		this.assignment = null;
+		Arrays.fill(this.batchCounts, 0);
+	}
+
+	/**
+	 * Calculate, for each row, the smaller of its current nearest squared
+	 * distance and its squared distance to one centroid.
+	 *
+	 * @param data
+	 *            The rows.
+	 * @param count
+	 *            The number of rows.
+	 * @param centroid
+	 *            The centroid.
+	 * @param current
+	 *            The current nearest squared distances.
+	 * @param target
+	 *            Receives the new nearest squared distances, may be current.
+	 * @param replace
+	 *            True to ignore the current distances.
+	 */
+	private void updateNearest(final double[] data, final int count, final int centroid, final double[] current,
+			final double[] target, final boolean replace) {
+		final int d = this.dimensions;
+		final double[] c = this.centroids;
+		final int offset = centroid * d;
+		SharedExecutor.getInstance().process(count, this.threads(), new RangeTask() {
+			@Override
+			public void run(final int low, final int high) {
+				for (int i = low; i < high; i++) {
+					final double dist = KMeansEngine.distanceSquared(data, i * d, c, offset, d);
+					target[i] = replace || dist < current[i] ? dist : current[i];
+				}
+			}
+		});
+	}
+
+	/**
+	 * Sum an array in fixed chunks.
+	 *
+	 * @param values
+	 *            The values.
+	 * @param count
+	 *            The number of values.
+	 * @param totals
+	 *            Receives the running total at the end of each chunk, or null.
+	 * @return The sum.
+	 */
+	private double sum(final double[] values, final int count, final double[] totals) {
+		final int chunkCount = this.chunkCount(count);
+		final double[] chunk = totals != null ? totals : new double[chunkCount];
+		SharedExecutor.getInstance().process(chunkCount, this.threads(), new RangeTask() {
+			@Override
+			public void run(final int low, final int high) {
+				for (int c = low; c < high; c++) {
+					final int first = (int) (((long) c * count) / chunkCount);
+					final int last = (int) (((long) (c + 1) * count) / chunkCount);
+					double result = 0;
+					for (int i = first; i < last; i++) {
+						result += values[i];
+					}
+					chunk[c] = result;
+				}
+			}
+		});
+
+		double result = 0;
+		for (int c = 0; c < chunkCount; c++) {
+			result += chunk[c];
+			chunk[c] = result;
+		}
+		return result;
+	}
+
+	/**
+	 * Find the row at which the running total of the weights passes a value.
+	 *
+	 * @param weights
+	 *            The weights.
+	 * @param count
+	 *            The number of rows.
+	 * @param totals
+	 *            The running total at the end of each chunk.
+	 * @param target
+	 *            The value, below the total of the weights.
+	 * @return The row.
+	 */
+	private int sample(final double[] weights, final int count, final double[] totals, final double target) {
+		final int chunkCount = this.chunkCount(count);
+		int c = 0;
+		while (c < chunkCount - 1 && totals[c] <= target) {
+			c++;
+		}
+		double acc = c > 0 ? totals[c - 1] : 0;
+		final int first = (int) (((long) c * count) / chunkCount);
+		final int last = (int) (((long) (c + 1) * count) / chunkCount);
+		int result = last - 1;
+		for (int i = first; i < last; i++) {
+			acc += weights[i];
+			if (acc > target) {
+				result = i;
+				break;
+			}
+		}
+		// never pick a row that already has a centroid
+		while (result > 0 && weights[result] == 0) {
+			result--;
+		}
+		return result;
+	}
+
+	/**
+	 * Perform one full batch iteration: assign every row to its nearest
+	 * centroid, then move each centroid to the mean of its rows. A centroid
+	 * with no rows stays where it is. The centroids are seeded from the data
+	 * first, if needed.
+	 *
+	 * The rows must be the same from one iteration to the next, as the
+	 * assignment and bounds are kept between iterations.
+	 *
+	 * @param data
+	 *            The rows.
+	 * @param count
+	 *            The number of rows.
+	 * @return The number of rows that changed cluster.
+	 */
+	public int iteration(final double[] data, final int count) {
+		if (!this.seeded) {
+			this.seed(data, count);
+		}
+
+		final boolean first = this.assignment == null || this.assignment.length != count;
+		if (first) {
+			this.assignment = new int[count];
+			if (this.pruning) {
+				this.upper = new double[count];
+				this.lower = new double[count];
+			} else {
+				this.upper = null;
+				this.lower = null;
+			}
+		}
+
+		final int chunkCount = this.chunkCount(count);
+		if (this.chunkSums == null || this.chunkSums.length != chunkCount) {
+			this.chunkSums = new double[chunkCount][this.k * this.dimensions];
+			this.chunkCounts = new long[chunkCount][this.k];
+			this.chunkChanged = new int[chunkCount];
+		}
+		if (this.pruning && !first) {
+			this.calculateHalfGaps();
+		}
+
+		final double[][] sums = this.chunkSums;
+		final long[][] counts = this.chunkCounts;
+		final int[] changed = this.chunkChanged;
+		SharedExecutor.getInstance().process(chunkCount, this.threads(), new RangeTask() {
+			@Override
+			public void run(final int low, final int high) {
+				for (int c = low; c < high; c++) {
+					final int firstRow = (int) (((long) c * count) / chunkCount);
+					final int lastRow = (int) (((long) (c + 1) * count) / chunkCount);
+					changed[c] = KMeansEngine.this.assignChunk(data, firstRow, lastRow, first, sums[c], counts[c]);
+				}
+			}
+		});
+
+		int result = 0;
+		for (int c = 0; c < chunkCount; c++) {
+			result += changed[c];
+		}
+		this.updateCentroids(sums, counts);
+		return result;
+	}
+
+	/**
+	 * Assign a chunk of rows and add them to the chunk's partial sums.
+	 *
+	 * @param data
+	 *            The rows.
+	 * @param firstRow
+	 *            The first row.
+	 * @param lastRow
+	 *            One past the last row.
+	 * @param first
+	 *            True if the rows have not been assigned before.
+	 * @param sums
+	 *            The partial sums of the chunk.
+	 * @param counts
+	 *            The partial counts of the chunk.
+	 * @return The number of rows that changed cluster.
+	 */
+	private int assignChunk(final double[] data, final int firstRow, final int lastRow, final boolean first,
+			final double[] sums, final long[] counts) {
+		final int d = this.dimensions;
+		final double[] c = this.centroids;
+		Arrays.fill(sums, 0);
+		Arrays.fill(counts, 0);
+		int changed = 0;
+
+		for (int i = firstRow; i < lastRow; i++) {
+			final int row = i * d;
+			int cluster = this.assignment[i];
+
+			if (!this.pruning) {
+				final int nearest = this.nearest(data, row);
+				if (first || nearest != cluster) {
+					changed++;
+				}
+				cluster = nearest;
+			} else if (first) {
+				cluster = this.scan(data, row, i);
+				changed++;
+			} else {
+				final double bound = Math.max(this.halfGap[cluster], this.lower[i]);
+				if (this.upper[i] > bound) {
+					this.upper[i] = Math.sqrt(KMeansEngine.distanceSquared(data, row, c, cluster * d, d));
+					if (this.upper[i] > bound) {
+						final int nearest = this.scan(data, row, i);
+						if (nearest != cluster) {
+							changed++;
+						}
+						cluster = nearest;
+					}
+				}
+			}
+
+			this.assignment[i] = cluster;
+			counts[cluster]++;
+			final int offset = cluster * d;
+			for (int j = 0; j < d; j++) {
+				sums[offset + j] += data[row + j];
+			}
+		}
+
+		return changed;
+	}
+
+	/**
+	 * Find the nearest and second nearest centroid of a row, and set its
+	 * bounds.
+	 *
+	 * @param data
+	 *            The rows.
+	 * @param row
+	 *            The offset of the row.
+	 * @param i
+	 *            The row index.
+	 * @return The nearest centroid.
+	 */
+	private int scan(final double[] data, final int row, final int i) {
+		double best = Double.POSITIVE_INFINITY;
+		double second = Double.POSITIVE_INFINITY;
+		int result = 0;
+		for (int j = 0; j < this.k; j++) {
+			final double dist = KMeansEngine.distanceSquared(data, row, this.centroids, j * this.dimensions,
+					this.dimensions);
+			if (dist < best) {
+				second = best;
+				best = dist;
+				result = j;
+			} else if (dist < second) {
+				second = dist;
+			}
+		}
+		this.upper[i] = Math.sqrt(best);
+		this.lower[i] = Math.sqrt(second);
+		return result;
+	}
+
+	/**
+	 * Find the nearest centroid of a row.
+	 *
+	 * @param data
+	 *            The rows.
+	 * @param row
+	 *            The offset of the row.
+	 * @return The nearest centroid.
+	 */
+	public int nearest(final double[] data, final int row) {
+		double best = Double.POSITIVE_INFINITY;
+		int result = 0;
+		for (int j = 0; j < this.k; j++) {
+			final double dist = KMeansEngine.distanceSquared(data, row, this.centroids, j * this.dimensions,
+					this.dimensions);
+			if (dist < best) {
+				best = dist;
+				result = j;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Assign a set of rows to their nearest centroids, without changing the
+	 * centroids.
+	 *
+	 * @param data
+	 *            The rows.
+	 * @param count
+	 *            The number of rows.
+	 * @param target
+	 *            Receives the cluster of each row.
+	 */
+	public void assign(final double[] data, final int count, final int[] target) {
+		final int d = this.dimensions;
+		SharedExecutor.getInstance().process(count, this.threads(), new RangeTask() {
+			@Override
+			public void run(final int low, final int high) {
+				for (int i = low; i < high; i++) {
+					target[i] = KMeansEngine.this.nearest(data, i * d);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Move the centroids to the means of their rows, and update the bounds by
+	 * the distance each centroid moved.
+	 *
+	 * @param sums
+	 *            The partial sums of each chunk.
+	 * @param counts
+	 *            The partial counts of each chunk.
+	 */
+	private void updateCentroids(final double[][] sums, final long[][] counts) {
+		final int d = this.dimensions;
+		final double[] total = new double[d];
+		double maxMoved = 0;
+		double secondMoved = 0;
+		int maxCluster = -1;
+
+		for (int j = 0; j < this.k; j++) {
+			long size = 0;
+			Arrays.fill(total, 0);
+			for (int c = 0; c < sums.length; c++) {
+				size += counts[c][j];
+				for (int x = 0; x < d; x++) {
+					total[x] += sums[c][j * d + x];
+				}
+			}
+			this.clusterSizes[j] = size;
+
+			double dist = 0;
+			if (size > 0) {
+				for (int x = 0; x < d; x++) {
+					final double value = total[x] / size;
+					final double diff = value - this.centroids[j * d + x];
+					dist += diff * diff;
+					this.centroids[j * d + x] = value;
+				}
+			}
+			this.moved[j] = Math.sqrt(dist);
+			if (this.moved[j] > maxMoved) {
+				secondMoved = maxMoved;
+				maxMoved = this.moved[j];
+				maxCluster = j;
+			} else if (this.moved[j] > secondMoved) {
+				secondMoved = this.moved[j];
+			}
+		}
+
+		if (this.pruning) {
+			final double[] u = this.upper;
+			final double[] l = this.lower;
+			final int[] a = this.assignment;
+			final double[] m = this.moved;
+			final double max = maxMoved;
+			final double second = secondMoved;
+			final int maxIndex = maxCluster;
+			SharedExecutor.getInstance().process(a.length, this.threads(), new RangeTask() {
+				@Override
+				public void run(final int low, final int high) {
+					for (int i = low; i < high; i++) {
+						u[i] += m[a[i]];
+						l[i] -= a[i] == maxIndex ? second : max;
+					}
+				}
+			});
+		}
+	}
+
+	/**
+	 * Calculate half the distance from each centroid to its nearest other
+	 * centroid.
+	 */
+	private void calculateHalfGaps() {
+		Arrays.fill(this.halfGap, Double.POSITIVE_INFINITY);
+		for (int a = 0; a < this.k; a++) {
+			for (int b = a + 1; b < this.k; b++) {
+				final double dist = 0.5 * Math.sqrt(KMeansEngine.distanceSquared(this.centroids, a * this.dimensions,
+						this.centroids, b * this.dimensions, this.dimensions));
+				if (dist < this.halfGap[a]) {
+					this.halfGap[a] = dist;
+				}
+				if (dist < this.halfGap[b]) {
+					this.halfGap[b] = dist;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Perform one mini-batch iteration. Each row of the batch is assigned to
+	 * its nearest centroid, then the centroids are moved towards their rows
+	 * one row at a time, with a learning rate of one over the number of rows
+	 * each centroid has absorbed so far. The centroids are seeded from the
+	 * batch first, if needed.
+	 *
+	 * @param batch
+	 *            The rows of the batch.
+	 * @param count
+	 *            The number of rows.
+	 */
+	public void miniBatch(final double[] batch, final int count) {
+		if (!this.seeded) {
+			this.seed(batch, count);
+		}
+		this.assignment = null;
+
+		final int d = this.dimensions;
+		final int[] nearest = new int[count];
+		this.assign(batch, count, nearest);
+
+		for (int i = 0; i < count; i++) {
+			final int cluster = nearest[i];
+			this.batchCounts[cluster]++;
+			final double eta = 1.0 / this.batchCounts[cluster];
+			final int offset = cluster * d;
+			for (int x = 0; x < d; x++) {
+				this.centroids[offset + x] = (1.0 - eta) * this.centroids[offset + x] + eta * batch[i * d + x];
+			}
+		}
+	}
+
+	/**
+	 * Calculate the squared distance between two rows.
+	 *
+	 * @param a
+	 *            Holds the first row.
+	 * @param aOffset
+	 *            The offset of the first row.
+	 * @param b
+	 *            Holds the second row.
+	 * @param bOffset
+	 *            The offset of the second row.
+	 * @param d
+	 *            The number of values in each row.
+	 * @return The squared distance.
+	 */
+	public static double distanceSquared(final double[] a, final int aOffset, final double[] b, final int bOffset,
+			final int d) {
+		double result = 0;
+		for (int x = 0; x < d; x++) {
+			final double diff = a[aOffset + x] - b[bOffset + x];
+			result += diff * diff;
+		}
+		return result;
+	}
+
+	/**
+	 * @param count
+	 *            The number of rows.
+	 * @return The number of fixed chunks to split the rows into.
+	 */
+	private int chunkCount(final int count) {
+		final int parallelism = Math.min(this.threads(), SharedExecutor.getInstance().getPool().getParallelism());
+		return Math.max(1, Math.min(count, parallelism * SharedExecutor.CHUNKS_PER_THREAD));
+	}
+
+	/**
+	 * @return The thread limit to pass to the executor.
+	 */
+	private int threads() {
+		return this.threadCount > 0 ? this.threadCount : Integer.MAX_VALUE;
+	}
+
+	/**
+	 * @return The number of clusters.
+	 */
+	public int getK() {
+		return this.k;
+	}
+
+	/**
+	 * @return The number of values in each row.
+	 */
+	public int getDimensions() {
+		return this.dimensions;
+	}
+
+	/**
+	 * @return The centroids, one after another.
+	 */
+	public double[] getCentroids() {
+		return this.centroids;
+	}
+
+	/**
+	 * @return The cluster of each row from the last full batch iteration, or
+	 *         null.
+	 */
+	public int[] getAssignment() {
+		return this.assignment;
+	}
+
+	/**
+	 * @return The number of rows in each cluster, from the last full batch
+	 *         iteration.
+	 */
+	public long[] getClusterSizes() {
+		return this.clusterSizes;
+	}
+
+	/**
+	 * @return True once the centroids have been seeded.
+	 */
+	public boolean isSeeded() {
+		return this.seeded;
+	}
+
+	/**
+	 * @return True if Hamerly's bounds are used in full batch iterations.
+	 */
+	public boolean isPruning() {
+		return this.pruning;
+	}
+
+	/**
+	 * @param thePruning
+	 *            True to use Hamerly's bounds in full batch iterations.
+	 */
+	public void setPruning(final boolean thePruning) {
+		if (thePruning != this.pruning) {
+			this.pruning = thePruning;
+			this.assignment = null;
+		}
+	}
+
+	/**
+	 * @return The random number generator used for seeding.
+	 */
+	public GenerateRandom getRandom() {
+		return this.random;
+	}
+
+	/**
+	 * @param theRandom
+	 *            The random number generator used for seeding.
+	 */
+	public void setRandom(final GenerateRandom theRandom) {
+		this.random = theRandom;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getThreadCount() {
+		return this.threadCount;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setThreadCount(final int numThreads) {
+		this.threadCount = numThreads;
+	}
+}
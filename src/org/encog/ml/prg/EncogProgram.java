@@ -30,7 +30,7 @@ import java.util.Map;
 import java.util.Random;
 
 import org.encog.ml.MLError;
-import org.encog.ml.MLRegression;
+import org.encog.ml.MLBatchRegression;
 import org.encog.ml.data.MLData;
 import org.encog.ml.data.MLDataSet;
 import org.encog.ml.data.basic.BasicMLData;
@@ -38,6 +38,8 @@ import org.encog.ml.ea.exception.EACompileError;
 import org.encog.ml.ea.exception.EARuntimeError;
 import org.encog.ml.ea.genome.BasicGenome;
 import org.encog.ml.ea.genome.Genome;
+import org.encog.ml.prg.compile.CompiledNode;
+import org.encog.ml.prg.compile.ProgramCompiler;
 import org.encog.ml.prg.expvalue.ExpressionValue;
 import org.encog.ml.prg.expvalue.ValueType;
 import org.encog.ml.prg.extension.FunctionFactory;
@@ -67,7 +69,7 @@ import org.encog.util.simple.EncogUtility;
  * they are stored in a variable holder. Each program usually has its own
  * variable holder, though it is possible to share.
  */
-public class EncogProgram extends BasicGenome implements MLRegression, MLError {
+public class EncogProgram extends BasicGenome implements MLBatchRegression, MLError {
 
 	/**
 	 * The serial id.
@@ -146,6 +148,18 @@ public class EncogProgram extends BasicGenome implements MLRegression, MLError {
 	 */
 	private ProgramNode rootNode;
 
+	/**
+	 * The compiled form of the tree, only valid if compileAttempted is true.
+	 * Null if the tree cannot be compiled.
+	 */
+	private transient CompiledNode compiled;
+
+	/**
+	 * True if the current tree has been compiled. Set after compiled, so a
+	 * thread that sees it also sees the compiled tree.
+	 */
+	private transient volatile boolean compileAttempted;
+
 	/**
 	 * Holds extra data that might be needed by user extended opcodes.
 	 */
@@ -221,6 +235,7 @@ public class EncogProgram extends BasicGenome implements MLRegression, MLError {
 	public ProgramNode compileEPL(final String code) {
 		final ParseEPL parser = new ParseEPL(this);
 		this.rootNode = parser.parse(code);
+		this.clearCompiled();
 		return this.rootNode;
 	}
 
@@ -234,6 +249,7 @@ public class EncogProgram extends BasicGenome implements MLRegression, MLError {
 	public ProgramNode compileExpression(final String expression) {
 		final ParseCommonExpression parser = new ParseCommonExpression(this);
 		this.rootNode = parser.parse(expression);
+		this.clearCompiled();
 		return this.rootNode;
 	}
 
@@ -303,6 +319,65 @@ public class EncogProgram extends BasicGenome implements MLRegression, MLError {
 		return result;
 	}
 
+	/**
+	 * Compute the output for each row of the input. The program is compiled
+	 * the first time this is called, and the compiled form is kept until the
+	 * tree changes, so each row is evaluated on primitive doubles. Programs that cannot be compiled, or that do not produce a
+	 * floating point result, are interpreted a row at a time.
+	 *
+	 * @param input
+	 *            The input rows.
+	 * @param output
+	 *            The output rows, each receives a single number.
+	 */
+	@Override
+	public void compute(final double[][] input, final double[][] output) {
+		final CompiledNode compiled = this.getResultType().getVariableType() == ValueType.floatingType
+				? this.compile() : null;
+
+		if (compiled == null) {
+			for (int i = 0; i < input.length; i++) {
+				output[i][0] = this.compute(new BasicMLData(input[i])).getData(0);
+			}
+			return;
+		}
+
+		for (int i = 0; i < input.length; i++) {
+			if (input[i].length != this.getInputCount()) {
+				throw new EACompileError("Invalid input count.");
+			}
+			output[i][0] = compiled.evaluate(input[i]);
+		}
+	}
+
+	/**
+	 * Compile this program, so that it can be evaluated on primitive doubles.
+	 * The compiled program is kept, and returned by later calls, until the
+	 * tree is changed with setRootNode, replaceNode or one of the compile
+	 * methods. Code that changes a node of the tree in place must call
+	 * clearCompiled.
+	 *
+	 * @return The compiled program, or null if this program uses something
+	 *         that cannot be compiled.
+	 */
+	public CompiledNode compile() {
+		if (!this.compileAttempted) {
+			this.compiled = ProgramCompiler.compile(this.rootNode, this.getInputCount());
+			this.compileAttempted = true;
+		}
+		return this.compiled;
+	}
+
+	/**
+	 * Discard the compiled form of this program, it will be compiled again
+	 * when it is next needed. Call this after changing a node of the tree in
+	 * place.
+	 */
+	public void clearCompiled() {
+		this.compileAttempted = false;
+		this.compiled = null;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -423,6 +498,7 @@ public class EncogProgram extends BasicGenome implements MLRegression, MLError {
 		} else {
 			TaskReplaceNode.process(this.rootNode, replaceThisNode, replaceWith);
 		}
+		this.clearCompiled();
 	}
 
 	/**
@@ -458,6 +534,7 @@ public class EncogProgram extends BasicGenome implements MLRegression, MLError {
 	 */
 	public void setRootNode(final ProgramNode theRootNode) {
 		this.rootNode = theRootNode;
+		this.clearCompiled();
 	}
 
 	/**
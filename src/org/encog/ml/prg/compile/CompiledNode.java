@@ -0,0 +1,41 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.prg.compile;
+
+/**
+ * A numeric node of a compiled Encog program. The tree of compiled nodes
+ * evaluates directly on primitive doubles, reading the program variables from
+ * an input row, so no ExpressionValue is created while it is evaluated.
+ */
+public abstract class CompiledNode {
+
+	/**
+	 * Evaluate this node.
+	 *
+	 * @param input
+	 *            The values of the program variables.
+	 * @return The value of this node.
+	 */
+	public abstract double evaluate(double[] input);
+}
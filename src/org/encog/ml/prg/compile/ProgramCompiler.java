@@ -0,0 +1,647 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.prg.compile;
+
+import org.encog.Encog;
+import org.encog.ml.prg.ProgramNode;
+import org.encog.ml.prg.expvalue.DivisionByZeroError;
+import org.encog.ml.prg.expvalue.ExpressionValue;
+import org.encog.ml.prg.extension.ProgramExtensionTemplate;
+import org.encog.ml.prg.extension.StandardExtensions;
+
+/**
+ * Compiles the tree of an Encog program into a tree of compiled nodes. The
+ * interpreter boxes every intermediate value into an ExpressionValue and
+ * dispatches on its type; the compiled tree resolves the opcodes and types
+ * once, so evaluating a row is a chain of primitive double operations.
+ *
+ * Only the numeric and boolean opcodes of the standard extensions are
+ * supported. Programs that use strings, enums, random numbers or opcodes that
+ * produce integers cannot be compiled, and should be evaluated with the
+ * interpreter. The compiled tree produces the same values, and throws the
+ * same division by zero error, as the interpreter.
+ *
+ * The calls from one compiled node to its children are virtual calls, and as
+ * the children can be any of the node classes below they are megamorphic, so
+ * the JIT does not inline them. The gain over the interpreter comes from
+ * removing the allocation and the type dispatch, not from inlining.
+ */
+public final class ProgramCompiler {
+
+	/**
+	 * A compiled node with one child.
+	 */
+	private abstract static class UnaryNode extends CompiledNode {
+		/**
+		 * The child.
+		 */
+		protected final CompiledNode a;
+
+		/**
+		 * Construct the node.
+		 *
+		 * @param theA
+		 *            The child.
+		 */
+		public UnaryNode(final CompiledNode theA) {
+			this.a = theA;
+		}
+	}
+
+	/**
+	 * A compiled node with two children.
+	 */
+	private abstract static class BinaryNode extends CompiledNode {
+		/**
+		 * The first child.
+		 */
+		protected final CompiledNode a;
+
+		/**
+		 * The second child.
+		 */
+		protected final CompiledNode b;
+
+		/**
+		 * Construct the node.
+		 *
+		 * @param theA
+		 *            The first child.
+		 * @param theB
+		 *            The second child.
+		 */
+		public BinaryNode(final CompiledNode theA, final CompiledNode theB) {
+			this.a = theA;
+			this.b = theB;
+		}
+	}
+
+	/**
+	 * A compiled comparison of two numeric children.
+	 */
+	private abstract static class CompareNode extends CompiledCondition {
+		/**
+		 * The first child.
+		 */
+		protected final CompiledNode a;
+
+		/**
+		 * The second child.
+		 */
+		protected final CompiledNode b;
+
+		/**
+		 * Construct the comparison.
+		 *
+		 * @param theA
+		 *            The first child.
+		 * @param theB
+		 *            The second child.
+		 */
+		public CompareNode(final CompiledNode theA, final CompiledNode theB) {
+			this.a = theA;
+			this.b = theB;
+		}
+	}
+
+	/**
+	 * Compile a program tree.
+	 *
+	 * @param root
+	 *            The root node of the program.
+	 * @param inputCount
+	 *            The number of values in each input row.
+	 * @return The compiled tree, or null if the program uses something that
+	 *         cannot be compiled.
+	 */
+	public static CompiledNode compile(final ProgramNode root, final int inputCount) {
+		return compileNumeric(root, inputCount);
+	}
+
+	/**
+	 * Compile a node that produces a boolean.
+	 *
+	 * @param node
+	 *            The node to compile.
+	 * @param inputCount
+	 *            The number of values in each input row.
+	 * @return The compiled condition, or null if the node cannot be compiled.
+	 */
+	private static CompiledCondition compileCondition(final ProgramNode node, final int inputCount) {
+		final ProgramExtensionTemplate temp = node.getTemplate();
+
+		if (temp == StandardExtensions.EXTENSION_CONST_SUPPORT) {
+			final ExpressionValue value = node.getData()[0];
+			if (!value.isBoolean()) {
+				return null;
+			}
+			final boolean b = value.toBooleanValue();
+			return new CompiledCondition() {
+				@Override
+				public boolean test(final double[] input) {
+					return b;
+				}
+			};
+		} else if (temp == StandardExtensions.EXTENSION_NOT) {
+			final CompiledCondition a = compileCondition(node.getChildNode(0), inputCount);
+			if (a == null) {
+				return null;
+			}
+			return new CompiledCondition() {
+				@Override
+				public boolean test(final double[] input) {
+					return !a.test(input);
+				}
+			};
+		} else if (temp == StandardExtensions.EXTENSION_AND || temp == StandardExtensions.EXTENSION_OR) {
+			final CompiledCondition a = compileCondition(node.getChildNode(0), inputCount);
+			final CompiledCondition b = compileCondition(node.getChildNode(1), inputCount);
+			if (a == null || b == null) {
+				return null;
+			}
+			if (temp == StandardExtensions.EXTENSION_AND) {
+				return new CompiledCondition() {
+					@Override
+					public boolean test(final double[] input) {
+						return a.test(input) && b.test(input);
+					}
+				};
+			}
+			return new CompiledCondition() {
+				@Override
+				public boolean test(final double[] input) {
+					return a.test(input) || b.test(input);
+				}
+			};
+		} else if (temp == StandardExtensions.EXTENSION_IFF) {
+			final CompiledCondition c = compileCondition(node.getChildNode(0), inputCount);
+			final CompiledCondition a = compileCondition(node.getChildNode(1), inputCount);
+			final CompiledCondition b = compileCondition(node.getChildNode(2), inputCount);
+			if (c == null || a == null || b == null) {
+				return null;
+			}
+			return new CompiledCondition() {
+				@Override
+				public boolean test(final double[] input) {
+					return c.test(input) ? a.test(input) : b.test(input);
+				}
+			};
+		}
+
+		return compileComparison(node, inputCount);
+	}
+
+	/**
+	 * Compile a node that compares two numbers.
+	 *
+	 * @param node
+	 *            The node to compile.
+	 * @param inputCount
+	 *            The number of values in each input row.
+	 * @return The compiled condition, or null if the node cannot be compiled.
+	 */
+	private static CompiledCondition compileComparison(final ProgramNode node, final int inputCount) {
+		final ProgramExtensionTemplate temp = node.getTemplate();
+
+		if (temp != StandardExtensions.EXTENSION_GT && temp != StandardExtensions.EXTENSION_LT
+				&& temp != StandardExtensions.EXTENSION_GTE && temp != StandardExtensions.EXTENSION_LTE
+				&& temp != StandardExtensions.EXTENSION_EQUAL && temp != StandardExtensions.EXTENSION_NOT_EQUAL) {
+			return null;
+		}
+
+		final CompiledNode a = compileNumeric(node.getChildNode(0), inputCount);
+		final CompiledNode b = compileNumeric(node.getChildNode(1), inputCount);
+		if (a == null || b == null) {
+			return null;
+		}
+
+		if (temp == StandardExtensions.EXTENSION_GT) {
+			return new CompareNode(a, b) {
+				@Override
+				public boolean test(final double[] input) {
+					return this.a.evaluate(input) > this.b.evaluate(input);
+				}
+			};
+		} else if (temp == StandardExtensions.EXTENSION_LT) {
+			return new CompareNode(a, b) {
+				@Override
+				public boolean test(final double[] input) {
+					return this.a.evaluate(input) < this.b.evaluate(input);
+				}
+			};
+		} else if (temp == StandardExtensions.EXTENSION_GTE) {
+			return new CompareNode(a, b) {
+				@Override
+				public boolean test(final double[] input) {
+					return this.a.evaluate(input) >= this.b.evaluate(input);
+				}
+			};
+		} else if (temp == StandardExtensions.EXTENSION_LTE) {
+			return new CompareNode(a, b) {
+				@Override
+				public boolean test(final double[] input) {
+					return this.a.evaluate(input) <= this.b.evaluate(input);
+				}
+			};
+		} else if (temp == StandardExtensions.EXTENSION_EQUAL) {
+			return new CompareNode(a, b) {
+				@Override
+				public boolean test(final double[] input) {
+					return Math.abs(this.a.evaluate(input) - this.b.evaluate(input)) < Encog.DEFAULT_DOUBLE_EQUAL;
+				}
+			};
+		} else {
+			return new CompareNode(a, b) {
+				@Override
+				public boolean test(final double[] input) {
+					return Math.abs(this.a.evaluate(input) - this.b.evaluate(input)) > Encog.DEFAULT_DOUBLE_EQUAL;
+				}
+			};
+		}
+	}
+
+	/**
+	 * Compile a node that produces a number.
+	 *
+	 * @param node
+	 *            The node to compile.
+	 * @param inputCount
+	 *            The number of values in each input row.
+	 * @return The compiled node, or null if the node cannot be compiled.
+	 */
+	private static CompiledNode compileNumeric(final ProgramNode node, final int inputCount) {
+		final ProgramExtensionTemplate temp = node.getTemplate();
+
+		if (temp == StandardExtensions.EXTENSION_CONST_SUPPORT) {
+			final ExpressionValue value = node.getData()[0];
+			if (!value.isFloat() && !value.isInt()) {
+				return null;
+			}
+			final double d = value.toFloatValue();
+			return new CompiledNode() {
+				@Override
+				public double evaluate(final double[] input) {
+					return d;
+				}
+			};
+		} else if (temp == StandardExtensions.EXTENSION_VAR_SUPPORT) {
+			final int index = (int) node.getData()[0].toIntValue();
+			if (index < 0 || index >= inputCount) {
+				return null;
+			}
+			return new CompiledNode() {
+				@Override
+				public double evaluate(final double[] input) {
+					return input[index];
+				}
+			};
+		} else if (temp == StandardExtensions.EXTENSION_IFF) {
+			final CompiledCondition c = compileCondition(node.getChildNode(0), inputCount);
+			final CompiledNode a = compileNumeric(node.getChildNode(1), inputCount);
+			final CompiledNode b = compileNumeric(node.getChildNode(2), inputCount);
+			if (c == null || a == null || b == null) {
+				return null;
+			}
+			return new BinaryNode(a, b) {
+				@Override
+				public double evaluate(final double[] input) {
+					return c.test(input) ? this.a.evaluate(input) : this.b.evaluate(input);
+				}
+			};
+		} else if (temp == StandardExtensions.EXTENSION_CLAMP) {
+			final CompiledNode value = compileNumeric(node.getChildNode(0), inputCount);
+			final CompiledNode min = compileNumeric(node.getChildNode(1), inputCount);
+			final CompiledNode max = compileNumeric(node.getChildNode(2), inputCount);
+			if (value == null || min == null || max == null) {
+				return null;
+			}
+			return new CompiledNode() {
+				@Override
+				public double evaluate(final double[] input) {
+					final double v = value.evaluate(input);
+					final double lo = min.evaluate(input);
+					final double hi = max.evaluate(input);
+					if (v < lo) {
+						return lo;
+					} else if (v > hi) {
+						return hi;
+					} else {
+						return v;
+					}
+				}
+			};
+		} else if (node.getChildNodes().size() == 1) {
+			final CompiledNode a = compileNumeric(node.getChildNode(0), inputCount);
+			return a == null ? null : compileUnary(temp, a);
+		} else if (node.getChildNodes().size() == 2) {
+			// the interpreter keeps integer arithmetic when both sides are
+			// integers, which a double cannot reproduce
+			if (isArithmetic(temp) && mayBeInt(node.getChildNode(0)) && mayBeInt(node.getChildNode(1))) {
+				return null;
+			}
+			final CompiledNode a = compileNumeric(node.getChildNode(0), inputCount);
+			final CompiledNode b = compileNumeric(node.getChildNode(1), inputCount);
+			return a == null || b == null ? null : compileBinary(temp, a, b);
+		}
+
+		return null;
+	}
+
+	/**
+	 * Compile a numeric opcode with one child.
+	 *
+	 * @param temp
+	 *            The opcode.
+	 * @param a
+	 *            The compiled child.
+	 * @return The compiled node, or null if the opcode is not supported.
+	 */
+	private static CompiledNode compileUnary(final ProgramExtensionTemplate temp, final CompiledNode a) {
+		if (temp == StandardExtensions.EXTENSION_NEG) {
+			return new UnaryNode(a) {
+				@Override
+				public double evaluate(final double[] input) {
+					return -this.a.evaluate(input);
+				}
+			};
+		} else if (temp == StandardExtensions.EXTENSION_ABS || temp == StandardExtensions.EXTENSION_ACOS) {
+			// acos is evaluated as abs by the standard extension
+			return new UnaryNode(a) {
+				@Override
+				public double evaluate(final double[] input) {
+					return Math.abs(this.a.evaluate(input));
+				}
+			};
+		} else if (temp == StandardExtensions.EXTENSION_ASIN) {
+			return new UnaryNode(a) {
+				@Override
+				public double evaluate(final double[] input) {
+					return Math.asin(this.a.evaluate(input));
+				}
+			};
+		} else if (temp == StandardExtensions.EXTENSION_ATAN) {
+			return new UnaryNode(a) {
+				@Override
+				public double evaluate(final double[] input) {
+					return Math.atan(this.a.evaluate(input));
+				}
+			};
+		} else if (temp == StandardExtensions.EXTENSION_CEIL) {
+			return new UnaryNode(a) {
+				@Override
+				public double evaluate(final double[] input) {
+					return Math.ceil(this.a.evaluate(input));
+				}
+			};
+		} else if (temp == StandardExtensions.EXTENSION_COS) {
+			return new UnaryNode(a) {
+				@Override
+				public double evaluate(final double[] input) {
+					return Math.cos(this.a.evaluate(input));
+				}
+			};
+		} else if (temp == StandardExtensions.EXTENSION_COSH) {
+			return new UnaryNode(a) {
+				@Override
+				public double evaluate(final double[] input) {
+					return Math.cosh(this.a.evaluate(input));
+				}
+			};
+		} else if (temp == StandardExtensions.EXTENSION_EXP) {
+			return new UnaryNode(a) {
+				@Override
+				public double evaluate(final double[] input) {
+					return Math.exp(this.a.evaluate(input));
+				}
+			};
+		} else if (temp == StandardExtensions.EXTENSION_FLOOR) {
+			return new UnaryNode(a) {
+				@Override
+				public double evaluate(final double[] input) {
+					return Math.floor(this.a.evaluate(input));
+				}
+			};
+		} else if (temp == StandardExtensions.EXTENSION_LOG) {
+			return new UnaryNode(a) {
+				@Override
+				public double evaluate(final double[] input) {
+					return Math.log(this.a.evaluate(input));
+				}
+			};
+		} else if (temp == StandardExtensions.EXTENSION_LOG10) {
+			return new UnaryNode(a) {
+				@Override
+				public double evaluate(final double[] input) {
+					return Math.log10(this.a.evaluate(input));
+				}
+			};
+		} else if (temp == StandardExtensions.EXTENSION_SIN) {
+			return new UnaryNode(a) {
+				@Override
+				public double evaluate(final double[] input) {
+					return Math.sin(this.a.evaluate(input));
+				}
+			};
+		} else if (temp == StandardExtensions.EXTENSION_SINH) {
+			return new UnaryNode(a) {
+				@Override
+				public double evaluate(final double[] input) {
+					return Math.sinh(this.a.evaluate(input));
+				}
+			};
+		} else if (temp == StandardExtensions.EXTENSION_SQRT) {
+			return new UnaryNode(a) {
+				@Override
+				public double evaluate(final double[] input) {
+					return Math.sqrt(this.a.evaluate(input));
+				}
+			};
+		} else if (temp == StandardExtensions.EXTENSION_TAN) {
+			return new UnaryNode(a) {
+				@Override
+				public double evaluate(final double[] input) {
+					return Math.tan(this.a.evaluate(input));
+				}
+			};
+		} else if (temp == StandardExtensions.EXTENSION_TANH) {
+			return new UnaryNode(a) {
+				@Override
+				public double evaluate(final double[] input) {
+					return Math.tanh(this.a.evaluate(input));
+				}
+			};
+		} else if (temp == StandardExtensions.EXTENSION_TODEG) {
+			return new UnaryNode(a) {
+				@Override
+				public double evaluate(final double[] input) {
+					return Math.toDegrees(this.a.evaluate(input));
+				}
+			};
+		} else if (temp == StandardExtensions.EXTENSION_TORAD) {
+			return new UnaryNode(a) {
+				@Override
+				public double evaluate(final double[] input) {
+					return Math.toRadians(this.a.evaluate(input));
+				}
+			};
+		} else if (temp == StandardExtensions.EXTENSION_CFLOAT) {
+			return a;
+		}
+		return null;
+	}
+
+	/**
+	 * Compile a numeric opcode with two children.
+	 *
+	 * @param temp
+	 *            The opcode.
+	 * @param a
+	 *            The first compiled child.
+	 * @param b
+	 *            The second compiled child.
+	 * @return The compiled node, or null if the opcode is not supported.
+	 */
+	private static CompiledNode compileBinary(final ProgramExtensionTemplate temp, final CompiledNode a,
+			final CompiledNode b) {
+		if (temp == StandardExtensions.EXTENSION_ADD) {
+			return new BinaryNode(a, b) {
+				@Override
+				public double evaluate(final double[] input) {
+					return this.a.evaluate(input) + this.b.evaluate(input);
+				}
+			};
+		} else if (temp == StandardExtensions.EXTENSION_SUB) {
+			return new BinaryNode(a, b) {
+				@Override
+				public double evaluate(final double[] input) {
+					return this.a.evaluate(input) - this.b.evaluate(input);
+				}
+			};
+		} else if (temp == StandardExtensions.EXTENSION_MUL) {
+			return new BinaryNode(a, b) {
+				@Override
+				public double evaluate(final double[] input) {
+					return this.a.evaluate(input) * this.b.evaluate(input);
+				}
+			};
+		} else if (temp == StandardExtensions.EXTENSION_DIV) {
+			return new BinaryNode(a, b) {
+				@Override
+				public double evaluate(final double[] input) {
+					final double n = this.a.evaluate(input);
+					final double d = this.b.evaluate(input);
+					if (Math.abs(d) < Encog.DEFAULT_DOUBLE_EQUAL) {
+						throw new DivisionByZeroError();
+					}
+					return n / d;
+				}
+			};
+		} else if (temp == StandardExtensions.EXTENSION_PDIV) {
+			return new BinaryNode(a, b) {
+				@Override
+				public double evaluate(final double[] input) {
+					final double n = this.a.evaluate(input);
+					final double d = this.b.evaluate(input);
+					if (Math.abs(d) < Encog.DEFAULT_DOUBLE_EQUAL) {
+						return 1;
+					}
+					return n / d;
+				}
+			};
+		} else if (temp == StandardExtensions.EXTENSION_POWER || temp == StandardExtensions.EXTENSION_POWFN) {
+			return new BinaryNode(a, b) {
+				@Override
+				public double evaluate(final double[] input) {
+					return Math.pow(this.a.evaluate(input), this.b.evaluate(input));
+				}
+			};
+		} else if (temp == StandardExtensions.EXTENSION_ATAN2) {
+			return new BinaryNode(a, b) {
+				@Override
+				public double evaluate(final double[] input) {
+					return Math.atan2(this.a.evaluate(input), this.b.evaluate(input));
+				}
+			};
+		} else if (temp == StandardExtensions.EXTENSION_MAX) {
+			return new BinaryNode(a, b) {
+				@Override
+				public double evaluate(final double[] input) {
+					return Math.max(this.a.evaluate(input), this.b.evaluate(input));
+				}
+			};
+		} else if (temp == StandardExtensions.EXTENSION_MIN) {
+			return new BinaryNode(a, b) {
+				@Override
+				public double evaluate(final double[] input) {
+					return Math.min(this.a.evaluate(input), this.b.evaluate(input));
+				}
+			};
+		}
+		return null;
+	}
+
+	/**
+	 * Determine if an opcode is one of the arithmetic operators, which the
+	 * interpreter evaluates with integer arithmetic when both sides are
+	 * integers.
+	 *
+	 * @param temp
+	 *            The opcode.
+	 * @return True if the opcode is an arithmetic operator.
+	 */
+	private static boolean isArithmetic(final ProgramExtensionTemplate temp) {
+		return temp == StandardExtensions.EXTENSION_ADD || temp == StandardExtensions.EXTENSION_SUB
+				|| temp == StandardExtensions.EXTENSION_MUL || temp == StandardExtensions.EXTENSION_DIV
+				|| temp == StandardExtensions.EXTENSION_PDIV || temp == StandardExtensions.EXTENSION_POWER;
+	}
+
+	/**
+	 * Determine if the interpreter could produce an integer for a node. The
+	 * variables are always set to floating point values, so only integer
+	 * constants, protected division, which returns the integer one when the
+	 * denominator is zero, and branches of these, can.
+	 *
+	 * @param node
+	 *            The node to check.
+	 * @return True if the node may produce an integer.
+	 */
+	private static boolean mayBeInt(final ProgramNode node) {
+		final ProgramExtensionTemplate temp = node.getTemplate();
+		if (temp == StandardExtensions.EXTENSION_CONST_SUPPORT) {
+			return node.getData()[0].isInt();
+		} else if (temp == StandardExtensions.EXTENSION_PDIV) {
+			return true;
+		} else if (temp == StandardExtensions.EXTENSION_IFF) {
+			return mayBeInt(node.getChildNode(1)) || mayBeInt(node.getChildNode(2));
+		}
+		return false;
+	}
+
+	/**
+	 * Private constructor.
+	 */
+	private ProgramCompiler() {
+
+	}
+}
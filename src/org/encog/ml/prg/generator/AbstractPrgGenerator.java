@@ -28,9 +28,6 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
 
 import org.encog.EncogError;
 import org.encog.mathutil.randomize.factory.BasicRandomFactory;
@@ -40,7 +37,6 @@ import org.encog.ml.ea.exception.EACompileError;
 import org.encog.ml.ea.exception.EARuntimeError;
 import org.encog.ml.ea.population.Population;
 import org.encog.ml.ea.species.Species;
-import org.encog.ml.genetic.GeneticError;
 import org.encog.ml.prg.EncogProgram;
 import org.encog.ml.prg.EncogProgramContext;
 import org.encog.ml.prg.ProgramNode;
@@ -49,6 +45,8 @@ import org.encog.ml.prg.extension.ProgramExtensionTemplate;
 import org.encog.ml.prg.train.PrgPopulation;
 import org.encog.ml.prg.train.ZeroEvalScoreFunction;
 import org.encog.util.concurrency.MultiThreadable;
+import org.encog.util.concurrency.RangeTask;
+import org.encog.util.concurrency.SharedExecutor;
 
 /**
  * The abstract base for Full and Grow program generation.
@@ -309,25 +307,16 @@ public abstract class AbstractPrgGenerator implements PrgGenerator, MultiThreada
 			this.actualThreads = this.threads;
 		}
 
-		// start up
-		ExecutorService taskExecutor = null;
-
-		if (this.threads == 1) {
-			taskExecutor = Executors.newSingleThreadScheduledExecutor();
-		} else {
-			taskExecutor = Executors.newFixedThreadPool(this.actualThreads);
-		}
-
-		for (int i = 0; i < pop.getPopulationSize(); i++) {
-			taskExecutor.execute(new GenerateWorker(this, (PrgPopulation) pop));
-		}
-
-		taskExecutor.shutdown();
-		try {
-			taskExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.MINUTES);
-		} catch (final InterruptedException e) {
-			throw new GeneticError(e);
-		}
+		// generate the genomes in chunks on the shared pool
+		final PrgPopulation prgPopulation = (PrgPopulation) pop;
+		SharedExecutor.getInstance().process(pop.getPopulationSize(), this.actualThreads, new RangeTask() {
+			@Override
+			public void run(final int low, final int high) {
+				for (int i = low; i < high; i++) {
+					new GenerateWorker(AbstractPrgGenerator.this, prgPopulation).run();
+				}
+			}
+		});
 
 		// just pick a leader, for the default species.
 		defaultSpecies.setLeader(defaultSpecies.getMembers().get(0));
@@ -71,6 +71,9 @@ public class RewriteBoolean implements RewriteRule {
 		final ProgramNode rewrittenRoot = this.internalRewrite(node);
 		if (rewrittenRoot != null) {
 			program.setRootNode(rewrittenRoot);
+		} else if (this.rewritten) {
+			// children were replaced in place
+			program.clearCompiled();
 		}
 		return this.rewritten;
 	}
@@ -51,6 +51,9 @@ public class RewriteConstants implements RewriteRule {
 		ProgramNode rewrite = this.rewriteNode(rootNode);
 		if (rewrite != null) {
 			program.setRootNode(rewrite);
+		} else if (this.rewritten) {
+			// children were replaced in place
+			program.clearCompiled();
 		}
 		return this.rewritten;
 	}
@@ -0,0 +1,360 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.svm;
+
+import org.encog.EncogError;
+import org.encog.mathutil.libsvm.svm_model;
+import org.encog.mathutil.libsvm.svm_node;
+import org.encog.mathutil.libsvm.svm_parameter;
+import org.encog.util.concurrency.MultiThreadable;
+import org.encog.util.concurrency.RangeTask;
+import org.encog.util.concurrency.SharedExecutor;
+
+/**
+ * A dense copy of the support vectors of a libsvm model, used to predict from
+ * plain double arrays. The support vectors are held row by row in one flat
+ * array, padded with zeros, and the kernel is computed directly over it,
+ * rather than through svm_node objects. The results match svm.svm_predict.
+ *
+ * The kernel parameters are read from the model on every call, so changes to
+ * them are seen. If the support vectors of the model change, a new dense model
+ * must be created. Precomputed kernels are not supported.
+ */
+public class DenseSVMModel implements MultiThreadable {
+
+	/**
+	 * The number of support vectors at which the kernel values of a single
+	 * prediction are computed in parallel.
+	 */
+	public static final int PARALLEL_THRESHOLD = 4096;
+
+	/**
+	 * The model.
+	 */
+	private final svm_model model;
+
+	/**
+	 * The length of each support vector row.
+	 */
+	private final int width;
+
+	/**
+	 * The support vectors, one row of width values each.
+	 */
+	private final double[] vectors;
+
+	/**
+	 * The number of threads to use, zero for all available.
+	 */
+	private int threadCount;
+
+	/**
+	 * Determine if a model can be held densely.
+	 *
+	 * @param model
+	 *            The model.
+	 * @return True if the model can be used with this class.
+	 */
+	public static boolean isSupported(final svm_model model) {
+		if (model == null || model.param.kernel_type == svm_parameter.PRECOMPUTED) {
+			return false;
+		}
+		for (int i = 0; i < model.l; i++) {
+			for (final svm_node node : model.SV[i]) {
+				if (node.index < 1) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Construct the dense model.
+	 *
+	 * @param theModel
+	 *            The model.
+	 * @param inputCount
+	 *            The number of inputs, the rows are at least this wide.
+	 */
+	public DenseSVMModel(final svm_model theModel, final int inputCount) {
+		if (!isSupported(theModel)) {
+			throw new EncogError("This SVM model can not be held densely.");
+		}
+		this.model = theModel;
+
+		int w = inputCount;
+		for (int i = 0; i < theModel.l; i++) {
+			for (final svm_node node : theModel.SV[i]) {
+				w = Math.max(w, node.index);
+			}
+		}
+		this.width = w;
+
+		this.vectors = new double[theModel.l * w];
+		for (int i = 0; i < theModel.l; i++) {
+			for (final svm_node node : theModel.SV[i]) {
+				this.vectors[i * w + node.index - 1] = node.value;
+			}
+		}
+	}
+
+	/**
+	 * @return The model.
+	 */
+	public svm_model getModel() {
+		return this.model;
+	}
+
+	/**
+	 * @return The length of each support vector row.
+	 */
+	public int getWidth() {
+		return this.width;
+	}
+
+	/**
+	 * @return The support vectors, one row of getWidth() values each.
+	 */
+	public double[] getVectors() {
+		return this.vectors;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getThreadCount() {
+		return this.threadCount;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setThreadCount(final int numThreads) {
+		this.threadCount = numThreads;
+	}
+
+	/**
+	 * @return The thread limit to pass to the executor.
+	 */
+	private int threads() {
+		return this.threadCount > 0 ? this.threadCount : Integer.MAX_VALUE;
+	}
+
+	private static double powi(final double base, final int times) {
+		double tmp = base, ret = 1.0;
+
+		for (int t = times; t > 0; t /= 2) {
+			if (t % 2 == 1) {
+				ret *= tmp;
+			}
+			tmp = tmp * tmp;
+		}
+		return ret;
+	}
+
+	/**
+	 * Compute the kernel between an input and a support vector.
+	 *
+	 * @param x
+	 *            The input.
+	 * @param sv
+	 *            The support vector.
+	 * @return The kernel value.
+	 */
+	public double kernel(final double[] x, final int sv) {
+		final svm_parameter param = this.model.param;
+		final double[] v = this.vectors;
+		final int base = sv * this.width;
+		final int n = Math.min(x.length, this.width);
+
+		if (param.kernel_type == svm_parameter.RBF) {
+			double sum = 0;
+			for (int k = 0; k < n; k++) {
+				final double d = x[k] - v[base + k];
+				sum += d * d;
+			}
+			for (int k = n; k < x.length; k++) {
+				sum += x[k] * x[k];
+			}
+			for (int k = n; k < this.width; k++) {
+				sum += v[base + k] * v[base + k];
+			}
+			return Math.exp(-param.gamma * sum);
+		}
+
+		double dot = 0;
+		for (int k = 0; k < n; k++) {
+			dot += x[k] * v[base + k];
+		}
+
+		switch (param.kernel_type) {
+		case svm_parameter.LINEAR:
+			return dot;
+		case svm_parameter.POLY:
+			return powi(param.gamma * dot + param.coef0, param.degree);
+		case svm_parameter.SIGMOID:
+			return Math.tanh(param.gamma * dot + param.coef0);
+		default:
+			return 0;
+		}
+	}
+
+	/**
+	 * Compute the kernel between an input and every support vector. With many
+	 * support vectors, this is split over the shared executor.
+	 *
+	 * @param x
+	 *            The input.
+	 * @param kvalue
+	 *            Receives the kernel value for each support vector.
+	 * @param parallel
+	 *            True if large models may be split over threads.
+	 */
+	public void kernel(final double[] x, final double[] kvalue, final boolean parallel) {
+		final int l = this.model.l;
+		if (parallel && l >= PARALLEL_THRESHOLD) {
+			SharedExecutor.getInstance().process(l, this.threads(), new RangeTask() {
+				@Override
+				public void run(final int low, final int high) {
+					for (int i = low; i < high; i++) {
+						kvalue[i] = DenseSVMModel.this.kernel(x, i);
+					}
+				}
+			});
+		} else {
+			for (int i = 0; i < l; i++) {
+				kvalue[i] = this.kernel(x, i);
+			}
+		}
+	}
+
+	/**
+	 * Predict from an input, as svm.svm_predict does.
+	 *
+	 * @param x
+	 *            The input.
+	 * @return The predicted value or class label.
+	 */
+	public double predict(final double[] x) {
+		return this.predict(x, true);
+	}
+
+	/**
+	 * Predict from an input, as svm.svm_predict does.
+	 *
+	 * @param x
+	 *            The input.
+	 * @param parallel
+	 *            True if the kernel values may be split over threads.
+	 * @return The predicted value or class label.
+	 */
+	private double predict(final double[] x, final boolean parallel) {
+		final svm_model m = this.model;
+		final double[] kvalue = new double[m.l];
+		this.kernel(x, kvalue, parallel);
+
+		final int svmType = m.param.svm_type;
+		if (svmType == svm_parameter.ONE_CLASS || svmType == svm_parameter.EPSILON_SVR
+				|| svmType == svm_parameter.NU_SVR) {
+			final double[] coef = m.sv_coef[0];
+			double sum = 0;
+			for (int i = 0; i < m.l; i++) {
+				sum += coef[i] * kvalue[i];
+			}
+			sum -= m.rho[0];
+
+			if (svmType == svm_parameter.ONE_CLASS) {
+				return (sum > 0) ? 1 : -1;
+			}
+			return sum;
+		}
+
+		final int nrClass = m.nr_class;
+		final int[] start = new int[nrClass];
+		for (int i = 1; i < nrClass; i++) {
+			start[i] = start[i - 1] + m.nSV[i - 1];
+		}
+
+		final int[] vote = new int[nrClass];
+		int p = 0;
+		for (int i = 0; i < nrClass; i++) {
+			for (int j = i + 1; j < nrClass; j++) {
+				double sum = 0;
+				final int si = start[i];
+				final int sj = start[j];
+				final double[] coef1 = m.sv_coef[j - 1];
+				final double[] coef2 = m.sv_coef[i];
+				for (int k = 0; k < m.nSV[i]; k++) {
+					sum += coef1[si + k] * kvalue[si + k];
+				}
+				for (int k = 0; k < m.nSV[j]; k++) {
+					sum += coef2[sj + k] * kvalue[sj + k];
+				}
+				sum -= m.rho[p];
+
+				if (sum > 0) {
+					++vote[i];
+				} else {
+					++vote[j];
+				}
+				p++;
+			}
+		}
+
+		int best = 0;
+		for (int i = 1; i < nrClass; i++) {
+			if (vote[i] > vote[best]) {
+				best = i;
+			}
+		}
+		return m.label[best];
+	}
+
+	/**
+	 * Predict from many inputs. The inputs are split over the shared
+	 * executor, and each is evaluated against every support vector.
+	 *
+	 * @param input
+	 *            The inputs.
+	 * @param output
+	 *            Receives the prediction for each input.
+	 */
+	public void predict(final double[][] input, final double[] output) {
+		if (input.length == 1) {
+			output[0] = this.predict(input[0], true);
+			return;
+		}
+		SharedExecutor.getInstance().process(input.length, this.threads(), new RangeTask() {
+			@Override
+			public void run(final int low, final int high) {
+				for (int i = low; i < high; i++) {
+					output[i] = DenseSVMModel.this.predict(input[i], false);
+				}
+			}
+		});
+	}
+}
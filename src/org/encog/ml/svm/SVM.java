@@ -36,6 +36,7 @@ import org.encog.ml.data.MLData;
 import org.encog.ml.data.MLDataSet;
 import org.encog.ml.data.basic.BasicMLData;
 import org.encog.neural.NeuralNetworkError;
+import org.encog.util.concurrency.MultiThreadable;
 import org.encog.util.simple.EncogUtility;
 
 /**
@@ -55,8 +56,12 @@ import org.encog.util.simple.EncogUtility;
  * Because a SVM is trained quite differently from a neural network, none of the
  * neural network training classes will work. This class must be trained using
  * SVMTrain.
+ *
+ * Where the model allows it, predictions use a DenseSVMModel, which works on
+ * the input array directly rather than building svm_node objects for each
+ * call.
  */
-public class SVM extends BasicML implements MLRegression, MLClassification, MLError {
+public class SVM extends BasicML implements MLRegression, MLClassification, MLError, MultiThreadable {
 
 	/**
 	 * The default degree.
@@ -113,6 +118,22 @@ public class SVM extends BasicML implements MLRegression, MLClassification, MLEr
 	 */
 	private int inputCount;
 
+	/**
+	 * The number of threads to use for batch prediction, zero for all
+	 * available.
+	 */
+	private int threadCount;
+
+	/**
+	 * The dense form of the model, created when first needed.
+	 */
+	private transient DenseSVMModel denseModel;
+
+	/**
+	 * True if the dense form has been checked for the current model.
+	 */
+	private transient boolean denseChecked;
+
 	/**
 	 * Construct the SVM.
 	 */
@@ -260,6 +281,11 @@ public class SVM extends BasicML implements MLRegression, MLClassification, MLEr
 			throw new EncogError("Can't use the SVM yet, it has not been trained, " + "and no model exists.");
 		}
 
+		final DenseSVMModel dense = this.getDenseModel();
+		if (dense != null) {
+			return (int) dense.predict(input.getData());
+		}
+
 		final svm_node[] formattedInput = this.makeSparse(input);
 		return (int) svm.svm_predict(this.model, formattedInput);
 	}
@@ -280,6 +306,12 @@ public class SVM extends BasicML implements MLRegression, MLClassification, MLEr
 
 		final MLData result = new BasicMLData(1);
 
+		final DenseSVMModel dense = this.getDenseModel();
+		if (dense != null) {
+			result.setData(0, dense.predict(input.getData()));
+			return result;
+		}
+
 		final svm_node[] formattedInput = this.makeSparse(input);
 
 		final double d = svm.svm_predict(this.model, formattedInput);
@@ -288,6 +320,60 @@ public class SVM extends BasicML implements MLRegression, MLClassification, MLEr
 		return result;
 	}
 
+	/**
+	 * Compute the output for many inputs at once, in parallel.
+	 *
+	 * @param input
+	 *            The inputs.
+	 * @param output
+	 *            Receives the output for each input.
+	 */
+	public void compute(final double[][] input, final double[] output) {
+		if (this.model == null) {
+			throw new EncogError("Can't use the SVM yet, it has not been trained, " + "and no model exists.");
+		}
+
+		final DenseSVMModel dense = this.getDenseModel();
+		if (dense != null) {
+			dense.setThreadCount(this.threadCount);
+			dense.predict(input, output);
+			return;
+		}
+
+		for (int i = 0; i < input.length; i++) {
+			output[i] = svm.svm_predict(this.model, this.makeSparse(new BasicMLData(input[i])));
+		}
+	}
+
+	/**
+	 * @return The dense form of the model, or null if there is no model or it
+	 *         can not be held densely.
+	 */
+	public synchronized DenseSVMModel getDenseModel() {
+		if (!this.denseChecked) {
+			this.denseModel = DenseSVMModel.isSupported(this.model)
+					? new DenseSVMModel(this.model, this.inputCount) : null;
+			this.denseChecked = true;
+		}
+		return this.denseModel;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getThreadCount() {
+		return this.threadCount;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setThreadCount(final int numThreads) {
+		this.threadCount = numThreads;
+	}
+
 	/**
 	 * @return The input count.
 	 */
@@ -382,8 +468,10 @@ public class SVM extends BasicML implements MLRegression, MLClassification, MLEr
 	 * @param i
 	 *            The new input count.
 	 */
-	public void setInputCount(final int i) {
+	public synchronized void setInputCount(final int i) {
 		this.inputCount = i;
+		this.denseModel = null;
+		this.denseChecked = false;
 
 	}
 
@@ -393,8 +481,10 @@ public class SVM extends BasicML implements MLRegression, MLClassification, MLEr
 	 * @param theModel
 	 *            The model.
 	 */
-	public void setModel(final svm_model theModel) {
+	public synchronized void setModel(final svm_model theModel) {
 		this.model = theModel;
+		this.denseModel = null;
+		this.denseChecked = false;
 
 	}
 
@@ -0,0 +1,294 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.world;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A dense, index based view of a world. States and actions are numbered in
+ * the order the world lists them, and the reward and goal flag of every state
+ * are held in primitive arrays.
+ *
+ * The transition model can also be compiled into compressed sparse row form.
+ * The successors of state s under action a are found at positions
+ * transitionStart[s*actionCount+a] to transitionStart[s*actionCount+a+1] of
+ * the successor and probability arrays, in the order the world's probability
+ * model returned them. This means the successor sets are only asked for once,
+ * rather than on every sweep of a learning algorithm.
+ *
+ * The compiled world is a snapshot. If states, rewards, goals or the
+ * probability model change, a new compiled world must be created.
+ */
+public class CompiledWorld {
+
+	/**
+	 * The world that was compiled.
+	 */
+	private final World world;
+
+	/**
+	 * The states, by index.
+	 */
+	private final State[] states;
+
+	/**
+	 * The actions, by index.
+	 */
+	private final Action[] actions;
+
+	/**
+	 * Maps each state to its index.
+	 */
+	private final Map<State, Integer> stateIndex;
+
+	/**
+	 * The reward of each state.
+	 */
+	private final double[] rewards;
+
+	/**
+	 * True for each state that is a goal.
+	 */
+	private final boolean[] goals;
+
+	/**
+	 * The first transition of each state/action pair, plus one final entry
+	 * holding the total transition count. Null until the transitions are
+	 * compiled.
+	 */
+	private int[] transitionStart;
+
+	/**
+	 * The successor state index of each transition.
+	 */
+	private int[] successors;
+
+	/**
+	 * The probability of each transition.
+	 */
+	private double[] probabilities;
+
+	/**
+	 * Compile the states and actions of a world. The transitions are not
+	 * compiled until {@link #compileTransitions()} is called.
+	 *
+	 * @param theWorld
+	 *            The world to compile.
+	 */
+	public CompiledWorld(final World theWorld) {
+		this.world = theWorld;
+		final List<State> stateList = theWorld.getStates();
+		final List<Action> actionList = theWorld.getActions();
+		this.states = stateList.toArray(new State[stateList.size()]);
+		this.actions = actionList.toArray(new Action[actionList.size()]);
+		this.stateIndex = new IdentityHashMap<State, Integer>(this.states.length);
+		this.rewards = new double[this.states.length];
+		this.goals = new boolean[this.states.length];
+
+		for (int i = 0; i < this.states.length; i++) {
+			this.stateIndex.put(this.states[i], i);
+			this.rewards[i] = this.states[i].getReward();
+		}
+
+		for (final State goal : theWorld.getGoals()) {
+			final Integer index = this.stateIndex.get(goal);
+			if (index != null) {
+				this.goals[index] = true;
+			}
+		}
+	}
+
+	/**
+	 * Compile the transition model of the world into sparse row form. Does
+	 * nothing if the transitions have already been compiled.
+	 */
+	public void compileTransitions() {
+		if (this.transitionStart != null) {
+			return;
+		}
+
+		final ActionProbability probability = this.world.getProbability();
+		final int actionCount = this.actions.length;
+		final int[] start = new int[this.states.length * actionCount + 1];
+		int[] succ = new int[Math.max(16, this.states.length * actionCount)];
+		double[] prob = new double[succ.length];
+		int count = 0;
+
+		for (int s = 0; s < this.states.length; s++) {
+			for (int a = 0; a < actionCount; a++) {
+				start[s * actionCount + a] = count;
+				for (final SuccessorState statePrime : probability.determineSuccessorStates(this.states[s],
+						this.actions[a])) {
+					if (count == succ.length) {
+						succ = Arrays.copyOf(succ, count * 2);
+						prob = Arrays.copyOf(prob, count * 2);
+					}
+					succ[count] = this.requireStateIndex(statePrime.getState());
+					prob[count] = statePrime.getProbability();
+					count++;
+				}
+			}
+		}
+		start[start.length - 1] = count;
+
+		this.transitionStart = start;
+		this.successors = Arrays.copyOf(succ, count);
+		this.probabilities = Arrays.copyOf(prob, count);
+	}
+
+	/**
+	 * @return True if the transitions have been compiled.
+	 */
+	public boolean hasTransitions() {
+		return this.transitionStart != null;
+	}
+
+	/**
+	 * @return The world that was compiled.
+	 */
+	public World getWorld() {
+		return this.world;
+	}
+
+	/**
+	 * @return The number of states.
+	 */
+	public int getStateCount() {
+		return this.states.length;
+	}
+
+	/**
+	 * @return The number of actions.
+	 */
+	public int getActionCount() {
+		return this.actions.length;
+	}
+
+	/**
+	 * @param index
+	 *            The state index.
+	 * @return The state.
+	 */
+	public State getState(final int index) {
+		return this.states[index];
+	}
+
+	/**
+	 * @param index
+	 *            The action index.
+	 * @return The action.
+	 */
+	public Action getAction(final int index) {
+		return this.actions[index];
+	}
+
+	/**
+	 * @param state
+	 *            The state.
+	 * @return The index of the state, or -1 if it is not part of the world.
+	 */
+	public int getStateIndex(final State state) {
+		final Integer result = this.stateIndex.get(state);
+		return result == null ? -1 : result;
+	}
+
+	/**
+	 * @param state
+	 *            The state.
+	 * @return The index of the state.
+	 */
+	public int requireStateIndex(final State state) {
+		final int result = this.getStateIndex(state);
+		if (result == -1) {
+			throw new WorldError("No such state: " + state);
+		}
+		return result;
+	}
+
+	/**
+	 * @param action
+	 *            The action.
+	 * @return The index of the action, or -1 if it is not part of the world.
+	 */
+	public int getActionIndex(final Action action) {
+		for (int i = 0; i < this.actions.length; i++) {
+			if (this.actions[i].equals(action)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @param action
+	 *            The action.
+	 * @return The index of the action.
+	 */
+	public int requireActionIndex(final Action action) {
+		final int result = this.getActionIndex(action);
+		if (result == -1) {
+			throw new WorldError("No such action: " + action);
+		}
+		return result;
+	}
+
+	/**
+	 * @return The reward of each state, by index.
+	 */
+	public double[] getRewards() {
+		return this.rewards;
+	}
+
+	/**
+	 * @return The goal flag of each state, by index.
+	 */
+	public boolean[] getGoals() {
+		return this.goals;
+	}
+
+	/**
+	 * @return The first transition of each state/action pair, indexed by
+	 *         state*actionCount+action, with one extra entry at the end.
+	 */
+	public int[] getTransitionStart() {
+		return this.transitionStart;
+	}
+
+	/**
+	 * @return The successor state index of each transition.
+	 */
+	public int[] getSuccessors() {
+		return this.successors;
+	}
+
+	/**
+	 * @return The probability of each transition.
+	 */
+	public double[] getProbabilities() {
+		return this.probabilities;
+	}
+}
@@ -32,19 +32,26 @@ import org.encog.util.Format;
 
 public class BasicState implements State {
 
-	private final Map<String, Object> properties = new HashMap<>();
+	/**
+	 * The properties, created on first use so that large worlds do not carry
+	 * an empty map for every state.
+	 */
+	private Map<String, Object> properties;
 	private double reward;
 	private double[] policyValues;
 	private int visited;
 
 	@Override
 	public void setProperty(String key, Object value) {
+		if (this.properties == null) {
+			this.properties = new HashMap<>();
+		}
 		this.properties.put(key, value);
 	}
 
 	@Override
 	public Object getProperty(String key) {
-		return this.properties.get(key);
+		return this.properties == null ? null : this.properties.get(key);
 	}
 
 	@Override
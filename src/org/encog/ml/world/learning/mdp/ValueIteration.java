@@ -24,19 +24,72 @@
 package org.encog.ml.world.learning.mdp;
 
 import org.encog.ml.world.Action;
+import org.encog.ml.world.CompiledWorld;
 import org.encog.ml.world.State;
 import org.encog.ml.world.SuccessorState;
 import org.encog.ml.world.World;
+import org.encog.util.concurrency.MultiThreadable;
+import org.encog.util.concurrency.RangeTask;
+import org.encog.util.concurrency.SharedExecutor;
 
-public class ValueIteration extends MarkovDecisionProcess {
+/**
+ * Value iteration for a Markov decision process.
+ *
+ * Each call to {@link #iteration()} performs one synchronous (Jacobi) sweep:
+ * every state is updated from the values of the previous sweep, so the states
+ * can be processed in parallel and the result does not depend on the number
+ * of threads. The world is compiled to a {@link CompiledWorld} on the first
+ * sweep, so the successor sets are built once rather than on every sweep. Call
+ * {@link #reset()} if the world changes.
+ *
+ * The policy value of every state is updated after each sweep.
+ */
+public class ValueIteration extends MarkovDecisionProcess implements MultiThreadable {
 
 	private double discountFactor;
 
+	/**
+	 * The compiled world, null until the first sweep.
+	 */
+	private CompiledWorld compiled;
+
+	/**
+	 * The value of each state, from the last sweep.
+	 */
+	private double[] value;
+
+	/**
+	 * The value of each state, being computed by the current sweep.
+	 */
+	private double[] next;
+
+	/**
+	 * The largest change of each chunk during the current sweep.
+	 */
+	private double[] chunkChange;
+
+	/**
+	 * The largest change in value during the last sweep.
+	 */
+	private double maxChange = Double.POSITIVE_INFINITY;
+
+	/**
+	 * The number of threads to use, zero for all available.
+	 */
+	private int threadCount;
+
 	public ValueIteration(World theWorld, double theDiscountFactor) {
 		super(theWorld);
 		this.discountFactor = theDiscountFactor;
 	}
 
+	/**
+	 * Update the value of one state in place, from the current values of its
+	 * successors.
+	 *
+	 * @param state
+	 *            The state to update.
+	 */
 	public void calculateValue(State state) {
 		double result = Double.NEGATIVE_INFINITY;
 		if (!this.getWorld().isGoalState(state)) {
@@ -57,10 +110,200 @@ public class ValueIteration extends MarkovDecisionProcess {
 		}
 	}
 
+	/**
+	 * Compile the world and load the current policy values of its states. This
+	 * is done automatically by the first sweep.
+	 */
+	public void reset() {
+		this.compiled = new CompiledWorld(this.getWorld());
+		this.compiled.compileTransitions();
+		final int stateCount = this.compiled.getStateCount();
+		this.value = new double[stateCount];
+		this.next = new double[stateCount];
+		for (int s = 0; s < stateCount; s++) {
+			this.value[s] = this.compiled.getState(s).getPolicyValue()[0];
+		}
+		this.maxChange = Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Perform one sweep and store the new values in the states.
+	 */
 	public void iteration() {
-		for (State state : this.getWorld().getStates()) {
-			this.calculateValue(state);
+		this.sweep();
+		this.updateStates();
+	}
+
+	/**
+	 * Sweep until the largest change in value is no more than the tolerance, or
+	 * the maximum number of sweeps is reached. The states are only updated once,
+	 * at the end.
+	 *
+	 * @param tolerance
+	 *            The largest change in value that counts as converged.
+	 * @param maxIterations
+	 *            The maximum number of sweeps.
+	 * @return The number of sweeps performed.
+	 */
+	public int solve(final double tolerance, final int maxIterations) {
+		int iterations = 0;
+		while (iterations < maxIterations) {
+			this.sweep();
+			iterations++;
+			if (this.maxChange <= tolerance) {
+				break;
+			}
+		}
+		this.updateStates();
+		return iterations;
+	}
+
+	/**
+	 * Perform one synchronous sweep over the compiled world.
+	 */
+	private void sweep() {
+		if (this.compiled == null) {
+			this.reset();
+		}
+
+		final SharedExecutor executor = SharedExecutor.getInstance();
+		final int threads = this.threadCount > 0 ? this.threadCount : Integer.MAX_VALUE;
+		final int parallelism = Math.min(threads, executor.getPool().getParallelism());
+		final int stateCount = this.compiled.getStateCount();
+		final int chunkCount = Math.max(1,
+				Math.min(stateCount, parallelism * SharedExecutor.CHUNKS_PER_THREAD));
+
+		if (this.chunkChange == null || this.chunkChange.length != chunkCount) {
+			this.chunkChange = new double[chunkCount];
 		}
+
+		final double[] changes = this.chunkChange;
+		executor.process(chunkCount, threads, new RangeTask() {
+			@Override
+			public void run(final int low, final int high) {
+				for (int c = low; c < high; c++) {
+					final int first = (int) (((long) c * stateCount) / chunkCount);
+					final int last = (int) (((long) (c + 1) * stateCount) / chunkCount);
+					changes[c] = ValueIteration.this.sweep(first, last);
+				}
+			}
+		});
+
+		double result = 0;
+		for (int c = 0; c < chunkCount; c++) {
+			result = Math.max(result, changes[c]);
+		}
+		this.maxChange = result;
+
+		final double[] t = this.value;
+		this.value = this.next;
+		this.next = t;
+	}
+
+	/**
+	 * Compute the new value of a range of states.
+	 *
+	 * @param first
+	 *            The first state.
+	 * @param last
+	 *            One past the last state.
+	 * @return The largest change in value within the range.
+	 */
+	private double sweep(final int first, final int last) {
+		final int actionCount = this.compiled.getActionCount();
+		final int[] start = this.compiled.getTransitionStart();
+		final int[] successors = this.compiled.getSuccessors();
+		final double[] probabilities = this.compiled.getProbabilities();
+		final double[] rewards = this.compiled.getRewards();
+		final boolean[] goals = this.compiled.getGoals();
+		final double[] v = this.value;
+		final double[] nv = this.next;
+		double change = 0;
+
+		for (int s = first; s < last; s++) {
+			final double d;
+			if (!goals[s]) {
+				double result = Double.NEGATIVE_INFINITY;
+				final int row = s * actionCount;
+				for (int a = 0; a < actionCount; a++) {
+					double sum = 0;
+					final int end = start[row + a + 1];
+					for (int k = start[row + a]; k < end; k++) {
+						sum += probabilities[k] * v[successors[k]];
+					}
+					sum *= this.discountFactor;
+
+					result = Math.max(result, sum);
+				}
+				d = result + rewards[s];
+			} else {
+				d = rewards[s];
+			}
+			nv[s] = d;
+			final double delta = Math.abs(d - v[s]);
+			if (delta > change) {
+				change = delta;
+			}
+		}
+
+		return change;
+	}
+
+	/**
+	 * Copy the computed values into the states.
+	 */
+	private void updateStates() {
+		if (this.compiled == null) {
+			return;
+		}
+		final double[] v = this.value;
+		final CompiledWorld c = this.compiled;
+		SharedExecutor.getInstance().process(v.length, this.threadCount > 0 ? this.threadCount : Integer.MAX_VALUE,
+				new RangeTask() {
+					@Override
+					public void run(final int low, final int high) {
+						for (int s = low; s < high; s++) {
+							c.getState(s).getPolicyValue()[0] = v[s];
+						}
+					}
+				});
+	}
+
+	/**
+	 * @return The largest change in value during the last sweep.
+	 */
+	public double getMaxChange() {
+		return this.maxChange;
+	}
+
+	/**
+	 * @return The value of each state, by compiled state index.
+	 */
+	public double[] getValues() {
+		return this.value;
+	}
+
+	/**
+	 * @return The compiled world, null before the first sweep.
+	 */
+	public CompiledWorld getCompiledWorld() {
+		return this.compiled;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getThreadCount() {
+		return this.threadCount;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setThreadCount(final int numThreads) {
+		this.threadCount = numThreads;
 	}
 
 }
@@ -24,9 +24,26 @@
 package org.encog.ml.world.learning.q;
 
 import org.encog.ml.world.Action;
+import org.encog.ml.world.CompiledWorld;
 import org.encog.ml.world.State;
 import org.encog.ml.world.World;
 
+/**
+ * Tabular Q-learning. The Q values are also held in a flat table with one row
+ * per state and one column per action, indexed through a
+ * {@link CompiledWorld}. The table is a snapshot: it holds the states, actions,
+ * rewards and policy values that the world had when this object was created,
+ * or when {@link #reset()} was last called.
+ *
+ * The state based {@link #learn(State, Action, State, Action)} reads and
+ * writes the policy values of the world, as it always has, so it accepts
+ * states added to the world later and sees policy values changed by other
+ * code. It also copies the new value into the table, if the state is in it.
+ *
+ * The index based {@link #learn(int, int, int, int)} only uses the table. Call
+ * {@link #updateWorld()} to copy the table into the world, and
+ * {@link #reset()} to take a new snapshot after the world changes.
+ */
 public class QLearning {
 
 	private final World world;
@@ -40,10 +57,51 @@ public class QLearning {
 	 */
 	private double discountRate;
 
+	/**
+	 * The dense state and action indexes.
+	 */
+	private CompiledWorld compiled;
+
+	/**
+	 * The number of actions, the row length of the table.
+	 */
+	private int actionCount;
+
+	/**
+	 * The Q values, indexed by state*actionCount+action.
+	 */
+	private double[] table;
+
+	/**
+	 * The reward of each state.
+	 */
+	private double[] rewards;
+
 	public QLearning(World theWorld, double theLearningRate, double theDiscountRate) {
 		this.world = theWorld;
 		this.learningRate = theLearningRate;
 		this.discountRate = theDiscountRate;
+		this.reset();
+	}
+
+	/**
+	 * Compile the world again, and load the table from the current policy
+	 * values. Call this after states or actions are added to the world, or
+	 * after its policy values are changed by other code, before using the
+	 * index based methods.
+	 */
+	public void reset() {
+		this.compiled = new CompiledWorld(this.world);
+		this.actionCount = this.compiled.getActionCount();
+		this.rewards = this.compiled.getRewards();
+		this.table = new double[this.compiled.getStateCount() * this.actionCount];
+		for (int s = 0; s < this.compiled.getStateCount(); s++) {
+			final double[] policy = this.compiled.getState(s).getPolicyValue();
+			if (policy != null) {
+				System.arraycopy(policy, 0, this.table, s * this.actionCount,
+						Math.min(policy.length, this.actionCount));
+			}
+		}
 	}
 
 	public void learn(State s1, Action a1, State s2, Action a2) {
@@ -52,5 +110,97 @@ public class QLearning {
 		double r = s1.getReward();
 		double d = q1 + this.learningRate * (r + this.discountRate * q2 - q1);
 		this.world.setPolicyValue(s1, a1, d);
+
+		// keep the table in step, if the state was compiled
+		final int state = this.compiled.getStateIndex(s1);
+		final int action = this.compiled.getActionIndex(a1);
+		if (state != -1 && action != -1) {
+			this.table[state * this.actionCount + action] = d;
+		}
+	}
+
+	/**
+	 * Learn from one step, using state and action indexes of the compiled
+	 * world. Only the table is updated.
+	 *
+	 * @param s1
+	 *            The state the step started in.
+	 * @param a1
+	 *            The action taken.
+	 * @param s2
+	 *            The state the step ended in.
+	 * @param a2
+	 *            The next action.
+	 */
+	public void learn(final int s1, final int a1, final int s2, final int a2) {
+		this.learn(s1 * this.actionCount + a1, s2 * this.actionCount + a2, this.rewards[s1]);
+	}
+
+	/**
+	 * Update one table entry.
+	 *
+	 * @param index1
+	 *            The entry to update.
+	 * @param index2
+	 *            The entry of the next state and action.
+	 * @param r
+	 *            The reward of the first state.
+	 */
+	private void learn(final int index1, final int index2, final double r) {
+		double q1 = this.table[index1];
+		double q2 = this.table[index2];
+		double d = q1 + this.learningRate * (r + this.discountRate * q2 - q1);
+		this.table[index1] = d;
+	}
+
+	/**
+	 * @param state
+	 *            The state index.
+	 * @param action
+	 *            The action index.
+	 * @return The Q value.
+	 */
+	public double getValue(final int state, final int action) {
+		return this.table[state * this.actionCount + action];
+	}
+
+	/**
+	 * @param state
+	 *            The state index.
+	 * @return The index of the action with the highest Q value.
+	 */
+	public int getBestAction(final int state) {
+		final int row = state * this.actionCount;
+		int result = 0;
+		for (int a = 1; a < this.actionCount; a++) {
+			if (this.table[row + a] > this.table[row + result]) {
+				result = a;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Copy the table into the policy values of the states.
+	 */
+	public void updateWorld() {
+		for (int s = 0; s < this.compiled.getStateCount(); s++) {
+			final double[] policy = this.compiled.getState(s).getPolicyValue();
+			System.arraycopy(this.table, s * this.actionCount, policy, 0, Math.min(policy.length, this.actionCount));
+		}
+	}
+
+	/**
+	 * @return The compiled world, used to map states and actions to indexes.
+	 */
+	public CompiledWorld getCompiledWorld() {
+		return this.compiled;
+	}
+
+	/**
+	 * @return The Q values, indexed by state*actionCount+action.
+	 */
+	public double[] getTable() {
+		return this.table;
 	}
 }
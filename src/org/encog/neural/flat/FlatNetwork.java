@@ -35,12 +35,14 @@ import org.encog.engine.network.activation.ActivationLinear;
 import org.encog.engine.network.activation.ActivationSigmoid;
 import org.encog.engine.network.activation.ActivationTANH;
 import org.encog.mathutil.error.ErrorCalculation;
-import org.encog.ml.data.MLDataPair;
+import org.encog.ml.MLBatchRegression;
 import org.encog.ml.data.MLDataSet;
-import org.encog.ml.data.basic.BasicMLDataPair;
+import org.encog.ml.data.basic.BasicMLDataBlock;
 import org.encog.neural.NeuralNetworkError;
 import org.encog.neural.networks.BasicNetwork;
 import org.encog.util.EngineArray;
+import org.encog.util.concurrency.RangeTask;
+import org.encog.util.concurrency.SharedExecutor;
 
 /**
  * Implements a flat (vector based) neural network in the Encog Engine. This is
@@ -55,6 +57,11 @@ import org.encog.util.EngineArray;
  */
 public class FlatNetwork implements Serializable, Cloneable {
 
+	/**
+	 * The number of rows computed together by the batch compute method.
+	 */
+	public static final int BATCH_BLOCK_ROWS = 32;
+
 	/**
 	 * The serial ID.
 	 */
@@ -258,14 +265,15 @@ public class FlatNetwork implements Serializable, Cloneable {
 	 */
 	public double calculateError(final MLDataSet data) {
 		final ErrorCalculation errorCalculation = new ErrorCalculation();
-
-		final double[] actual = new double[this.outputCount];
-		final MLDataPair pair = BasicMLDataPair.createPair(data.getInputSize(), data.getIdealSize());
-
-		for (int i = 0; i < data.getRecordCount(); i++) {
-			data.getRecord(i, pair);
-			this.compute(pair.getInputArray(), actual);
-			errorCalculation.updateError(actual, pair.getIdealArray(), pair.getSignificance());
+		final BasicMLDataBlock block = new BasicMLDataBlock(data, this.outputCount,
+				MLBatchRegression.DEFAULT_BATCH_ROWS);
+
+		while (block.next()) {
+			this.compute(block.getInput(), block.getActual());
+			for (int i = 0; i < block.getCount(); i++) {
+				errorCalculation.updateError(block.getActual()[i], block.getIdeal()[i],
+						block.getSignificance()[i]);
+			}
 		}
 		return errorCalculation.calculate();
 	}
@@ -282,6 +290,17 @@ public class FlatNetwork implements Serializable, Cloneable {
 	 * Clear any context neurons.
 	 */
 	public void clearContext() {
+		this.clearContext(this.layerOutput);
+	}
+
+	/**
+	 * Clear the context neurons held in the specified layer output array. The
+	 * array must be laid out the same way as this network's layer output.
+	 *
+	 * @param output
+	 *            The layer output array to clear.
+	 */
+	void clearContext(final double[] output) {
 		int index = 0;
 
 		for (int i = 0; i < this.layerIndex.length; i++) {
@@ -289,16 +308,16 @@ public class FlatNetwork implements Serializable, Cloneable {
 			final boolean hasBias = (this.layerContextCount[i] + this.layerFeedCounts[i]) != this.layerCounts[i];
 
 			// fill in regular neurons
-			Arrays.fill(this.layerOutput, index, index + this.layerFeedCounts[i], 0);
+			Arrays.fill(output, index, index + this.layerFeedCounts[i], 0);
 			index += this.layerFeedCounts[i];
 
 			// fill in the bias
 			if (hasBias) {
-				this.layerOutput[index++] = this.biasActivation[i];
+				output[index++] = this.biasActivation[i];
 			}
 
 			// fill in context
-			Arrays.fill(this.layerOutput, index, index + this.layerContextCount[i], 0);
+			Arrays.fill(output, index, index + this.layerContextCount[i], 0);
 			index += this.layerContextCount[i];
 		}
 	}
@@ -355,20 +374,187 @@ public class FlatNetwork implements Serializable, Cloneable {
 	 *            Output will be placed here.
 	 */
 	public void compute(final double[] input, final double[] output) {
-		final int sourceIndex = this.layerOutput.length - this.layerCounts[this.layerCounts.length - 1];
+		this.compute(this.layerOutput, this.layerSums, input, output);
+	}
+
+	/**
+	 * Calculate the output for the given input, using the scratch buffers and
+	 * context neurons held by the specified context, rather than those held by
+	 * this network. The weights of this network are only read, so any number
+	 * of threads may compute against the same network, as long as each thread
+	 * uses its own context.
+	 *
+	 * @param context
+	 *            The context to compute with, created by createContext.
+	 * @param input
+	 *            The input.
+	 * @param output
+	 *            Output will be placed here.
+	 */
+	public void compute(final FlatNetworkContext context, final double[] input, final double[] output) {
+		if (context.getLayerOutput().length != this.layerOutput.length) {
+			throw new NeuralNetworkError("Context was not created for this network structure, neuron count "
+					+ context.getLayerOutput().length + " does not match " + this.layerOutput.length);
+		}
+		this.compute(context.getLayerOutput(), context.getLayerSums(), input, output);
+	}
+
+	/**
+	 * Calculate the output for a block of input rows. The rows are computed in
+	 * blocks of BATCH_BLOCK_ROWS, a layer at a time, so each neuron's weights
+	 * are read once per block rather than once per row. Large inputs are
+	 * divided between the threads of the SharedExecutor, which may be called
+	 * from a task that is already running in parallel. A network without
+	 * context neurons is only read, so this may be called by several threads
+	 * at once.
+	 *
+	 * A network with context neurons must see its rows in order, so its rows
+	 * are computed one at a time, updating the context held by this network.
+	 * Such a network must not be used by more than one thread at once.
+	 *
+	 * @param input
+	 *            The input rows.
+	 * @param output
+	 *            The output rows, must be at least as many as the input rows.
+	 */
+	public void compute(final double[][] input, final double[][] output) {
+		final int rows = input.length;
+		if (rows == 0) {
+			return;
+		}
+
+		if (this.hasContext) {
+			for (int i = 0; i < rows; i++) {
+				this.compute(input[i], output[i]);
+			}
+			return;
+		}
+
+		final int blocks = (rows + BATCH_BLOCK_ROWS - 1) / BATCH_BLOCK_ROWS;
+		SharedExecutor.getInstance().process(blocks, new RangeTask() {
+			@Override
+			public void run(final int low, final int high) {
+				FlatNetwork.this.computeBlocks(input, output, low * BATCH_BLOCK_ROWS,
+						Math.min(high * BATCH_BLOCK_ROWS, rows) - 1);
+			}
+		});
+	}
+
+	/**
+	 * Calculate a range of input rows, BATCH_BLOCK_ROWS at a time. Each row
+	 * has its own copy of the layer outputs in one buffer.
+	 *
+	 * @param input
+	 *            The input rows.
+	 * @param output
+	 *            The output rows.
+	 * @param low
+	 *            The first row.
+	 * @param high
+	 *            The last row.
+	 */
+	private void computeBlocks(final double[][] input, final double[][] output, final int low, final int high) {
+		final int stride = this.layerOutput.length;
+		final int sourceIndex = stride - this.layerCounts[this.layerCounts.length - 1];
+		final double[] template = new double[stride];
+		this.clearContext(template);
+
+		final double[] buffer = new double[BATCH_BLOCK_ROWS * stride];
+		for (int r = 0; r < BATCH_BLOCK_ROWS; r++) {
+			System.arraycopy(template, 0, buffer, r * stride, stride);
+		}
+
+		for (int start = low; start <= high; start += BATCH_BLOCK_ROWS) {
+			final int count = Math.min(BATCH_BLOCK_ROWS, (high - start) + 1);
+
+			for (int r = 0; r < count; r++) {
+				System.arraycopy(input[start + r], 0, buffer, (r * stride) + sourceIndex, this.inputCount);
+			}
+
+			for (int i = this.layerIndex.length - 1; i > 0; i--) {
+				this.computeLayerBlock(i, buffer, stride, count);
+			}
+
+			for (int r = 0; r < count; r++) {
+				System.arraycopy(buffer, r * stride, output[start + r], 0, this.outputCount);
+			}
+		}
+	}
 
-		EngineArray.arrayCopy(input, 0, this.layerOutput, sourceIndex, this.inputCount);
+	/**
+	 * Calculate one layer for a block of rows.
+	 *
+	 * @param currentLayer
+	 *            The layer to calculate.
+	 * @param buffer
+	 *            The layer outputs, one row after another.
+	 * @param stride
+	 *            The length of each row in the buffer.
+	 * @param count
+	 *            The number of rows in the buffer to calculate.
+	 */
+	private void computeLayerBlock(final int currentLayer, final double[] buffer, final int stride,
+			final int count) {
+		final int inputIndex = this.layerIndex[currentLayer];
+		final int outputIndex = this.layerIndex[currentLayer - 1];
+		final int inputSize = this.layerCounts[currentLayer];
+		final int outputSize = this.layerFeedCounts[currentLayer - 1];
+		final double keep;
+		if (this.layerDropoutRates.length > currentLayer - 1) {
+			keep = 1 - this.layerDropoutRates[currentLayer - 1];
+		} else {
+			keep = 1;
+		}
+
+		final double[] weights = this.weights;
+		final LayerKernel kernel = Encog.getInstance().getLayerKernel();
+		int index = this.weightIndex[currentLayer - 1];
+
+		// each weight row is used for every row of the block while it is in
+		// the cache
+		for (int x = outputIndex; x < outputIndex + outputSize; x++) {
+			for (int r = 0, base = 0; r < count; r++, base += stride) {
+				buffer[base + x] = (keep == 1) ? kernel.dot(weights, index, buffer, base + inputIndex, inputSize)
+						: dropoutSum(weights, index, buffer, base + inputIndex, inputSize, keep);
+			}
+			index += inputSize;
+		}
+
+		final ActivationFunction af = this.activationFunctions[currentLayer - 1];
+		for (int r = 0, base = 0; r < count; r++, base += stride) {
+			kernel.activationFunction(af, buffer, base + outputIndex, outputSize);
+		}
+	}
+
+	/**
+	 * Calculate the output for the given input, using the specified layer
+	 * output and layer sum arrays.
+	 *
+	 * @param output
+	 *            The layer outputs to compute into.
+	 * @param sums
+	 *            The layer sums to compute into.
+	 * @param input
+	 *            The input.
+	 * @param result
+	 *            Output will be placed here.
+	 */
+	protected void compute(final double[] output, final double[] sums, final double[] input,
+			final double[] result) {
+		final int sourceIndex = output.length - this.layerCounts[this.layerCounts.length - 1];
+
+		EngineArray.arrayCopy(input, 0, output, sourceIndex, this.inputCount);
 
 		for (int i = this.layerIndex.length - 1; i > 0; i--) {
-			this.computeLayer(i);
+			this.computeLayer(i, output, sums);
 		}
 
 		// update context values
 		final int offset = this.contextTargetOffset[0];
 
-		EngineArray.arrayCopy(this.layerOutput, 0, this.layerOutput, offset, this.contextTargetSize[0]);
+		EngineArray.arrayCopy(output, 0, output, offset, this.contextTargetSize[0]);
 
-		EngineArray.arrayCopy(this.layerOutput, 0, output, 0, this.outputCount);
+		EngineArray.arrayCopy(output, 0, result, 0, this.outputCount);
 	}
 
 	/**
@@ -378,40 +564,95 @@ public class FlatNetwork implements Serializable, Cloneable {
 	 *            The layer to calculate.
 	 */
 	protected void computeLayer(final int currentLayer) {
+		this.computeLayer(currentLayer, this.layerOutput, this.layerSums);
+	}
+
+	/**
+	 * Calculate a layer, using the specified layer output and layer sum
+	 * arrays.
+	 *
+	 * @param currentLayer
+	 *            The layer to calculate.
+	 * @param output
+	 *            The layer outputs.
+	 * @param sums
+	 *            The layer sums.
+	 */
+	protected void computeLayer(final int currentLayer, final double[] output, final double[] sums) {
 
 		final int inputIndex = this.layerIndex[currentLayer];
 		final int outputIndex = this.layerIndex[currentLayer - 1];
 		final int inputSize = this.layerCounts[currentLayer];
 		final int outputSize = this.layerFeedCounts[currentLayer - 1];
-		final double dropoutRate;
+		final double keep;
 		if (this.layerDropoutRates.length > currentLayer - 1) {
-			dropoutRate = this.layerDropoutRates[currentLayer - 1];
+			keep = 1 - this.layerDropoutRates[currentLayer - 1];
 		} else {
-			dropoutRate = 0;
+			keep = 1;
 		}
 
+		// the weights are read once, the array may be replaced by decodeNetwork
+		final double[] weights = this.weights;
+		final LayerKernel kernel = Encog.getInstance().getLayerKernel();
 		int index = this.weightIndex[currentLayer - 1];
 
 		final int limitX = outputIndex + outputSize;
-		final int limitY = inputIndex + inputSize;
 
-		// weight values
+		// weight values, each neuron's weights are one contiguous row
 		for (int x = outputIndex; x < limitX; x++) {
-			double sum = 0;
-			for (int y = inputIndex; y < limitY; y++) {
-				sum += this.weights[index++] * this.layerOutput[y] * (1 - dropoutRate);
-			}
-			this.layerSums[x] = sum;
-			this.layerOutput[x] = sum;
+			final double sum = (keep == 1) ? kernel.dot(weights, index, output, inputIndex, inputSize)
+					: dropoutSum(weights, index, output, inputIndex, inputSize, keep);
+			index += inputSize;
+			sums[x] = sum;
+			output[x] = sum;
 		}
 
-		this.activationFunctions[currentLayer - 1].activationFunction(this.layerOutput, outputIndex, outputSize);
+		kernel.activationFunction(this.activationFunctions[currentLayer - 1], output, outputIndex, outputSize);
 
 		// update context values
 		final int offset = this.contextTargetOffset[currentLayer];
 
-		EngineArray.arrayCopy(this.layerOutput, outputIndex, this.layerOutput, offset,
-				this.contextTargetSize[currentLayer]);
+		EngineArray.arrayCopy(output, outputIndex, output, offset, this.contextTargetSize[currentLayer]);
+	}
+
+	/**
+	 * Calculate the sum of a neuron in a layer with dropout. Each product is
+	 * scaled by the keep rate before it is added, so the result is the same as
+	 * it has always been.
+	 *
+	 * @param weights
+	 *            The weights.
+	 * @param index
+	 *            The index of the first weight of the neuron.
+	 * @param input
+	 *            The array that holds the layer input.
+	 * @param inputIndex
+	 *            The index of the first input.
+	 * @param inputSize
+	 *            The number of inputs.
+	 * @param keep
+	 *            The keep rate, one minus the dropout rate.
+	 * @return The sum.
+	 */
+	private static double dropoutSum(final double[] weights, final int index, final double[] input,
+			final int inputIndex, final int inputSize, final double keep) {
+		double sum = 0;
+		for (int i = 0; i < inputSize; i++) {
+			sum += weights[index + i] * input[inputIndex + i] * keep;
+		}
+		return sum;
+	}
+
+	/**
+	 * Create a new compute context for this network. The context holds the
+	 * layer outputs, layer sums and context neuron values needed to compute
+	 * the network, so that the network itself is not modified by
+	 * compute(FlatNetworkContext, double[], double[]).
+	 *
+	 * @return A new context, with its context neurons cleared.
+	 */
+	public FlatNetworkContext createContext() {
+		return new FlatNetworkContext(this);
 	}
 
 	/**
@@ -0,0 +1,109 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.neural.flat;
+
+/**
+ * Holds the per-caller state needed to compute a flat network: the layer
+ * outputs, the layer sums and the values of any context neurons. The weights
+ * are not held here, they are read from the network that created the context.
+ *
+ * A flat network only modifies its own layer output and layer sum arrays when
+ * it computes. By giving each thread its own context, a single network can be
+ * computed by many threads at once, with no locking and no per-call
+ * allocation. A context is not itself thread safe, it should be used by only
+ * one thread at a time.
+ */
+public class FlatNetworkContext {
+
+	/**
+	 * The network that this context was created for.
+	 */
+	private final FlatNetwork network;
+
+	/**
+	 * The outputs from each of the neurons.
+	 */
+	private final double[] layerOutput;
+
+	/**
+	 * The sum of the layer, before the activation function is applied,
+	 * producing the layerOutput.
+	 */
+	private final double[] layerSums;
+
+	/**
+	 * Construct a context for the specified network.
+	 *
+	 * @param theNetwork
+	 *            The network to create the context for.
+	 */
+	public FlatNetworkContext(final FlatNetwork theNetwork) {
+		this.network = theNetwork;
+		this.layerOutput = new double[theNetwork.getLayerOutput().length];
+		this.layerSums = new double[theNetwork.getLayerSums().length];
+		clearContext();
+	}
+
+	/**
+	 * Clear any context neurons, and set the bias neurons to their
+	 * activation.
+	 */
+	public void clearContext() {
+		this.network.clearContext(this.layerOutput);
+	}
+
+	/**
+	 * Calculate the output of the network for the given input, using this
+	 * context.
+	 *
+	 * @param input
+	 *            The input.
+	 * @param output
+	 *            Output will be placed here.
+	 */
+	public void compute(final double[] input, final double[] output) {
+		this.network.compute(this, input, output);
+	}
+
+	/**
+	 * @return The network that this context was created for.
+	 */
+	public FlatNetwork getNetwork() {
+		return this.network;
+	}
+
+	/**
+	 * @return The output for each layer.
+	 */
+	public double[] getLayerOutput() {
+		return this.layerOutput;
+	}
+
+	/**
+	 * @return The layer sums.
+	 */
+	public double[] getLayerSums() {
+		return this.layerSums;
+	}
+}
@@ -0,0 +1,92 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.neural.flat;
+
+/**
+ * Provides each calling thread with its own FlatNetworkContext for a shared
+ * flat network. The first call from a thread creates that thread's context,
+ * every later call from the same thread reuses it. This allows a single
+ * network to be used for concurrent inference, such as by the request threads
+ * of a server, without cloning the network and without synchronization.
+ *
+ * Context neurons are kept per thread. Recurrent networks will therefore see
+ * the history of the calls made by the current thread only.
+ */
+public class FlatNetworkContextPool {
+
+	/**
+	 * The network that is shared by all threads.
+	 */
+	private final FlatNetwork network;
+
+	/**
+	 * The context for each thread.
+	 */
+	private final ThreadLocal<FlatNetworkContext> contexts;
+
+	/**
+	 * Construct a context pool for the specified network.
+	 *
+	 * @param theNetwork
+	 *            The network to share.
+	 */
+	public FlatNetworkContextPool(final FlatNetwork theNetwork) {
+		this.network = theNetwork;
+		this.contexts = ThreadLocal.withInitial(theNetwork::createContext);
+	}
+
+	/**
+	 * Calculate the output for the given input, using the calling thread's
+	 * context.
+	 *
+	 * @param input
+	 *            The input.
+	 * @param output
+	 *            Output will be placed here.
+	 */
+	public void compute(final double[] input, final double[] output) {
+		this.network.compute(this.contexts.get(), input, output);
+	}
+
+	/**
+	 * @return The context for the calling thread.
+	 */
+	public FlatNetworkContext getContext() {
+		return this.contexts.get();
+	}
+
+	/**
+	 * Clear the context neurons of the calling thread's context.
+	 */
+	public void clearContext() {
+		this.contexts.get().clearContext();
+	}
+
+	/**
+	 * @return The network that is shared by all threads.
+	 */
+	public FlatNetwork getNetwork() {
+		return this.network;
+	}
+}
@@ -0,0 +1,613 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.neural.flat;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+import org.encog.engine.network.activation.ActivationFunction;
+import org.encog.engine.network.activation.ActivationLinear;
+import org.encog.engine.network.activation.ActivationSigmoid;
+import org.encog.engine.network.activation.ActivationTANH;
+import org.encog.mathutil.BoundMath;
+import org.encog.mathutil.error.ErrorCalculation;
+import org.encog.ml.MLRegression;
+import org.encog.ml.data.MLData;
+import org.encog.ml.data.MLDataPair;
+import org.encog.ml.data.MLDataSet;
+import org.encog.ml.data.basic.BasicMLData;
+import org.encog.ml.data.basic.BasicMLDataPair;
+import org.encog.neural.NeuralNetworkError;
+import org.encog.neural.networks.BasicNetwork;
+
+/**
+ * A single precision version of the flat network. The structure is the same
+ * as a FlatNetwork, however the weights, layer outputs and layer sums are held
+ * as floats. This halves the memory, and memory bandwidth, needed to compute
+ * and to train the network, which for large networks is usually what limits
+ * the speed.
+ *
+ * A FlatNetworkFloat is created from a FlatNetwork, and can be converted back
+ * with toFlatNetwork or toBasicNetwork. It is persisted through the same
+ * format as a BasicNetwork, see PersistFlatNetworkFloat. RBF networks and
+ * connection limits are not supported.
+ *
+ * The sigmoid, tanh and linear activation functions are computed directly on
+ * the float values, other activation functions are computed through a double
+ * scratch buffer.
+ */
+public class FlatNetworkFloat implements MLRegression, Serializable, Cloneable {
+
+	/**
+	 * The serial ID.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The number of input neurons in this network.
+	 */
+	private final int inputCount;
+
+	/**
+	 * The number of output neurons in this network.
+	 */
+	private final int outputCount;
+
+	/**
+	 * The number of neurons in each of the layers.
+	 */
+	private final int[] layerCounts;
+
+	/**
+	 * The number of neurons in each layer that are fed by the previous layer.
+	 */
+	private final int[] layerFeedCounts;
+
+	/**
+	 * The number of context neurons in each layer.
+	 */
+	private final int[] layerContextCount;
+
+	/**
+	 * An index to where each layer begins.
+	 */
+	private final int[] layerIndex;
+
+	/**
+	 * The index to where the weights are stored for a given layer.
+	 */
+	private final int[] weightIndex;
+
+	/**
+	 * The context target offset for each layer.
+	 */
+	private final int[] contextTargetOffset;
+
+	/**
+	 * The context target size for each layer.
+	 */
+	private final int[] contextTargetSize;
+
+	/**
+	 * The bias activation for each layer.
+	 */
+	private final double[] biasActivation;
+
+	/**
+	 * The dropout rate for each layer, may be empty.
+	 */
+	private final double[] layerDropoutRates;
+
+	/**
+	 * The activation functions.
+	 */
+	private final ActivationFunction[] activationFunctions;
+
+	/**
+	 * The layer that training should begin on.
+	 */
+	private final int beginTraining;
+
+	/**
+	 * The layer that training should end on.
+	 */
+	private final int endTraining;
+
+	/**
+	 * True if the network has context.
+	 */
+	private final boolean hasContext;
+
+	/**
+	 * The weights.
+	 */
+	private float[] weights;
+
+	/**
+	 * The outputs from each of the neurons.
+	 */
+	private float[] layerOutput;
+
+	/**
+	 * The sum of each neuron, before the activation function is applied.
+	 */
+	private float[] layerSums;
+
+	/**
+	 * Used to compute activation functions that do not have a float version.
+	 */
+	private transient double[] scratch;
+
+	/**
+	 * Create a single precision network from a double precision network. The
+	 * weights are rounded to the nearest float.
+	 *
+	 * @param flat
+	 *            The network to convert.
+	 */
+	public FlatNetworkFloat(final FlatNetwork flat) {
+		if (flat instanceof FlatNetworkRBF) {
+			throw new NeuralNetworkError("RBF networks do not have a single precision version.");
+		}
+		this.inputCount = flat.getInputCount();
+		this.outputCount = flat.getOutputCount();
+		this.layerCounts = flat.getLayerCounts().clone();
+		this.layerFeedCounts = flat.getLayerFeedCounts().clone();
+		this.layerContextCount = flat.getLayerContextCount().clone();
+		this.layerIndex = flat.getLayerIndex().clone();
+		this.weightIndex = flat.getWeightIndex().clone();
+		this.contextTargetOffset = flat.getContextTargetOffset().clone();
+		this.contextTargetSize = flat.getContextTargetSize().clone();
+		this.biasActivation = flat.getBiasActivation().clone();
+		this.layerDropoutRates = flat.getLayerDropoutRates() == null ? new double[0]
+				: flat.getLayerDropoutRates().clone();
+		this.activationFunctions = new ActivationFunction[flat.getActivationFunctions().length];
+		for (int i = 0; i < this.activationFunctions.length; i++) {
+			this.activationFunctions[i] = flat.getActivationFunctions()[i].clone();
+		}
+		this.beginTraining = flat.getBeginTraining();
+		this.endTraining = flat.getEndTraining();
+		this.hasContext = flat.getHasContext();
+		this.weights = toFloat(flat.getWeights());
+		this.layerOutput = toFloat(flat.getLayerOutput());
+		this.layerSums = new float[this.layerOutput.length];
+	}
+
+	/**
+	 * Copy constructor, used by clone. The weights are shared.
+	 *
+	 * @param other
+	 *            The network to copy.
+	 */
+	private FlatNetworkFloat(final FlatNetworkFloat other) {
+		this.inputCount = other.inputCount;
+		this.outputCount = other.outputCount;
+		this.layerCounts = other.layerCounts;
+		this.layerFeedCounts = other.layerFeedCounts;
+		this.layerContextCount = other.layerContextCount;
+		this.layerIndex = other.layerIndex;
+		this.weightIndex = other.weightIndex;
+		this.contextTargetOffset = other.contextTargetOffset;
+		this.contextTargetSize = other.contextTargetSize;
+		this.biasActivation = other.biasActivation;
+		this.layerDropoutRates = other.layerDropoutRates;
+		this.activationFunctions = new ActivationFunction[other.activationFunctions.length];
+		for (int i = 0; i < this.activationFunctions.length; i++) {
+			this.activationFunctions[i] = other.activationFunctions[i].clone();
+		}
+		this.beginTraining = other.beginTraining;
+		this.endTraining = other.endTraining;
+		this.hasContext = other.hasContext;
+		this.weights = other.weights;
+		this.layerOutput = other.layerOutput.clone();
+		this.layerSums = other.layerSums.clone();
+	}
+
+	/**
+	 * Convert a double array to a float array.
+	 *
+	 * @param d
+	 *            The doubles.
+	 * @return The floats.
+	 */
+	public static float[] toFloat(final double[] d) {
+		final float[] result = new float[d.length];
+		for (int i = 0; i < d.length; i++) {
+			result[i] = (float) d[i];
+		}
+		return result;
+	}
+
+	/**
+	 * Convert a float array to a double array.
+	 *
+	 * @param f
+	 *            The floats.
+	 * @return The doubles.
+	 */
+	public static double[] toDouble(final float[] f) {
+		final double[] result = new double[f.length];
+		for (int i = 0; i < f.length; i++) {
+			result[i] = f[i];
+		}
+		return result;
+	}
+
+	/**
+	 * Clone the network. The clone shares the weights of this network, but
+	 * has its own layer outputs, so that it can be used by another thread.
+	 *
+	 * @return The cloned network.
+	 */
+	@Override
+	public FlatNetworkFloat clone() {
+		return new FlatNetworkFloat(this);
+	}
+
+	/**
+	 * Convert this network to a double precision flat network.
+	 *
+	 * @return The double precision network.
+	 */
+	public FlatNetwork toFlatNetwork() {
+		final FlatNetwork result = new FlatNetwork();
+		result.setInputCount(this.inputCount);
+		result.setOutputCount(this.outputCount);
+		result.setLayerCounts(this.layerCounts);
+		result.setLayerFeedCounts(this.layerFeedCounts);
+		result.setLayerContextCount(this.layerContextCount);
+		result.setLayerIndex(this.layerIndex);
+		result.setWeightIndex(this.weightIndex);
+		result.setContextTargetOffset(this.contextTargetOffset);
+		result.setContextTargetSize(this.contextTargetSize);
+		result.setBiasActivation(this.biasActivation.clone());
+		result.setLayerDropoutRates(this.layerDropoutRates.clone());
+		result.setActivationFunctions(this.activationFunctions);
+		for (int i = 0; i < this.activationFunctions.length; i++) {
+			result.getActivationFunctions()[i] = this.activationFunctions[i].clone();
+		}
+		result.setBeginTraining(this.beginTraining);
+		result.setEndTraining(this.endTraining);
+		result.setHasContext(this.hasContext);
+		result.setWeights(toDouble(this.weights));
+		result.setLayerOutput(toDouble(this.layerOutput));
+		result.setLayerSums(new double[this.layerOutput.length]);
+		return result;
+	}
+
+	/**
+	 * Convert this network to a double precision BasicNetwork.
+	 *
+	 * @return The BasicNetwork.
+	 */
+	public BasicNetwork toBasicNetwork() {
+		final BasicNetwork result = new BasicNetwork();
+		result.getStructure().setFlat(this.toFlatNetwork());
+		result.updateProperties();
+		return result;
+	}
+
+	/**
+	 * Clear any context neurons.
+	 */
+	public void clearContext() {
+		int index = 0;
+
+		for (int i = 0; i < this.layerIndex.length; i++) {
+
+			final boolean hasBias = (this.layerContextCount[i] + this.layerFeedCounts[i]) != this.layerCounts[i];
+
+			// fill in regular neurons
+			Arrays.fill(this.layerOutput, index, index + this.layerFeedCounts[i], 0);
+			index += this.layerFeedCounts[i];
+
+			// fill in the bias
+			if (hasBias) {
+				this.layerOutput[index++] = (float) this.biasActivation[i];
+			}
+
+			// fill in context
+			Arrays.fill(this.layerOutput, index, index + this.layerContextCount[i], 0);
+			index += this.layerContextCount[i];
+		}
+	}
+
+	/**
+	 * Calculate the output for the given input.
+	 *
+	 * @param input
+	 *            The input.
+	 * @param output
+	 *            Output will be placed here.
+	 */
+	public void compute(final float[] input, final float[] output) {
+		final int sourceIndex = this.layerOutput.length - this.layerCounts[this.layerCounts.length - 1];
+
+		System.arraycopy(input, 0, this.layerOutput, sourceIndex, this.inputCount);
+
+		for (int i = this.layerIndex.length - 1; i > 0; i--) {
+			this.computeLayer(i);
+		}
+
+		// update context values
+		final int offset = this.contextTargetOffset[0];
+
+		System.arraycopy(this.layerOutput, 0, this.layerOutput, offset, this.contextTargetSize[0]);
+
+		System.arraycopy(this.layerOutput, 0, output, 0, this.outputCount);
+	}
+
+	/**
+	 * Calculate the output for the given double precision input. The values
+	 * are rounded to float on the way in, and widened on the way out.
+	 *
+	 * @param input
+	 *            The input.
+	 * @param output
+	 *            Output will be placed here.
+	 */
+	public void compute(final double[] input, final double[] output) {
+		final int sourceIndex = this.layerOutput.length - this.layerCounts[this.layerCounts.length - 1];
+
+		for (int i = 0; i < this.inputCount; i++) {
+			this.layerOutput[sourceIndex + i] = (float) input[i];
+		}
+
+		for (int i = this.layerIndex.length - 1; i > 0; i--) {
+			this.computeLayer(i);
+		}
+
+		final int offset = this.contextTargetOffset[0];
+		System.arraycopy(this.layerOutput, 0, this.layerOutput, offset, this.contextTargetSize[0]);
+
+		for (int i = 0; i < this.outputCount; i++) {
+			output[i] = this.layerOutput[i];
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public MLData compute(final MLData input) {
+		final MLData result = new BasicMLData(this.outputCount);
+		this.compute(input.getData(), result.getData());
+		return result;
+	}
+
+	/**
+	 * Calculate a layer.
+	 *
+	 * @param currentLayer
+	 *            The layer to calculate.
+	 */
+	protected void computeLayer(final int currentLayer) {
+		final int inputIndex = this.layerIndex[currentLayer];
+		final int outputIndex = this.layerIndex[currentLayer - 1];
+		final int inputSize = this.layerCounts[currentLayer];
+		final int outputSize = this.layerFeedCounts[currentLayer - 1];
+		float keep = 1;
+		if (this.layerDropoutRates.length > currentLayer - 1) {
+			keep = (float) (1 - this.layerDropoutRates[currentLayer - 1]);
+		}
+
+		final float[] weights = this.weights;
+		final float[] output = this.layerOutput;
+		final float[] sums = this.layerSums;
+		int index = this.weightIndex[currentLayer - 1];
+
+		final int limitX = outputIndex + outputSize;
+		final int limitY = inputIndex + inputSize;
+
+		// weight values
+		for (int x = outputIndex; x < limitX; x++) {
+			float sum = 0;
+			for (int y = inputIndex; y < limitY; y++) {
+				sum += weights[index++] * output[y];
+			}
+			sum *= keep;
+			sums[x] = sum;
+			output[x] = sum;
+		}
+
+		this.activate(this.activationFunctions[currentLayer - 1], output, outputIndex, outputSize);
+
+		// update context values
+		final int offset = this.contextTargetOffset[currentLayer];
+
+		System.arraycopy(output, outputIndex, output, offset, this.contextTargetSize[currentLayer]);
+	}
+
+	/**
+	 * Apply an activation function to a range of float values.
+	 *
+	 * @param af
+	 *            The activation function.
+	 * @param x
+	 *            The values.
+	 * @param start
+	 *            The first value.
+	 * @param size
+	 *            The number of values.
+	 */
+	private void activate(final ActivationFunction af, final float[] x, final int start, final int size) {
+		final int end = start + size;
+		if (af instanceof ActivationSigmoid) {
+			for (int i = start; i < end; i++) {
+				x[i] = (float) (1.0 / (1.0 + BoundMath.exp(-x[i])));
+			}
+		} else if (af instanceof ActivationTANH) {
+			for (int i = start; i < end; i++) {
+				x[i] = (float) Math.tanh(x[i]);
+			}
+		} else if (!(af instanceof ActivationLinear)) {
+			if (this.scratch == null || this.scratch.length < size) {
+				this.scratch = new double[size];
+			}
+			for (int i = 0; i < size; i++) {
+				this.scratch[i] = x[start + i];
+			}
+			af.activationFunction(this.scratch, 0, size);
+			for (int i = 0; i < size; i++) {
+				x[start + i] = (float) this.scratch[i];
+			}
+		}
+	}
+
+	/**
+	 * Calculate the error for this neural network.
+	 *
+	 * @param data
+	 *            The data set.
+	 * @return The error.
+	 */
+	public double calculateError(final MLDataSet data) {
+		final ErrorCalculation errorCalculation = new ErrorCalculation();
+
+		final double[] actual = new double[this.outputCount];
+		final MLDataPair pair = BasicMLDataPair.createPair(data.getInputSize(), data.getIdealSize());
+
+		for (int i = 0; i < data.getRecordCount(); i++) {
+			data.getRecord(i, pair);
+			this.compute(pair.getInputArray(), actual);
+			errorCalculation.updateError(actual, pair.getIdealArray(), pair.getSignificance());
+		}
+		return errorCalculation.calculate();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getInputCount() {
+		return this.inputCount;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getOutputCount() {
+		return this.outputCount;
+	}
+
+	/**
+	 * @return The activation functions.
+	 */
+	public ActivationFunction[] getActivationFunctions() {
+		return this.activationFunctions;
+	}
+
+	/**
+	 * @return The layer that training should begin on.
+	 */
+	public int getBeginTraining() {
+		return this.beginTraining;
+	}
+
+	/**
+	 * @return The layer that training should end on.
+	 */
+	public int getEndTraining() {
+		return this.endTraining;
+	}
+
+	/**
+	 * @return True if this network has context.
+	 */
+	public boolean getHasContext() {
+		return this.hasContext;
+	}
+
+	/**
+	 * @return The number of neurons in each layer.
+	 */
+	public int[] getLayerCounts() {
+		return this.layerCounts;
+	}
+
+	/**
+	 * @return The number of neurons in each layer that are fed by the previous
+	 *         layer.
+	 */
+	public int[] getLayerFeedCounts() {
+		return this.layerFeedCounts;
+	}
+
+	/**
+	 * @return Indexes into the layer outputs for the start of each layer.
+	 */
+	public int[] getLayerIndex() {
+		return this.layerIndex;
+	}
+
+	/**
+	 * @return The dropout rate for each layer, may be empty.
+	 */
+	public double[] getLayerDropoutRates() {
+		return this.layerDropoutRates;
+	}
+
+	/**
+	 * @return The output for each neuron.
+	 */
+	public float[] getLayerOutput() {
+		return this.layerOutput;
+	}
+
+	/**
+	 * @return The sum for each neuron.
+	 */
+	public float[] getLayerSums() {
+		return this.layerSums;
+	}
+
+	/**
+	 * @return The index of each layer in the weight array.
+	 */
+	public int[] getWeightIndex() {
+		return this.weightIndex;
+	}
+
+	/**
+	 * @return The weights.
+	 */
+	public float[] getWeights() {
+		return this.weights;
+	}
+
+	/**
+	 * Set the weights.
+	 *
+	 * @param theWeights
+	 *            The weights, copied into this network.
+	 */
+	public void setWeights(final float[] theWeights) {
+		if (theWeights.length != this.weights.length) {
+			throw new NeuralNetworkError("Incompatible weight sizes, can't assign length=" + theWeights.length
+					+ " to length=" + this.weights.length);
+		}
+		System.arraycopy(theWeights, 0, this.weights, 0, theWeights.length);
+	}
+}
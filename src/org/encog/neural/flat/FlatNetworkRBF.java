@@ -89,27 +89,48 @@ public class FlatNetworkRBF extends FlatNetwork implements Serializable, Cloneab
 		return result;
 	}
 
+	/**
+	 * Calculate the output for a block of input rows. The RBF layer can not be
+	 * computed as a block, so the rows are computed one at a time.
+	 *
+	 * @param input
+	 *            The input rows.
+	 * @param output
+	 *            The output rows.
+	 */
+	@Override
+	public void compute(final double[][] input, final double[][] output) {
+		for (int i = 0; i < input.length; i++) {
+			this.compute(input[i], output[i]);
+		}
+	}
+
 	/**
 	 * Calculate the output for the given input.
 	 *
+	 * @param layerOutput
+	 *            The layer outputs to compute into.
+	 * @param layerSums
+	 *            The layer sums to compute into.
 	 * @param x
 	 *            The input.
 	 * @param output
 	 *            Output will be placed here.
 	 */
 	@Override
-	public void compute(final double[] x, final double[] output) {
+	protected void compute(final double[] layerOutput, final double[] layerSums, final double[] x,
+			final double[] output) {
 
 		int outputIndex = this.getLayerIndex()[1];
 
 		for (int i = 0; i < this.rbf.length; i++) {
 			double o = this.rbf[i].calculate(x);
-			this.getLayerOutput()[outputIndex + i] = o;
+			layerOutput[outputIndex + i] = o;
 		}
 
 		// now compute the output
-		this.computeLayer(1);
-		EngineArray.arrayCopy(this.getLayerOutput(), 0, output, 0, this.getOutputCount());
+		this.computeLayer(1, layerOutput, layerSums);
+		EngineArray.arrayCopy(layerOutput, 0, output, 0, this.getOutputCount());
 	}
 
 	/**
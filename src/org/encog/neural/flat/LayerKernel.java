@@ -0,0 +1,92 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.neural.flat;
+
+import org.encog.engine.network.activation.ActivationFunction;
+
+/**
+ * The inner loops used to compute and train a flat network. A flat network
+ * stores the weights for each neuron as one contiguous row, so a layer is
+ * computed with one dot product per neuron, followed by the activation
+ * function, and the gradients are accumulated with one axpy per neuron.
+ *
+ * The default implementation is ScalarLayerKernel, which gives the same
+ * results as the original loops. UnrolledLayerKernel, and VectorLayerKernel
+ * when it is built, sum in a different order and are selected with
+ * Encog.getInstance().setLayerKernel, or with the system property named by
+ * LayerKernelFactory.PROPERTY_KERNEL.
+ */
+public interface LayerKernel {
+
+	/**
+	 * Calculate the dot product of two ranges.
+	 *
+	 * @param a
+	 *            The first array.
+	 * @param aOffset
+	 *            The offset into the first array.
+	 * @param b
+	 *            The second array.
+	 * @param bOffset
+	 *            The offset into the second array.
+	 * @param length
+	 *            The number of elements.
+	 * @return The dot product.
+	 */
+	double dot(double[] a, int aOffset, double[] b, int bOffset, int length);
+
+	/**
+	 * Add a multiple of one range to another, y = y + alpha * x.
+	 *
+	 * @param alpha
+	 *            The multiple.
+	 * @param x
+	 *            The array to add.
+	 * @param xOffset
+	 *            The offset into x.
+	 * @param y
+	 *            The array to add to.
+	 * @param yOffset
+	 *            The offset into y.
+	 * @param length
+	 *            The number of elements.
+	 */
+	void axpy(double alpha, double[] x, int xOffset, double[] y, int yOffset, int length);
+
+	/**
+	 * Apply an activation function to a range. A kernel may compute the
+	 * activation functions it knows itself, any other is applied with
+	 * ActivationFunction.activationFunction.
+	 *
+	 * @param af
+	 *            The activation function.
+	 * @param x
+	 *            The values to activate, in place.
+	 * @param start
+	 *            The first value to activate.
+	 * @param size
+	 *            The number of values.
+	 */
+	void activationFunction(ActivationFunction af, double[] x, int start, int size);
+}
@@ -0,0 +1,76 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.neural.flat;
+
+import org.encog.util.logging.EncogLogging;
+
+/**
+ * Creates the layer kernel used by default. If the system property
+ * encog.layer.kernel names a class that implements LayerKernel, and that class
+ * can be loaded, it is used. This allows a kernel that depends on an optional
+ * module, such as VectorLayerKernel and the Vector API, to be supplied at
+ * runtime. If the class, or anything it depends on, is not present then
+ * ScalarLayerKernel is used.
+ */
+public final class LayerKernelFactory {
+
+	/**
+	 * The system property that names the layer kernel class.
+	 */
+	public static final String PROPERTY_KERNEL = "encog.layer.kernel";
+
+	/**
+	 * The name of the kernel built on the Vector API. It is only present when
+	 * Encog was built on Java 16 or later, and it can only be loaded when the
+	 * jdk.incubator.vector module is added.
+	 */
+	public static final String VECTOR_KERNEL = "org.encog.neural.flat.VectorLayerKernel";
+
+	/**
+	 * Private constructor.
+	 */
+	private LayerKernelFactory() {
+
+	}
+
+	/**
+	 * Create the default layer kernel.
+	 *
+	 * @return The kernel.
+	 */
+	public static LayerKernel create() {
+		final String name = System.getProperty(PROPERTY_KERNEL);
+		if (name != null && name.length() > 0) {
+			try {
+				return (LayerKernel) Class.forName(name).getDeclaredConstructor().newInstance();
+			} catch (final Throwable t) {
+				// a missing optional module shows up as a LinkageError, not
+				// only as ClassNotFoundException
+				EncogLogging.log(EncogLogging.LEVEL_INFO,
+						"Layer kernel " + name + " is not available, using scalar kernel: " + t);
+			}
+		}
+		return new ScalarLayerKernel();
+	}
+}
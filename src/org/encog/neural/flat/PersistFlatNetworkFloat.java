@@ -0,0 +1,77 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.neural.flat;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.encog.neural.networks.BasicNetwork;
+import org.encog.neural.networks.PersistBasicNetwork;
+import org.encog.persist.EncogPersistor;
+
+/**
+ * Persist a single precision flat network. The network is written in the same
+ * format as a BasicNetwork, every float weight is exactly representable as a
+ * double, so nothing is lost in the round trip.
+ */
+public class PersistFlatNetworkFloat implements EncogPersistor {
+
+	/**
+	 * Used to read and write the network.
+	 */
+	private final PersistBasicNetwork basic = new PersistBasicNetwork();
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getFileVersion() {
+		return 1;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getPersistClassString() {
+		return "FlatNetworkFloat";
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Object read(final InputStream is) {
+		final BasicNetwork network = (BasicNetwork) this.basic.read(is);
+		return new FlatNetworkFloat(network.getFlat());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void save(final OutputStream os, final Object obj) {
+		this.basic.save(os, ((FlatNetworkFloat) obj).toBasicNetwork());
+	}
+}
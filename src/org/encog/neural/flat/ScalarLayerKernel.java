@@ -0,0 +1,67 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.neural.flat;
+
+import org.encog.engine.network.activation.ActivationFunction;
+
+/**
+ * A layer kernel written in plain Java. The dot product is summed in order,
+ * one element after another, so the results are exactly those of the loops
+ * the kernel replaced. The axpy loop is simple enough that the JIT compiles it
+ * to SIMD instructions on its own. Activation functions are applied by the
+ * activation function itself.
+ */
+public class ScalarLayerKernel implements LayerKernel {
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double dot(final double[] a, final int aOffset, final double[] b, final int bOffset, final int length) {
+		double sum = 0;
+		for (int i = 0; i < length; i++) {
+			sum += a[aOffset + i] * b[bOffset + i];
+		}
+		return sum;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void axpy(final double alpha, final double[] x, final int xOffset, final double[] y, final int yOffset,
+			final int length) {
+		for (int i = 0; i < length; i++) {
+			y[yOffset + i] += alpha * x[xOffset + i];
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void activationFunction(final ActivationFunction af, final double[] x, final int start, final int size) {
+		af.activationFunction(x, start, size);
+	}
+}
@@ -0,0 +1,57 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.neural.flat;
+
+/**
+ * A layer kernel that unrolls the dot product into four independent sums.
+ * This breaks the dependency between the additions so that the JIT can keep
+ * several multiply-adds in flight, which is faster for wide layers. The sums
+ * are added in a different order than ScalarLayerKernel, so the results can
+ * differ in the last bits. It must be selected explicitly.
+ */
+public class UnrolledLayerKernel extends ScalarLayerKernel {
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double dot(final double[] a, final int aOffset, final double[] b, final int bOffset, final int length) {
+		double sum0 = 0;
+		double sum1 = 0;
+		double sum2 = 0;
+		double sum3 = 0;
+		final int unrolled = length & ~3;
+		int i = 0;
+		for (; i < unrolled; i += 4) {
+			sum0 += a[aOffset + i] * b[bOffset + i];
+			sum1 += a[aOffset + i + 1] * b[bOffset + i + 1];
+			sum2 += a[aOffset + i + 2] * b[bOffset + i + 2];
+			sum3 += a[aOffset + i + 3] * b[bOffset + i + 3];
+		}
+		for (; i < length; i++) {
+			sum0 += a[aOffset + i] * b[bOffset + i];
+		}
+		return (sum0 + sum1) + (sum2 + sum3);
+	}
+}
@@ -24,9 +24,13 @@
 package org.encog.neural.neat;
 
 import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 
+import org.encog.engine.network.activation.ActivationCompetitive;
 import org.encog.engine.network.activation.ActivationFunction;
+import org.encog.engine.network.activation.ActivationSoftMax;
 import org.encog.ml.MLError;
 import org.encog.ml.MLRegression;
 import org.encog.ml.data.MLData;
@@ -67,6 +71,14 @@ import org.encog.util.simple.EncogUtility;
  * selection in neuroevolution}, booktitle = {In Genetic and Evolutionary
  * Computation Conference}, year = {2005}, pages = {1225--1232}, publisher =
  * {ACM Press} }
+ *
+ * The links are compiled, when the network is constructed, into parallel
+ * arrays ordered so that neurons with the same activation function are next to
+ * each other, and can be activated with one call. If the network has no
+ * recurrent links, the neurons are also ordered by depth, and a single pass
+ * computes the same output as running every activation cycle. Recurrent
+ * networks run the activation cycles, but stop as soon as the network has
+ * relaxed.
  */
 public class NEATNetwork implements MLRegression, MLError, Serializable {
 
@@ -75,6 +87,12 @@ public class NEATNetwork implements MLRegression, MLError, Serializable {
 	 */
 	private static final long serialVersionUID = 3660295468309926508L;
 
+	/**
+	 * The most activation cycles to use, when activationCycles is set to zero
+	 * for auto, and the network does not relax.
+	 */
+	public static final int MAX_AUTO_CYCLES = 100;
+
 	/**
 	 * The neuron links.
 	 */
@@ -127,6 +145,81 @@ public class NEATNetwork implements MLRegression, MLError, Serializable {
 	 */
 	private double relaxationThreshold;
 
+	/**
+	 * The original index of each compiled neuron. The bias and input neurons
+	 * keep their index.
+	 */
+	private transient int[] order;
+
+	/**
+	 * The compiled index of each output neuron.
+	 */
+	private transient int[] outputNeuron;
+
+	/**
+	 * The compiled neuron that each link comes from.
+	 */
+	private transient int[] linkFrom;
+
+	/**
+	 * The compiled neuron that each link goes to.
+	 */
+	private transient int[] linkTo;
+
+	/**
+	 * The weight of each link.
+	 */
+	private transient double[] linkWeight;
+
+	/**
+	 * The first compiled neuron of each level, and the end of the last level.
+	 * A feed forward network has a level for each depth, a recurrent network
+	 * has a single level.
+	 */
+	private transient int[] levelNeuron;
+
+	/**
+	 * The first link into each level, and the end of the last level.
+	 */
+	private transient int[] levelLink;
+
+	/**
+	 * The first activation group of each level, and the end of the last level.
+	 */
+	private transient int[] levelGroup;
+
+	/**
+	 * The first compiled neuron of each activation group, and the end of the
+	 * last group.
+	 */
+	private transient int[] groupStart;
+
+	/**
+	 * The activation function of each activation group.
+	 */
+	private transient ActivationFunction[] groupFunction;
+
+	/**
+	 * True, if the network has no recurrent links.
+	 */
+	private transient boolean feedForward;
+
+	/**
+	 * The pre-activation values of the compiled neurons.
+	 */
+	private transient double[] compiledPre;
+
+	/**
+	 * The post-activation values of the compiled neurons.
+	 */
+	private transient double[] compiledPost;
+
+	/**
+	 * The post-activation values of the previous cycle, used to check if a
+	 * recurrent network has relaxed.
+	 */
+	private transient double[] lastPost;
+
 	/**
 	 * Construct a NEAT network. The links that are passed in also define the
 	 * neurons.
@@ -159,6 +252,205 @@ public class NEATNetwork implements MLRegression, MLError, Serializable {
 
 		// bias
 		this.postActivation[0] = 1.0;
+
+		this.compile();
+	}
+
+	/**
+	 * Determine if an activation function can be applied to a range of neurons
+	 * at once, with the same result as applying it to each neuron.
+	 *
+	 * @param af
+	 *            The activation function.
+	 * @return True if the function works on each neuron independently.
+	 */
+	private static boolean isElementwise(final ActivationFunction af) {
+		return !(af instanceof ActivationSoftMax) && !(af instanceof ActivationCompetitive);
+	}
+
+	/**
+	 * Determine if two activation functions compute the same values.
+	 *
+	 * @param a
+	 *            The first activation function.
+	 * @param b
+	 *            The second activation function.
+	 * @return True if the functions are the same.
+	 */
+	private static boolean sameFunction(final ActivationFunction a, final ActivationFunction b) {
+		return a == b || (a.getClass() == b.getClass() && Arrays.equals(a.getParams(), b.getParams()));
+	}
+
+	/**
+	 * Compile the links into parallel arrays. The neurons are ordered by
+	 * depth, if the network is feed forward, then by activation function. The
+	 * links keep their original order within each target neuron, so every
+	 * neuron sums its inputs in the same order as before.
+	 */
+	private void compile() {
+		final int neuronCount = this.activationFunctions.length;
+		final int sourceCount = this.inputCount + 1;
+
+		// links into the bias or input neurons are never used
+		int linkCount = 0;
+		for (final NEATLink link : this.links) {
+			if (link.getToNeuron() >= sourceCount) {
+				linkCount++;
+			}
+		}
+
+		// find the depth of each neuron, the longest path to it from a bias
+		// or input neuron
+		final int[] incoming = new int[neuronCount];
+		final int[] outStart = new int[neuronCount + 1];
+		for (final NEATLink link : this.links) {
+			if (link.getToNeuron() >= sourceCount) {
+				incoming[link.getToNeuron()]++;
+				outStart[link.getFromNeuron() + 1]++;
+			}
+		}
+		for (int i = 0; i < neuronCount; i++) {
+			outStart[i + 1] += outStart[i];
+		}
+		final int[] outTo = new int[linkCount];
+		final int[] outFill = Arrays.copyOf(outStart, neuronCount);
+		for (final NEATLink link : this.links) {
+			if (link.getToNeuron() >= sourceCount) {
+				outTo[outFill[link.getFromNeuron()]++] = link.getToNeuron();
+			}
+		}
+
+		final int[] depth = new int[neuronCount];
+		final int[] queue = new int[neuronCount];
+		int head = 0;
+		int tail = 0;
+		for (int i = 0; i < neuronCount; i++) {
+			if (i >= sourceCount) {
+				depth[i] = 1;
+			}
+			if (incoming[i] == 0) {
+				queue[tail++] = i;
+			}
+		}
+		int maxDepth = 1;
+		while (head < tail) {
+			final int from = queue[head++];
+			for (int k = outStart[from]; k < outStart[from + 1]; k++) {
+				final int to = outTo[k];
+				depth[to] = Math.max(depth[to], depth[from] + 1);
+				maxDepth = Math.max(maxDepth, depth[to]);
+				if (--incoming[to] == 0) {
+					queue[tail++] = to;
+				}
+			}
+		}
+		this.feedForward = tail == neuronCount;
+
+		// group the neurons with the same activation function
+		final int[] group = new int[neuronCount];
+		final ActivationFunction[] groups = new ActivationFunction[neuronCount];
+		int groupCount = 0;
+		for (int i = sourceCount; i < neuronCount; i++) {
+			final ActivationFunction af = this.activationFunctions[i];
+			int g = 0;
+			if (isElementwise(af)) {
+				while (g < groupCount && (!isElementwise(groups[g]) || !sameFunction(groups[g], af))) {
+					g++;
+				}
+			} else {
+				g = groupCount;
+			}
+			if (g == groupCount) {
+				groups[groupCount++] = af;
+			}
+			group[i] = g;
+		}
+
+		// order the neurons by level, then by group
+		final int levelCount = this.feedForward ? maxDepth : 1;
+		final int[] level = new int[neuronCount];
+		for (int i = sourceCount; i < neuronCount; i++) {
+			level[i] = this.feedForward ? depth[i] - 1 : 0;
+		}
+		final Integer[] sorted = new Integer[neuronCount - sourceCount];
+		for (int i = 0; i < sorted.length; i++) {
+			sorted[i] = sourceCount + i;
+		}
+		Arrays.sort(sorted, new Comparator<Integer>() {
+			@Override
+			public int compare(final Integer a, final Integer b) {
+				if (level[a] != level[b]) {
+					return level[a] - level[b];
+				}
+				return group[a] - group[b];
+			}
+		});
+
+		this.order = new int[neuronCount];
+		final int[] position = new int[neuronCount];
+		for (int i = 0; i < neuronCount; i++) {
+			this.order[i] = i < sourceCount ? i : sorted[i - sourceCount];
+			position[this.order[i]] = i;
+		}
+		this.outputNeuron = new int[this.outputCount];
+		for (int i = 0; i < this.outputCount; i++) {
+			this.outputNeuron[i] = position[this.outputIndex + i];
+		}
+
+		// the neuron, link and group ranges of each level
+		this.levelNeuron = new int[levelCount + 1];
+		this.levelLink = new int[levelCount + 1];
+		this.levelGroup = new int[levelCount + 1];
+		final int[] starts = new int[neuronCount + 1];
+		final ActivationFunction[] functions = new ActivationFunction[neuronCount];
+		int groupIndex = 0;
+		int current = sourceCount;
+		for (int l = 0; l < levelCount; l++) {
+			this.levelNeuron[l] = current;
+			this.levelGroup[l] = groupIndex;
+			while (current < neuronCount && level[this.order[current]] == l) {
+				final int g = group[this.order[current]];
+				starts[groupIndex] = current;
+				functions[groupIndex++] = groups[g];
+				current++;
+				while (current < neuronCount && level[this.order[current]] == l && group[this.order[current]] == g
+						&& isElementwise(groups[g])) {
+					current++;
+				}
+			}
+		}
+		this.levelNeuron[levelCount] = current;
+		this.levelGroup[levelCount] = groupIndex;
+		starts[groupIndex] = current;
+		this.groupStart = Arrays.copyOf(starts, groupIndex + 1);
+		this.groupFunction = Arrays.copyOf(functions, groupIndex);
+
+		// order the links by the level of their target, keeping their order
+		final int[] levelFill = new int[levelCount + 1];
+		for (final NEATLink link : this.links) {
+			if (link.getToNeuron() >= sourceCount) {
+				levelFill[level[link.getToNeuron()] + 1]++;
+			}
+		}
+		for (int l = 0; l < levelCount; l++) {
+			levelFill[l + 1] += levelFill[l];
+		}
+		System.arraycopy(levelFill, 0, this.levelLink, 0, levelCount + 1);
+		this.linkFrom = new int[linkCount];
+		this.linkTo = new int[linkCount];
+		this.linkWeight = new double[linkCount];
+		for (final NEATLink link : this.links) {
+			if (link.getToNeuron() >= sourceCount) {
+				final int k = levelFill[level[link.getToNeuron()]]++;
+				this.linkFrom[k] = position[link.getFromNeuron()];
+				this.linkTo[k] = position[link.getToNeuron()];
+				this.linkWeight[k] = link.getWeight();
+			}
+		}
+
+		this.compiledPre = new double[neuronCount];
+		this.compiledPost = new double[neuronCount];
+		this.lastPost = new double[neuronCount];
 	}
 
 	/**
@@ -182,23 +474,48 @@ public class NEATNetwork implements MLRegression, MLError, Serializable {
 	 */
 	@Override
 	public MLData compute(final MLData input) {
+		if (this.linkFrom == null) {
+			this.compile();
+		}
+
 		final MLData result = new BasicMLData(this.outputCount);
+		final double[] pre = this.compiledPre;
+		final double[] post = this.compiledPost;
 
 		// clear from previous
-		EngineArray.fill(this.preActivation, 0.0);
-		EngineArray.fill(this.postActivation, 0.0);
-		this.postActivation[0] = 1.0;
+		EngineArray.fill(pre, 0.0);
+		EngineArray.fill(post, 0.0);
+		post[0] = 1.0;
 
 		// copy input
-		EngineArray.arrayCopy(input.getData(), 0, this.postActivation, 1, this.inputCount);
-
-		// iterate through the network activationCycles times
-		for (int i = 0; i < this.activationCycles; ++i) {
-			this.internalCompute();
+		EngineArray.arrayCopy(input.getData(), 0, post, 1, this.inputCount);
+
+		final int levelCount = this.levelNeuron.length - 1;
+		if (this.feedForward && (this.activationCycles == 0 || this.activationCycles >= levelCount)) {
+			// every neuron is final once the levels before it are computed
+			for (int l = 0; l < levelCount; l++) {
+				this.internalCompute(l, l + 1);
+			}
+			this.hasRelaxed = true;
+		} else {
+			// iterate through the network activationCycles times, or until it
+			// relaxes
+			final int cycles = this.activationCycles == 0 ? NEATNetwork.MAX_AUTO_CYCLES : this.activationCycles;
+			this.hasRelaxed = false;
+			for (int i = 0; i < cycles && !this.hasRelaxed; ++i) {
+				EngineArray.arrayCopy(post, this.lastPost);
+				this.internalCompute(0, levelCount);
+				this.hasRelaxed = this.isRelaxed();
+			}
 		}
 
 		// copy output
-		EngineArray.arrayCopy(this.postActivation, this.outputIndex, result.getData(), 0, this.outputCount);
+		for (int i = 0; i < this.outputCount; i++) {
+			result.setData(i, post[this.outputNeuron[i]]);
+		}
+		for (int i = 0; i < post.length; i++) {
+			this.postActivation[this.order[i]] = post[i];
+		}
 
 		return result;
 	}
@@ -226,7 +543,9 @@ public class NEATNetwork implements MLRegression, MLError, Serializable {
 	}
 
 	/**
-	 * @return The links in the neural network.
+	 * @return The links in the neural network. The links are compiled when the
+	 *         network is constructed, changing them afterwards does not change
+	 *         the output.
 	 */
 	public NEATLink[] getLinks() {
 		return this.links;
@@ -270,19 +589,45 @@ public class NEATNetwork implements MLRegression, MLError, Serializable {
 	}
 
 	/**
-	 * Perform one activation cycle.
+	 * Compute a range of levels. The links into every level are summed before
+	 * any of the neurons are activated, so computing all of the levels is one
+	 * activation cycle.
+	 *
+	 * @param fromLevel
+	 *            The first level to compute.
+	 * @param toLevel
+	 *            The level to stop at.
 	 */
-	private void internalCompute() {
-		for (int j = 0; j < this.links.length; j++) {
-			this.preActivation[this.links[j].getToNeuron()] += this.postActivation[this.links[j].getFromNeuron()]
-					* this.links[j].getWeight();
+	private void internalCompute(final int fromLevel, final int toLevel) {
+		final double[] pre = this.compiledPre;
+		final double[] post = this.compiledPost;
+
+		for (int j = this.levelLink[fromLevel]; j < this.levelLink[toLevel]; j++) {
+			pre[this.linkTo[j]] += post[this.linkFrom[j]] * this.linkWeight[j];
+		}
+
+		for (int j = this.levelNeuron[fromLevel]; j < this.levelNeuron[toLevel]; j++) {
+			post[j] = pre[j];
+			pre[j] = 0.0;
+		}
+
+		for (int g = this.levelGroup[fromLevel]; g < this.levelGroup[toLevel]; g++) {
+			this.groupFunction[g].activationFunction(post, this.groupStart[g],
+					this.groupStart[g + 1] - this.groupStart[g]);
 		}
+	}
 
-		for (int j = this.outputIndex; j < this.preActivation.length; j++) {
-			this.postActivation[j] = this.preActivation[j];
-			this.activationFunctions[j].activationFunction(this.postActivation, j, 1);
-			this.preActivation[j] = 0.0F;
+	/**
+	 * @return True, if no neuron changed by more than the relaxation threshold
+	 *         in the last activation cycle.
+	 */
+	private boolean isRelaxed() {
+		for (int j = this.levelNeuron[0]; j < this.compiledPost.length; j++) {
+			if (!(Math.abs(this.compiledPost[j] - this.lastPost[j]) <= this.relaxationThreshold)) {
+				return false;
+			}
 		}
+		return true;
 	}
 
 	/**
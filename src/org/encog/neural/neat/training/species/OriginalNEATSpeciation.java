@@ -23,9 +23,15 @@
  */
 package org.encog.neural.neat.training.species;
 
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
 import org.encog.ml.ea.genome.Genome;
+import org.encog.ml.ea.species.Species;
 import org.encog.ml.ea.species.ThresholdSpeciation;
 import org.encog.neural.neat.training.NEATGenome;
+import org.encog.neural.neat.training.NEATLinkGene;
 
 /**
  * The original NEAT Speciation Strategy. This is currently the only speciation
@@ -78,6 +84,48 @@ public class OriginalNEATSpeciation extends ThresholdSpeciation {
 	 */
 	private double constMatched = 0.4;
 
+	/**
+	 * The link innovations of the genomes being speciated. Only held for the
+	 * duration of performSpeciation, as the genomes are changed between
+	 * generations.
+	 */
+	private transient Map<Genome, LinkInnovations> innovations;
+
+	/**
+	 * The innovation id and weight of each link of a genome, in chromosome
+	 * order, which is sorted by innovation id. Comparing two genomes is then a
+	 * merge of two arrays.
+	 */
+	private static final class LinkInnovations {
+
+		/**
+		 * The innovation ids.
+		 */
+		private final long[] ids;
+
+		/**
+		 * The weights.
+		 */
+		private final double[] weights;
+
+		/**
+		 * Read the links of a genome.
+		 *
+		 * @param genome
+		 *            The genome.
+		 */
+		LinkInnovations(final NEATGenome genome) {
+			final List<NEATLinkGene> links = genome.getLinksChromosome();
+			this.ids = new long[links.size()];
+			this.weights = new double[links.size()];
+			for (int i = 0; i < this.ids.length; i++) {
+				final NEATLinkGene link = links.get(i);
+				this.ids[i] = link.getInnovationId();
+				this.weights[i] = link.getWeight();
+			}
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -88,11 +136,11 @@ public class OriginalNEATSpeciation extends ThresholdSpeciation {
 		double numMatched = 0;
 		double weightDifference = 0;
 
-		final NEATGenome genome1 = (NEATGenome) gen1;
-		final NEATGenome genome2 = (NEATGenome) gen2;
+		final LinkInnovations genome1 = this.getInnovations(gen1);
+		final LinkInnovations genome2 = this.getInnovations(gen2);
 
-		final int genome1Size = genome1.getLinksChromosome().size();
-		final int genome2Size = genome2.getLinksChromosome().size();
+		final int genome1Size = genome1.ids.length;
+		final int genome2Size = genome2.ids.length;
 		final int n = 1;// Math.max(genome1Size, genome2Size);
 
 		int g1 = 0;
@@ -113,15 +161,14 @@ public class OriginalNEATSpeciation extends ThresholdSpeciation {
 			}
 
 			// get innovation numbers for each gene at this point
-			final long id1 = genome1.getLinksChromosome().get(g1).getInnovationId();
-			final long id2 = genome2.getLinksChromosome().get(g2).getInnovationId();
+			final long id1 = genome1.ids[g1];
+			final long id2 = genome2.ids[g2];
 
 			// innovation numbers are identical so increase the matched score
 			if (id1 == id2) {
 
 				// get the weight difference between these two genes
-				weightDifference += Math.abs(genome1.getLinksChromosome().get(g1).getWeight()
-						- genome2.getLinksChromosome().get(g2).getWeight());
+				weightDifference += Math.abs(genome1.weights[g1] - genome2.weights[g2]);
 				g1++;
 				g2++;
 				numMatched++;
@@ -146,6 +193,25 @@ public class OriginalNEATSpeciation extends ThresholdSpeciation {
 		return score;
 	}
 
+	/**
+	 * Get the link innovations of a genome. During speciation they are read
+	 * from the cache, otherwise they are read from the genome.
+	 *
+	 * @param genome
+	 *            The genome.
+	 * @return The link innovations.
+	 */
+	private LinkInnovations getInnovations(final Genome genome) {
+		final Map<Genome, LinkInnovations> cache = this.innovations;
+		if (cache != null) {
+			final LinkInnovations result = cache.get(genome);
+			if (result != null) {
+				return result;
+			}
+		}
+		return new LinkInnovations((NEATGenome) genome);
+	}
+
 	/**
 	 * @return the constDisjoint
 	 */
@@ -167,6 +233,34 @@ public class OriginalNEATSpeciation extends ThresholdSpeciation {
 		return this.constMatched;
 	}
 
+	/**
+	 * Read the link innovations of every genome, and the species leaders, once
+	 * before they are speciated.
+	 *
+	 * @param genomeList
+	 *            The genomes to speciate.
+	 */
+	@Override
+	public void performSpeciation(final List<Genome> genomeList) {
+		final Map<Genome, LinkInnovations> cache = new IdentityHashMap<>();
+		for (final Genome genome : genomeList) {
+			cache.put(genome, new LinkInnovations((NEATGenome) genome));
+		}
+		for (final Species species : this.getOwner().getPopulation().getSpecies()) {
+			final Genome leader = species.getLeader();
+			if (leader != null && !cache.containsKey(leader)) {
+				cache.put(leader, new LinkInnovations((NEATGenome) leader));
+			}
+		}
+
+		this.innovations = cache;
+		try {
+			super.performSpeciation(genomeList);
+		} finally {
+			this.innovations = null;
+		}
+	}
+
 	/**
 	 * @param constDisjoint
 	 *            the constDisjoint to set
@@ -34,12 +34,12 @@ import org.encog.mathutil.randomize.NguyenWidrowRandomizer;
 import org.encog.mathutil.randomize.Randomizer;
 import org.encog.mathutil.randomize.RangeRandomizer;
 import org.encog.ml.BasicML;
+import org.encog.ml.MLBatchRegression;
 import org.encog.ml.MLClassification;
 import org.encog.ml.MLContext;
 import org.encog.ml.MLEncodable;
 import org.encog.ml.MLError;
 import org.encog.ml.MLFactory;
-import org.encog.ml.MLRegression;
 import org.encog.ml.MLResettable;
 import org.encog.ml.data.MLData;
 import org.encog.ml.data.MLDataSet;
@@ -47,6 +47,7 @@ import org.encog.ml.data.basic.BasicMLData;
 import org.encog.ml.factory.MLMethodFactory;
 import org.encog.neural.NeuralNetworkError;
 import org.encog.neural.flat.FlatNetwork;
+import org.encog.neural.flat.FlatNetworkContext;
 import org.encog.neural.networks.layers.Layer;
 import org.encog.neural.networks.structure.NetworkCODEC;
 import org.encog.neural.networks.structure.NeuralStructure;
@@ -72,8 +73,8 @@ import org.encog.util.simple.EncogUtility;
  * Once the neural network has been completely constructed.
  *
  */
-public class BasicNetwork extends BasicML implements ContainsFlat, MLContext, MLRegression, MLEncodable, MLResettable,
-		MLClassification, MLError, MLFactory {
+public class BasicNetwork extends BasicML implements ContainsFlat, MLContext, MLBatchRegression, MLEncodable,
+		MLResettable, MLClassification, MLError, MLFactory {
 
 	/**
 	 * Tag used for the connection limit.
@@ -265,6 +266,26 @@ public class BasicNetwork extends BasicML implements ContainsFlat, MLContext, ML
 		EngineArray.arrayCopy(output2.getData(), output);
 	}
 
+	/**
+	 * Compute the output for a block of input rows. The rows are computed a
+	 * block at a time, and large inputs are divided between threads.
+	 *
+	 * @param input
+	 *            The input rows.
+	 * @param output
+	 *            The output rows, must be at least as many as the input rows.
+	 */
+	@Override
+	public void compute(final double[][] input, final double[][] output) {
+		try {
+			this.structure.getFlat().compute(input, output);
+		} catch (final ArrayIndexOutOfBoundsException ex) {
+			throw new NeuralNetworkError(
+					"Index exception: there was likely a mismatch between layer sizes, or the size of the input presented to the network.",
+					ex);
+		}
+	}
+
 	/**
 	 * Compute the output for a given input to the neural network.
 	 *
@@ -285,6 +306,40 @@ public class BasicNetwork extends BasicML implements ContainsFlat, MLContext, ML
 		}
 	}
 
+	/**
+	 * Compute the output for a given input to the neural network, using the
+	 * specified context rather than the network's own layer outputs. Each
+	 * thread that computes this network concurrently should use its own
+	 * context.
+	 *
+	 * @param context
+	 *            The context, created by createContext.
+	 * @param input
+	 *            The input to the neural network.
+	 * @param output
+	 *            The output from the neural network.
+	 */
+	public void compute(final FlatNetworkContext context, final double[] input, final double[] output) {
+		try {
+			this.structure.getFlat().compute(context, input, output);
+		} catch (final ArrayIndexOutOfBoundsException ex) {
+			throw new NeuralNetworkError(
+					"Index exception: there was likely a mismatch between layer sizes, or the size of the input presented to the network.",
+					ex);
+		}
+	}
+
+	/**
+	 * Create a compute context for this network, for use with
+	 * compute(FlatNetworkContext, double[], double[]).
+	 *
+	 * @return The new context.
+	 */
+	public FlatNetworkContext createContext() {
+		this.structure.requireFlat();
+		return this.structure.getFlat().createContext();
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
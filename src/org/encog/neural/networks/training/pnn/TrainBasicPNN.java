@@ -34,6 +34,7 @@ import org.encog.ml.data.basic.BasicMLDataSet;
 import org.encog.ml.train.BasicTraining;
 import org.encog.neural.networks.training.propagation.TrainingContinuation;
 import org.encog.neural.pnn.BasicPNN;
+import org.encog.neural.pnn.PNNIndex;
 import org.encog.neural.pnn.PNNKernelType;
 import org.encog.neural.pnn.PNNOutputMode;
 import org.encog.util.EngineArray;
@@ -341,10 +342,9 @@ public class TrainBasicPNN extends BasicTraining implements CalculationCriteria
 	public MLData computeDeriv(final MLData input, final MLData target) {
 		int pop, ivar;
 		int outvar;
-		double diff, dist, truedist;
 		double vtot, wtot;
 		double temp, der1, der2, psum;
-		int vptr, wptr, vsptr = 0, wsptr = 0;
+		int vsptr = 0, wsptr = 0;
 
 		final double[] out = new double[this.network.getOutputCount()];
 
@@ -367,85 +367,43 @@ public class TrainBasicPNN extends BasicTraining implements CalculationCriteria
 			}
 		}
 
-		final MLDataPair pair = BasicMLDataPair.createPair(this.network.getSamples().getInputSize(),
-				this.network.getSamples().getIdealSize());
-
-		for (int r = 0; r < this.network.getSamples().getRecordCount(); r++) {
-
-			this.network.getSamples().getRecord(r, pair);
-
-			if (r == this.network.getExclude()) {
-				continue;
+		final PNNIndex index = this.network.getIndex();
+		if (index != null) {
+			final int inputCount = this.network.getInputCount();
+			final int idealCount = index.getIdealCount();
+			final PNNIndex.Result result = new PNNIndex.Result(index.getTargetSize());
+			index.query(input.getData(), this.network.getSigma(), this.network.kernelLimit(),
+					this.network.getExclude(), result);
+
+			for (int k = 0; k < result.getCandidateCount(); k++) {
+				final int p = result.getCandidate(k);
+				psum += this.accumulateSample(input, index.getInputs(), p * inputCount, index.getIdeals(),
+						p * idealCount, out, vsptr, wsptr);
 			}
 
-			dist = 0.0;
-			for (ivar = 0; ivar < this.network.getInputCount(); ivar++) {
-				diff = input.getData(ivar) - pair.getInput().getData(ivar);
-				diff /= this.network.getSigma()[ivar];
-				this.dsqr[ivar] = diff * diff;
-				dist += this.dsqr[ivar];
+			// the pruned samples count at the kernel floor; their share of
+			// the derivative sums is below epsilon and is left out
+			final double[] pruned = result.getPrunedSum();
+			for (int i = 0; i < pruned.length; i++) {
+				out[i] += 1.e-40 * pruned[i];
 			}
-
-			if (this.network.getKernel() == PNNKernelType.Gaussian) {
-				dist = Math.exp(-dist);
-			} else if (this.network.getKernel() == PNNKernelType.Reciprocal) {
-				dist = 1.0 / (1.0 + dist);
+			if (this.network.getOutputMode() != PNNOutputMode.Classification) {
+				psum += 1.e-40 * result.getPrunedCount();
 			}
+		} else {
+			final MLDataPair pair = BasicMLDataPair.createPair(this.network.getSamples().getInputSize(),
+					this.network.getSamples().getIdealSize());
 
-			truedist = dist;
-			if (dist < 1.e-40) {
-				dist = 1.e-40;
-			}
+			for (int r = 0; r < this.network.getSamples().getRecordCount(); r++) {
 
-			if (this.network.getOutputMode() == PNNOutputMode.Classification) {
-				pop = (int) pair.getIdeal().getData(0);
-				out[pop] += dist;
-				vptr = pop * this.network.getInputCount();
-				wptr = pop * this.network.getInputCount();
-				for (ivar = 0; ivar < this.network.getInputCount(); ivar++) {
-					temp = truedist * this.dsqr[ivar];
-					this.v[vptr + ivar] += temp;
-					this.w[wptr + ivar] += temp * (2.0 * this.dsqr[ivar] - 3.0);
-				}
-			}
+				this.network.getSamples().getRecord(r, pair);
 
-			else if (this.network.getOutputMode() == PNNOutputMode.Unsupervised) {
-				for (ivar = 0; ivar < this.network.getInputCount(); ivar++) {
-					out[ivar] += dist * pair.getInput().getData(ivar);
-					temp = truedist * this.dsqr[ivar];
-					this.v[vsptr + ivar] += temp;
-					this.w[wsptr + ivar] += temp * (2.0 * this.dsqr[ivar] - 3.0);
-				}
-				vptr = 0;
-				wptr = 0;
-				for (outvar = 0; outvar < this.network.getOutputCount(); outvar++) {
-					for (ivar = 0; ivar < this.network.getInputCount(); ivar++) {
-						temp = truedist * this.dsqr[ivar] * pair.getInput().getData(ivar);
-						this.v[vptr++] += temp;
-						this.w[wptr++] += temp * (2.0 * this.dsqr[ivar] - 3.0);
-					}
+				if (r == this.network.getExclude()) {
+					continue;
 				}
-				psum += dist;
-			} else if (this.network.getOutputMode() == PNNOutputMode.Regression) {
 
-				for (ivar = 0; ivar < this.network.getOutputCount(); ivar++) {
-					out[ivar] += dist * pair.getIdeal().getData(ivar);
-				}
-				vptr = 0;
-				wptr = 0;
-				for (outvar = 0; outvar < this.network.getOutputCount(); outvar++) {
-					for (ivar = 0; ivar < this.network.getInputCount(); ivar++) {
-						temp = truedist * this.dsqr[ivar] * pair.getIdeal().getData(outvar);
-						this.v[vptr++] += temp;
-						this.w[wptr++] += temp * (2.0 * this.dsqr[ivar] - 3.0);
-					}
-				}
-				for (ivar = 0; ivar < this.network.getInputCount(); ivar++) {
-					temp = truedist * this.dsqr[ivar];
-					this.v[vsptr + ivar] += temp;
-					this.w[wsptr + ivar] += temp * (2.0 * this.dsqr[ivar] - 3.0);
-				}
-				psum += dist;
+				psum += this.accumulateSample(input, pair.getInputArray(), 0, pair.getIdealArray(), 0, out, vsptr,
+						wsptr);
 			}
 		}
 
@@ -518,6 +476,107 @@ public class TrainBasicPNN extends BasicTraining implements CalculationCriteria
 		return new BasicMLData(out);
 	}
 
+	/**
+	 * Add one sample to the output and derivative sums of computeDeriv.
+	 *
+	 * @param input
+	 *            The input.
+	 * @param sampleInput
+	 *            Holds the input of the sample.
+	 * @param inputOffset
+	 *            The first input of the sample.
+	 * @param sampleIdeal
+	 *            Holds the ideal of the sample.
+	 * @param idealOffset
+	 *            The first ideal of the sample.
+	 * @param out
+	 *            The output sums.
+	 * @param vsptr
+	 *            The start of the shared first derivative sums.
+	 * @param wsptr
+	 *            The start of the shared second derivative sums.
+	 * @return The amount to add to the kernel sum, zero for classification.
+	 */
+	private double accumulateSample(final MLData input, final double[] sampleInput, final int inputOffset,
+			final double[] sampleIdeal, final int idealOffset, final double[] out, final int vsptr,
+			final int wsptr) {
+		int pop, ivar, outvar, vptr, wptr;
+		double diff, dist, truedist, temp;
+		double result = 0.0;
+
+		dist = 0.0;
+		for (ivar = 0; ivar < this.network.getInputCount(); ivar++) {
+			diff = input.getData(ivar) - sampleInput[inputOffset + ivar];
+			diff /= this.network.getSigma()[ivar];
+			this.dsqr[ivar] = diff * diff;
+			dist += this.dsqr[ivar];
+		}
+
+		if (this.network.getKernel() == PNNKernelType.Gaussian) {
+			dist = Math.exp(-dist);
+		} else if (this.network.getKernel() == PNNKernelType.Reciprocal) {
+			dist = 1.0 / (1.0 + dist);
+		}
+
+		truedist = dist;
+		if (dist < 1.e-40) {
+			dist = 1.e-40;
+		}
+
+		if (this.network.getOutputMode() == PNNOutputMode.Classification) {
+			pop = (int) sampleIdeal[idealOffset];
+			out[pop] += dist;
+			vptr = pop * this.network.getInputCount();
+			wptr = pop * this.network.getInputCount();
+			for (ivar = 0; ivar < this.network.getInputCount(); ivar++) {
+				temp = truedist * this.dsqr[ivar];
+				this.v[vptr + ivar] += temp;
+				this.w[wptr + ivar] += temp * (2.0 * this.dsqr[ivar] - 3.0);
+			}
+		}
+
+		else if (this.network.getOutputMode() == PNNOutputMode.Unsupervised) {
+			for (ivar = 0; ivar < this.network.getInputCount(); ivar++) {
+				out[ivar] += dist * sampleInput[inputOffset + ivar];
+				temp = truedist * this.dsqr[ivar];
+				this.v[vsptr + ivar] += temp;
+				this.w[wsptr + ivar] += temp * (2.0 * this.dsqr[ivar] - 3.0);
+			}
+			vptr = 0;
+			wptr = 0;
+			for (outvar = 0; outvar < this.network.getOutputCount(); outvar++) {
+				for (ivar = 0; ivar < this.network.getInputCount(); ivar++) {
+					temp = truedist * this.dsqr[ivar] * sampleInput[inputOffset + ivar];
+					this.v[vptr++] += temp;
+					this.w[wptr++] += temp * (2.0 * this.dsqr[ivar] - 3.0);
+				}
+			}
+			result = dist;
+		} else if (this.network.getOutputMode() == PNNOutputMode.Regression) {
+
+			for (ivar = 0; ivar < this.network.getOutputCount(); ivar++) {
+				out[ivar] += dist * sampleIdeal[idealOffset + ivar];
+			}
+			vptr = 0;
+			wptr = 0;
+			for (outvar = 0; outvar < this.network.getOutputCount(); outvar++) {
+				for (ivar = 0; ivar < this.network.getInputCount(); ivar++) {
+					temp = truedist * this.dsqr[ivar] * sampleIdeal[idealOffset + outvar];
+					this.v[vptr++] += temp;
+					this.w[wptr++] += temp * (2.0 * this.dsqr[ivar] - 3.0);
+				}
+			}
+			for (ivar = 0; ivar < this.network.getInputCount(); ivar++) {
+				temp = truedist * this.dsqr[ivar];
+				this.v[vsptr + ivar] += temp;
+				this.w[wsptr + ivar] += temp * (2.0 * this.dsqr[ivar] - 3.0);
+			}
+			result = dist;
+		}
+
+		return result;
+	}
+
 	/**
 	 * @return the maxError
 	 */
@@ -0,0 +1,75 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.neural.networks.training.propagation;
+
+import org.encog.mathutil.error.ErrorCalculation;
+import org.encog.util.concurrency.EngineTask;
+
+/**
+ * A worker that calculates the gradients for a range of the training data
+ * into its own buffer. The buffer may hold doubles or floats, the owner only
+ * sees it through addGradients, which sums a stripe of it into the double
+ * gradients of the trainer.
+ */
+interface BatchGradientWorker extends EngineTask {
+
+	/**
+	 * Set the range of the training data that this worker processes.
+	 *
+	 * @param theLow
+	 *            The low index to use in the training data.
+	 * @param theHigh
+	 *            The high index to use in the training data.
+	 */
+	void setRange(int theLow, int theHigh);
+
+	/**
+	 * Calculate the gradients for the current index range as one part of a
+	 * mini-batch. The error calculation is not reset.
+	 */
+	void runBatch();
+
+	/**
+	 * @return The error from the last call to run.
+	 */
+	double getError();
+
+	/**
+	 * @return The error calculation for this worker.
+	 */
+	ErrorCalculation getErrorCalculation();
+
+	/**
+	 * Add one stripe of this worker's gradient buffer to the specified
+	 * gradients, and clear that stripe of the buffer.
+	 *
+	 * @param target
+	 *            The gradients to add to.
+	 * @param low
+	 *            The first weight index of the stripe.
+	 * @param high
+	 *            The weight index after the end of the stripe.
+	 */
+	void addGradients(double[] target, int low, int high);
+}
@@ -0,0 +1,324 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.neural.networks.training.propagation;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.encog.engine.network.activation.ActivationFunction;
+import org.encog.mathutil.error.ErrorCalculation;
+import org.encog.ml.data.MLDataPair;
+import org.encog.ml.data.MLDataSet;
+import org.encog.ml.data.basic.BasicMLDataPair;
+import org.encog.neural.flat.FlatNetworkFloat;
+
+/**
+ * Calculates the gradients for a range of the training data on a single
+ * precision network. The forward pass, the layer deltas and the gradients are
+ * all held as floats, the training data is rounded to float as each record is
+ * read. The error on the output layer is calculated the same way as
+ * LinearErrorFunction.
+ *
+ * The gradients are accumulated into this worker's own buffer, the owner sums
+ * the buffers of all of the workers once they have finished.
+ */
+public class FloatGradientWorker implements BatchGradientWorker {
+
+	/**
+	 * Used to generate randomness for dropout.
+	 */
+	private final Random dropoutRandomSource = new Random();
+
+	/**
+	 * The network to train.
+	 */
+	private final FlatNetworkFloat network;
+
+	/**
+	 * The error calculation method.
+	 */
+	private final ErrorCalculation errorCalculation = new ErrorCalculation();
+
+	/**
+	 * The input, rounded to float.
+	 */
+	private final float[] input;
+
+	/**
+	 * The actual values from the neural network.
+	 */
+	private final float[] actual;
+
+	/**
+	 * The actual values, widened for the error calculation.
+	 */
+	private final double[] actualDouble;
+
+	/**
+	 * The deltas for each layer.
+	 */
+	private final float[] layerDelta;
+
+	/**
+	 * The gradients.
+	 */
+	private final float[] gradients;
+
+	/**
+	 * The pair to use for training.
+	 */
+	private final MLDataPair pair;
+
+	/**
+	 * The training data.
+	 */
+	private final MLDataSet training;
+
+	/**
+	 * The low end of the training data.
+	 */
+	private int low;
+
+	/**
+	 * The high end of the training data.
+	 */
+	private int high;
+
+	/**
+	 * The owner.
+	 */
+	private final FloatPropagation owner;
+
+	/**
+	 * Derivative add constant. Used to combat flat spot.
+	 */
+	private final double[] flatSpot;
+
+	/**
+	 * The error from the last call to run.
+	 */
+	private double error;
+
+	/**
+	 * Construct a gradient worker.
+	 *
+	 * @param theNetwork
+	 *            The network to train, this worker's own clone.
+	 * @param theOwner
+	 *            The owner that is doing the training.
+	 * @param theTraining
+	 *            The training data.
+	 * @param theLow
+	 *            The low index to use in the training data.
+	 * @param theHigh
+	 *            The high index to use in the training data.
+	 * @param theFlatSpot
+	 *            The flat spot constants.
+	 */
+	public FloatGradientWorker(final FlatNetworkFloat theNetwork, final FloatPropagation theOwner,
+			final MLDataSet theTraining, final int theLow, final int theHigh, final double[] theFlatSpot) {
+		this.network = theNetwork;
+		this.owner = theOwner;
+		this.training = theTraining;
+		this.low = theLow;
+		this.high = theHigh;
+		this.flatSpot = theFlatSpot;
+
+		this.layerDelta = new float[theNetwork.getLayerOutput().length];
+		this.gradients = new float[theNetwork.getWeights().length];
+		this.input = new float[theNetwork.getInputCount()];
+		this.actual = new float[theNetwork.getOutputCount()];
+		this.actualDouble = new double[theNetwork.getOutputCount()];
+
+		this.pair = BasicMLDataPair.createPair(theNetwork.getInputCount(), theNetwork.getOutputCount());
+	}
+
+	/**
+	 * Process one training set element.
+	 *
+	 * @param pair
+	 *            The training data information.
+	 */
+	public void process(final MLDataPair pair) {
+		final double[] inputData = pair.getInputArray();
+		for (int i = 0; i < this.input.length; i++) {
+			this.input[i] = (float) inputData[i];
+		}
+
+		this.network.compute(this.input, this.actual);
+
+		for (int i = 0; i < this.actual.length; i++) {
+			this.actualDouble[i] = this.actual[i];
+		}
+
+		final double[] ideal = pair.getIdealArray();
+		final double significance = pair.getSignificance();
+		this.errorCalculation.updateError(this.actualDouble, ideal, significance);
+
+		// Calculate error for the output layer.
+		final ActivationFunction af = this.network.getActivationFunctions()[0];
+		final float[] layerSums = this.network.getLayerSums();
+		final float[] layerOutput = this.network.getLayerOutput();
+		for (int i = 0; i < this.actual.length; i++) {
+			final double deriv = af.derivativeFunction(layerSums[i], layerOutput[i]);
+			this.layerDelta[i] = (float) (((ideal[i] - this.actual[i]) * significance) * deriv);
+		}
+
+		// Propagate backwards (chain rule from calculus).
+		for (int i = this.network.getBeginTraining(); i < this.network.getEndTraining(); i++) {
+			this.processLevel(i);
+		}
+	}
+
+	/**
+	 * Process one level.
+	 *
+	 * @param currentLevel
+	 *            The level.
+	 */
+	private void processLevel(final int currentLevel) {
+		final int[] layerIndex = this.network.getLayerIndex();
+		final int fromLayerIndex = layerIndex[currentLevel + 1];
+		final int toLayerIndex = layerIndex[currentLevel];
+		final int fromLayerSize = this.network.getLayerCounts()[currentLevel + 1];
+		final int toLayerSize = this.network.getLayerFeedCounts()[currentLevel];
+		final double[] layerDropoutRates = this.network.getLayerDropoutRates();
+		double dropoutRate = 0;
+		if (layerDropoutRates.length > currentLevel) {
+			dropoutRate = layerDropoutRates[currentLevel];
+		}
+
+		final int index = this.network.getWeightIndex()[currentLevel];
+		final ActivationFunction activation = this.network.getActivationFunctions()[currentLevel];
+		final float currentFlatSpot = (float) this.flatSpot[currentLevel + 1];
+
+		// array references are made method local to avoid one indirection
+		final float[] layerDelta = this.layerDelta;
+		final float[] weights = this.network.getWeights();
+		final float[] gradients = this.gradients;
+		final float[] layerOutput = this.network.getLayerOutput();
+		final float[] layerSums = this.network.getLayerSums();
+		final int loopEnd = toLayerIndex + toLayerSize;
+		int yi = fromLayerIndex;
+		for (int y = 0; y < fromLayerSize; y++) {
+			final float output = layerOutput[yi];
+			float sum = 0;
+
+			int wi = index + y;
+			if (dropoutRate == 0 || this.dropoutRandomSource.nextDouble() > dropoutRate) {
+				for (int xi = toLayerIndex; xi < loopEnd; xi++, wi += fromLayerSize) {
+					gradients[wi] += output * layerDelta[xi];
+					sum += weights[wi] * layerDelta[xi];
+				}
+				layerDelta[yi] = sum
+						* ((float) activation.derivativeFunction(layerSums[yi], layerOutput[yi]) + currentFlatSpot);
+			} else {
+				layerDelta[yi] = 0;
+			}
+			yi++;
+		}
+	}
+
+	/**
+	 * Perform the gradient calculation for the specified index range. Only an
+	 * exception is reported to the owner.
+	 */
+	@Override
+	public final void run() {
+		try {
+			this.errorCalculation.reset();
+			this.runBatch();
+			this.error = this.errorCalculation.calculate();
+		} catch (final Throwable ex) {
+			this.owner.report(ex);
+		}
+	}
+
+	/**
+	 * Calculate the gradients for the current index range as one part of a
+	 * mini-batch. The error calculation is not reset.
+	 */
+	public final void runBatch() {
+		try {
+			for (int i = this.low; i <= this.high; i++) {
+				this.training.getRecord(i, this.pair);
+				this.process(this.pair);
+			}
+		} catch (final Throwable ex) {
+			this.owner.report(ex);
+		}
+	}
+
+	/**
+	 * Set the range of the training data that this worker processes.
+	 *
+	 * @param theLow
+	 *            The low index to use in the training data.
+	 * @param theHigh
+	 *            The high index to use in the training data.
+	 */
+	public void setRange(final int theLow, final int theHigh) {
+		this.low = theLow;
+		this.high = theHigh;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void addGradients(final double[] target, final int low, final int high) {
+		for (int i = low; i < high; i++) {
+			target[i] += this.gradients[i];
+		}
+		Arrays.fill(this.gradients, low, high, 0);
+	}
+
+	/**
+	 * @return The error from the last call to run.
+	 */
+	public double getError() {
+		return this.error;
+	}
+
+	/**
+	 * @return The error calculation for this worker.
+	 */
+	public ErrorCalculation getErrorCalculation() {
+		return this.errorCalculation;
+	}
+
+	/**
+	 * @return The gradients accumulated by this worker.
+	 */
+	public float[] getGradients() {
+		return this.gradients;
+	}
+
+	/**
+	 * @return The network being trained by this worker.
+	 */
+	public FlatNetworkFloat getNetwork() {
+		return this.network;
+	}
+}
@@ -0,0 +1,311 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.neural.networks.training.propagation;
+
+import org.encog.EncogError;
+import org.encog.mathutil.IntRange;
+import org.encog.ml.MLMethod;
+import org.encog.ml.TrainingImplementationType;
+import org.encog.ml.data.MLDataSet;
+import org.encog.ml.train.BasicTraining;
+import org.encog.neural.flat.FlatNetworkFloat;
+import org.encog.neural.networks.training.BatchSize;
+import org.encog.neural.networks.training.TrainingError;
+import org.encog.util.concurrency.DetermineWorkload;
+import org.encog.util.concurrency.MultiThreadable;
+import org.encog.util.logging.EncogLogging;
+
+/**
+ * Implements propagation training for a single precision network. This works
+ * the same way as Propagation, the workers calculate float gradients for their
+ * part of the training data, and these are summed into double gradients before
+ * the weights are updated. The update rule is provided by the subclass.
+ *
+ * The workers share the weights of the network being trained, so no copy is
+ * needed between iterations. Pure batch (batch size 0) and mini-batch training
+ * are supported, regularization and continuation are not.
+ */
+public abstract class FloatPropagation extends BasicTraining implements MultiThreadable, BatchSize {
+
+	/**
+	 * The network being trained.
+	 */
+	private final FlatNetworkFloat network;
+
+	/**
+	 * The training data.
+	 */
+	private final MLDataSet indexable;
+
+	/**
+	 * The gradients, summed from the workers.
+	 */
+	private final double[] gradients;
+
+	/**
+	 * The last gradients, from the last training iteration.
+	 */
+	private final double[] lastGradient;
+
+	/**
+	 * Runs the workers and sums their gradients.
+	 */
+	private GradientBatchProcessor processor;
+
+	/**
+	 * The number of threads to use.
+	 */
+	private int numThreads;
+
+	/**
+	 * The batch size, 0 for pure batch training.
+	 */
+	private int batchSize;
+
+	/**
+	 * Should we fix flat spots.
+	 */
+	private boolean shouldFixFlatSpot = true;
+
+	/**
+	 * Reported exception from the threads.
+	 */
+	private volatile Throwable reportedException;
+
+	/**
+	 * Construct a single precision propagation trainer.
+	 *
+	 * @param theNetwork
+	 *            The network to train.
+	 * @param theTraining
+	 *            The training data.
+	 */
+	public FloatPropagation(final FlatNetworkFloat theNetwork, final MLDataSet theTraining) {
+		super(TrainingImplementationType.Iterative);
+		this.network = theNetwork;
+		this.indexable = theTraining;
+		this.setTraining(theTraining);
+		this.gradients = new double[theNetwork.getWeights().length];
+		this.lastGradient = new double[theNetwork.getWeights().length];
+	}
+
+	/**
+	 * Init the workers.
+	 */
+	private void init() {
+		final double[] flatSpot = GradientBatchProcessor.createFlatSpot(this.network.getActivationFunctions(),
+				this.shouldFixFlatSpot);
+
+		int threadCount = this.numThreads;
+		int workloadSize = (int) this.indexable.getRecordCount();
+
+		if (this.batchSize != 0) {
+			workloadSize = Math.min(this.batchSize, workloadSize);
+		}
+		if ((this.batchSize == 1) || this.network.getHasContext()) {
+			threadCount = 1;
+		}
+
+		final DetermineWorkload determine = new DetermineWorkload(threadCount, workloadSize);
+
+		final FloatGradientWorker[] workers = new FloatGradientWorker[determine.getThreadCount()];
+
+		int index = 0;
+
+		for (final IntRange r : determine.calculateWorkers()) {
+			final FlatNetworkFloat clone = (index == 0) ? this.network : this.network.clone();
+			workers[index++] = new FloatGradientWorker(clone, this, this.indexable.openAdditional(), r.getLow(),
+					r.getHigh(), flatSpot);
+		}
+
+		this.processor = new GradientBatchProcessor(workers, this.gradients) {
+			@Override
+			protected boolean hasFailed() {
+				return FloatPropagation.this.reportedException != null;
+			}
+
+			@Override
+			protected void learn() {
+				FloatPropagation.this.learn();
+			}
+		};
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void iteration() {
+		if (this.processor == null) {
+			this.init();
+		}
+
+		this.preIteration();
+
+		if (this.network.getHasContext()) {
+			this.network.clearContext();
+		}
+
+		if (this.batchSize == 0) {
+			this.setError(this.processor.calculateGradients());
+			this.learn();
+		} else {
+			this.setError(this.processor.processBatches((int) this.indexable.getRecordCount(), this.batchSize));
+		}
+
+		if (this.reportedException != null) {
+			throw new EncogError(this.reportedException);
+		}
+
+		this.postIteration();
+
+		EncogLogging.log(EncogLogging.LEVEL_INFO, "Training iteration done, error: " + this.getError());
+	}
+
+	/**
+	 * Apply the gradients to the weights.
+	 */
+	protected void learn() {
+		final float[] weights = this.network.getWeights();
+		for (int i = 0; i < this.gradients.length; i++) {
+			weights[i] += (float) this.updateWeight(this.gradients, this.lastGradient, i);
+			this.gradients[i] = 0;
+		}
+	}
+
+	/**
+	 * Update a weight, the means by which weights are updated vary depending on
+	 * the training.
+	 *
+	 * @param gradients
+	 *            The gradients.
+	 * @param lastGradient
+	 *            The last gradients.
+	 * @param index
+	 *            The index.
+	 * @return The update value.
+	 */
+	public abstract double updateWeight(double[] gradients, double[] lastGradient, int index);
+
+	/**
+	 * Report an exception from a worker.
+	 *
+	 * @param ex
+	 *            The exception.
+	 */
+	public void report(final Throwable ex) {
+		this.reportedException = ex;
+	}
+
+	/**
+	 * Default is true. Call this with false to disable flat spot fix.
+	 *
+	 * @param b
+	 *            True to fix flat spots, false otherwise.
+	 */
+	public void fixFlatSpot(final boolean b) {
+		this.shouldFixFlatSpot = b;
+		this.processor = null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean canContinue() {
+		return false;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public TrainingContinuation pause() {
+		return null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void resume(final TrainingContinuation state) {
+		throw new TrainingError("Single precision training can not be resumed.");
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public MLMethod getMethod() {
+		return this.network;
+	}
+
+	/**
+	 * @return The network being trained.
+	 */
+	public FlatNetworkFloat getNetwork() {
+		return this.network;
+	}
+
+	/**
+	 * @return The last gradients.
+	 */
+	public double[] getLastGradient() {
+		return this.lastGradient;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getBatchSize() {
+		return this.batchSize;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setBatchSize(final int theBatchSize) {
+		this.batchSize = theBatchSize;
+		this.processor = null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getThreadCount() {
+		return this.numThreads;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setThreadCount(final int theThreadCount) {
+		this.numThreads = theThreadCount;
+		this.processor = null;
+	}
+}
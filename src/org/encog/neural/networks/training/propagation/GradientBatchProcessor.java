@@ -0,0 +1,256 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.neural.networks.training.propagation;
+
+import org.encog.engine.network.activation.ActivationFunction;
+import org.encog.engine.network.activation.ActivationSigmoid;
+import org.encog.mathutil.error.ErrorCalculation;
+import org.encog.util.concurrency.EngineConcurrency;
+import org.encog.util.concurrency.EngineTask;
+import org.encog.util.concurrency.TaskGroup;
+
+/**
+ * Runs the gradient workers of a propagation trainer and sums their gradients.
+ * This is shared by Propagation and FloatPropagation, which only differ in the
+ * type of the worker buffers and in how the weights are updated.
+ *
+ * A pure batch runs every worker over its own part of the training set. A
+ * mini-batch is split between the workers, and the weights are updated once
+ * per batch. The worker buffers are summed into the gradients in stripes of
+ * the weight range, each stripe reduced by its own task, so no two tasks
+ * write to the same element and no lock is needed.
+ */
+abstract class GradientBatchProcessor {
+
+	/**
+	 * The workers.
+	 */
+	private final BatchGradientWorker[] workers;
+
+	/**
+	 * The gradients, summed from the workers.
+	 */
+	private final double[] gradients;
+
+	/**
+	 * Construct the processor.
+	 *
+	 * @param theWorkers
+	 *            The workers.
+	 * @param theGradients
+	 *            The gradients to sum the worker buffers into.
+	 */
+	GradientBatchProcessor(final BatchGradientWorker[] theWorkers, final double[] theGradients) {
+		this.workers = theWorkers;
+		this.gradients = theGradients;
+	}
+
+	/**
+	 * @return True if a worker has reported an exception.
+	 */
+	protected abstract boolean hasFailed();
+
+	/**
+	 * Apply the gradients to the weights, and clear the gradients.
+	 */
+	protected abstract void learn();
+
+	/**
+	 * Calculate the gradients of the complete training set. Each worker
+	 * processes the range it was created with. The weights are not updated.
+	 *
+	 * @return The average error of the workers.
+	 */
+	public double calculateGradients() {
+		if (this.workers.length > 1) {
+			final TaskGroup group = EngineConcurrency.getInstance().createTaskGroup();
+
+			for (final BatchGradientWorker worker : this.workers) {
+				EngineConcurrency.getInstance().processTask(worker, group);
+			}
+
+			group.waitForComplete();
+		} else {
+			this.workers[0].run();
+		}
+
+		this.reduceGradients(this.workers.length);
+
+		double totalError = 0;
+		for (final BatchGradientWorker worker : this.workers) {
+			totalError += worker.getError();
+		}
+		return totalError / this.workers.length;
+	}
+
+	/**
+	 * Process the training set as a series of mini-batches. Each batch is
+	 * split between the workers, the partial gradients are summed, and then
+	 * the weights are updated once per batch. Processing stops at the first
+	 * batch in which a worker fails.
+	 *
+	 * @param recordCount
+	 *            The number of records in the training set.
+	 * @param batchSize
+	 *            The number of records in each batch.
+	 * @return The error over every record of the training set.
+	 */
+	public double processBatches(final int recordCount, final int batchSize) {
+		for (final BatchGradientWorker worker : this.workers) {
+			worker.getErrorCalculation().reset();
+		}
+
+		for (int start = 0; start < recordCount; start += batchSize) {
+			final int end = Math.min(start + batchSize, recordCount) - 1;
+			this.calculateBatchGradients(start, end);
+
+			if (this.hasFailed()) {
+				return Double.NaN;
+			}
+
+			this.learn();
+		}
+
+		// the workers process different numbers of records, so their sums are
+		// combined before the error is calculated
+		final ErrorCalculation error = new ErrorCalculation();
+		for (final BatchGradientWorker worker : this.workers) {
+			error.merge(worker.getErrorCalculation());
+		}
+		return error.calculate();
+	}
+
+	/**
+	 * Calculate the gradients for a single mini-batch, splitting it between
+	 * the workers.
+	 *
+	 * @param low
+	 *            The first record in the batch.
+	 * @param high
+	 *            The last record in the batch.
+	 */
+	private void calculateBatchGradients(final int low, final int high) {
+		final int count = (high - low) + 1;
+		final int threads = Math.min(this.workers.length, count);
+
+		if (threads == 1) {
+			this.workers[0].setRange(low, high);
+			this.workers[0].runBatch();
+			this.reduceGradients(1);
+			return;
+		}
+
+		final int sizePerThread = count / threads;
+		final TaskGroup group = EngineConcurrency.getInstance().createTaskGroup();
+
+		for (int i = 0; i < threads; i++) {
+			final BatchGradientWorker worker = this.workers[i];
+			final int workerLow = low + (i * sizePerThread);
+			final int workerHigh = (i == (threads - 1)) ? high : (workerLow + sizePerThread) - 1;
+			worker.setRange(workerLow, workerHigh);
+			EngineConcurrency.getInstance().processTask(new EngineTask() {
+				@Override
+				public void run() {
+					worker.runBatch();
+				}
+			}, group);
+		}
+
+		group.waitForComplete();
+		this.reduceGradients(threads);
+	}
+
+	/**
+	 * Sum the gradient buffers of the workers into the gradients, and clear
+	 * the worker buffers. This must only be called once the workers have
+	 * finished.
+	 *
+	 * @param workerCount
+	 *            The number of workers, from the first, that hold gradients.
+	 */
+	private void reduceGradients(final int workerCount) {
+		final int length = this.gradients.length;
+		final int stripes = Math.min(workerCount, Math.max(1, length / Propagation.MIN_REDUCE_STRIPE));
+
+		if (stripes == 1) {
+			this.reduceGradients(workerCount, 0, length);
+			return;
+		}
+
+		final int sizePerStripe = length / stripes;
+		final TaskGroup group = EngineConcurrency.getInstance().createTaskGroup();
+
+		for (int i = 0; i < stripes; i++) {
+			final int low = i * sizePerStripe;
+			final int high = (i == (stripes - 1)) ? length : (low + sizePerStripe);
+			EngineConcurrency.getInstance().processTask(new EngineTask() {
+				@Override
+				public void run() {
+					GradientBatchProcessor.this.reduceGradients(workerCount, low, high);
+				}
+			}, group);
+		}
+
+		group.waitForComplete();
+	}
+
+	/**
+	 * Sum one stripe of the worker gradient buffers into the gradients.
+	 *
+	 * @param workerCount
+	 *            The number of workers, from the first, that hold gradients.
+	 * @param low
+	 *            The first weight index of the stripe.
+	 * @param high
+	 *            The weight index after the end of the stripe.
+	 */
+	private void reduceGradients(final int workerCount, final int low, final int high) {
+		for (int w = 0; w < workerCount; w++) {
+			this.workers[w].addGradients(this.gradients, low, high);
+		}
+	}
+
+	/**
+	 * Determine the flat spot constant of each layer.
+	 *
+	 * @param activationFunctions
+	 *            The activation function of each layer.
+	 * @param fixFlatSpot
+	 *            True to fix flat spots, false otherwise.
+	 * @return The flat spot constants, 0.1 for sigmoid layers when fixing
+	 *         flat spots, otherwise zero.
+	 */
+	public static double[] createFlatSpot(final ActivationFunction[] activationFunctions,
+			final boolean fixFlatSpot) {
+		final double[] result = new double[activationFunctions.length];
+		if (fixFlatSpot) {
+			for (int i = 0; i < activationFunctions.length; i++) {
+				if (activationFunctions[i] instanceof ActivationSigmoid) {
+					result[i] = 0.1;
+				}
+			}
+		}
+		return result;
+	}
+}
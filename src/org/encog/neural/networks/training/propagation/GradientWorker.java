@@ -23,6 +23,7 @@
  */
 package org.encog.neural.networks.training.propagation;
 
+import java.util.Arrays;
 import java.util.Random;
 
 import org.encog.Encog;
@@ -33,13 +34,13 @@ import org.encog.ml.data.MLDataSet;
 import org.encog.ml.data.basic.BasicMLDataPair;
 import org.encog.neural.error.ErrorFunction;
 import org.encog.neural.flat.FlatNetwork;
+import org.encog.neural.flat.LayerKernel;
 import org.encog.util.EngineArray;
-import org.encog.util.concurrency.EngineTask;
 
 /**
  * Worker class for the mulithreaded training of flat networks.
  */
-public class GradientWorker implements EngineTask {
+public class GradientWorker implements BatchGradientWorker {
 
 	/**
 	 * Used to generate randomness for dropout
@@ -117,14 +118,14 @@ public class GradientWorker implements EngineTask {
 	private final MLDataSet training;
 
 	/**
-	 * The high end of the training data.
+	 * The low end of the training data.
 	 */
-	private final int low;
+	private int low;
 
 	/**
-	 * The low end of the training.
+	 * The high end of the training data.
 	 */
-	private final int high;
+	private int high;
 
 	/**
 	 * The owner.
@@ -143,6 +144,27 @@ public class GradientWorker implements EngineTask {
 
 	private double[] layerDropoutRates;
 
+	/**
+	 * The weighted sum of the deltas for each neuron of the level being
+	 * processed.
+	 */
+	private final double[] levelSums;
+
+	/**
+	 * The outputs of the level being processed, with dropped neurons zeroed.
+	 */
+	private final double[] maskedOutput;
+
+	/**
+	 * The neurons of the level being processed that were not dropped.
+	 */
+	private final boolean[] dropoutMask;
+
+	/**
+	 * The error from the last call to run.
+	 */
+	private double error;
+
 	/**
 	 * Construct a gradient worker.
 	 *
@@ -180,6 +202,14 @@ public class GradientWorker implements EngineTask {
 		this.layerSums = this.network.getLayerSums();
 		this.layerFeedCounts = this.network.getLayerFeedCounts();
 
+		int maxLayer = 0;
+		for (final int count : this.layerCounts) {
+			maxLayer = Math.max(maxLayer, count);
+		}
+		this.levelSums = new double[maxLayer];
+		this.maskedOutput = new double[maxLayer];
+		this.dropoutMask = new boolean[maxLayer];
+
 		this.pair = BasicMLDataPair.createPair(this.network.getInputCount(), this.network.getOutputCount());
 	}
 
@@ -248,27 +278,43 @@ public class GradientWorker implements EngineTask {
 		final ActivationFunction activation = this.network.getActivationFunctions()[currentLevel];
 		final double currentFlatSpot = this.flatSpot[currentLevel + 1];
 
-		// handle weights
 		// array references are made method local to avoid one indirection
 		final double[] layerDelta = this.layerDelta;
 		final double[] weights = this.weights;
 		final double[] gradients = this.gradients;
-		final double[] layerOutput = this.layerOutput;
 		final double[] layerSums = this.layerSums;
+		final double[] levelSums = this.levelSums;
+		final LayerKernel kernel = Encog.getInstance().getLayerKernel();
+
+		// A neuron that is dropped out takes no part in this level, its
+		// output is masked to zero so that its gradients are not changed.
+		double[] layerOutput = this.layerOutput;
+		int outputIndex = fromLayerIndex;
+		if (dropoutRate != 0) {
+			for (int y = 0; y < fromLayerSize; y++) {
+				final boolean kept = this.dropoutRandomSource.nextDouble() > dropoutRate;
+				this.dropoutMask[y] = kept;
+				this.maskedOutput[y] = kept ? layerOutput[fromLayerIndex + y] : 0;
+			}
+			layerOutput = this.maskedOutput;
+			outputIndex = 0;
+		}
+
+		// Walk the weights one row, the weights into one neuron of the lower
+		// layer, at a time so that every access is contiguous.
+		Arrays.fill(levelSums, 0, fromLayerSize, 0);
+		int wi = index;
+		for (int xi = toLayerIndex; xi < toLayerIndex + toLayerSize; xi++, wi += fromLayerSize) {
+			final double delta = layerDelta[xi];
+			kernel.axpy(delta, layerOutput, outputIndex, gradients, wi, fromLayerSize);
+			kernel.axpy(delta, weights, wi, levelSums, 0, fromLayerSize);
+		}
+
 		int yi = fromLayerIndex;
 		for (int y = 0; y < fromLayerSize; y++) {
-			final double output = layerOutput[yi];
-			double sum = 0;
-
-			int wi = index + y;
-			final int loopEnd = toLayerIndex + toLayerSize;
-			if (dropoutRate == 0 || this.dropoutRandomSource.nextDouble() > dropoutRate) {
-				for (int xi = toLayerIndex; xi < loopEnd; xi++, wi += fromLayerSize) {
-					gradients[wi] += output * layerDelta[xi];
-					sum += weights[wi] * layerDelta[xi];
-				}
-				layerDelta[yi] = sum
-						* (activation.derivativeFunction(layerSums[yi], layerOutput[yi]) + currentFlatSpot);
+			if (dropoutRate == 0 || this.dropoutMask[y]) {
+				layerDelta[yi] = levelSums[y]
+						* (activation.derivativeFunction(layerSums[yi], this.layerOutput[yi]) + currentFlatSpot);
 			} else {
 				layerDelta[yi] = 0;
 			}
@@ -277,7 +323,10 @@ public class GradientWorker implements EngineTask {
 	}
 
 	/**
-	 * Perform the gradient calculation for the specified index range.
+	 * Perform the gradient calculation for the specified index range. The
+	 * gradients are accumulated into this worker's own gradient buffer, and
+	 * are left there for the owner to reduce once every worker has finished.
+	 * Only an exception is reported to the owner.
 	 */
 	@Override
 	public final void run() {
@@ -287,14 +336,42 @@ public class GradientWorker implements EngineTask {
 				this.training.getRecord(i, this.pair);
 				this.process(this.pair);
 			}
-			final double error = this.errorCalculation.calculate();
-			this.owner.report(this.gradients, error, null);
-			EngineArray.fill(this.gradients, 0);
+			this.error = this.errorCalculation.calculate();
+		} catch (final Throwable ex) {
+			this.owner.report(null, 0, ex);
+		}
+	}
+
+	/**
+	 * Calculate the gradients for the current index range as one part of a
+	 * mini-batch. Unlike run, the error calculation is not reset, so that the
+	 * error accumulates across all of the batches of an iteration. As with
+	 * run, the gradients are left in this worker's gradient buffer.
+	 */
+	public final void runBatch() {
+		try {
+			for (int i = this.low; i <= this.high; i++) {
+				this.training.getRecord(i, this.pair);
+				this.process(this.pair);
+			}
 		} catch (final Throwable ex) {
 			this.owner.report(null, 0, ex);
 		}
 	}
 
+	/**
+	 * Set the range of the training data that this worker processes.
+	 *
+	 * @param theLow
+	 *            The low index to use in the training data.
+	 * @param theHigh
+	 *            The high index to use in the training data.
+	 */
+	public void setRange(final int theLow, final int theHigh) {
+		this.low = theLow;
+		this.high = theHigh;
+	}
+
 	public final void run(int index) {
 		this.training.getRecord(index, this.pair);
 		this.process(this.pair);
@@ -302,6 +379,13 @@ public class GradientWorker implements EngineTask {
 		EngineArray.fill(this.gradients, 0);
 	}
 
+	/**
+	 * @return The error from the last call to run.
+	 */
+	public double getError() {
+		return this.error;
+	}
+
 	public ErrorCalculation getErrorCalculation() {
 		return this.errorCalculation;
 	}
@@ -313,6 +397,17 @@ public class GradientWorker implements EngineTask {
 		return this.gradients;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void addGradients(final double[] target, final int low, final int high) {
+		for (int i = low; i < high; i++) {
+			target[i] += this.gradients[i];
+		}
+		Arrays.fill(this.gradients, low, high, 0);
+	}
+
 	public void calculateRegularizationPenalty(double[] l) {
 		for (int i = 0; i < this.network.getLayerCounts().length - 1; i++) {
 			this.layerRegularizationPenalty(i, l);
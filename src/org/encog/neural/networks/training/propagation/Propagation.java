@@ -26,8 +26,6 @@ package org.encog.neural.networks.training.propagation;
 import java.util.Random;
 
 import org.encog.EncogError;
-import org.encog.engine.network.activation.ActivationFunction;
-import org.encog.engine.network.activation.ActivationSigmoid;
 import org.encog.mathutil.IntRange;
 import org.encog.ml.MLMethod;
 import org.encog.ml.TrainingImplementationType;
@@ -42,9 +40,7 @@ import org.encog.neural.networks.training.Train;
 import org.encog.util.EncogValidate;
 import org.encog.util.EngineArray;
 import org.encog.util.concurrency.DetermineWorkload;
-import org.encog.util.concurrency.EngineConcurrency;
 import org.encog.util.concurrency.MultiThreadable;
-import org.encog.util.concurrency.TaskGroup;
 import org.encog.util.logging.EncogLogging;
 
 /**
@@ -104,14 +100,20 @@ public abstract class Propagation extends BasicTraining
 	private GradientWorker[] workers;
 
 	/**
-	 * The total error. Used to take the average of.
+	 * Runs the workers and sums their gradients.
 	 */
-	private double totalError;
+	private GradientBatchProcessor processor;
+
+	/**
+	 * The minimum number of weights that each gradient reduction task should
+	 * sum. Smaller networks are reduced on the calling thread.
+	 */
+	public static final int MIN_REDUCE_STRIPE = 4096;
 
 	/**
 	 * Reported exception from the threads.
 	 */
-	private Throwable reportedException;
+	private volatile Throwable reportedException;
 
 	/**
 	 * The flat spot constants.
@@ -244,7 +246,14 @@ public abstract class Propagation extends BasicTraining
 	 */
 	private void processPureBatch() {
 		this.calculateGradients();
+		this.applyGradients();
+	}
 
+	/**
+	 * Apply the gradients to the weights, with learnLimited if the network
+	 * has a connection limit.
+	 */
+	private void applyGradients() {
 		if (this.currentFlatNetwork.isLimited()) {
 			this.learnLimited();
 		} else {
@@ -252,6 +261,11 @@ public abstract class Propagation extends BasicTraining
 		}
 	}
 
+	/**
+	 * Process the training set as a series of mini-batches. Each batch is
+	 * split between the workers, the partial gradients are summed, and then
+	 * the weights are updated once per batch.
+	 */
 	private void processBatches() {
 		if (this.workers == null) {
 			this.init();
@@ -261,32 +275,7 @@ public abstract class Propagation extends BasicTraining
 			this.workers[0].getNetwork().clearContext();
 		}
 
-		this.workers[0].getErrorCalculation().reset();
-
-		int lastLearn = 0;
-
-		for (int i = 0; i < this.getTraining().size(); i++) {
-			this.workers[0].run(i);
-
-			lastLearn++;
-
-			if (lastLearn++ >= this.batchSize) {
-				if (this.currentFlatNetwork.isLimited()) {
-					this.learnLimited();
-				} else {
-					this.learn();
-					lastLearn = 0;
-				}
-			}
-		}
-
-		// handle any remaining learning
-		if (lastLearn > 0) {
-			this.learn();
-		}
-
-		this.setError(this.workers[0].getErrorCalculation().calculate());
-
+		this.setError(this.processor.processBatches((int) this.indexable.getRecordCount(), this.batchSize));
 	}
 
 	/**
@@ -385,23 +374,7 @@ public abstract class Propagation extends BasicTraining
 			this.workers[0].getNetwork().clearContext();
 		}
 
-		this.totalError = 0;
-
-		if (this.workers.length > 1) {
-
-			final TaskGroup group = EngineConcurrency.getInstance().createTaskGroup();
-
-			for (final GradientWorker worker : this.workers) {
-				EngineConcurrency.getInstance().processTask(worker, group);
-			}
-
-			group.waitForComplete();
-		} else {
-			this.workers[0].run();
-		}
-
-		this.setError(this.totalError / this.workers.length);
-
+		this.setError(this.processor.calculateGradients());
 	}
 
 	/**
@@ -427,37 +400,26 @@ public abstract class Propagation extends BasicTraining
 	private void init() {
 
 		// fix flat spot, if needed
-		this.flatSpot = new double[this.currentFlatNetwork.getActivationFunctions().length];
-
-		if (this.shouldFixFlatSpot) {
-			for (int i = 0; i < this.currentFlatNetwork.getActivationFunctions().length; i++) {
-				final ActivationFunction af = this.currentFlatNetwork.getActivationFunctions()[i];
-
-				if (af instanceof ActivationSigmoid) {
-					this.flatSpot[i] = 0.1;
-				} else {
-					this.flatSpot[i] = 0.0;
-				}
-			}
-		} else {
-			EngineArray.fill(this.flatSpot, 0.0);
-		}
+		this.flatSpot = GradientBatchProcessor.createFlatSpot(this.currentFlatNetwork.getActivationFunctions(),
+				this.shouldFixFlatSpot);
 
 		// setup workers
 
-		// Do not use multi-threading for non-pure batch training.
-		//
-		// At some point it would be good to add multi-threading
-		// for batch-sizes that are large enough.
-		//
-		// Multi-threading cannot be added for pure (size 1)
-		// online training.
+		// Mini-batches are split between the workers, so the amount of work
+		// each thread gets is bounded by the batch size, not the training set
+		// size. Pure online (size 1) training, and networks with context
+		// neurons, must see the records in order and use a single thread.
+		int threadCount = this.numThreads;
+		int workloadSize = (int) this.indexable.getRecordCount();
+
 		if (this.batchSize != 0) {
-			this.numThreads = 1;
+			if ((this.batchSize == 1) || this.currentFlatNetwork.getHasContext()) {
+				threadCount = 1;
+			}
+			workloadSize = Math.min(this.batchSize, workloadSize);
 		}
 
-		final DetermineWorkload determine = new DetermineWorkload(this.numThreads,
-				(int) this.indexable.getRecordCount());
+		final DetermineWorkload determine = new DetermineWorkload(threadCount, workloadSize);
 
 		int actualThreadCount = determine.getThreadCount();
 
@@ -470,24 +432,42 @@ public abstract class Propagation extends BasicTraining
 					this.indexable.openAdditional(), r.getLow(), r.getHigh(), this.flatSpot, this.ef);
 		}
 
+		this.processor = new GradientBatchProcessor(this.workers, this.gradients) {
+			@Override
+			protected boolean hasFailed() {
+				return Propagation.this.reportedException != null;
+			}
+
+			@Override
+			protected void learn() {
+				Propagation.this.applyGradients();
+			}
+		};
+
 		this.initOthers();
 	}
 
 	/**
-	 * {@inheritDoc}
+	 * Report the gradients and error from a single record, or an exception
+	 * from a worker. The workers used by iteration do not report their
+	 * gradients here, they are reduced in parallel once all of the workers are
+	 * done, so this is only called concurrently to report an exception.
+	 *
+	 * @param gradients
+	 *            The gradients to add, or null if an exception is reported.
+	 * @param error
+	 *            The error.
+	 * @param ex
+	 *            The exception, or null for none.
 	 */
 	@Override
 	public void report(final double[] gradients, final double error, final Throwable ex) {
-		synchronized (this) {
-			if (ex == null) {
-
-				for (int i = 0; i < gradients.length; i++) {
-					this.gradients[i] += gradients[i];
-				}
-				this.totalError += error;
-			} else {
-				this.reportedException = ex;
+		if (ex == null) {
+			for (int i = 0; i < gradients.length; i++) {
+				this.gradients[i] += gradients[i];
 			}
+		} else {
+			this.reportedException = ex;
 		}
 	}
 
@@ -0,0 +1,132 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.neural.networks.training.propagation.resilient;
+
+import org.encog.mathutil.EncogMath;
+import org.encog.ml.data.MLDataSet;
+import org.encog.neural.flat.FlatNetworkFloat;
+import org.encog.neural.networks.training.propagation.FloatPropagation;
+
+/**
+ * Resilient propagation (RPROP+) for a single precision network. The step
+ * sizes and gradients are kept in double precision, only the weights are
+ * float.
+ */
+public class FloatResilientPropagation extends FloatPropagation {
+
+	/**
+	 * The update values, for the weights and thresholds.
+	 */
+	private final double[] updateValues;
+
+	/**
+	 * The last weight change.
+	 */
+	private final double[] lastWeightChange;
+
+	/**
+	 * The maximum amount a delta can reach.
+	 */
+	private final double maxStep;
+
+	/**
+	 * Construct an RPROP trainer, using the default initial update and max
+	 * step.
+	 *
+	 * @param network
+	 *            The network to train.
+	 * @param training
+	 *            The training data to use.
+	 */
+	public FloatResilientPropagation(final FlatNetworkFloat network, final MLDataSet training) {
+		this(network, training, RPROPConst.DEFAULT_INITIAL_UPDATE, RPROPConst.DEFAULT_MAX_STEP);
+	}
+
+	/**
+	 * Construct an RPROP trainer.
+	 *
+	 * @param network
+	 *            The network to train.
+	 * @param training
+	 *            The training data to use.
+	 * @param initialUpdate
+	 *            The initial update values.
+	 * @param theMaxStep
+	 *            The maximum that a delta can reach.
+	 */
+	public FloatResilientPropagation(final FlatNetworkFloat network, final MLDataSet training,
+			final double initialUpdate, final double theMaxStep) {
+		super(network, training);
+		this.maxStep = theMaxStep;
+		this.updateValues = new double[network.getWeights().length];
+		this.lastWeightChange = new double[network.getWeights().length];
+
+		for (int i = 0; i < this.updateValues.length; i++) {
+			this.updateValues[i] = initialUpdate;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double updateWeight(final double[] gradients, final double[] lastGradient, final int index) {
+		// multiply the current and previous gradient, and take the
+		// sign. We want to see if the gradient has changed its sign.
+		final int change = EncogMath.sign(gradients[index] * lastGradient[index]);
+		double weightChange = 0;
+
+		if (change > 0) {
+			double delta = this.updateValues[index] * RPROPConst.POSITIVE_ETA;
+			delta = Math.min(delta, this.maxStep);
+			weightChange = EncogMath.sign(gradients[index]) * delta;
+			this.updateValues[index] = delta;
+			lastGradient[index] = gradients[index];
+		} else if (change < 0) {
+			// the sign has changed, and the last delta was too big
+			double delta = this.updateValues[index] * RPROPConst.NEGATIVE_ETA;
+			delta = Math.max(delta, RPROPConst.DELTA_MIN);
+			this.updateValues[index] = delta;
+			weightChange = -this.lastWeightChange[index];
+			// set the previous gradient to zero so that there will be no
+			// adjustment the next iteration
+			lastGradient[index] = 0;
+		} else {
+			// no change, so just use the current update value
+			final double delta = this.updateValues[index];
+			weightChange = EncogMath.sign(gradients[index]) * delta;
+			lastGradient[index] = gradients[index];
+		}
+
+		this.lastWeightChange[index] = weightChange;
+		return weightChange;
+	}
+
+	/**
+	 * @return The RPROP update values.
+	 */
+	public double[] getUpdateValues() {
+		return this.updateValues;
+	}
+}
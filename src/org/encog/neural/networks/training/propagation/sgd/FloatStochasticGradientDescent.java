@@ -0,0 +1,129 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.neural.networks.training.propagation.sgd;
+
+import org.encog.ml.data.MLDataSet;
+import org.encog.neural.flat.FlatNetworkFloat;
+import org.encog.neural.networks.training.propagation.FloatPropagation;
+
+/**
+ * Gradient descent, with momentum, for a single precision network. By default
+ * the weights are updated after every mini-batch of 500 records.
+ */
+public class FloatStochasticGradientDescent extends FloatPropagation {
+
+	/**
+	 * The default batch size.
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 500;
+
+	/**
+	 * The learning rate.
+	 */
+	private double learningRate;
+
+	/**
+	 * The momentum.
+	 */
+	private double momentum;
+
+	/**
+	 * The last delta values.
+	 */
+	private final double[] lastDelta;
+
+	/**
+	 * Construct a gradient descent trainer, with a learning rate of 0.01 and
+	 * no momentum.
+	 *
+	 * @param network
+	 *            The network to train.
+	 * @param training
+	 *            The training data.
+	 */
+	public FloatStochasticGradientDescent(final FlatNetworkFloat network, final MLDataSet training) {
+		this(network, training, 0.01, 0);
+	}
+
+	/**
+	 * Construct a gradient descent trainer.
+	 *
+	 * @param network
+	 *            The network to train.
+	 * @param training
+	 *            The training data.
+	 * @param theLearningRate
+	 *            The learning rate.
+	 * @param theMomentum
+	 *            The momentum.
+	 */
+	public FloatStochasticGradientDescent(final FlatNetworkFloat network, final MLDataSet training,
+			final double theLearningRate, final double theMomentum) {
+		super(network, training);
+		this.learningRate = theLearningRate;
+		this.momentum = theMomentum;
+		this.lastDelta = new double[network.getWeights().length];
+		this.setBatchSize(DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double updateWeight(final double[] gradients, final double[] lastGradient, final int index) {
+		final double delta = (gradients[index] * this.learningRate) + (this.lastDelta[index] * this.momentum);
+		this.lastDelta[index] = delta;
+		return delta;
+	}
+
+	/**
+	 * @return The learning rate.
+	 */
+	public double getLearningRate() {
+		return this.learningRate;
+	}
+
+	/**
+	 * @param theLearningRate
+	 *            The learning rate.
+	 */
+	public void setLearningRate(final double theLearningRate) {
+		this.learningRate = theLearningRate;
+	}
+
+	/**
+	 * @return The momentum.
+	 */
+	public double getMomentum() {
+		return this.momentum;
+	}
+
+	/**
+	 * @param theMomentum
+	 *            The momentum.
+	 */
+	public void setMomentum(final double theMomentum) {
+		this.momentum = theMomentum;
+	}
+}
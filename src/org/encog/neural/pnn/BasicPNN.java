@@ -83,6 +83,17 @@ public class BasicPNN extends AbstractPNN implements MLRegression, MLError, MLCl
 	 */
 	private double[] priors;
 
+	/**
+	 * The kernel value below which samples may be skipped, zero to scan every
+	 * sample.
+	 */
+	private double indexEpsilon;
+
+	/**
+	 * The index over the samples, built when first needed.
+	 */
+	private transient PNNIndex index;
+
 	/**
 	 * Construct a BasicPNN network.
 	 *
@@ -113,6 +124,10 @@ public class BasicPNN extends AbstractPNN implements MLRegression, MLError, MLCl
 	 */
 	@Override
 	public MLData compute(final MLData input) {
+		final PNNIndex currentIndex = this.getIndex();
+		if (currentIndex != null) {
+			return this.compute(input, currentIndex);
+		}
 
 		final double[] out = new double[this.getOutputCount()];
 
@@ -161,6 +176,88 @@ public class BasicPNN extends AbstractPNN implements MLRegression, MLError, MLCl
 			}
 		}
 
+		return this.normalize(out, psum);
+	}
+
+	/**
+	 * Compute the output using the sample index. Only the samples the index
+	 * returns are evaluated, the rest count at the 1e-40 kernel floor.
+	 *
+	 * @param input
+	 *            The input to the network.
+	 * @param currentIndex
+	 *            The sample index.
+	 * @return The output from the network.
+	 */
+	private MLData compute(final MLData input, final PNNIndex currentIndex) {
+		final double[] out = new double[this.getOutputCount()];
+		final double[] x = input.getData();
+		final double[] inputs = currentIndex.getInputs();
+		final double[] ideals = currentIndex.getIdeals();
+		final int idealCount = currentIndex.getIdealCount();
+		final int inputCount = this.getInputCount();
+		final PNNIndex.Result result = new PNNIndex.Result(currentIndex.getTargetSize());
+		currentIndex.query(x, this.sigma, this.kernelLimit(), this.getExclude(), result);
+
+		double psum = 0.0;
+
+		for (int k = 0; k < result.getCandidateCount(); k++) {
+			final int p = result.getCandidate(k);
+			final int row = p * inputCount;
+
+			double dist = 0.0;
+			for (int i = 0; i < inputCount; i++) {
+				double diff = x[i] - inputs[row + i];
+				diff /= this.sigma[i];
+				dist += diff * diff;
+			}
+
+			if (this.getKernel() == PNNKernelType.Gaussian) {
+				dist = Math.exp(-dist);
+			} else if (this.getKernel() == PNNKernelType.Reciprocal) {
+				dist = 1.0 / (1.0 + dist);
+			}
+
+			if (dist < 1.e-40) {
+				dist = 1.e-40;
+			}
+
+			if (this.getOutputMode() == PNNOutputMode.Classification) {
+				final int pop = (int) ideals[p * idealCount];
+				out[pop] += dist;
+			} else if (this.getOutputMode() == PNNOutputMode.Unsupervised) {
+				for (int i = 0; i < inputCount; i++) {
+					out[i] += dist * inputs[row + i];
+				}
+				psum += dist;
+			} else if (this.getOutputMode() == PNNOutputMode.Regression) {
+				for (int i = 0; i < this.getOutputCount(); i++) {
+					out[i] += dist * ideals[p * idealCount + i];
+				}
+				psum += dist;
+			}
+		}
+
+		final double[] pruned = result.getPrunedSum();
+		for (int i = 0; i < pruned.length; i++) {
+			out[i] += 1.e-40 * pruned[i];
+		}
+		psum += 1.e-40 * result.getPrunedCount();
+
+		return this.normalize(out, psum);
+	}
+
+	/**
+	 * Turn the summed kernel values into the network output.
+	 *
+	 * @param out
+	 *            The summed kernel values, normalized in place.
+	 * @param sum
+	 *            The sum of the kernel values, not used for classification.
+	 * @return The output from the network.
+	 */
+	private MLData normalize(final double[] out, final double sum) {
+		double psum = sum;
 		if (this.getOutputMode() == PNNOutputMode.Classification) {
 			psum = 0.0;
 			for (int i = 0; i < this.getOutputCount(); i++) {
@@ -191,6 +288,56 @@ public class BasicPNN extends AbstractPNN implements MLRegression, MLError, MLCl
 		return new BasicMLData(out);
 	}
 
+	/**
+	 * @return The scaled squared distance beyond which a sample's kernel value
+	 *         is below the index epsilon.
+	 */
+	public double kernelLimit() {
+		if (this.getKernel() == PNNKernelType.Reciprocal) {
+			return 1.0 / this.indexEpsilon - 1.0;
+		}
+		return -Math.log(this.indexEpsilon);
+	}
+
+	/**
+	 * Get the sample index, building it if needed.
+	 *
+	 * @return The sample index, or null if the index is not in use.
+	 */
+	public synchronized PNNIndex getIndex() {
+		if (this.indexEpsilon <= 0 || this.samples == null) {
+			return null;
+		}
+		if (this.index == null || this.index.size() != this.samples.size()) {
+			this.index = new PNNIndex(this.samples.getData(), this.getOutputMode(), this.getInputCount(),
+					this.getOutputCount());
+		}
+		return this.index;
+	}
+
+	/**
+	 * @return The kernel value below which samples may be skipped, zero if
+	 *         the sample index is not used.
+	 */
+	public double getIndexEpsilon() {
+		return this.indexEpsilon;
+	}
+
+	/**
+	 * Set the kernel value below which samples may be skipped. When this is
+	 * above zero, a KD-tree is built over the samples and each query only
+	 * evaluates the samples that could reach this value; the others count at
+	 * the 1e-40 floor. Up to 1e-40 the output matches a full scan, larger
+	 * values trade accuracy for speed.
+	 *
+	 * @param epsilon
+	 *            The kernel value, or zero to scan every sample.
+	 */
+	public synchronized void setIndexEpsilon(final double epsilon) {
+		this.indexEpsilon = epsilon;
+		this.index = null;
+	}
+
 	/**
 	 * @return the countPer
 	 */
@@ -225,6 +372,9 @@ public class BasicPNN extends AbstractPNN implements MLRegression, MLError, MLCl
 	 */
 	public void setSamples(final BasicMLDataSet samples) {
 		this.samples = samples;
+		synchronized (this) {
+			this.index = null;
+		}
 
 		// update counts per
 		if (this.getOutputMode() == PNNOutputMode.Classification) {
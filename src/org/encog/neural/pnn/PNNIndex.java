@@ -0,0 +1,558 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.neural.pnn;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.encog.ml.data.MLDataPair;
+
+/**
+ * A KD-tree over the samples of a PNN/GRNN. The tree is built once over the
+ * raw sample inputs; the per-input sigmas are applied when the tree is
+ * searched, so the same tree serves every sigma tried during training.
+ *
+ * A search returns the samples whose kernel value might be at least some
+ * epsilon. Every other sample lies in a subtree whose bounding box is too far
+ * from the input. Those samples are not visited; the network counts them at
+ * the 1e-40 floor it already gives to negligible kernel values, using the sum
+ * of their targets that each node keeps. For an epsilon of 1e-40 or less the
+ * result therefore matches a full scan, up to the order of the additions.
+ *
+ * The samples are copied into flat arrays in tree order. The index does not
+ * follow later changes to the sample set.
+ */
+public class PNNIndex {
+
+	/**
+	 * The largest number of samples held by a leaf.
+	 */
+	public static final int LEAF_SIZE = 16;
+
+	/**
+	 * The result of a search. One result may be reused for many searches, but
+	 * not by more than one thread at a time.
+	 */
+	public static class Result {
+
+		/**
+		 * The tree positions of the samples that must be evaluated.
+		 */
+		private int[] candidates = new int[64];
+
+		/**
+		 * The number of candidates.
+		 */
+		private int candidateCount;
+
+		/**
+		 * The sum of the targets of the pruned samples.
+		 */
+		private final double[] prunedSum;
+
+		/**
+		 * The number of pruned samples.
+		 */
+		private int prunedCount;
+
+		/**
+		 * The node stack used by the search.
+		 */
+		private int[] stack = new int[64];
+
+		/**
+		 * Construct a result.
+		 *
+		 * @param targetSize
+		 *            The size of the sample targets.
+		 */
+		public Result(final int targetSize) {
+			this.prunedSum = new double[targetSize];
+		}
+
+		/**
+		 * @return The number of candidates.
+		 */
+		public int getCandidateCount() {
+			return this.candidateCount;
+		}
+
+		/**
+		 * @param i
+		 *            The candidate.
+		 * @return The tree position of the candidate.
+		 */
+		public int getCandidate(final int i) {
+			return this.candidates[i];
+		}
+
+		/**
+		 * @return The sum of the targets of the pruned samples.
+		 */
+		public double[] getPrunedSum() {
+			return this.prunedSum;
+		}
+
+		/**
+		 * @return The number of pruned samples.
+		 */
+		public int getPrunedCount() {
+			return this.prunedCount;
+		}
+	}
+
+	/**
+	 * The number of inputs.
+	 */
+	private final int inputCount;
+
+	/**
+	 * The number of ideal values.
+	 */
+	private final int idealCount;
+
+	/**
+	 * The size of the target of each sample.
+	 */
+	private final int targetSize;
+
+	/**
+	 * The output mode, decides the target of each sample.
+	 */
+	private final PNNOutputMode outputMode;
+
+	/**
+	 * The sample inputs, in tree order.
+	 */
+	private final double[] inputs;
+
+	/**
+	 * The sample ideals, in tree order.
+	 */
+	private final double[] ideals;
+
+	/**
+	 * The tree position of each sample, by sample index.
+	 */
+	private final int[] position;
+
+	/**
+	 * The first tree position of each node.
+	 */
+	private int[] nodeStart;
+
+	/**
+	 * One past the last tree position of each node.
+	 */
+	private int[] nodeEnd;
+
+	/**
+	 * The first child of each node, or -1 for a leaf. The second child always
+	 * follows the whole subtree of the first.
+	 */
+	private int[] nodeLeft;
+
+	/**
+	 * The second child of each node, or -1 for a leaf.
+	 */
+	private int[] nodeRight;
+
+	/**
+	 * The lower corner of the bounding box of each node.
+	 */
+	private double[] nodeLow;
+
+	/**
+	 * The upper corner of the bounding box of each node.
+	 */
+	private double[] nodeHigh;
+
+	/**
+	 * The sum of the targets of the samples of each node.
+	 */
+	private double[] nodeSum;
+
+	/**
+	 * The number of nodes.
+	 */
+	private int nodeCount;
+
+	/**
+	 * The depth of the tree.
+	 */
+	private int depth;
+
+	/**
+	 * Build the index.
+	 *
+	 * @param samples
+	 *            The samples.
+	 * @param theOutputMode
+	 *            The output mode of the network. The target of a sample is
+	 *            the one-of-n class for classification, the ideal for
+	 *            regression and the input for unsupervised.
+	 * @param theInputCount
+	 *            The number of inputs.
+	 * @param outputCount
+	 *            The number of outputs.
+	 */
+	public PNNIndex(final List<MLDataPair> samples, final PNNOutputMode theOutputMode, final int theInputCount,
+			final int outputCount) {
+		final int n = samples.size();
+		this.inputCount = theInputCount;
+		this.outputMode = theOutputMode;
+		this.idealCount = n > 0 ? samples.get(0).getIdeal().size() : 0;
+		this.targetSize = theOutputMode == PNNOutputMode.Unsupervised ? theInputCount : outputCount;
+
+		final int[] order = new int[n];
+		final double[] raw = new double[n * theInputCount];
+		for (int i = 0; i < n; i++) {
+			order[i] = i;
+			System.arraycopy(samples.get(i).getInputArray(), 0, raw, i * theInputCount, theInputCount);
+		}
+
+		// a node is only split when it holds more than LEAF_SIZE samples, so
+		// every leaf holds at least half of LEAF_SIZE
+		final int maxNodes = 2 * (n / (PNNIndex.LEAF_SIZE / 2)) + 1;
+		this.nodeStart = new int[maxNodes];
+		this.nodeEnd = new int[maxNodes];
+		this.nodeLeft = new int[maxNodes];
+		this.nodeRight = new int[maxNodes];
+		this.nodeLow = new double[maxNodes * theInputCount];
+		this.nodeHigh = new double[maxNodes * theInputCount];
+		this.nodeSum = new double[maxNodes * this.targetSize];
+
+		this.build(raw, order, 0, n, 1);
+
+		this.inputs = new double[n * theInputCount];
+		this.ideals = new double[n * this.idealCount];
+		this.position = new int[n];
+		for (int p = 0; p < n; p++) {
+			final MLDataPair pair = samples.get(order[p]);
+			System.arraycopy(raw, order[p] * theInputCount, this.inputs, p * theInputCount, theInputCount);
+			System.arraycopy(pair.getIdealArray(), 0, this.ideals, p * this.idealCount, this.idealCount);
+			this.position[order[p]] = p;
+		}
+
+		for (int node = this.nodeCount - 1; node >= 0; node--) {
+			this.sumNode(node);
+		}
+	}
+
+	/**
+	 * Build the subtree over a range of the order array.
+	 *
+	 * @param raw
+	 *            The sample inputs, by sample index.
+	 * @param order
+	 *            The sample indexes, rearranged into tree order.
+	 * @param start
+	 *            The first position.
+	 * @param end
+	 *            One past the last position.
+	 * @param level
+	 *            The depth of the new node.
+	 * @return The new node.
+	 */
+	private int build(final double[] raw, final int[] order, final int start, final int end, final int level) {
+		final int node = this.nodeCount++;
+		this.depth = Math.max(this.depth, level);
+		this.nodeStart[node] = start;
+		this.nodeEnd[node] = end;
+		this.nodeLeft[node] = -1;
+		this.nodeRight[node] = -1;
+
+		final int box = node * this.inputCount;
+		Arrays.fill(this.nodeLow, box, box + this.inputCount, Double.POSITIVE_INFINITY);
+		Arrays.fill(this.nodeHigh, box, box + this.inputCount, Double.NEGATIVE_INFINITY);
+		for (int p = start; p < end; p++) {
+			final int row = order[p] * this.inputCount;
+			for (int i = 0; i < this.inputCount; i++) {
+				final double x = raw[row + i];
+				if (x < this.nodeLow[box + i]) {
+					this.nodeLow[box + i] = x;
+				}
+				if (x > this.nodeHigh[box + i]) {
+					this.nodeHigh[box + i] = x;
+				}
+			}
+		}
+
+		if (end - start <= PNNIndex.LEAF_SIZE) {
+			return node;
+		}
+
+		int split = 0;
+		double widest = -1;
+		for (int i = 0; i < this.inputCount; i++) {
+			final double width = this.nodeHigh[box + i] - this.nodeLow[box + i];
+			if (width > widest) {
+				widest = width;
+				split = i;
+			}
+		}
+		if (widest <= 0) {
+			// every sample is at the same point
+			return node;
+		}
+
+		final int mid = (start + end) >>> 1;
+		PNNIndex.select(raw, order, start, end - 1, mid, split, this.inputCount);
+		this.nodeLeft[node] = this.build(raw, order, start, mid, level + 1);
+		this.nodeRight[node] = this.build(raw, order, mid, end, level + 1);
+		return node;
+	}
+
+	/**
+	 * Rearrange a range of the order array so that the sample at position k
+	 * has the k-th smallest value of one input, with smaller values before it
+	 * and larger values after it.
+	 *
+	 * @param raw
+	 *            The sample inputs.
+	 * @param order
+	 *            The sample indexes.
+	 * @param low
+	 *            The first position.
+	 * @param high
+	 *            The last position.
+	 * @param k
+	 *            The position to select.
+	 * @param dim
+	 *            The input to compare.
+	 * @param stride
+	 *            The number of inputs.
+	 */
+	private static void select(final double[] raw, final int[] order, int low, int high, final int k,
+			final int dim, final int stride) {
+		while (high > low) {
+			final double pivot = raw[order[(low + high) >>> 1] * stride + dim];
+			int i = low;
+			int j = high;
+			while (i <= j) {
+				while (raw[order[i] * stride + dim] < pivot) {
+					i++;
+				}
+				while (raw[order[j] * stride + dim] > pivot) {
+					j--;
+				}
+				if (i <= j) {
+					final int t = order[i];
+					order[i] = order[j];
+					order[j] = t;
+					i++;
+					j--;
+				}
+			}
+			if (k <= j) {
+				high = j;
+			} else if (k >= i) {
+				low = i;
+			} else {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Sum the targets of a node, from its children or its samples.
+	 *
+	 * @param node
+	 *            The node.
+	 */
+	private void sumNode(final int node) {
+		final int sum = node * this.targetSize;
+		if (this.nodeLeft[node] != -1) {
+			final int left = this.nodeLeft[node] * this.targetSize;
+			final int right = this.nodeRight[node] * this.targetSize;
+			for (int i = 0; i < this.targetSize; i++) {
+				this.nodeSum[sum + i] = this.nodeSum[left + i] + this.nodeSum[right + i];
+			}
+		} else {
+			for (int p = this.nodeStart[node]; p < this.nodeEnd[node]; p++) {
+				this.addTarget(p, this.nodeSum, sum, 1.0);
+			}
+		}
+	}
+
+	/**
+	 * Add the target of one sample to a sum.
+	 *
+	 * @param p
+	 *            The tree position of the sample.
+	 * @param sum
+	 *            The sum.
+	 * @param offset
+	 *            The first element of the sum.
+	 * @param sign
+	 *            1 to add the target, -1 to subtract it.
+	 */
+	private void addTarget(final int p, final double[] sum, final int offset, final double sign) {
+		if (this.outputMode == PNNOutputMode.Classification) {
+			sum[offset + (int) this.ideals[p * this.idealCount]] += sign;
+		} else if (this.outputMode == PNNOutputMode.Unsupervised) {
+			for (int i = 0; i < this.inputCount; i++) {
+				sum[offset + i] += sign * this.inputs[p * this.inputCount + i];
+			}
+		} else {
+			for (int i = 0; i < this.targetSize; i++) {
+				sum[offset + i] += sign * this.ideals[p * this.idealCount + i];
+			}
+		}
+	}
+
+	/**
+	 * Search the index.
+	 *
+	 * @param input
+	 *            The input.
+	 * @param sigma
+	 *            The width of the kernel for each input.
+	 * @param limit
+	 *            The scaled squared distance beyond which a sample is pruned.
+	 * @param exclude
+	 *            The index of a sample to leave out, or -1 for none.
+	 * @param result
+	 *            Receives the candidates and the pruned samples.
+	 */
+	public void query(final double[] input, final double[] sigma, final double limit, final int exclude,
+			final Result result) {
+		final int excluded = exclude >= 0 && exclude < this.position.length ? this.position[exclude] : -1;
+		result.candidateCount = 0;
+		result.prunedCount = 0;
+		Arrays.fill(result.prunedSum, 0);
+		if (this.position.length == 0) {
+			return;
+		}
+
+		if (result.stack.length < this.depth + 1) {
+			result.stack = new int[this.depth + 1];
+		}
+		final int[] stack = result.stack;
+		int top = 0;
+		stack[top++] = 0;
+
+		while (top > 0) {
+			final int node = stack[--top];
+			final int start = this.nodeStart[node];
+			final int end = this.nodeEnd[node];
+
+			if (this.boxDistance(node, input, sigma, limit) > limit) {
+				final int sum = node * this.targetSize;
+				for (int i = 0; i < this.targetSize; i++) {
+					result.prunedSum[i] += this.nodeSum[sum + i];
+				}
+				result.prunedCount += end - start;
+				if (excluded >= start && excluded < end) {
+					this.addTarget(excluded, result.prunedSum, 0, -1.0);
+					result.prunedCount--;
+				}
+			} else if (this.nodeLeft[node] == -1) {
+				if (result.candidates.length < result.candidateCount + (end - start)) {
+					result.candidates = Arrays.copyOf(result.candidates,
+							Math.max(result.candidates.length * 2, result.candidateCount + (end - start)));
+				}
+				for (int p = start; p < end; p++) {
+					if (p != excluded) {
+						result.candidates[result.candidateCount++] = p;
+					}
+				}
+			} else {
+				stack[top++] = this.nodeRight[node];
+				stack[top++] = this.nodeLeft[node];
+			}
+		}
+	}
+
+	/**
+	 * Calculate the smallest scaled squared distance from an input to the
+	 * bounding box of a node.
+	 *
+	 * @param node
+	 *            The node.
+	 * @param input
+	 *            The input.
+	 * @param sigma
+	 *            The width of the kernel for each input.
+	 * @param limit
+	 *            The calculation stops once the distance passes this limit.
+	 * @return The distance.
+	 */
+	private double boxDistance(final int node, final double[] input, final double[] sigma, final double limit) {
+		final int box = node * this.inputCount;
+		double result = 0;
+		for (int i = 0; i < this.inputCount; i++) {
+			double diff = 0;
+			final double x = input[i];
+			if (x < this.nodeLow[box + i]) {
+				diff = this.nodeLow[box + i] - x;
+			} else if (x > this.nodeHigh[box + i]) {
+				diff = x - this.nodeHigh[box + i];
+			} else {
+				continue;
+			}
+			diff /= sigma[i];
+			result += diff * diff;
+			if (result > limit) {
+				return result;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return The number of samples.
+	 */
+	public int size() {
+		return this.position.length;
+	}
+
+	/**
+	 * @return The size of the target of each sample.
+	 */
+	public int getTargetSize() {
+		return this.targetSize;
+	}
+
+	/**
+	 * @return The sample inputs, in tree order.
+	 */
+	public double[] getInputs() {
+		return this.inputs;
+	}
+
+	/**
+	 * @return The sample ideals, in tree order.
+	 */
+	public double[] getIdeals() {
+		return this.ideals;
+	}
+
+	/**
+	 * @return The number of ideal values of each sample.
+	 */
+	public int getIdealCount() {
+		return this.idealCount;
+	}
+}
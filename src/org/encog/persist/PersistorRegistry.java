@@ -34,6 +34,7 @@ import org.encog.ml.svm.PersistSVM;
 import org.encog.neural.art.PersistART1;
 import org.encog.neural.bam.PersistBAM;
 import org.encog.neural.cpn.PersistCPN;
+import org.encog.neural.flat.PersistFlatNetworkFloat;
 import org.encog.neural.neat.PersistNEATPopulation;
 import org.encog.neural.networks.PersistBasicNetwork;
 import org.encog.neural.networks.training.propagation.PersistTrainingContinuation;
@@ -79,6 +80,7 @@ public final class PersistorRegistry {
 		this.add(new PersistART1());
 		this.add(new PersistBAM());
 		this.add(new PersistBasicNetwork());
+		this.add(new PersistFlatNetworkFloat());
 		this.add(new PersistRBFNetwork());
 		this.add(new PersistSOM());
 		this.add(new PersistNEATPopulation());
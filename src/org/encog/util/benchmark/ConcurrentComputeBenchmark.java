@@ -0,0 +1,221 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.util.benchmark;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.encog.EncogError;
+import org.encog.StatusReportable;
+import org.encog.ml.data.MLDataSet;
+import org.encog.neural.flat.FlatNetwork;
+import org.encog.neural.flat.FlatNetworkContextPool;
+import org.encog.neural.networks.BasicNetwork;
+import org.encog.util.Format;
+import org.encog.util.simple.EncogUtility;
+
+/**
+ * Benchmark concurrent inference against a single network. Two approaches are
+ * compared. The first gives each thread its own clone of the flat network,
+ * made once when the thread starts, which is what is required when the
+ * network's own layer outputs are used. The second shares one network between
+ * all threads and gives each thread its own FlatNetworkContext, through a
+ * FlatNetworkContextPool.
+ */
+public class ConcurrentComputeBenchmark {
+
+	/**
+	 * Number of steps in all.
+	 */
+	private static final int STEPS = 2;
+
+	/**
+	 * How long to run each approach for, in seconds.
+	 */
+	private static final int SECONDS = 5;
+
+	/**
+	 * Report progress.
+	 */
+	private final StatusReportable report;
+
+	/**
+	 * The number of threads to use.
+	 */
+	private final int threadCount;
+
+	/**
+	 * The computes per second, across all threads, with a clone per thread.
+	 */
+	private long cloneScore;
+
+	/**
+	 * The computes per second, across all threads, with a shared context
+	 * pool.
+	 */
+	private long contextScore;
+
+	/**
+	 * Construct the benchmark.
+	 *
+	 * @param report
+	 *            The object to report progress to.
+	 * @param threadCount
+	 *            The number of threads to compute with, zero for the number
+	 *            of processors.
+	 */
+	public ConcurrentComputeBenchmark(final StatusReportable report, final int threadCount) {
+		this.report = report;
+		this.threadCount = threadCount == 0 ? Runtime.getRuntime().availableProcessors() : threadCount;
+	}
+
+	/**
+	 * Perform the benchmark. The scores are the number of computes performed
+	 * per second, across all threads. The higher the better for a score.
+	 *
+	 * @return A summary of the benchmark.
+	 */
+	public String process() {
+		final BasicNetwork network = EncogUtility.simpleFeedForward(100, 200, 40, 5, true);
+		network.reset();
+		final MLDataSet data = RandomTrainingFactory.generate(1000, 1000, 100, 5, -1, 1);
+		final double[][] input = new double[(int) data.getRecordCount()][];
+		for (int i = 0; i < input.length; i++) {
+			input[i] = data.get(i).getInputArray();
+		}
+		final FlatNetwork flat = network.getFlat();
+
+		this.cloneScore = run(new ComputeTaskFactory() {
+			@Override
+			public ComputeTask create() {
+				final FlatNetwork clone = flat.clone();
+				return new ComputeTask() {
+					@Override
+					public void compute(final double[] in, final double[] out) {
+						clone.compute(in, out);
+					}
+				};
+			}
+		}, input, flat.getOutputCount());
+		this.report.report(STEPS, 1, "Clone per thread: " + Format.formatInteger((int) this.cloneScore));
+
+		final FlatNetworkContextPool pool = new FlatNetworkContextPool(flat);
+		final ComputeTask pooled = new ComputeTask() {
+			@Override
+			public void compute(final double[] in, final double[] out) {
+				pool.compute(in, out);
+			}
+		};
+		this.contextScore = run(new ComputeTaskFactory() {
+			@Override
+			public ComputeTask create() {
+				return pooled;
+			}
+		}, input, flat.getOutputCount());
+		this.report.report(STEPS, 2, "Shared context pool: " + Format.formatInteger((int) this.contextScore));
+
+		final StringBuilder result = new StringBuilder();
+		result.append("Concurrent compute, threads:");
+		result.append(this.threadCount);
+		result.append(", Clone:");
+		result.append(Format.formatInteger((int) this.cloneScore));
+		result.append(", Context:");
+		result.append(Format.formatInteger((int) this.contextScore));
+		return result.toString();
+	}
+
+	/**
+	 * One way of computing the network, as used by a single request.
+	 */
+	private interface ComputeTask {
+		void compute(double[] input, double[] output);
+	}
+
+	/**
+	 * Creates the task that a thread uses for all of its requests.
+	 */
+	private interface ComputeTaskFactory {
+		ComputeTask create();
+	}
+
+	/**
+	 * Run a task on every thread for a fixed amount of time. Each thread
+	 * creates its task before it starts computing.
+	 *
+	 * @param factory
+	 *            Creates the task for each thread.
+	 * @param input
+	 *            The input rows, each thread cycles through these.
+	 * @param outputCount
+	 *            The number of outputs.
+	 * @return The number of computes per second, across all threads.
+	 */
+	private long run(final ComputeTaskFactory factory, final double[][] input, final int outputCount) {
+		final AtomicLong total = new AtomicLong();
+		final long stop = System.currentTimeMillis() + (SECONDS * Evaluate.MILIS);
+		final Thread[] threads = new Thread[this.threadCount];
+
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					final ComputeTask task = factory.create();
+					final double[] output = new double[outputCount];
+					long count = 0;
+					int row = 0;
+					while (System.currentTimeMillis() < stop) {
+						task.compute(input[row], output);
+						row = (row + 1) % input.length;
+						count++;
+					}
+					total.addAndGet(count);
+				}
+			});
+			threads[i].start();
+		}
+
+		try {
+			for (final Thread thread : threads) {
+				thread.join();
+			}
+		} catch (final InterruptedException e) {
+			throw new EncogError(e);
+		}
+
+		return total.get() / SECONDS;
+	}
+
+	/**
+	 * @return The computes per second when each thread has its own clone.
+	 */
+	public long getCloneScore() {
+		return this.cloneScore;
+	}
+
+	/**
+	 * @return The computes per second when using a shared context pool.
+	 */
+	public long getContextScore() {
+		return this.contextScore;
+	}
+}
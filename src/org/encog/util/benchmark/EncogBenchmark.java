@@ -29,8 +29,11 @@ import org.encog.StatusReportable;
 import org.encog.ml.data.MLDataPair;
 import org.encog.ml.data.basic.BasicMLDataPair;
 import org.encog.ml.data.basic.BasicMLDataSet;
+import org.encog.ml.data.basic.DenseMLDataSet;
 import org.encog.ml.data.buffer.BufferedMLDataSet;
+import org.encog.neural.networks.BasicNetwork;
 import org.encog.util.Format;
+import org.encog.util.simple.EncogUtility;
 
 /**
  * Benchmark Encog with several network types.
@@ -43,7 +46,7 @@ public class EncogBenchmark {
 	/**
 	 * Number of steps in all.
 	 */
-	private static final int STEPS = 4;
+	private static final int STEPS = 5;
 
 	/**
 	 * The first step.
@@ -60,6 +63,11 @@ public class EncogBenchmark {
 	 */
 	private static final int STEP4 = 4;
 
+	/**
+	 * The fifth step.
+	 */
+	private static final int STEP5 = 5;
+
 	/**
 	 * Report progress.
 	 */
@@ -69,6 +77,10 @@ public class EncogBenchmark {
 	private int clScore;
 	private int memoryScore;
 	private int binaryScore;
+	private int denseScore;
+	private int denseMemorySaving;
+	private int basicTrainScore;
+	private int denseTrainScore;
 
 	/**
 	 * Construct a benchmark object.
@@ -92,6 +104,7 @@ public class EncogBenchmark {
 		this.evalCPU();
 		this.evalMemory();
 		this.evalBinary();
+		this.evalDense();
 
 		StringBuilder result = new StringBuilder();
 
@@ -101,6 +114,8 @@ public class EncogBenchmark {
 		result.append(Format.formatInteger(this.memoryScore));
 		result.append(", Disk:");
 		result.append(Format.formatInteger(this.binaryScore));
+		result.append(", Dense:");
+		result.append(Format.formatInteger(this.denseScore));
 		this.report.report(EncogBenchmark.STEPS, EncogBenchmark.STEPS, result.toString());
 
 		return result.toString();
@@ -197,6 +212,64 @@ public class EncogBenchmark {
 		this.binaryScore = iterations;
 	}
 
+	/**
+	 * Evaluate the DenseMLDataSet. The record rate is comparable to the memory
+	 * score. The memory saving is the percentage of heap saved, compared to
+	 * holding the same records in a BasicMLDataSet. The same network is then
+	 * trained with RPROP for a fixed time on each data set, and the number of
+	 * iterations of each is reported.
+	 */
+	private void evalDense() {
+		final long base = usedMemory();
+		final BasicMLDataSet basic = RandomTrainingFactory.generate(1000, 10000, 10, 10, -1, 1);
+		final long basicBytes = usedMemory() - base;
+		final DenseMLDataSet training = new DenseMLDataSet(basic);
+		final long denseBytes = usedMemory() - base - basicBytes;
+		if (basicBytes > 0) {
+			this.denseMemorySaving = (int) (100 - ((denseBytes * 100) / basicBytes));
+		}
+
+		final long start = System.currentTimeMillis();
+		final long stop = start + (10 * Evaluate.MILIS);
+		int record = 0;
+
+		MLDataPair pair = BasicMLDataPair.createPair(10, 10);
+
+		int iterations = 0;
+		while (System.currentTimeMillis() < stop) {
+			iterations++;
+			training.getRecord(record++, pair);
+			if (record >= training.getRecordCount()) {
+				record = 0;
+			}
+		}
+
+		iterations /= 100000;
+
+		this.report.report(EncogBenchmark.STEPS, EncogBenchmark.STEP5, "Dense dataset, result: "
+				+ Format.formatInteger(iterations) + ", memory saving: " + this.denseMemorySaving + "%");
+
+		this.denseScore = iterations;
+
+		final BasicNetwork network = EncogUtility.simpleFeedForward(10, 20, 0, 10, true);
+		this.basicTrainScore = Evaluate.evaluateTrain((BasicNetwork) network.clone(), basic);
+		this.denseTrainScore = Evaluate.evaluateTrain((BasicNetwork) network.clone(), training);
+
+		this.report.report(EncogBenchmark.STEPS, EncogBenchmark.STEP5, "Dense dataset, RPROP iterations: "
+				+ Format.formatInteger(this.denseTrainScore) + ", basic dataset: "
+				+ Format.formatInteger(this.basicTrainScore));
+	}
+
+	/**
+	 * @return The heap in use, after asking for a garbage collection.
+	 */
+	private static long usedMemory() {
+		final Runtime runtime = Runtime.getRuntime();
+		System.gc();
+		System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
 	/**
 	 * @return the cpuScore
 	 */
@@ -225,4 +298,34 @@ public class EncogBenchmark {
 		return this.binaryScore;
 	}
 
+	/**
+	 * @return the denseScore
+	 */
+	public int getDenseScore() {
+		return this.denseScore;
+	}
+
+	/**
+	 * @return The percentage of memory the dense data set saved.
+	 */
+	public int getDenseMemorySaving() {
+		return this.denseMemorySaving;
+	}
+
+	/**
+	 * @return The RPROP iterations done on the BasicMLDataSet in the dense
+	 *         step.
+	 */
+	public int getBasicTrainScore() {
+		return this.basicTrainScore;
+	}
+
+	/**
+	 * @return The RPROP iterations done on the DenseMLDataSet in the dense
+	 *         step.
+	 */
+	public int getDenseTrainScore() {
+		return this.denseTrainScore;
+	}
+
 }
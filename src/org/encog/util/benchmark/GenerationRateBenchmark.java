@@ -0,0 +1,236 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.util.benchmark;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.encog.EncogError;
+import org.encog.StatusReportable;
+import org.encog.ml.CalculateScore;
+import org.encog.ml.data.MLDataSet;
+import org.encog.ml.data.basic.BasicMLDataSet;
+import org.encog.ml.ea.genome.Genome;
+import org.encog.ml.ea.score.AdjustScore;
+import org.encog.ml.ea.score.parallel.ParallelScore;
+import org.encog.ml.ea.score.parallel.ParallelScoreTask;
+import org.encog.ml.ea.species.Species;
+import org.encog.ml.ea.train.basic.TrainEA;
+import org.encog.neural.neat.NEATPopulation;
+import org.encog.neural.neat.NEATUtil;
+import org.encog.neural.networks.training.TrainingSetScore;
+import org.encog.util.Format;
+
+/**
+ * Benchmark the number of NEAT generations that can be run each second, for
+ * a range of thread counts. For each thread count the population is also
+ * scored twice more: once on the shared pool, and once the way ParallelScore
+ * used to score it, with a new fixed thread pool for each call and one task
+ * per genome. The difference between the two is the cost of creating the
+ * threads and of scheduling the small tasks.
+ */
+public class GenerationRateBenchmark {
+
+	/**
+	 * The number of generations to time for each thread count.
+	 */
+	private static final int GENERATIONS = 50;
+
+	/**
+	 * The number of times the population is scored for each thread count.
+	 */
+	private static final int SCORE_ROUNDS = 50;
+
+	/**
+	 * The size of the population.
+	 */
+	private static final int POPULATION_SIZE = 1000;
+
+	/**
+	 * The XOR input.
+	 */
+	private static final double[][] XOR_INPUT = { { 0.0, 0.0 }, { 1.0, 0.0 }, { 0.0, 1.0 }, { 1.0, 1.0 } };
+
+	/**
+	 * The XOR ideal.
+	 */
+	private static final double[][] XOR_IDEAL = { { 0.0 }, { 1.0 }, { 1.0 }, { 0.0 } };
+
+	/**
+	 * Report progress.
+	 */
+	private final StatusReportable report;
+
+	/**
+	 * The thread counts to evaluate.
+	 */
+	private final int[] threadCounts;
+
+	/**
+	 * The generations per second for each thread count.
+	 */
+	private final double[] generationRate;
+
+	/**
+	 * The time, in milliseconds, to score the population on the shared pool,
+	 * for each thread count.
+	 */
+	private final double[] sharedScoreTime;
+
+	/**
+	 * The time, in milliseconds, to score the population with a new thread
+	 * pool and one task per genome, for each thread count.
+	 */
+	private final double[] poolPerCallScoreTime;
+
+	/**
+	 * Construct the benchmark.
+	 *
+	 * @param report
+	 *            The object to report progress to.
+	 * @param threadCounts
+	 *            The thread counts to evaluate.
+	 */
+	public GenerationRateBenchmark(final StatusReportable report, final int[] threadCounts) {
+		this.report = report;
+		this.threadCounts = threadCounts;
+		this.generationRate = new double[threadCounts.length];
+		this.sharedScoreTime = new double[threadCounts.length];
+		this.poolPerCallScoreTime = new double[threadCounts.length];
+	}
+
+	/**
+	 * Score every genome of the population with a new fixed thread pool, and
+	 * one task per genome.
+	 *
+	 * @param score
+	 *            Provides the population, score function and adjusters.
+	 * @param threads
+	 *            The number of threads.
+	 */
+	private static void scoreWithPoolPerCall(final ParallelScore score, final int threads) {
+		final ExecutorService pool = Executors.newFixedThreadPool(threads);
+		for (final Species species : score.getPopulation().getSpecies()) {
+			for (final Genome genome : species.getMembers()) {
+				pool.execute(new ParallelScoreTask(genome, score));
+			}
+		}
+		pool.shutdown();
+		try {
+			pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MINUTES);
+		} catch (final InterruptedException e) {
+			throw new EncogError(e);
+		}
+	}
+
+	/**
+	 * Perform the benchmark.
+	 *
+	 * @return A summary of the generations per second, and the scoring time,
+	 *         for each thread count.
+	 */
+	public String process() {
+		final MLDataSet training = new BasicMLDataSet(XOR_INPUT, XOR_IDEAL);
+		final CalculateScore score = new TrainingSetScore(training);
+		final StringBuilder result = new StringBuilder();
+		result.append("Generations/sec by threads:");
+
+		for (int i = 0; i < this.threadCounts.length; i++) {
+			final int threads = this.threadCounts[i];
+			final NEATPopulation population = new NEATPopulation(2, 1, POPULATION_SIZE);
+			population.setInitialConnectionDensity(1.0);
+			population.reset();
+			final TrainEA train = NEATUtil.constructNEATTrainer(population, score);
+			train.setThreadCount(threads);
+
+			// the first iteration scores the initial population
+			train.iteration();
+
+			long start = System.nanoTime();
+			for (int g = 0; g < GENERATIONS; g++) {
+				train.iteration();
+			}
+			this.generationRate[i] = GENERATIONS / ((System.nanoTime() - start) / 1e9);
+
+			final ParallelScore parallel = new ParallelScore(population, train.getCODEC(),
+					new ArrayList<AdjustScore>(), score, threads);
+			start = System.nanoTime();
+			for (int r = 0; r < SCORE_ROUNDS; r++) {
+				parallel.process();
+			}
+			this.sharedScoreTime[i] = ((System.nanoTime() - start) / 1000000.0) / SCORE_ROUNDS;
+
+			start = System.nanoTime();
+			for (int r = 0; r < SCORE_ROUNDS; r++) {
+				scoreWithPoolPerCall(parallel, threads);
+			}
+			this.poolPerCallScoreTime[i] = ((System.nanoTime() - start) / 1000000.0) / SCORE_ROUNDS;
+			train.finishTraining();
+
+			this.report.report(this.threadCounts.length, i + 1, "Threads: " + threads + ", generations/sec: "
+					+ Format.formatDouble(this.generationRate[i], 2) + ", score ms shared/pool per call: "
+					+ Format.formatDouble(this.sharedScoreTime[i], 2) + "/"
+					+ Format.formatDouble(this.poolPerCallScoreTime[i], 2));
+
+			result.append(' ');
+			result.append(threads);
+			result.append('=');
+			result.append(Format.formatDouble(this.generationRate[i], 2));
+		}
+
+		return result.toString();
+	}
+
+	/**
+	 * @return The thread counts that were evaluated.
+	 */
+	public int[] getThreadCounts() {
+		return this.threadCounts;
+	}
+
+	/**
+	 * @return The generations per second for each thread count.
+	 */
+	public double[] getGenerationRate() {
+		return this.generationRate;
+	}
+
+	/**
+	 * @return The time, in milliseconds, to score the population on the
+	 *         shared pool, for each thread count.
+	 */
+	public double[] getSharedScoreTime() {
+		return this.sharedScoreTime;
+	}
+
+	/**
+	 * @return The time, in milliseconds, to score the population with a new
+	 *         thread pool and one task per genome, for each thread count.
+	 */
+	public double[] getPoolPerCallScoreTime() {
+		return this.poolPerCallScoreTime;
+	}
+}
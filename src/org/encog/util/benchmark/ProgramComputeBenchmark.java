@@ -0,0 +1,320 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.util.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.encog.StatusReportable;
+import org.encog.ml.data.basic.BasicMLData;
+import org.encog.ml.ea.exception.EARuntimeError;
+import org.encog.ml.prg.EncogProgram;
+import org.encog.ml.prg.EncogProgramContext;
+import org.encog.ml.prg.extension.FunctionFactory;
+import org.encog.ml.prg.extension.StandardExtensions;
+import org.encog.ml.prg.generator.RampedHalfAndHalf;
+import org.encog.ml.prg.train.PrgPopulation;
+import org.encog.util.Format;
+
+/**
+ * Benchmark the evaluation of Encog programs. A set of random programs, like
+ * the ones a genetic programming run creates, is evaluated over a block of
+ * rows twice: a row at a time with the interpreter, and with the batch
+ * compute, which evaluates the compiled form of each program. The programs
+ * are evaluated one after another, so the calls between compiled nodes see
+ * many node classes, as they do during training. Both methods are timed over
+ * every program, and again over only the programs that can be compiled, as
+ * the others are interpreted by both methods.
+ */
+public class ProgramComputeBenchmark {
+
+	/**
+	 * The number of programs.
+	 */
+	private static final int PROGRAMS = 200;
+
+	/**
+	 * The number of rows each program is evaluated over.
+	 */
+	private static final int ROWS = 1000;
+
+	/**
+	 * The number of times the programs are evaluated for each timing.
+	 */
+	private static final int ROUNDS = 10;
+
+	/**
+	 * Report progress.
+	 */
+	private final StatusReportable report;
+
+	/**
+	 * The time, in milliseconds, to interpret every program over the rows.
+	 */
+	private double interpretTime;
+
+	/**
+	 * The time, in milliseconds, to batch compute every program over the
+	 * rows.
+	 */
+	private double compiledTime;
+
+	/**
+	 * The time, in milliseconds, to interpret only the programs that could be
+	 * compiled.
+	 */
+	private double compiledOnlyInterpretTime;
+
+	/**
+	 * The time, in milliseconds, to batch compute only the programs that
+	 * could be compiled.
+	 */
+	private double compiledOnlyTime;
+
+	/**
+	 * The number of programs that could be compiled.
+	 */
+	private int compiledCount;
+
+	/**
+	 * Construct the benchmark.
+	 *
+	 * @param report
+	 *            The object to report progress to.
+	 */
+	public ProgramComputeBenchmark(final StatusReportable report) {
+		this.report = report;
+	}
+
+	/**
+	 * Create the random programs. Programs that fail on the rows, for example
+	 * by dividing by zero, are left out.
+	 *
+	 * @param input
+	 *            The rows.
+	 * @return The programs.
+	 */
+	private static List<EncogProgram> createPrograms(final double[][] input) {
+		final EncogProgramContext context = new EncogProgramContext();
+		context.defineVariable("x");
+		context.defineVariable("y");
+		context.defineVariable("z");
+		StandardExtensions.createNumericOperators(context, true);
+		StandardExtensions.createTrigFunctions(context);
+		// the basic functions, without rand() and round()
+		final FunctionFactory factory = context.getFunctions();
+		factory.addExtension(StandardExtensions.EXTENSION_ABS);
+		factory.addExtension(StandardExtensions.EXTENSION_CEIL);
+		factory.addExtension(StandardExtensions.EXTENSION_EXP);
+		factory.addExtension(StandardExtensions.EXTENSION_FLOOR);
+		factory.addExtension(StandardExtensions.EXTENSION_LOG);
+		factory.addExtension(StandardExtensions.EXTENSION_MAX);
+		factory.addExtension(StandardExtensions.EXTENSION_MIN);
+		factory.addExtension(StandardExtensions.EXTENSION_SQRT);
+		final PrgPopulation population = new PrgPopulation(context, PROGRAMS);
+
+		final RampedHalfAndHalf generator = new RampedHalfAndHalf(context, 2, 6);
+		final Random rnd = new Random(42);
+		final List<EncogProgram> result = new ArrayList<EncogProgram>();
+		while (result.size() < PROGRAMS) {
+			final EncogProgram program = generator.generate(rnd);
+			program.setPopulation(population);
+			try {
+				for (final double[] row : input) {
+					program.compute(new BasicMLData(row));
+				}
+				result.add(program);
+			} catch (final EARuntimeError e) {
+				// leave out programs that fail on these rows
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Perform the benchmark.
+	 *
+	 * @return A summary of the time taken by each method.
+	 */
+	public String process() {
+		final Random rnd = new Random(7);
+		final double[][] input = new double[ROWS][3];
+		for (int i = 0; i < ROWS; i++) {
+			for (int j = 0; j < 3; j++) {
+				input[i][j] = (rnd.nextDouble() * 4) - 2;
+			}
+		}
+		final double[][] output = new double[ROWS][1];
+		final List<EncogProgram> programs = createPrograms(input);
+
+		final List<EncogProgram> compiled = new ArrayList<EncogProgram>();
+		for (final EncogProgram program : programs) {
+			if (program.compile() != null) {
+				compiled.add(program);
+			}
+		}
+		this.compiledCount = compiled.size();
+
+		// one untimed round of each, to let the JIT compile them
+		this.interpret(programs, input);
+		this.batch(programs, input, output);
+
+		this.interpretTime = this.timeInterpret(programs, input);
+		this.compiledTime = this.timeBatch(programs, input, output);
+		this.report.report(2, 1, "All " + programs.size() + " programs, interpreted: "
+				+ Format.formatDouble(this.interpretTime, 2) + "ms, batch compute: "
+				+ Format.formatDouble(this.compiledTime, 2) + "ms");
+
+		this.compiledOnlyInterpretTime = this.timeInterpret(compiled, input);
+		this.compiledOnlyTime = this.timeBatch(compiled, input, output);
+		this.report.report(2, 2, "The " + this.compiledCount + " programs that compile, interpreted: "
+				+ Format.formatDouble(this.compiledOnlyInterpretTime, 2) + "ms, batch compute: "
+				+ Format.formatDouble(this.compiledOnlyTime, 2) + "ms");
+
+		if (Double.compare(this.interpret(programs, input), this.batch(programs, input, output)) != 0) {
+			this.report.report(2, 2, "Warning, the methods produced different results.");
+		}
+
+		return "Programs: " + programs.size() + ", rows: " + ROWS + ", interpreted: "
+				+ Format.formatDouble(this.interpretTime, 2) + "ms, batch compute: "
+				+ Format.formatDouble(this.compiledTime, 2) + "ms";
+	}
+
+	/**
+	 * Time the interpreter.
+	 *
+	 * @param programs
+	 *            The programs.
+	 * @param input
+	 *            The rows.
+	 * @return The average time, in milliseconds, to evaluate the programs.
+	 */
+	private double timeInterpret(final List<EncogProgram> programs, final double[][] input) {
+		final long start = System.nanoTime();
+		for (int r = 0; r < ROUNDS; r++) {
+			this.interpret(programs, input);
+		}
+		return ((System.nanoTime() - start) / 1000000.0) / ROUNDS;
+	}
+
+	/**
+	 * Time the batch compute.
+	 *
+	 * @param programs
+	 *            The programs.
+	 * @param input
+	 *            The rows.
+	 * @param output
+	 *            Receives the output rows.
+	 * @return The average time, in milliseconds, to evaluate the programs.
+	 */
+	private double timeBatch(final List<EncogProgram> programs, final double[][] input, final double[][] output) {
+		final long start = System.nanoTime();
+		for (int r = 0; r < ROUNDS; r++) {
+			this.batch(programs, input, output);
+		}
+		return ((System.nanoTime() - start) / 1000000.0) / ROUNDS;
+	}
+
+	/**
+	 * Interpret every program over the rows, a row at a time.
+	 *
+	 * @param programs
+	 *            The programs.
+	 * @param input
+	 *            The rows.
+	 * @return The sum of the outputs.
+	 */
+	private double interpret(final List<EncogProgram> programs, final double[][] input) {
+		double sum = 0;
+		for (final EncogProgram program : programs) {
+			for (final double[] row : input) {
+				sum += program.compute(new BasicMLData(row)).getData(0);
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * Batch compute every program over the rows.
+	 *
+	 * @param programs
+	 *            The programs.
+	 * @param input
+	 *            The rows.
+	 * @param output
+	 *            Receives the output rows.
+	 * @return The sum of the outputs.
+	 */
+	private double batch(final List<EncogProgram> programs, final double[][] input, final double[][] output) {
+		double sum = 0;
+		for (final EncogProgram program : programs) {
+			program.compute(input, output);
+			for (final double[] row : output) {
+				sum += row[0];
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * @return The time, in milliseconds, to interpret every program over the
+	 *         rows.
+	 */
+	public double getInterpretTime() {
+		return this.interpretTime;
+	}
+
+	/**
+	 * @return The time, in milliseconds, to batch compute every program over
+	 *         the rows.
+	 */
+	public double getCompiledTime() {
+		return this.compiledTime;
+	}
+
+	/**
+	 * @return The time, in milliseconds, to interpret only the programs that
+	 *         could be compiled.
+	 */
+	public double getCompiledOnlyInterpretTime() {
+		return this.compiledOnlyInterpretTime;
+	}
+
+	/**
+	 * @return The time, in milliseconds, to batch compute only the programs
+	 *         that could be compiled.
+	 */
+	public double getCompiledOnlyTime() {
+		return this.compiledOnlyTime;
+	}
+
+	/**
+	 * @return The number of programs that could be compiled.
+	 */
+	public int getCompiledCount() {
+		return this.compiledCount;
+	}
+}
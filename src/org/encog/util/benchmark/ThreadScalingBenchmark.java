@@ -0,0 +1,157 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.util.benchmark;
+
+import org.encog.StatusReportable;
+import org.encog.ml.data.MLDataSet;
+import org.encog.neural.networks.BasicNetwork;
+import org.encog.neural.networks.training.propagation.resilient.ResilientPropagation;
+import org.encog.util.Format;
+import org.encog.util.simple.EncogUtility;
+
+/**
+ * Benchmark the time that a training iteration takes as the number of
+ * training threads grows. The network is large enough that the reduction of
+ * the per-thread gradients is a significant part of each iteration.
+ */
+public class ThreadScalingBenchmark {
+
+	/**
+	 * The number of iterations to time for each thread count.
+	 */
+	private static final int ITERATIONS = 10;
+
+	/**
+	 * Report progress.
+	 */
+	private final StatusReportable report;
+
+	/**
+	 * The thread counts to evaluate.
+	 */
+	private final int[] threadCounts;
+
+	/**
+	 * The average iteration time, in milliseconds, for each thread count.
+	 */
+	private final double[] iterationTime;
+
+	/**
+	 * Construct the benchmark, evaluating powers of two up to the number of
+	 * processors.
+	 *
+	 * @param report
+	 *            The object to report progress to.
+	 */
+	public ThreadScalingBenchmark(final StatusReportable report) {
+		this(report, defaultThreadCounts());
+	}
+
+	/**
+	 * Construct the benchmark.
+	 *
+	 * @param report
+	 *            The object to report progress to.
+	 * @param threadCounts
+	 *            The thread counts to evaluate.
+	 */
+	public ThreadScalingBenchmark(final StatusReportable report, final int[] threadCounts) {
+		this.report = report;
+		this.threadCounts = threadCounts;
+		this.iterationTime = new double[threadCounts.length];
+	}
+
+	/**
+	 * @return Powers of two, up to and including the number of processors.
+	 */
+	private static int[] defaultThreadCounts() {
+		final int processors = Runtime.getRuntime().availableProcessors();
+		int count = 1;
+		while ((1 << count) <= processors) {
+			count++;
+		}
+		final boolean exact = (1 << (count - 1)) == processors;
+		final int[] result = new int[exact ? count : count + 1];
+		for (int i = 0; i < count; i++) {
+			result[i] = 1 << i;
+		}
+		if (!exact) {
+			result[count] = processors;
+		}
+		return result;
+	}
+
+	/**
+	 * Perform the benchmark.
+	 *
+	 * @return A summary of the average iteration time for each thread count.
+	 */
+	public String process() {
+		final MLDataSet training = RandomTrainingFactory.generate(1000, 2000, 200, 10, -1, 1);
+		final StringBuilder result = new StringBuilder();
+		result.append("Iteration time by threads:");
+
+		for (int i = 0; i < this.threadCounts.length; i++) {
+			final BasicNetwork network = EncogUtility.simpleFeedForward(200, 500, 400, 10, true);
+			network.reset(1000);
+			final ResilientPropagation train = new ResilientPropagation(network, training);
+			train.setThreadCount(this.threadCounts[i]);
+
+			// the first iteration creates the workers
+			train.iteration();
+
+			final long start = System.nanoTime();
+			train.iteration(ITERATIONS);
+			final long elapsed = System.nanoTime() - start;
+			train.finishTraining();
+
+			this.iterationTime[i] = (elapsed / 1000000.0) / ITERATIONS;
+			this.report.report(this.threadCounts.length, i + 1,
+					"Threads: " + this.threadCounts[i] + ", ms/iteration: " + Format.formatDouble(this.iterationTime[i], 2));
+
+			result.append(' ');
+			result.append(this.threadCounts[i]);
+			result.append('=');
+			result.append(Format.formatDouble(this.iterationTime[i], 2));
+			result.append("ms");
+		}
+
+		return result.toString();
+	}
+
+	/**
+	 * @return The thread counts that were evaluated.
+	 */
+	public int[] getThreadCounts() {
+		return this.threadCounts;
+	}
+
+	/**
+	 * @return The average iteration time, in milliseconds, for each thread
+	 *         count.
+	 */
+	public double[] getIterationTime() {
+		return this.iterationTime;
+	}
+}
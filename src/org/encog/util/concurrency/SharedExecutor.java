@@ -0,0 +1,335 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.util.concurrency;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A long lived, work stealing thread pool that is shared by the evolutionary
+ * algorithms. Creating a thread pool for every generation, and submitting one
+ * task per genome, costs more than scoring a small genome. Instead work is
+ * given to this pool as a range of items, which is split in half until each
+ * piece is small enough, idle threads steal the pieces that have not been
+ * started yet.
+ *
+ * The pool uses daemon threads, so it does not need to be shut down. Calling
+ * setThreadCount replaces the pool, work already running on the old pool is
+ * allowed to finish.
+ */
+public final class SharedExecutor implements MultiThreadable {
+
+	/**
+	 * The number of pieces, per thread, that a range is split into. More
+	 * pieces balance uneven work better, fewer pieces cost less to schedule.
+	 */
+	public static final int CHUNKS_PER_THREAD = 4;
+
+	/**
+	 * Singleton instance.
+	 */
+	private static final SharedExecutor instance = new SharedExecutor();
+
+	/**
+	 * @return The instance to the singleton.
+	 */
+	public static SharedExecutor getInstance() {
+		return SharedExecutor.instance;
+	}
+
+	/**
+	 * The pool.
+	 */
+	private volatile ForkJoinPool pool;
+
+	/**
+	 * The requested thread count, 0 for one thread per processor.
+	 */
+	private int threadCount;
+
+	/**
+	 * Private constructor.
+	 */
+	private SharedExecutor() {
+		this.pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Process a range of items on the pool. The calling thread waits until all
+	 * of the items are processed. If any piece throws an exception, it is
+	 * thrown here. This may be called from a piece that is already running on
+	 * the pool, the nested pieces are then forked from that piece, and a
+	 * waiting thread helps with them rather than blocking.
+	 *
+	 * The thread count is a cap. When it is lower than the size of the pool,
+	 * that many workers claim pieces of the range in turn, so no more than
+	 * that many pieces of this range run at once. Otherwise the range is
+	 * split in half until the pieces are small enough, and every thread of
+	 * the pool may steal them. The pool size itself is set with
+	 * setThreadCount.
+	 *
+	 * @param count
+	 *            The number of items.
+	 * @param threads
+	 *            The most threads that process items of this range at once,
+	 *            if this is 1 the items are processed on the calling thread.
+	 * @param task
+	 *            The task that processes each piece.
+	 */
+	public void process(final int count, final int threads, final RangeTask task) {
+		if (count <= 0) {
+			return;
+		}
+
+		final ForkJoinPool current = this.pool;
+		final int parallelism = Math.min(Math.max(threads, 1), current.getParallelism());
+		final int grain = Math.max(1, count / (parallelism * CHUNKS_PER_THREAD));
+
+		if (parallelism == 1 || count <= grain) {
+			task.run(0, count);
+			return;
+		}
+
+		final ForkJoinTask<Void> action;
+		if (parallelism < current.getParallelism()) {
+			action = new CappedAction(task, count, grain, parallelism);
+		} else {
+			action = new RangeAction(task, 0, count, grain);
+		}
+
+		if (ForkJoinTask.getPool() == current) {
+			// already a task of this pool, fork the pieces from here
+			action.invoke();
+		} else {
+			current.invoke(action);
+		}
+	}
+
+	/**
+	 * Process a range of items, using every thread of the pool.
+	 *
+	 * @param count
+	 *            The number of items.
+	 * @param task
+	 *            The task that processes each piece.
+	 */
+	public void process(final int count, final RangeTask task) {
+		this.process(count, Integer.MAX_VALUE, task);
+	}
+
+	/**
+	 * @return The pool.
+	 */
+	public ForkJoinPool getPool() {
+		return this.pool;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getThreadCount() {
+		return this.threadCount;
+	}
+
+	/**
+	 * Set the number of threads in the pool.
+	 *
+	 * @param theThreadCount
+	 *            The number of threads, 0 for one per processor.
+	 */
+	@Override
+	public synchronized void setThreadCount(final int theThreadCount) {
+		final int threads = theThreadCount == 0 ? Runtime.getRuntime().availableProcessors() : theThreadCount;
+		final ForkJoinPool old = this.pool;
+		this.pool = new ForkJoinPool(threads);
+		this.threadCount = theThreadCount;
+		old.shutdown();
+	}
+
+	/**
+	 * Runs a fixed number of workers, each of which claims the next piece of
+	 * the range until none are left.
+	 */
+	private static class CappedAction extends RecursiveAction {
+
+		/**
+		 * The serial ID.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The task that processes each piece.
+		 */
+		private final RangeTask task;
+
+		/**
+		 * The number of items.
+		 */
+		private final int count;
+
+		/**
+		 * The size of each piece.
+		 */
+		private final int grain;
+
+		/**
+		 * The number of workers.
+		 */
+		private final int workers;
+
+		/**
+		 * The first item of the next piece to claim.
+		 */
+		private final AtomicInteger next;
+
+		/**
+		 * Construct the action that starts the workers.
+		 *
+		 * @param theTask
+		 *            The task that processes each piece.
+		 * @param theCount
+		 *            The number of items.
+		 * @param theGrain
+		 *            The size of each piece.
+		 * @param theWorkers
+		 *            The number of workers.
+		 */
+		CappedAction(final RangeTask theTask, final int theCount, final int theGrain, final int theWorkers) {
+			this(theTask, theCount, theGrain, theWorkers, new AtomicInteger());
+		}
+
+		/**
+		 * Construct an action.
+		 *
+		 * @param theTask
+		 *            The task that processes each piece.
+		 * @param theCount
+		 *            The number of items.
+		 * @param theGrain
+		 *            The size of each piece.
+		 * @param theWorkers
+		 *            The number of workers to start, 0 for a worker.
+		 * @param theNext
+		 *            The first item of the next piece to claim.
+		 */
+		private CappedAction(final RangeTask theTask, final int theCount, final int theGrain, final int theWorkers,
+				final AtomicInteger theNext) {
+			this.task = theTask;
+			this.count = theCount;
+			this.grain = theGrain;
+			this.workers = theWorkers;
+			this.next = theNext;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected void compute() {
+			if (this.workers > 0) {
+				final CappedAction[] list = new CappedAction[this.workers];
+				for (int i = 0; i < list.length; i++) {
+					list[i] = new CappedAction(this.task, this.count, this.grain, 0, this.next);
+				}
+				ForkJoinTask.invokeAll(list);
+				return;
+			}
+
+			for (;;) {
+				final int low = this.next.getAndAdd(this.grain);
+				if (low >= this.count) {
+					return;
+				}
+				this.task.run(low, Math.min(this.count, low + this.grain));
+			}
+		}
+	}
+
+	/**
+	 * Splits a range in half until each piece is no larger than the grain.
+	 */
+	private static class RangeAction extends RecursiveAction {
+
+		/**
+		 * The serial ID.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The task that processes each piece.
+		 */
+		private final RangeTask task;
+
+		/**
+		 * The first item.
+		 */
+		private final int low;
+
+		/**
+		 * The item after the last.
+		 */
+		private final int high;
+
+		/**
+		 * The largest piece that is not split.
+		 */
+		private final int grain;
+
+		/**
+		 * Construct the action.
+		 *
+		 * @param theTask
+		 *            The task that processes each piece.
+		 * @param theLow
+		 *            The first item.
+		 * @param theHigh
+		 *            The item after the last.
+		 * @param theGrain
+		 *            The largest piece that is not split.
+		 */
+		RangeAction(final RangeTask theTask, final int theLow, final int theHigh, final int theGrain) {
+			this.task = theTask;
+			this.low = theLow;
+			this.high = theHigh;
+			this.grain = theGrain;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected void compute() {
+			if (this.high - this.low <= this.grain) {
+				this.task.run(this.low, this.high);
+			} else {
+				final int mid = (this.low + this.high) >>> 1;
+				RecursiveAction.invokeAll(new RangeAction(this.task, this.low, mid, this.grain),
+						new RangeAction(this.task, mid, this.high, this.grain));
+			}
+		}
+	}
+}
@@ -0,0 +1,727 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.util.csv;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.text.ParseException;
+
+import org.encog.EncogError;
+
+/**
+ * Reads CSV lines and splits them into fields without creating a String for
+ * every field. Each line is copied into a reused character buffer and
+ * tokenized in place, quoted fields are unescaped in place, and numbers are
+ * parsed straight from the buffer. A String is only created when a field is
+ * requested as a String, or when a number is written in a form that only the
+ * NumberFormat of the CSVFormat understands.
+ *
+ * Lines are split exactly as ParseCSVLine splits them, and numbers are parsed
+ * to the same values as CSVFormat.parse.
+ */
+public class CSVTokenizer {
+
+	/**
+	 * The size of the read buffer.
+	 */
+	public static final int BUFFER_SIZE = 65536;
+
+	/**
+	 * The most significant digits that are parsed without building a String.
+	 * Up to 15 digits always fit exactly into the mantissa of a double.
+	 */
+	private static final int MAX_FAST_DIGITS = 15;
+
+	/**
+	 * The largest exponent accepted before the NumberFormat is used.
+	 */
+	private static final int MAX_EXPONENT = 999;
+
+	/**
+	 * Powers of ten that are exactly representable as a double.
+	 */
+	private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+			1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+	/**
+	 * The reader that the lines come from.
+	 */
+	private final Reader reader;
+
+	/**
+	 * The CSV format.
+	 */
+	private final CSVFormat format;
+
+	/**
+	 * The separator character.
+	 */
+	private final char separator;
+
+	/**
+	 * The decimal character, or zero if numbers must always be parsed by the
+	 * NumberFormat of the CSV format.
+	 */
+	private final char decimal;
+
+	/**
+	 * Characters read, but not yet returned as a line.
+	 */
+	private final char[] buffer = new char[BUFFER_SIZE];
+
+	/**
+	 * The next character to use from the buffer.
+	 */
+	private int position;
+
+	/**
+	 * The number of valid characters in the buffer.
+	 */
+	private int limit;
+
+	/**
+	 * True if the last line ended with a carriage return, so a line feed that
+	 * follows belongs to the same line break.
+	 */
+	private boolean skipLF;
+
+	/**
+	 * The current line, after tokenizing.
+	 */
+	private char[] line = new char[256];
+
+	/**
+	 * The length of the current line, before tokenizing.
+	 */
+	private int lineLength;
+
+	/**
+	 * The start of each field in the current line.
+	 */
+	private int[] fieldStart = new int[16];
+
+	/**
+	 * The end of each field in the current line.
+	 */
+	private int[] fieldEnd = new int[16];
+
+	/**
+	 * The number of fields on the current line.
+	 */
+	private int fieldCount;
+
+	/**
+	 * True if the current line only holds white space.
+	 */
+	private boolean blank = true;
+
+	/**
+	 * The last line that was not blank before the current line, kept so that
+	 * its fields can still be read.
+	 */
+	private char[] previousLine = new char[256];
+
+	/**
+	 * The start of each field in the previous line.
+	 */
+	private int[] previousStart = new int[16];
+
+	/**
+	 * The end of each field in the previous line.
+	 */
+	private int[] previousEnd = new int[16];
+
+	/**
+	 * The number of fields on the previous line.
+	 */
+	private int previousCount;
+
+	/**
+	 * Used to rebuild numbers that have too many digits to parse directly.
+	 */
+	private char[] scratch = new char[32];
+
+	/**
+	 * The value found by the last successful call to parseDirect.
+	 */
+	private double parsed;
+
+	/**
+	 * Construct the tokenizer.
+	 *
+	 * @param theReader
+	 *            The reader to read lines from.
+	 * @param theFormat
+	 *            The CSV format.
+	 */
+	public CSVTokenizer(final Reader theReader, final CSVFormat theFormat) {
+		this.reader = theReader;
+		this.format = theFormat;
+		this.separator = theFormat.getSeparator();
+		final char dec = theFormat.getDecimal();
+		this.decimal = (dec == '.' || dec == ',') ? dec : 0;
+	}
+
+	/**
+	 * Close the underlying reader.
+	 */
+	public void close() {
+		try {
+			this.reader.close();
+		} catch (final IOException e) {
+			throw new EncogError(e);
+		}
+	}
+
+	/**
+	 * Read and tokenize the next line that is not blank.
+	 *
+	 * @return True if a line was read, false at the end of the file.
+	 */
+	public boolean next() {
+		do {
+			if (!this.nextLine()) {
+				return false;
+			}
+		} while (this.isBlank());
+		return true;
+	}
+
+	/**
+	 * Read and tokenize the next line, even if it is blank.
+	 *
+	 * @return True if a line was read, false at the end of the file.
+	 */
+	public boolean nextLine() {
+		// keep the line we are leaving as the previous line, unless it is
+		// blank, so short lines still see the values of the last real row
+		if (!this.blank) {
+			final char[] c = this.previousLine;
+			this.previousLine = this.line;
+			this.line = c;
+			int[] t = this.previousStart;
+			this.previousStart = this.fieldStart;
+			this.fieldStart = t;
+			t = this.previousEnd;
+			this.previousEnd = this.fieldEnd;
+			this.fieldEnd = t;
+			this.previousCount = this.fieldCount;
+		}
+		this.fieldCount = 0;
+
+		try {
+			if (!this.readLine()) {
+				this.blank = true;
+				return false;
+			}
+		} catch (final IOException e) {
+			throw new EncogError(e);
+		}
+		this.blank = this.scanBlank();
+
+		if (this.separator == ' ') {
+			this.tokenizeSpaceSep();
+		} else {
+			this.tokenizeCharSep();
+		}
+		return true;
+	}
+
+	/**
+	 * @return True if the line that was just read only holds white space.
+	 */
+	private boolean isBlank() {
+		return this.blank;
+	}
+
+	/**
+	 * @return True if the line buffer, before tokenizing, only holds white
+	 *         space.
+	 */
+	private boolean scanBlank() {
+		for (int i = 0; i < this.lineLength; i++) {
+			if (this.line[i] > ' ') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Read one line into the line buffer. A line ends with a line feed, a
+	 * carriage return, or a carriage return followed by a line feed.
+	 *
+	 * @return True if a line was read.
+	 * @throws IOException
+	 *             If the reader fails.
+	 */
+	private boolean readLine() throws IOException {
+		this.lineLength = 0;
+		boolean found = false;
+
+		for (;;) {
+			if (this.position >= this.limit) {
+				final int count = this.reader.read(this.buffer, 0, this.buffer.length);
+				if (count < 0) {
+					return found;
+				}
+				this.position = 0;
+				this.limit = count;
+				continue;
+			}
+
+			if (this.skipLF) {
+				this.skipLF = false;
+				if (this.buffer[this.position] == '\n') {
+					this.position++;
+					continue;
+				}
+			}
+
+			final int start = this.position;
+			int i = start;
+			while (i < this.limit && this.buffer[i] != '\n' && this.buffer[i] != '\r') {
+				i++;
+			}
+
+			if (i > start) {
+				this.appendToLine(start, i - start);
+				found = true;
+			}
+
+			if (i < this.limit) {
+				this.skipLF = this.buffer[i] == '\r';
+				this.position = i + 1;
+				return true;
+			}
+			this.position = i;
+		}
+	}
+
+	/**
+	 * Append characters from the read buffer to the line.
+	 *
+	 * @param start
+	 *            The first character in the read buffer.
+	 * @param length
+	 *            The number of characters.
+	 */
+	private void appendToLine(final int start, final int length) {
+		final int needed = this.lineLength + length;
+		if (needed > this.line.length) {
+			final char[] grown = new char[Math.max(needed, this.line.length * 2)];
+			System.arraycopy(this.line, 0, grown, 0, this.lineLength);
+			this.line = grown;
+		}
+		System.arraycopy(this.buffer, start, this.line, this.lineLength, length);
+		this.lineLength = needed;
+	}
+
+	/**
+	 * Record a field of the current line.
+	 *
+	 * @param start
+	 *            The first character of the field.
+	 * @param end
+	 *            One past the last character of the field.
+	 * @param trim
+	 *            True if white space should be removed from both ends.
+	 */
+	private void addField(final int start, final int end, final boolean trim) {
+		int s = start;
+		int e = end;
+		if (trim) {
+			while (s < e && this.line[s] <= ' ') {
+				s++;
+			}
+			while (e > s && this.line[e - 1] <= ' ') {
+				e--;
+			}
+		}
+
+		if (this.fieldCount == this.fieldStart.length) {
+			final int size = this.fieldCount * 2;
+			final int[] grownStart = new int[size];
+			final int[] grownEnd = new int[size];
+			System.arraycopy(this.fieldStart, 0, grownStart, 0, this.fieldCount);
+			System.arraycopy(this.fieldEnd, 0, grownEnd, 0, this.fieldCount);
+			this.fieldStart = grownStart;
+			this.fieldEnd = grownEnd;
+		}
+
+		this.fieldStart[this.fieldCount] = s;
+		this.fieldEnd[this.fieldCount] = e;
+		this.fieldCount++;
+	}
+
+	/**
+	 * Split the line on the separator character. Quoted fields are unescaped
+	 * by moving their characters to the left, which never overtakes the
+	 * character being read.
+	 */
+	private void tokenizeCharSep() {
+		final char[] l = this.line;
+		final int length = this.lineLength;
+		int write = 0;
+		int start = 0;
+		boolean quoted = false;
+		boolean hadQuotes = false;
+
+		for (int i = 0; i < length; i++) {
+			final char ch = l[i];
+			if ((ch == this.separator) && !quoted) {
+				this.addField(start, write, !hadQuotes);
+				start = write;
+				hadQuotes = false;
+			} else if ((ch == '\"') && quoted) {
+				if ((i + 1) < length && l[i + 1] == '\"') {
+					i++;
+					l[write++] = '\"';
+				} else {
+					quoted = false;
+				}
+			} else if ((ch == '\"') && (write == start)) {
+				hadQuotes = true;
+				quoted = true;
+			} else {
+				l[write++] = ch;
+			}
+		}
+
+		if (write > start) {
+			this.addField(start, write, !hadQuotes);
+		}
+	}
+
+	/**
+	 * @param ch
+	 *            The character to check.
+	 * @return True if the character separates space separated fields.
+	 */
+	private static boolean isWhiteSpace(final char ch) {
+		return ch == ' ' || ch == '\t' || ch == '\n' || ch == '\r';
+	}
+
+	/**
+	 * Split the line on runs of white space. A field that starts with a quote
+	 * runs to the next quote.
+	 */
+	private void tokenizeSpaceSep() {
+		final char[] l = this.line;
+		final int length = this.lineLength;
+		int i = 0;
+
+		while (i < length) {
+			final int start;
+			if (l[i] == '\"') {
+				start = ++i;
+				while (i < length && l[i] != '\"') {
+					i++;
+				}
+				this.addField(start, i, false);
+				if (i < length) {
+					i++;
+				}
+			} else {
+				start = i;
+				while (i < length && !isWhiteSpace(l[i])) {
+					i++;
+				}
+				this.addField(start, i, false);
+			}
+
+			while (i < length && isWhiteSpace(l[i])) {
+				i++;
+			}
+		}
+	}
+
+	/**
+	 * @return The number of fields on the current line.
+	 */
+	public int getFieldCount() {
+		return this.fieldCount;
+	}
+
+	/**
+	 * @return The CSV format.
+	 */
+	public CSVFormat getFormat() {
+		return this.format;
+	}
+
+	/**
+	 * Get a field as a String.
+	 *
+	 * @param index
+	 *            The field index.
+	 * @return The field.
+	 */
+	public String getString(final int index) {
+		return new String(this.line, this.fieldStart[index], this.fieldEnd[index] - this.fieldStart[index]);
+	}
+
+	/**
+	 * @return The number of fields on the previous line.
+	 */
+	int getPreviousFieldCount() {
+		return this.previousCount;
+	}
+
+	/**
+	 * Get a field of the previous line as a String.
+	 *
+	 * @param index
+	 *            The field index.
+	 * @return The field.
+	 */
+	String getPreviousString(final int index) {
+		return new String(this.previousLine, this.previousStart[index],
+				this.previousEnd[index] - this.previousStart[index]);
+	}
+
+	/**
+	 * Determine if a field is missing. A field is missing if it is empty, only
+	 * holds white space, or is a question mark.
+	 *
+	 * @param index
+	 *            The field index.
+	 * @return True if the field is missing.
+	 */
+	public boolean isMissing(final int index) {
+		int s = this.fieldStart[index];
+		int e = this.fieldEnd[index];
+		while (s < e && this.line[s] <= ' ') {
+			s++;
+		}
+		while (e > s && this.line[e - 1] <= ' ') {
+			e--;
+		}
+		return s == e || (e - s == 1 && this.line[s] == '?');
+	}
+
+	/**
+	 * Parse a field as a double, the same way as CSVFormat.parse.
+	 *
+	 * @param index
+	 *            The field index.
+	 * @return The number.
+	 */
+	public double getDouble(final int index) {
+		if (this.parseDirect(this.fieldStart[index], this.fieldEnd[index])) {
+			return this.parsed;
+		}
+		return this.format.parse(this.getString(index));
+	}
+
+	/**
+	 * Parse consecutive fields as doubles.
+	 *
+	 * @param index
+	 *            The first field to parse.
+	 * @param target
+	 *            The array to hold the numbers.
+	 * @param offset
+	 *            The first element of the target to fill.
+	 * @param count
+	 *            The number of fields to parse.
+	 */
+	public void getDoubles(final int index, final double[] target, final int offset, final int count) {
+		for (int i = 0; i < count; i++) {
+			target[offset + i] = this.getDouble(index + i);
+		}
+	}
+
+	/**
+	 * Parse a field as an integer, the same way as the NumberFormat of the CSV
+	 * format.
+	 *
+	 * @param index
+	 *            The field index.
+	 * @return The number.
+	 */
+	public int getInt(final int index) {
+		final char[] l = this.line;
+		int i = this.fieldStart[index];
+		final int end = this.fieldEnd[index];
+		final boolean negative = i < end && l[i] == '-';
+		if (negative) {
+			i++;
+		}
+
+		final int length = end - i;
+		if (length > 0 && length <= 9) {
+			int result = 0;
+			while (i < end && l[i] >= '0' && l[i] <= '9') {
+				result = (result * 10) + (l[i++] - '0');
+			}
+			if (i == end) {
+				return negative ? -result : result;
+			}
+		}
+
+		try {
+			return this.format.getNumberFormatter().parse(this.getString(index)).intValue();
+		} catch (final ParseException e) {
+			throw new CSVError(e);
+		}
+	}
+
+	/**
+	 * Parse a number directly from the line. Only plain numbers are handled:
+	 * an optional minus sign, digits with an optional decimal character, and
+	 * an optional exponent that starts with an upper case E. Everything else
+	 * is left for the NumberFormat, which keeps its leniency exactly.
+	 *
+	 * @param start
+	 *            The first character of the field.
+	 * @param end
+	 *            One past the last character of the field.
+	 * @return True if the number was parsed into the parsed field.
+	 */
+	private boolean parseDirect(final int start, final int end) {
+		final char[] l = this.line;
+		final int length = end - start;
+		if (this.decimal == 0 || length == 0) {
+			return false;
+		}
+
+		if (length == 1 && l[start] == '?') {
+			this.parsed = Double.NaN;
+			return true;
+		}
+
+		if (length == 3 && (l[start] | 0x20) == 'n' && (l[start + 1] | 0x20) == 'a'
+				&& (l[start + 2] | 0x20) == 'n') {
+			this.parsed = Double.NaN;
+			return true;
+		}
+
+		int i = start;
+		final boolean negative = l[i] == '-';
+		if (negative) {
+			i++;
+		}
+
+		long mantissa = 0;
+		int digits = 0;
+		int scale = 0;
+		boolean any = false;
+
+		while (i < end && l[i] >= '0' && l[i] <= '9') {
+			final int d = l[i++] - '0';
+			any = true;
+			if (mantissa != 0 || d != 0) {
+				if (digits < MAX_FAST_DIGITS) {
+					mantissa = (mantissa * 10) + d;
+				}
+				digits++;
+			}
+		}
+
+		if (i < end && l[i] == this.decimal) {
+			i++;
+			while (i < end && l[i] >= '0' && l[i] <= '9') {
+				final int d = l[i++] - '0';
+				any = true;
+				if (mantissa != 0 || d != 0) {
+					if (digits < MAX_FAST_DIGITS) {
+						mantissa = (mantissa * 10) + d;
+						scale--;
+					}
+					digits++;
+				} else {
+					scale--;
+				}
+			}
+		}
+
+		if (!any) {
+			return false;
+		}
+
+		if (i < end && l[i] == 'E') {
+			i++;
+			final boolean negativeExponent = i < end && l[i] == '-';
+			if (negativeExponent) {
+				i++;
+			}
+			int exponent = 0;
+			boolean anyExponent = false;
+			while (i < end && l[i] >= '0' && l[i] <= '9') {
+				exponent = (exponent * 10) + (l[i++] - '0');
+				anyExponent = true;
+				if (exponent > MAX_EXPONENT) {
+					return false;
+				}
+			}
+			if (!anyExponent) {
+				return false;
+			}
+			scale += negativeExponent ? -exponent : exponent;
+		}
+
+		if (i != end) {
+			return false;
+		}
+
+		final double result;
+		if (mantissa == 0) {
+			result = 0;
+		} else if (digits > MAX_FAST_DIGITS || scale > 22 || scale < -22) {
+			result = Math.abs(this.parseRebuilt(start, end));
+		} else if (scale >= 0) {
+			result = mantissa * POWERS_OF_TEN[scale];
+		} else {
+			result = mantissa / POWERS_OF_TEN[-scale];
+		}
+
+		this.parsed = negative ? -result : result;
+		return true;
+	}
+
+	/**
+	 * Parse a plain number that has too many digits, or too large an exponent,
+	 * to be computed exactly from a long. The decimal character is replaced by
+	 * a decimal point and the standard parser does the rounding, as the
+	 * NumberFormat does.
+	 *
+	 * @param start
+	 *            The first character of the field.
+	 * @param end
+	 *            One past the last character of the field.
+	 * @return The number.
+	 */
+	private double parseRebuilt(final int start, final int end) {
+		final int length = end - start;
+		if (this.scratch.length < length) {
+			this.scratch = new char[length];
+		}
+		for (int i = 0; i < length; i++) {
+			final char ch = this.line[start + i];
+			this.scratch[i] = (ch == this.decimal) ? '.' : ch;
+		}
+		return Double.parseDouble(new String(this.scratch, 0, length));
+	}
+}
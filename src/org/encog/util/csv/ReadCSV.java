@@ -23,16 +23,17 @@
  */
 package org.encog.util.csv;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -41,7 +42,9 @@ import java.util.Map;
 import org.encog.EncogError;
 
 /**
- * Read and parse CSV format files.
+ * Read and parse CSV format files. Lines are tokenized in place by a
+ * CSVTokenizer, so a column only becomes a String when it is read as one, and
+ * numbers are parsed straight from the line.
  */
 public class ReadCSV {
 
@@ -84,9 +87,9 @@ public class ReadCSV {
 	private CSVFormat format;
 
 	/**
-	 * The buffered reader to read the file.
+	 * Reads and tokenizes the lines of the file.
 	 */
-	private final BufferedReader reader;
+	private CSVTokenizer tokenizer;
 
 	/**
 	 * The names of the columns.
@@ -94,19 +97,21 @@ public class ReadCSV {
 	private final Map<String, Integer> columns = new HashMap<>();
 
 	/**
-	 * The data.
+	 * The columns of the current row that have been read as a String. A row
+	 * that is shorter than the first row keeps the values of the earlier rows
+	 * for the columns it does not have.
 	 */
 	private String[] data;
 
 	/**
-	 * The column names.
+	 * The number of columns that come from the current line of the tokenizer.
 	 */
-	private List<String> columnNames = new ArrayList<>();
+	private int current;
 
 	/**
-	 * Used to parse the CSV.
+	 * The column names.
 	 */
-	private ParseCSVLine parseLine;
+	private List<String> columnNames = new ArrayList<>();
 
 	/**
 	 * Construct a CSV reader from an input stream. Allows a delimiter character
@@ -121,9 +126,7 @@ public class ReadCSV {
 	 */
 	public ReadCSV(final InputStream is, final boolean headers, final char delim) {
 		final CSVFormat format = new CSVFormat(CSVFormat.getDecimalCharacter(), delim);
-		this.parseLine = new ParseCSVLine(format);
-		this.reader = new BufferedReader(new InputStreamReader(is));
-		this.begin(headers, format);
+		this.begin(new InputStreamReader(is), headers, format);
 	}
 
 	/**
@@ -138,8 +141,7 @@ public class ReadCSV {
 	 *            What is the CSV format.
 	 */
 	public ReadCSV(final InputStream is, final boolean headers, final CSVFormat format) {
-		this.reader = new BufferedReader(new InputStreamReader(is));
-		this.begin(headers, format);
+		this.begin(new InputStreamReader(is), headers, format);
 	}
 
 	/**
@@ -156,9 +158,7 @@ public class ReadCSV {
 	public ReadCSV(final File file, final boolean headers, final char delim) {
 		try {
 			final CSVFormat format = new CSVFormat(CSVFormat.getDecimalCharacter(), delim);
-			this.parseLine = new ParseCSVLine(format);
-			this.reader = new BufferedReader(new FileReader(file));
-			this.begin(headers, format);
+			this.begin(new FileReader(file), headers, format);
 		} catch (final IOException e) {
 			throw new EncogError(e);
 		}
@@ -185,9 +185,7 @@ public class ReadCSV {
 	 */
 	public ReadCSV(final File file, final boolean headers, final CSVFormat format) {
 		try {
-			this.reader = new BufferedReader(new FileReader(file));
-			this.parseLine = new ParseCSVLine(format);
-			this.begin(headers, format);
+			this.begin(new FileReader(file), headers, format);
 		} catch (final IOException e) {
 			throw new EncogError(e);
 		}
@@ -196,39 +194,33 @@ public class ReadCSV {
 	/**
 	 * Reader the headers.
 	 *
+	 * @param reader
+	 *            The reader to read the file from.
 	 * @param headers
 	 *            Are headers present.
 	 * @param format
 	 *            The format to use.
 	 */
-	private void begin(final boolean headers, final CSVFormat format) {
-		try {
-			this.parseLine = new ParseCSVLine(format);
-			this.format = format;
-			// read the column heads
-			if (headers) {
-				final String line = this.reader.readLine();
-
-				// Are we trying to parse an empty file?
-				if (line == null) {
-					this.columnNames.clear();
-					return;
-				}
-
-				final List<String> tok = this.parseLine.parse(line);
-
-				int i = 0;
+	private void begin(final Reader reader, final boolean headers, final CSVFormat format) {
+		this.tokenizer = new CSVTokenizer(reader, format);
+		this.format = format;
+		// read the column heads
+		if (headers) {
+			// Are we trying to parse an empty file?
+			if (!this.tokenizer.nextLine()) {
 				this.columnNames.clear();
-				for (final String header : tok) {
-					this.columnNames.add(header.toLowerCase());
-					this.columns.put(header.toLowerCase(), i++);
-				}
+				return;
 			}
 
-			this.data = null;
-		} catch (final IOException e) {
-			throw new EncogError(e);
+			this.columnNames.clear();
+			for (int i = 0; i < this.tokenizer.getFieldCount(); i++) {
+				final String header = this.tokenizer.getString(i).toLowerCase();
+				this.columnNames.add(header);
+				this.columns.put(header, i);
+			}
 		}
+
+		this.data = null;
 	}
 
 	/**
@@ -236,11 +228,7 @@ public class ReadCSV {
 	 *
 	 */
 	public void close() {
-		try {
-			this.reader.close();
-		} catch (final IOException e) {
-			throw new EncogError(e);
-		}
+		this.tokenizer.close();
 	}
 
 	/**
@@ -251,11 +239,24 @@ public class ReadCSV {
 	 * @return The column as a string.
 	 */
 	public String get(final int i) {
+		this.checkColumn(i);
+		if (i < this.current && this.data[i] == null) {
+			this.data[i] = this.tokenizer.getString(i);
+		}
+		return this.data[i];
+	}
+
+	/**
+	 * Make sure that a column exists.
+	 *
+	 * @param i
+	 *            The column index, starting at zero.
+	 */
+	private void checkColumn(final int i) {
 		if (i >= this.data.length) {
 			throw new EncogError(
 					"Can't access column " + i + " in a file that has only " + this.data.length + " columns.");
 		}
-		return this.data[i];
 	}
 
 	/**
@@ -271,7 +272,7 @@ public class ReadCSV {
 		if (i == null) {
 			return null;
 		}
-		return this.data[i.intValue()];
+		return this.get(i.intValue());
 	}
 
 	/**
@@ -313,8 +314,28 @@ public class ReadCSV {
 	 * @return The data at the specified column.
 	 */
 	public double getDouble(final int index) {
-		final String str = this.get(index);
-		return this.format.parse(str);
+		this.checkColumn(index);
+		if (index < this.current) {
+			return this.tokenizer.getDouble(index);
+		}
+		return this.format.parse(this.data[index]);
+	}
+
+	/**
+	 * Get consecutive columns as doubles.
+	 *
+	 * @param index
+	 *            The first column to read, starting at zero.
+	 * @param target
+	 *            The array to fill, from its first element to its last.
+	 */
+	public void getDoubles(final int index, final double[] target) {
+		this.checkColumn(index + target.length - 1);
+		final int direct = Math.max(0, Math.min(target.length, this.current - index));
+		this.tokenizer.getDoubles(index, target, 0, direct);
+		for (int i = direct; i < target.length; i++) {
+			target[i] = this.format.parse(this.data[index + i]);
+		}
 	}
 
 	/**
@@ -325,8 +346,11 @@ public class ReadCSV {
 	 * @return The column data as a double.
 	 */
 	public double getDouble(final String column) {
-		final String str = this.get(column);
-		return this.format.parse(str);
+		final Integer i = this.columns.get(column.toLowerCase());
+		if (i == null) {
+			throw new CSVError("Unknown column: " + column);
+		}
+		return this.getDouble(i.intValue());
 	}
 
 	/**
@@ -337,7 +361,11 @@ public class ReadCSV {
 	 * @return The column data as an integer.
 	 */
 	public int getInt(final int i) {
-		final String str = this.get(i);
+		this.checkColumn(i);
+		if (i < this.current) {
+			return this.tokenizer.getInt(i);
+		}
+		final String str = this.data[i];
 		try {
 			return this.format.getNumberFormatter().parse(str).intValue();
 		} catch (final ParseException e) {
@@ -345,53 +373,31 @@ public class ReadCSV {
 		}
 	}
 
-	/**
-	 * Count the columns and create a an array to hold them.
-	 *
-	 * @param line
-	 *            One line from the file
-	 */
-	private void initData(final String line) {
-		final List<String> tok = this.parseLine.parse(line);
-		this.data = new String[tok.size()];
-
-	}
-
 	/**
 	 * Read the next line.
 	 *
 	 * @return True if there are more lines to read.
 	 */
 	public boolean next() {
+		if (!this.tokenizer.next()) {
+			return false;
+		}
 
-		try {
-			String line = null;
-			do {
-				line = this.reader.readLine();
-			} while ((line != null) && line.trim().length() == 0);
-
-			if (line == null) {
-				return false;
-			}
-
-			if (this.data == null) {
-				this.initData(line);
-			}
-
-			final List<String> tok = this.parseLine.parse(line);
+		if (this.data == null) {
+			this.data = new String[this.tokenizer.getFieldCount()];
+		}
 
-			int i = 0;
-			for (final String str : tok) {
-				if (i < this.data.length) {
-					this.data[i++] = str;
-				}
+		// a short line keeps the earlier values of the columns it lacks
+		final int count = Math.min(this.tokenizer.getFieldCount(), this.data.length);
+		for (int i = count; i < this.current; i++) {
+			if (this.data[i] == null) {
+				this.data[i] = this.tokenizer.getPreviousString(i);
 			}
-
-			return true;
-		} catch (final IOException e) {
-			throw new EncogError(e);
 		}
+		Arrays.fill(this.data, 0, count, null);
+		this.current = count;
 
+		return true;
 	}
 
 	public List<String> getColumnNames() {
@@ -404,12 +410,27 @@ public class ReadCSV {
 
 	public boolean hasMissing() {
 		for (int i = 0; i < this.data.length; i++) {
-			String s = this.data[i].trim();
-			if (s.length() == 0 || s.equals("?")) {
+			if (this.isMissing(i)) {
 				return true;
 			}
 		}
 		return false;
 	}
 
+	/**
+	 * Determine if a column is missing, that is empty or a question mark.
+	 *
+	 * @param i
+	 *            The column index, starting at zero.
+	 * @return True if the column is missing.
+	 */
+	public boolean isMissing(final int i) {
+		this.checkColumn(i);
+		if (i < this.current) {
+			return this.tokenizer.isMissing(i);
+		}
+		final String s = this.data[i].trim();
+		return s.length() == 0 || s.equals("?");
+	}
+
 }
@@ -24,11 +24,13 @@
 package org.encog.util.error;
 
 import org.encog.mathutil.error.ErrorCalculation;
+import org.encog.ml.MLBatchRegression;
 import org.encog.ml.MLContext;
 import org.encog.ml.MLRegression;
 import org.encog.ml.data.MLData;
 import org.encog.ml.data.MLDataPair;
 import org.encog.ml.data.MLDataSet;
+import org.encog.ml.data.basic.BasicMLDataBlock;
 
 public class CalculateRegressionError {
 
@@ -40,10 +42,23 @@ public class CalculateRegressionError {
 			((MLContext) method).clearContext();
 		}
 
-		// calculate error
-		for (final MLDataPair pair : data) {
-			final MLData actual = method.compute(pair.getInput());
-			errorCalculation.updateError(actual.getData(), pair.getIdeal().getData(), pair.getSignificance());
+		// calculate error, a block of rows at a time if the method supports it
+		if ((method instanceof MLBatchRegression) && (data.getRecordCount() > 0)) {
+			final MLBatchRegression batch = (MLBatchRegression) method;
+			final BasicMLDataBlock block = new BasicMLDataBlock(data, method.getOutputCount(),
+					MLBatchRegression.DEFAULT_BATCH_ROWS);
+			while (block.next()) {
+				batch.compute(block.getInput(), block.getActual());
+				for (int i = 0; i < block.getCount(); i++) {
+					errorCalculation.updateError(block.getActual()[i], block.getIdeal()[i],
+							block.getSignificance()[i]);
+				}
+			}
+		} else {
+			for (final MLDataPair pair : data) {
+				final MLData actual = method.compute(pair.getInput());
+				errorCalculation.updateError(actual.getData(), pair.getIdeal().getData(), pair.getSignificance());
+			}
 		}
 		return errorCalculation.calculate();
 	}
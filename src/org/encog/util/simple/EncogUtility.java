@@ -33,15 +33,15 @@ import org.encog.EncogError;
 import org.encog.app.analyst.csv.basic.BasicFile;
 import org.encog.engine.network.activation.ActivationSigmoid;
 import org.encog.engine.network.activation.ActivationTANH;
-import org.encog.mathutil.error.ErrorCalculation;
+import org.encog.ml.MLBatchRegression;
 import org.encog.ml.MLClassification;
-import org.encog.ml.MLContext;
 import org.encog.ml.MLMethod;
 import org.encog.ml.MLRegression;
 import org.encog.ml.data.MLData;
 import org.encog.ml.data.MLDataPair;
 import org.encog.ml.data.MLDataSet;
 import org.encog.ml.data.basic.BasicMLData;
+import org.encog.ml.data.basic.BasicMLDataBlock;
 import org.encog.ml.data.buffer.BufferedMLDataSet;
 import org.encog.ml.data.buffer.MemoryDataLoader;
 import org.encog.ml.data.buffer.codec.CSVDataCODEC;
@@ -61,6 +61,7 @@ import org.encog.neural.pattern.FeedForwardPattern;
 import org.encog.util.Format;
 import org.encog.util.csv.CSVFormat;
 import org.encog.util.csv.ReadCSV;
+import org.encog.util.error.CalculateRegressionError;
 import org.encog.util.logging.EncogLogging;
 
 /**
@@ -195,6 +196,11 @@ public final class EncogUtility {
 	 *            The training set to evaluate.
 	 */
 	public static void evaluate(final MLRegression network, final MLDataSet training) {
+		if (network instanceof MLBatchRegression) {
+			EncogUtility.evaluateBatch((MLBatchRegression) network, training);
+			return;
+		}
+
 		for (final MLDataPair pair : training) {
 			final MLData output = network.compute(pair.getInput());
 			System.out.println("Input=" + EncogUtility.formatNeuralData(pair.getInput()) + ", Actual="
@@ -204,6 +210,29 @@ public final class EncogUtility {
 		}
 	}
 
+	/**
+	 * Evaluate the network, a block of rows at a time, and display the output
+	 * for every value in the training set.
+	 *
+	 * @param network
+	 *            The network to evaluate.
+	 * @param training
+	 *            The training set to evaluate.
+	 */
+	private static void evaluateBatch(final MLBatchRegression network, final MLDataSet training) {
+		final BasicMLDataBlock block = new BasicMLDataBlock(training, network.getOutputCount(),
+				MLBatchRegression.DEFAULT_BATCH_ROWS);
+		while (block.next()) {
+			final double[][] input = block.getInput();
+			network.compute(input, block.getActual());
+			for (int i = 0; i < block.getCount(); i++) {
+				System.out.println("Input=" + EncogUtility.formatNeuralData(new BasicMLData(input[i])) + ", Actual="
+						+ EncogUtility.formatNeuralData(new BasicMLData(block.getActual()[i])) + ", Ideal="
+						+ EncogUtility.formatNeuralData(new BasicMLData(block.getIdeal()[i])));
+			}
+		}
+	}
+
 	/**
 	 * Format neural data as a list of numbers.
 	 *
@@ -436,21 +465,11 @@ public final class EncogUtility {
 	}
 
 	public static double calculateRegressionError(MLRegression method, MLDataSet data) {
-
-		final ErrorCalculation errorCalculation = new ErrorCalculation();
-		if (method instanceof MLContext) {
-			((MLContext) method).clearContext();
-		}
-
 		try {
-			for (final MLDataPair pair : data) {
-				final MLData actual = method.compute(pair.getInput());
-				errorCalculation.updateError(actual.getData(), pair.getIdeal().getData(), pair.getSignificance());
-			}
+			return CalculateRegressionError.calculateError(method, data);
 		} catch (EncogError e) {
 			return Double.NaN;
 		}
-		return errorCalculation.calculate();
 	}
 
 	public static void saveCSV(File targetFile, CSVFormat format, MLDataSet set) {
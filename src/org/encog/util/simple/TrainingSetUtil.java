@@ -58,20 +58,13 @@ public class TrainingSetUtil {
 		while (csv.next()) {
 			MLData input = null;
 			MLData ideal = null;
-			int index = 0;
 
 			input = new BasicMLData(inputSize);
-			for (int i = 0; i < inputSize; i++) {
-				double d = csv.getDouble(index++);
-				input.setData(i, d);
-			}
+			csv.getDoubles(0, input.getData());
 
 			if (idealSize > 0) {
 				ideal = new BasicMLData(idealSize);
-				for (int i = 0; i < idealSize; i++) {
-					double d = csv.getDouble(index++);
-					ideal.setData(i, d);
-				}
+				csv.getDoubles(inputSize, ideal.getData());
 			}
 
 			MLDataPair pair = new BasicMLDataPair(input, ideal);
@@ -0,0 +1,146 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.app.analyst.analyze;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Random;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import org.encog.app.analyst.AnalystFileFormat;
+import org.encog.app.analyst.EncogAnalyst;
+import org.encog.app.analyst.script.DataField;
+import org.encog.app.analyst.script.prop.ScriptProperties;
+import org.encog.util.TempDir;
+import org.encog.util.csv.CSVFormat;
+import org.encog.util.csv.ReadCSV;
+
+public class TestPerformAnalysis extends TestCase {
+
+	public final TempDir TEMP_DIR = new TempDir();
+	public final File FILENAME = this.TEMP_DIR.createFile("analyze.csv");
+
+	private void generate(int rows) throws IOException {
+		Random rnd = new Random(17);
+		PrintWriter out = new PrintWriter(new FileWriter(FILENAME));
+		out.println("real,int,cls,mixed,missing,late");
+		for (int i = 0; i < rows; i++) {
+			out.print(CSVFormat.EG_FORMAT.format(rnd.nextGaussian() * 100, 6));
+			out.print(',');
+			out.print(rnd.nextInt(1000) - 500);
+			out.print(',');
+			out.print("c" + rnd.nextInt(5));
+			out.print(',');
+			out.print(rnd.nextBoolean() ? "1.5" : "2");
+			out.print(',');
+			out.print(rnd.nextInt(10) == 0 ? "?" : Integer.toString(rnd.nextInt(3)));
+			out.print(',');
+			out.println(i == rows - 10 ? "x" : Integer.toString(rnd.nextInt(7)));
+		}
+		out.close();
+	}
+
+	private EncogAnalyst createAnalyst() {
+		EncogAnalyst analyst = new EncogAnalyst();
+		analyst.getScript().getProperties().setProperty(ScriptProperties.SETUP_CONFIG_ALLOWED_CLASSES,
+				"int,real,string");
+		return analyst;
+	}
+
+	private AnalyzedField[] twoPass(EncogAnalyst analyst) {
+		ReadCSV csv = new ReadCSV(FILENAME.toString(), true, CSVFormat.DECIMAL_POINT);
+		AnalyzedField[] fields = new AnalyzedField[csv.getColumnNames().size()];
+		for (int i = 0; i < fields.length; i++) {
+			fields[i] = new AnalyzedField(analyst.getScript(), csv.getColumnNames().get(i));
+		}
+		while (csv.next()) {
+			for (int i = 0; i < fields.length; i++) {
+				fields[i].analyze1(csv.get(i));
+			}
+		}
+		csv.close();
+		for (AnalyzedField field : fields) {
+			field.completePass1();
+		}
+		csv = new ReadCSV(FILENAME.toString(), true, CSVFormat.DECIMAL_POINT);
+		while (csv.next()) {
+			for (int i = 0; i < fields.length; i++) {
+				fields[i].analyze2(csv.get(i));
+			}
+		}
+		csv.close();
+		for (AnalyzedField field : fields) {
+			field.completePass2();
+		}
+		return fields;
+	}
+
+	private void check(int rows) throws IOException {
+		generate(rows);
+		EncogAnalyst analyst = createAnalyst();
+		new PerformAnalysis(analyst.getScript(), FILENAME.toString(), true, AnalystFileFormat.DECPNT_COMMA)
+				.process(analyst);
+		DataField[] actual = analyst.getScript().getFields();
+		AnalyzedField[] expected = twoPass(createAnalyst());
+
+		Assert.assertEquals(expected.length, actual.length);
+		for (int i = 0; i < expected.length; i++) {
+			DataField e = expected[i].finalizeField();
+			DataField a = actual[i];
+			Assert.assertEquals(e.getName(), a.getName());
+			Assert.assertEquals(e.getMin(), a.getMin(), 0);
+			Assert.assertEquals(e.getMax(), a.getMax(), 0);
+			Assert.assertEquals(e.getMean(), a.getMean(), 1e-9 * Math.max(1, Math.abs(e.getMean())));
+			Assert.assertEquals(e.getStandardDeviation(), a.getStandardDeviation(),
+					1e-9 * Math.max(1, e.getStandardDeviation()));
+			Assert.assertEquals(e.isReal(), a.isReal());
+			Assert.assertEquals(e.isInteger(), a.isInteger());
+			Assert.assertEquals(e.isClass(), a.isClass());
+			Assert.assertEquals(e.isComplete(), a.isComplete());
+			Assert.assertEquals(e.getClassMembers().size(), a.getClassMembers().size());
+			for (int j = 0; j < e.getClassMembers().size(); j++) {
+				Assert.assertEquals(e.getClassMembers().get(j).getCode(), a.getClassMembers().get(j).getCode());
+				Assert.assertEquals(e.getClassMembers().get(j).getCount(), a.getClassMembers().get(j).getCount());
+			}
+		}
+	}
+
+	public void testSmallFile() throws IOException {
+		check(100);
+	}
+
+	public void testBlocks() throws IOException {
+		// several megabytes, so the file is split into blocks
+		check(120000);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		this.TEMP_DIR.dispose();
+	}
+}
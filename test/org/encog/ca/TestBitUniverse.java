@@ -0,0 +1,118 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ca;
+
+import org.encog.ca.program.CAProgram;
+import org.encog.ca.program.conway.ConwayProgram;
+import org.encog.ca.program.elementary.ElementaryCA;
+import org.encog.ca.runner.BasicCARunner;
+import org.encog.ca.universe.Universe;
+import org.encog.ca.universe.basic.BasicCellFactory;
+import org.encog.ca.universe.basic.BasicUniverse;
+import org.encog.ca.universe.packed.BitUniverse;
+import org.encog.ca.universe.packed.ContinuousUniverse;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+public class TestBitUniverse extends TestCase {
+
+	private void assertSame(Universe expected, Universe actual) {
+		for (int row = 0; row < expected.getRows(); row++) {
+			for (int col = 0; col < expected.getColumns(); col++) {
+				Assert.assertEquals("cell " + row + "," + col, expected.get(row, col).get(0),
+						actual.get(row, col).get(0), 0);
+			}
+		}
+	}
+
+	public void testConway() {
+		BasicUniverse expected = new BasicUniverse(37, 150, new BasicCellFactory(1, 1));
+		expected.randomize();
+		BitUniverse actual = new BitUniverse(37, 150);
+		actual.copy(expected);
+		this.assertSame(expected, actual);
+
+		BasicCARunner r1 = new BasicCARunner(expected, new ConwayProgram(expected));
+		BasicCARunner r2 = new BasicCARunner(actual, new ConwayProgram(actual));
+		for (int i = 0; i < 20; i++) {
+			r1.iteration();
+			r2.iteration();
+			this.assertSame(expected, actual);
+			Assert.assertEquals(r1.getScore(), r2.getScore(), 1e-12);
+		}
+	}
+
+	public void testConwayInPlace() {
+		BitUniverse expected = new BitUniverse(10, 64);
+		expected.randomize();
+		BitUniverse actual = (BitUniverse) expected.clone();
+		BitUniverse temp = new BitUniverse(10, 64);
+
+		CAProgram p1 = new ConwayProgram(expected);
+		p1.setTargetUniverse(temp);
+		p1.iteration();
+		expected.copy(temp);
+
+		CAProgram p2 = new ConwayProgram(actual);
+		p2.setTargetUniverse(actual);
+		p2.iteration();
+
+		Assert.assertEquals(0, actual.compare(expected), 0);
+	}
+
+	public void testElementary() {
+		for (int rule : new int[] { 30, 90, 110, 255 }) {
+			BasicUniverse expected = new BasicUniverse(20, 130, new BasicCellFactory(1, 1));
+			BitUniverse actual = new BitUniverse(20, 130);
+			BasicCARunner r1 = new BasicCARunner(expected, new ElementaryCA(expected, rule));
+			BasicCARunner r2 = new BasicCARunner(actual, new ElementaryCA(actual, rule));
+			for (int i = 1; i < 20; i++) {
+				r1.iteration();
+				r2.iteration();
+			}
+			this.assertSame(expected, actual);
+		}
+	}
+
+	public void testContinuous() {
+		ContinuousUniverse universe = new ContinuousUniverse(4, 5, 3, -1, 1);
+		universe.randomize();
+		BasicUniverse basic = new BasicUniverse(4, 5, new BasicCellFactory(3, -1, 1));
+		for (int row = 0; row < 4; row++) {
+			for (int col = 0; col < 5; col++) {
+				for (int i = 0; i < 3; i++) {
+					basic.get(row, col).set(i, universe.get(row, col).get(i));
+				}
+			}
+		}
+		Assert.assertEquals(0, universe.compare(basic), 0);
+		Assert.assertEquals(basic.calculatePercentInvalid(), universe.calculatePercentInvalid(), 0);
+
+		ContinuousUniverse copy = (ContinuousUniverse) universe.clone();
+		copy.get(1, 2).set(0, 5);
+		Assert.assertEquals(0.05, copy.compare(universe), 1e-12);
+		Assert.assertEquals(1.0 / 60, copy.calculatePercentInvalid(), 1e-12);
+	}
+}
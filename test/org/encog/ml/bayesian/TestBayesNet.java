@@ -78,4 +78,32 @@ public class TestBayesNet extends TestCase {
 		Assert.assertTrue(network.isCondIndependent(a, c, a));
 		Assert.assertFalse(network.isCondIndependent(a, c, a, d));
 	}
+
+	public void testDenseTable() {
+		BayesianNetwork network = new BayesianNetwork();
+		BayesianEvent a = network.createEvent("a");
+		BayesianEvent b = network.createEvent("b", "x", "y", "z");
+		BayesianEvent c = network.createEvent("c", "p", "q", "r");
+		network.createDependency(a, c);
+		network.createDependency(b, c);
+		network.finalizeStructure();
+
+		org.encog.ml.bayesian.table.BayesianTable table = c.getTable();
+		Assert.assertEquals(6, table.getConfigurationCount());
+		Assert.assertEquals(18, table.getLines().size());
+
+		// the first parent is the least significant digit
+		Assert.assertEquals(5, table.encodeArgs(new int[] { 1, 2 }));
+		Assert.assertEquals(-1, table.encodeArgs(new int[] { 2, 0 }));
+
+		table.addLine(0.25, 1, 1, 2);
+		Assert.assertEquals(0.25, table.getProbability(1, 5), 0);
+		Assert.assertEquals(0.25, table.getProbabilities()[5 * 3 + 1], 0);
+		Assert.assertEquals(0.25, table.findLine(1, new int[] { 1, 2 }).getProbability(), 0);
+
+		table.findLine(2, new int[] { 1, 2 }).setProbability(0.75);
+		Assert.assertEquals(0.75, table.getProbability(2, 5), 0);
+		Assert.assertEquals(2, table.generateRandom(0.5, 5));
+		Assert.assertEquals(1, table.generateRandom(0.1, 5));
+	}
 }
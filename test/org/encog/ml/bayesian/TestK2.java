@@ -23,6 +23,7 @@
  */
 package org.encog.ml.bayesian;
 
+import org.encog.ml.bayesian.training.BayesianCountCache;
 import org.encog.ml.bayesian.training.BayesianInit;
 import org.encog.ml.bayesian.training.TrainBayesian;
 import org.encog.ml.bayesian.training.search.k2.SearchK2;
@@ -94,4 +95,41 @@ public class TestK2 extends TestCase {
 		p = search.calculateG(network, x3, x3.getParents());
 		Assert.assertEquals(0.0011111, p, 0.00555555);
 	}
+
+	public void testCountCache() {
+		String[] labels = { "available", "not" };
+
+		MLDataSet data = new BasicMLDataSet(DATA, null);
+		BayesianNetwork network = new BayesianNetwork();
+		network.createEvent("x1", labels);
+		network.createEvent("x2", labels);
+		network.createEvent("x3", labels);
+		network.finalizeStructure();
+
+		BayesianCountCache cache = new BayesianCountCache(network, data);
+		Assert.assertEquals(10, cache.getRecordCount());
+
+		// x3 against (x1, x2), with x1 as the least significant digit
+		int[] counts = cache.count(2, new int[] { 0, 1 });
+		Assert.assertEquals(8, counts.length);
+		int total = 0;
+		for (int row = 0; row < DATA.length; row++) {
+			int cfg = (int) DATA[row][0] + 2 * (int) DATA[row][1];
+			int expected = 0;
+			for (double[] other : DATA) {
+				if (other[0] == DATA[row][0] && other[1] == DATA[row][1] && other[2] == DATA[row][2]) {
+					expected++;
+				}
+			}
+			Assert.assertEquals(expected, counts[cfg * 2 + (int) DATA[row][2]]);
+		}
+		for (int c : counts) {
+			total += c;
+		}
+		Assert.assertEquals(10, total);
+
+		// scores do not depend on parent order
+		Assert.assertEquals(cache.logScore(2, new int[] { 0, 1 }), cache.logScore(2, new int[] { 1, 0 }), 1e-12);
+		Assert.assertEquals(Math.log(3.607503E-4), cache.logScore(0, new int[0]), 1e-5);
+	}
 }
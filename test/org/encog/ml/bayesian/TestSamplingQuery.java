@@ -23,6 +23,8 @@
  */
 package org.encog.ml.bayesian;
 
+import org.encog.mathutil.randomize.generate.MersenneTwisterGenerateRandom;
+import org.encog.ml.bayesian.query.sample.SamplingMethod;
 import org.encog.ml.bayesian.query.sample.SamplingQuery;
 
 import junit.framework.Assert;
@@ -117,4 +119,67 @@ public class TestSamplingQuery extends TestCase {
 		this.testPercent(query.getProbability(), 50);
 	}
 
+	// P(a|x1,x2,~x3) = 0.016 / 0.088
+	private SamplingQuery createQuery(SamplingMethod method) {
+		BayesianNetwork network = new BayesianNetwork();
+		BayesianEvent a = network.createEvent("a");
+		BayesianEvent x1 = network.createEvent("x1");
+		BayesianEvent x2 = network.createEvent("x2");
+		BayesianEvent x3 = network.createEvent("x3");
+
+		network.createDependency(a, x1, x2, x3);
+		network.finalizeStructure();
+
+		a.getTable().addLine(0.5, true);
+		x1.getTable().addLine(0.2, true, true);
+		x1.getTable().addLine(0.6, true, false);
+		x2.getTable().addLine(0.2, true, true);
+		x2.getTable().addLine(0.6, true, false);
+		x3.getTable().addLine(0.2, true, true);
+		x3.getTable().addLine(0.6, true, false);
+		network.validate();
+
+		SamplingQuery query = new SamplingQuery(network);
+		query.defineEventType(x1, EventType.Evidence);
+		query.defineEventType(x2, EventType.Evidence);
+		query.defineEventType(x3, EventType.Evidence);
+		query.defineEventType(a, EventType.Outcome);
+		query.setEventValue(a, true);
+		query.setEventValue(x1, true);
+		query.setEventValue(x2, true);
+		query.setEventValue(x3, false);
+		query.setMethod(method);
+		query.setRandom(new MersenneTwisterGenerateRandom(1234));
+		return query;
+	}
+
+	public void testMethods() {
+		for (SamplingMethod method : SamplingMethod.values()) {
+			SamplingQuery query = this.createQuery(method);
+			query.execute();
+			Assert.assertEquals(method.toString(), 0.016 / 0.088, query.getProbability(), 0.02);
+		}
+	}
+
+	public void testRepeatable() {
+		SamplingQuery query = this.createQuery(SamplingMethod.LikelihoodWeighting);
+		query.setThreadCount(1);
+		query.execute();
+		double first = query.getProbability();
+
+		query = this.createQuery(SamplingMethod.LikelihoodWeighting);
+		query.setThreadCount(0);
+		query.execute();
+		Assert.assertEquals(first, query.getProbability(), 0);
+	}
+
+	public void testConfidenceTarget() {
+		SamplingQuery query = this.createQuery(SamplingMethod.LikelihoodWeighting);
+		query.setSampleSize(1000000);
+		query.setConfidenceTarget(0.01);
+		query.execute();
+		Assert.assertTrue(query.getConfidenceInterval() <= 0.01);
+		Assert.assertTrue(query.getTotalSamples() < 1000000);
+		Assert.assertEquals(0.016 / 0.088, query.getProbability(), 0.02);
+	}
 }
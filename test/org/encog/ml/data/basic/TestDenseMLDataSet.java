@@ -0,0 +1,90 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.data.basic;
+
+import org.encog.EncogError;
+import org.encog.ml.data.MLDataPair;
+import org.encog.neural.networks.XOR;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+public class TestDenseMLDataSet extends TestCase {
+
+	public void testXOR() {
+		DenseMLDataSet set = new DenseMLDataSet(XOR.XOR_INPUT, XOR.XOR_IDEAL);
+		Assert.assertEquals(4, set.getRecordCount());
+		Assert.assertEquals(2, set.getInputSize());
+		Assert.assertEquals(1, set.getIdealSize());
+		XOR.testXORDataSet(set);
+	}
+
+	public void testConvertAndGrow() {
+		BasicMLDataSet basic = new BasicMLDataSet();
+		for (int i = 0; i < 100; i++) {
+			MLDataPair pair = new BasicMLDataPair(new BasicMLData(new double[] { i, -i }),
+					new BasicMLData(new double[] { i * 2 }));
+			pair.setSignificance(i % 2 == 0 ? 1.0 : 0.5);
+			basic.add(pair);
+		}
+
+		DenseMLDataSet dense = new DenseMLDataSet(2, 1);
+		for (MLDataPair pair : basic) {
+			dense.add(pair);
+		}
+		Assert.assertEquals(100, dense.getRecordCount());
+
+		MLDataPair pair = BasicMLDataPair.createPair(2, 1);
+		double[] input = pair.getInputArray();
+		for (int i = 0; i < 100; i++) {
+			dense.getRecord(i, pair);
+			Assert.assertSame(input, pair.getInputArray());
+			Assert.assertEquals((double) i, pair.getInputArray()[0], 0);
+			Assert.assertEquals((double) -i, pair.getInputArray()[1], 0);
+			Assert.assertEquals((double) i * 2, pair.getIdealArray()[0], 0);
+			Assert.assertEquals(i % 2 == 0 ? 1.0 : 0.5, pair.getSignificance(), 0);
+		}
+
+		DenseMLDataSet copy = new DenseMLDataSet(dense);
+		copy.trimToSize();
+		Assert.assertEquals(200, copy.getInputArray().length);
+		Assert.assertEquals(99.0, copy.get(99).getInputArray()[0], 0);
+	}
+
+	public void testAddWithoutIdeal() {
+		DenseMLDataSet unsupervised = new DenseMLDataSet(2, 0);
+		unsupervised.add(new BasicMLData(new double[] { 1, 2 }));
+		Assert.assertEquals(1, unsupervised.getRecordCount());
+		Assert.assertEquals(2.0, unsupervised.get(0).getInputArray()[1], 0);
+
+		DenseMLDataSet supervised = new DenseMLDataSet(2, 1);
+		try {
+			supervised.add(new BasicMLData(new double[] { 1, 2 }));
+			Assert.fail("Expected the row to be rejected.");
+		} catch (EncogError ex) {
+			// expected
+		}
+		Assert.assertEquals(0, supervised.getRecordCount());
+	}
+}
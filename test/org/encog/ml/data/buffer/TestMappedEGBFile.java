@@ -0,0 +1,112 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.data.buffer;
+
+import java.io.File;
+
+import org.encog.ml.data.MLDataPair;
+import org.encog.ml.data.basic.BasicMLData;
+import org.encog.ml.data.basic.BasicMLDataPair;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+public class TestMappedEGBFile extends TestCase {
+
+	public static final String FILENAME = "mapped.egb";
+
+	private static final int RECORDS = 25;
+
+	private static double value(final int record, final int column) {
+		return (record * 10) + column + 0.5;
+	}
+
+	private File create() {
+		final File file = new File(FILENAME);
+		file.delete();
+		final BufferedMLDataSet set = new BufferedMLDataSet(file);
+		set.beginLoad(3, 2);
+		for (int i = 0; i < RECORDS; i++) {
+			final MLDataPair pair = new BasicMLDataPair(
+					new BasicMLData(new double[] { value(i, 0), value(i, 1), value(i, 2) }),
+					new BasicMLData(new double[] { value(i, 3), value(i, 4) }));
+			pair.setSignificance(value(i, 5));
+			set.add(pair);
+		}
+		set.endLoad();
+		set.close();
+		return file;
+	}
+
+	private void check(final MappedEGBFile egb) {
+		Assert.assertEquals(RECORDS, egb.getNumberOfRecords());
+		final double[] input = new double[3];
+		final double[] ideal = new double[2];
+		for (int i = 0; i < RECORDS; i++) {
+			Assert.assertEquals(value(i, 5), egb.read(i, input, ideal), 0);
+			for (int j = 0; j < 3; j++) {
+				Assert.assertEquals(value(i, j), input[j], 0);
+			}
+			for (int j = 0; j < 2; j++) {
+				Assert.assertEquals(value(i, 3 + j), ideal[j], 0);
+			}
+			Assert.assertEquals(value(i, 5), egb.read(i, input, null), 0);
+		}
+	}
+
+	public void testSegments() {
+		final File file = create();
+		try {
+			// each record is 6 doubles, 48 bytes
+			MappedEGBFile egb = new MappedEGBFile(file);
+			Assert.assertEquals(1, egb.getSegmentCount());
+			check(egb);
+			egb.close();
+
+			// 100 bytes hold two records, the last segment holds one
+			egb = new MappedEGBFile(file, 100);
+			Assert.assertEquals(13, egb.getSegmentCount());
+			check(egb);
+			egb.close();
+
+			// a segment smaller than a record still holds one record
+			egb = new MappedEGBFile(file, 10);
+			Assert.assertEquals(RECORDS, egb.getSegmentCount());
+			check(egb);
+			egb.close();
+
+			// records in reverse order, so every read moves to another segment
+			egb = new MappedEGBFile(file, 48 * 3);
+			Assert.assertEquals(9, egb.getSegmentCount());
+			final double[] input = new double[3];
+			for (int i = RECORDS - 1; i >= 0; i--) {
+				Assert.assertEquals(value(i, 5), egb.read(i, input, null), 0);
+				Assert.assertEquals(value(i, 0), input[0], 0);
+			}
+			egb.close();
+		} finally {
+			file.delete();
+		}
+	}
+}
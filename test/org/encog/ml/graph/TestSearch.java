@@ -23,11 +23,16 @@
  */
 package org.encog.ml.graph;
 
+import java.util.Random;
+
 import org.encog.ml.graph.search.AStarSearch;
+import org.encog.ml.graph.search.AbstractGraphSearch;
 import org.encog.ml.graph.search.BreadthFirstSearch;
+import org.encog.ml.graph.search.CostEstimator;
 import org.encog.ml.graph.search.DepthFirstSearch;
 import org.encog.ml.graph.search.EuclideanCostEstimator;
 import org.encog.ml.graph.search.GraphSearch;
+import org.encog.ml.graph.search.SearchGoal;
 import org.encog.ml.graph.search.SimpleDestinationGoal;
 
 import junit.framework.Assert;
@@ -96,4 +101,108 @@ public class TestSearch extends TestCase {
 		Assert.assertEquals(solution.getNodes().get(1).getLabel(), "c");
 		Assert.assertEquals(solution.getNodes().get(2).getLabel(), "d");
 	}
+
+	private BasicNode[] createRandomGraph(Random rnd, int count, int degree) {
+		BasicNode[] nodes = new BasicNode[count];
+		for (int i = 0; i < count; i++) {
+			nodes[i] = new BasicNode("n" + i);
+		}
+		for (int i = 0; i < count; i++) {
+			for (int j = 0; j < degree; j++) {
+				nodes[i].connect(nodes[rnd.nextInt(count)], 1 + rnd.nextInt(9));
+			}
+		}
+		return nodes;
+	}
+
+	public void testCompiledGraph() {
+		BasicNode nodeA = new BasicNode("a");
+		BasicGraph graph = new BasicGraph(nodeA);
+		BasicNode nodeB = graph.connect(nodeA, new BasicNode("b"), 5);
+		BasicNode nodeC = new BasicNode("c");
+		nodeB.connect(nodeC, 2);
+		nodeB.connect(nodeA, 3);
+
+		CompiledGraph compiled = new CompiledGraph(graph);
+		Assert.assertEquals(3, compiled.getNodeCount());
+		Assert.assertEquals(3, compiled.getEdgeCount());
+		Assert.assertEquals(2, compiled.getNodeIndex(nodeC));
+		Assert.assertEquals(-1, compiled.getNodeIndex(new BasicNode("d")));
+
+		int b = compiled.getNodeIndex(nodeB);
+		int[] start = compiled.getEdgeStart();
+		Assert.assertEquals(2, start[b + 1] - start[b]);
+		Assert.assertEquals(2, compiled.getEdgeTo()[start[b]]);
+		Assert.assertEquals(3.0, compiled.getEdgeCost()[start[b] + 1], 0);
+	}
+
+	public void testIndexedMatchesLegacy() {
+		Random rnd = new Random(42);
+		for (int trial = 0; trial < 20; trial++) {
+			final BasicNode[] nodes = createRandomGraph(rnd, 60, 3);
+			BasicGraph graph = new BasicGraph(nodes[0]);
+			SearchGoal goal = new SimpleDestinationGoal(nodes[1 + rnd.nextInt(59)]);
+
+			// only overrides isHigherPriority, so runs on a FrontierHolder
+			AbstractGraphSearch legacy = new AbstractGraphSearch(graph, nodes[0], goal) {
+				@Override
+				public boolean isHigherPriority(BasicPath first, BasicPath second) {
+					return first.size() < second.size();
+				}
+			};
+			BreadthFirstSearch indexed = new BreadthFirstSearch(graph, nodes[0], goal);
+
+			int legacyCount = 0;
+			int indexedCount = 0;
+			try {
+				legacyCount = this.countIterations(legacy);
+				indexedCount = this.countIterations(indexed);
+			} catch (RuntimeException ex) {
+				// goal unreachable, both must fail
+				Assert.assertTrue(legacy.getSolution() == null);
+				continue;
+			}
+			Assert.assertEquals(legacyCount, indexedCount);
+			Assert.assertEquals(legacy.getSolution().toString(), indexed.getSolution().toString());
+		}
+	}
+
+	public void testAStarOptimal() {
+		Random rnd = new Random(7);
+		CostEstimator zero = new CostEstimator() {
+			@Override
+			public double estimateCost(BasicNode startingNode, SearchGoal goal) {
+				return 0;
+			}
+		};
+		for (int trial = 0; trial < 20; trial++) {
+			BasicNode[] nodes = createRandomGraph(rnd, 50, 4);
+			BasicGraph graph = new BasicGraph(nodes[0]);
+			CompiledGraph compiled = new CompiledGraph(graph);
+
+			// Bellman-Ford reference distances
+			int n = compiled.getNodeCount();
+			double[] dist = new double[n];
+			java.util.Arrays.fill(dist, Double.POSITIVE_INFINITY);
+			dist[0] = 0;
+			for (int pass = 0; pass < n; pass++) {
+				for (int i = 0; i < n; i++) {
+					for (int e = compiled.getEdgeStart()[i]; e < compiled.getEdgeStart()[i + 1]; e++) {
+						int to = compiled.getEdgeTo()[e];
+						dist[to] = Math.min(dist[to], dist[i] + compiled.getEdgeCost()[e]);
+					}
+				}
+			}
+
+			int target = 1 + rnd.nextInt(n - 1);
+			if (Double.isInfinite(dist[target])) {
+				continue;
+			}
+			AStarSearch search = new AStarSearch(graph, nodes[0],
+					new SimpleDestinationGoal(compiled.getNode(target)), zero);
+			this.countIterations(search);
+			BasicPath solution = search.getSolution();
+			Assert.assertEquals(dist[target], search.calculatePathCost(solution), 1e-9);
+		}
+	}
 }
@@ -0,0 +1,199 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.hmm.alog;
+
+import java.util.EnumSet;
+
+import org.encog.ml.data.MLDataSet;
+import org.encog.ml.hmm.HiddenMarkovModel;
+import org.encog.ml.hmm.distributions.ContinousDistribution;
+import org.encog.ml.hmm.distributions.DiscreteDistribution;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+public class TestHMMKernels extends TestCase {
+
+	private static HiddenMarkovModel buildDiscrete() {
+		final HiddenMarkovModel hmm = new HiddenMarkovModel(3, 3);
+		hmm.setPi(0, 0.6);
+		hmm.setPi(1, 0.3);
+		hmm.setPi(2, 0.1);
+		hmm.setStateDistribution(0, new DiscreteDistribution(new double[][] { { 0.7, 0.2, 0.1 } }));
+		hmm.setStateDistribution(1, new DiscreteDistribution(new double[][] { { 0.1, 0.6, 0.3 } }));
+		hmm.setStateDistribution(2, new DiscreteDistribution(new double[][] { { 0.2, 0.2, 0.6 } }));
+		final double[][] a = { { 0.8, 0.15, 0.05 }, { 0.1, 0.8, 0.1 }, { 0.2, 0.1, 0.7 } };
+		hmm.setTransitionProbability(a);
+		return hmm;
+	}
+
+	private static HiddenMarkovModel buildContinuous() {
+		final HiddenMarkovModel hmm = new HiddenMarkovModel(2);
+		hmm.setPi(0, 0.8);
+		hmm.setPi(1, 0.2);
+		hmm.setStateDistribution(0, new ContinousDistribution(new double[] { 0.25, -0.25 },
+				new double[][] { { 1, 2 }, { 1, 4 } }));
+		hmm.setStateDistribution(1, new ContinousDistribution(new double[] { 0.5, 0.25 },
+				new double[][] { { 4, 2 }, { 3, 4 } }));
+		hmm.setTransitionProbability(0, 0, 0.95);
+		hmm.setTransitionProbability(0, 1, 0.05);
+		hmm.setTransitionProbability(1, 0, 0.10);
+		hmm.setTransitionProbability(1, 1, 0.90);
+		return hmm;
+	}
+
+	/**
+	 * Scaled alpha and beta, computed as they were with double[][] tables.
+	 */
+	private static double[][][] referenceScaled(final MLDataSet oseq, final HiddenMarkovModel hmm,
+			final double[] ct) {
+		final int size = oseq.size();
+		final int n = hmm.getStateCount();
+		final double[][] alpha = new double[size][n];
+		final double[][] beta = new double[size][n];
+		for (int t = 0; t < size; t++) {
+			for (int j = 0; j < n; j++) {
+				if (t == 0) {
+					alpha[0][j] = hmm.getPi(j) * hmm.getStateDistribution(j).probability(oseq.get(0));
+				} else {
+					double sum = 0.;
+					for (int i = 0; i < n; i++) {
+						sum += alpha[t - 1][i] * hmm.getTransitionProbability(i, j);
+					}
+					alpha[t][j] = sum * hmm.getStateDistribution(j).probability(oseq.get(t));
+				}
+			}
+			double sum = 0.;
+			for (final double element : alpha[t]) {
+				sum += element;
+			}
+			ct[t] = sum;
+			for (int i = 0; i < n; i++) {
+				alpha[t][i] /= sum;
+			}
+		}
+		for (int i = 0; i < n; i++) {
+			beta[size - 1][i] = 1. / ct[size - 1];
+		}
+		for (int t = size - 2; t >= 0; t--) {
+			for (int i = 0; i < n; i++) {
+				double sum = 0.;
+				for (int j = 0; j < n; j++) {
+					sum += beta[t + 1][j] * hmm.getTransitionProbability(i, j)
+							* hmm.getStateDistribution(j).probability(oseq.get(t + 1));
+				}
+				beta[t][i] = sum / ct[t];
+			}
+		}
+		return new double[][][] { alpha, beta };
+	}
+
+	/**
+	 * The Viterbi path, computed as it was with double[][] tables.
+	 */
+	private static int[] referenceViterbi(final MLDataSet oseq, final HiddenMarkovModel hmm, final double[] ln) {
+		final int size = oseq.size();
+		final int n = hmm.getStateCount();
+		final double[][] delta = new double[size][n];
+		final int[][] psy = new int[size][n];
+		final int[] result = new int[size];
+		for (int i = 0; i < n; i++) {
+			delta[0][i] = -Math.log(hmm.getPi(i)) - Math.log(hmm.getStateDistribution(i).probability(oseq.get(0)));
+		}
+		for (int t = 1; t < size; t++) {
+			for (int j = 0; j < n; j++) {
+				double minDelta = Double.MAX_VALUE;
+				for (int i = 0; i < n; i++) {
+					final double thisDelta = delta[t - 1][i] - Math.log(hmm.getTransitionProbability(i, j));
+					if (minDelta > thisDelta) {
+						minDelta = thisDelta;
+						psy[t][j] = i;
+					}
+				}
+				delta[t][j] = minDelta - Math.log(hmm.getStateDistribution(j).probability(oseq.get(t)));
+			}
+		}
+		ln[0] = Double.MAX_VALUE;
+		for (int i = 0; i < n; i++) {
+			if (ln[0] > delta[size - 1][i]) {
+				ln[0] = delta[size - 1][i];
+				result[size - 1] = i;
+			}
+		}
+		ln[0] = -ln[0];
+		for (int t = size - 2; t >= 0; t--) {
+			result[t] = psy[t + 1][result[t + 1]];
+		}
+		return result;
+	}
+
+	private void checkModel(final HiddenMarkovModel hmm) {
+		final MarkovGenerator mg = new MarkovGenerator(hmm);
+		final ViterbiCalculator viterbi = new ViterbiCalculator(hmm);
+		ForwardBackwardScaledCalculator fbc = null;
+
+		for (final int size : new int[] { 50, 1, 7, 200, 3 }) {
+			final MLDataSet oseq = mg.observationSequence(size);
+
+			final double[] ct = new double[size];
+			final double[][][] expected = referenceScaled(oseq, hmm, ct);
+			final EnumSet<ForwardBackwardCalculator.Computation> flags = EnumSet
+					.allOf(ForwardBackwardCalculator.Computation.class);
+			if (fbc == null) {
+				fbc = new ForwardBackwardScaledCalculator(oseq, hmm, flags);
+			} else {
+				fbc.compute(oseq, hmm, flags);
+			}
+			double ln = 0;
+			for (int t = 0; t < size; t++) {
+				ln += Math.log(ct[t]);
+				for (int i = 0; i < hmm.getStateCount(); i++) {
+					Assert.assertEquals(expected[0][t][i], fbc.alphaElement(t, i), 0);
+					Assert.assertEquals(expected[1][t][i], fbc.betaElement(t, i), 0);
+					Assert.assertEquals(hmm.getStateDistribution(i).probability(oseq.get(t)),
+							fbc.emissionElement(t, i), 0);
+				}
+			}
+			Assert.assertEquals(ln, fbc.lnProbability(), 0);
+
+			final double[] expectedLn = new double[1];
+			final int[] expectedPath = referenceViterbi(oseq, hmm, expectedLn);
+			viterbi.compute(oseq);
+			final int[] path = viterbi.stateSequence();
+			Assert.assertEquals(size, path.length);
+			for (int t = 0; t < size; t++) {
+				Assert.assertEquals(expectedPath[t], path[t]);
+			}
+			Assert.assertEquals(expectedLn[0], viterbi.lnProbability(), 0);
+		}
+	}
+
+	public void testDiscrete() {
+		checkModel(buildDiscrete());
+	}
+
+	public void testContinuous() {
+		checkModel(buildContinuous());
+	}
+}
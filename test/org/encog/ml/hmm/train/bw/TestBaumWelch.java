@@ -0,0 +1,190 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.hmm.train.bw;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.encog.ml.data.MLDataSet;
+import org.encog.ml.data.MLSequenceSet;
+import org.encog.ml.data.basic.BasicMLSequenceSet;
+import org.encog.ml.hmm.HiddenMarkovModel;
+import org.encog.ml.hmm.alog.ForwardBackwardCalculator;
+import org.encog.ml.hmm.alog.MarkovGenerator;
+import org.encog.ml.hmm.distributions.DiscreteDistribution;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+public class TestBaumWelch extends TestCase {
+
+	private static HiddenMarkovModel buildHMM(final double p, final double q) {
+		final HiddenMarkovModel hmm = new HiddenMarkovModel(3, 3);
+		hmm.setPi(0, 0.5);
+		hmm.setPi(1, 0.3);
+		hmm.setPi(2, 0.2);
+		hmm.setStateDistribution(0, new DiscreteDistribution(new double[][] { { p, q, 1 - p - q } }));
+		hmm.setStateDistribution(1, new DiscreteDistribution(new double[][] { { q, 1 - p - q, p } }));
+		hmm.setStateDistribution(2, new DiscreteDistribution(new double[][] { { 1 - p - q, p, q } }));
+		for (int i = 0; i < 3; i++) {
+			for (int j = 0; j < 3; j++) {
+				hmm.setTransitionProbability(i, j, i == j ? p : (1 - p) / 2);
+			}
+		}
+		return hmm;
+	}
+
+	private static MLSequenceSet generate(final HiddenMarkovModel hmm, final int count) {
+		final Random rnd = new Random(7);
+		final MarkovGenerator mg = new MarkovGenerator(hmm);
+		final BasicMLSequenceSet result = new BasicMLSequenceSet();
+		for (int i = 0; i < count; i++) {
+			result.startNewSequence();
+			result.add(mg.observationSequence(2 + rnd.nextInt(30)));
+		}
+		return result;
+	}
+
+	/**
+	 * One iteration, computed the way it was before the expectation step ran
+	 * in parallel.
+	 */
+	@SuppressWarnings("deprecation")
+	private static HiddenMarkovModel reference(final BaseBaumWelch train, final HiddenMarkovModel method,
+			final MLSequenceSet training) throws CloneNotSupportedException {
+		final HiddenMarkovModel nhmm = method.clone();
+		final int n = method.getStateCount();
+		final double[][][] allGamma = new double[training.getSequenceCount()][][];
+		final double[][] aijNum = new double[n][n];
+		final double[] aijDen = new double[n];
+
+		int g = 0;
+		for (final MLDataSet obsSeq : training.getSequences()) {
+			final ForwardBackwardCalculator fbc = train.generateForwardBackwardCalculator(obsSeq, method);
+			final double[][][] xi = train.estimateXi(obsSeq, fbc, method);
+			final double[][] gamma = allGamma[g++] = train.estimateGamma(xi, fbc);
+			for (int i = 0; i < n; i++) {
+				for (int t = 0; t < (obsSeq.size() - 1); t++) {
+					aijDen[i] += gamma[t][i];
+					for (int j = 0; j < n; j++) {
+						aijNum[i][j] += xi[t][i][j];
+					}
+				}
+			}
+		}
+
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < n; j++) {
+				nhmm.setTransitionProbability(i, j, aijDen[i] == 0.0 ? method.getTransitionProbability(i, j)
+						: aijNum[i][j] / aijDen[i]);
+			}
+		}
+
+		for (int i = 0; i < n; i++) {
+			nhmm.setPi(i, 0.);
+		}
+		for (int o = 0; o < training.getSequenceCount(); o++) {
+			for (int i = 0; i < n; i++) {
+				nhmm.setPi(i, nhmm.getPi(i) + (allGamma[o][0][i] / training.getSequenceCount()));
+			}
+		}
+
+		for (int i = 0; i < n; i++) {
+			final double[] weights = new double[training.size()];
+			double sum = 0.;
+			int j = 0;
+			int o = 0;
+			for (final MLDataSet obsSeq : training.getSequences()) {
+				for (int t = 0; t < obsSeq.size(); t++, j++) {
+					sum += weights[j] = allGamma[o][t][i];
+				}
+				o++;
+			}
+			for (j--; j >= 0; j--) {
+				weights[j] /= sum;
+			}
+			nhmm.getStateDistribution(i).fit(training, weights);
+		}
+		return nhmm;
+	}
+
+	private static void assertSame(final HiddenMarkovModel expected, final HiddenMarkovModel actual) {
+		final int n = expected.getStateCount();
+		for (int i = 0; i < n; i++) {
+			Assert.assertEquals(expected.getPi(i), actual.getPi(i), 1e-12);
+			for (int j = 0; j < n; j++) {
+				Assert.assertEquals(expected.getTransitionProbability(i, j), actual.getTransitionProbability(i, j),
+						1e-12);
+			}
+			final double[][] pe = ((DiscreteDistribution) expected.getStateDistribution(i)).getProbabilities();
+			final double[][] pa = ((DiscreteDistribution) actual.getStateDistribution(i)).getProbabilities();
+			for (int k = 0; k < pe[0].length; k++) {
+				Assert.assertEquals(pe[0][k], pa[0][k], 1e-12);
+			}
+		}
+	}
+
+	/**
+	 * Compare with the reference. The reference keeps its own chain of
+	 * models, because cloned discrete distributions share their arrays.
+	 */
+	private void check(final BaseBaumWelch train, final MLSequenceSet training) throws CloneNotSupportedException {
+		HiddenMarkovModel expected = buildHMM(0.5, 0.3);
+		for (int k = 0; k < 3; k++) {
+			expected = reference(train, expected, training);
+			train.iteration();
+			assertSame(expected, (HiddenMarkovModel) train.getMethod());
+		}
+	}
+
+	public void testMatchesSequential() throws CloneNotSupportedException {
+		final MLSequenceSet training = generate(buildHMM(0.7, 0.2), 150);
+		check(new TrainBaumWelch(buildHMM(0.5, 0.3), training), training);
+		check(new TrainBaumWelchScaled(buildHMM(0.5, 0.3), training), training);
+	}
+
+	public void testThreadCounts() throws CloneNotSupportedException {
+		final MLSequenceSet training = generate(buildHMM(0.7, 0.2), 40);
+		for (final int threads : new int[] { 1, 2, 0 }) {
+			final TrainBaumWelchScaled train = new TrainBaumWelchScaled(buildHMM(0.5, 0.3), training);
+			train.setThreadCount(threads);
+			check(train, training);
+		}
+	}
+
+	public void testGammaHookIsCalled() throws CloneNotSupportedException {
+		final MLSequenceSet training = generate(buildHMM(0.7, 0.2), 25);
+		final AtomicInteger calls = new AtomicInteger();
+		final TrainBaumWelchScaled train = new TrainBaumWelchScaled(buildHMM(0.5, 0.3), training) {
+			@Override
+			protected void estimateGamma(final double[][][] xi, final int length,
+					final ForwardBackwardCalculator fbc, final double[][] gamma, final int offset) {
+				calls.incrementAndGet();
+				super.estimateGamma(xi, length, fbc, gamma, offset);
+			}
+		};
+		check(train, training);
+		Assert.assertEquals(3 * training.getSequenceCount(), calls.get());
+	}
+}
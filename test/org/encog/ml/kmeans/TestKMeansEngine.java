@@ -0,0 +1,129 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.kmeans;
+
+import java.util.Random;
+
+import org.encog.mathutil.randomize.generate.MersenneTwisterGenerateRandom;
+import org.encog.ml.MLCluster;
+import org.encog.ml.data.basic.BasicMLData;
+import org.encog.ml.data.basic.BasicMLDataSet;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+public class TestKMeansEngine extends TestCase {
+
+	public static final double[][] CENTERS = { { 0, 0, 0 }, { 10, 0, 0 }, { 0, 10, 0 }, { 0, 0, 10 } };
+
+	private double[] createBlobs(int perBlob, int[] label) {
+		Random random = new Random(11);
+		double[] result = new double[perBlob * CENTERS.length * 3];
+		int row = 0;
+		for (int i = 0; i < perBlob; i++) {
+			for (int b = 0; b < CENTERS.length; b++) {
+				for (int x = 0; x < 3; x++) {
+					result[row * 3 + x] = CENTERS[b][x] + random.nextGaussian();
+				}
+				label[row++] = b;
+			}
+		}
+		return result;
+	}
+
+	public void testPruningMatches() {
+		int n = 2000;
+		double[] data = this.createBlobs(n / 4, new int[n]);
+		KMeansEngine plain = new KMeansEngine(7, 3);
+		plain.setPruning(false);
+		plain.setRandom(new MersenneTwisterGenerateRandom(5));
+		KMeansEngine pruned = new KMeansEngine(7, 3);
+		pruned.setRandom(new MersenneTwisterGenerateRandom(5));
+
+		for (int i = 0; i < 30; i++) {
+			int c1 = plain.iteration(data, n);
+			int c2 = pruned.iteration(data, n);
+			Assert.assertEquals(c1, c2);
+			for (int r = 0; r < n; r++) {
+				Assert.assertEquals(plain.getAssignment()[r], pruned.getAssignment()[r]);
+			}
+		}
+		for (int i = 0; i < plain.getCentroids().length; i++) {
+			Assert.assertEquals(plain.getCentroids()[i], pruned.getCentroids()[i], 1e-12);
+		}
+	}
+
+	public void testFindsBlobs() {
+		int n = 4000;
+		int[] label = new int[n];
+		double[] data = this.createBlobs(n / 4, label);
+		KMeansEngine engine = new KMeansEngine(4, 3);
+		engine.setRandom(new MersenneTwisterGenerateRandom(1));
+		int changed = -1;
+		for (int i = 0; i < 100 && changed != 0; i++) {
+			changed = engine.iteration(data, n);
+		}
+		Assert.assertEquals(0, changed);
+
+		int[] map = new int[4];
+		for (int b = 0; b < 4; b++) {
+			map[b] = engine.getAssignment()[b];
+		}
+		for (int r = 0; r < n; r++) {
+			Assert.assertEquals(map[label[r]], engine.getAssignment()[r]);
+		}
+		for (int c = 0; c < 4; c++) {
+			Assert.assertEquals(n / 4, engine.getClusterSizes()[c]);
+		}
+	}
+
+	public void testMiniBatch() {
+		int n = 4000;
+		int[] label = new int[n];
+		double[] data = this.createBlobs(n / 4, label);
+		BasicMLDataSet set = new BasicMLDataSet();
+		for (int r = 0; r < n; r++) {
+			set.add(new BasicMLData(new double[] { data[r * 3], data[r * 3 + 1], data[r * 3 + 2] }));
+		}
+
+		KMeansClustering kmeans = new KMeansClustering(4, set, 500);
+		kmeans.setRandom(new MersenneTwisterGenerateRandom(3));
+		kmeans.iteration(40);
+
+		double[] centroids = kmeans.getCentroids();
+		for (double[] center : CENTERS) {
+			double best = Double.POSITIVE_INFINITY;
+			for (int c = 0; c < 4; c++) {
+				best = Math.min(best, Math.sqrt(KMeansEngine.distanceSquared(center, 0, centroids, c * 3, 3)));
+			}
+			Assert.assertTrue(best < 0.25);
+		}
+
+		int total = 0;
+		for (MLCluster cluster : kmeans.getClusters()) {
+			total += cluster.size();
+		}
+		Assert.assertEquals(n, total);
+	}
+}
@@ -0,0 +1,148 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.prg.compile;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import org.encog.ml.data.basic.BasicMLData;
+import org.encog.ml.prg.EncogProgram;
+import org.encog.ml.prg.EncogProgramContext;
+import org.encog.ml.prg.ProgramNode;
+import org.encog.ml.prg.expvalue.DivisionByZeroError;
+import org.encog.ml.prg.extension.StandardExtensions;
+import org.encog.ml.prg.train.PrgPopulation;
+import org.encog.ml.prg.train.rewrite.RewriteConstants;
+
+public class TestProgramCompiler extends TestCase {
+
+	private static final double[][] INPUT = { { 0.5, -1.25 }, { 2, 3 }, { -0.75, 0.1 }, { 1, 1 } };
+
+	private EncogProgram create(String expression) {
+		EncogProgramContext context = new EncogProgramContext();
+		context.defineVariable("x");
+		context.defineVariable("y");
+		StandardExtensions.createAll(context);
+		PrgPopulation pop = new PrgPopulation(context, 1);
+		EncogProgram program = new EncogProgram(context);
+		program.compileExpression(expression);
+		program.setPopulation(pop);
+		return program;
+	}
+
+	private void check(String expression) {
+		check(expression, create(expression));
+	}
+
+	private void checkProtectedDiv(String a, String b) {
+		EncogProgram program = create(a);
+		ProgramNode[] args = { program.compileExpression(a), program.compileExpression(b) };
+		program.setRootNode(program.getFunctions().factorProgramNode(StandardExtensions.EXTENSION_PDIV, program, args));
+		check(a + "%" + b, program);
+	}
+
+	private void check(String expression, EncogProgram program) {
+		CompiledNode compiled = program.compile();
+		Assert.assertNotNull(expression, compiled);
+
+		double[][] output = new double[INPUT.length][1];
+		program.compute(INPUT, output);
+
+		for (int i = 0; i < INPUT.length; i++) {
+			double expected = program.compute(new BasicMLData(INPUT[i])).getData(0);
+			Assert.assertEquals(expression, expected, compiled.evaluate(INPUT[i]), 0);
+			Assert.assertEquals(expression, expected, output[i][0], 0);
+		}
+	}
+
+	public void testArithmetic() {
+		check("x+y*2-3");
+		check("(x-y)/(x+y+10)");
+		check("-x^2+y");
+		checkProtectedDiv("x-1", "y-1");
+		checkProtectedDiv("x", "0");
+	}
+
+	public void testFunctions() {
+		check("sin(x)+cos(y)*tanh(x)");
+		check("max(x,y)-min(x,y)+abs(y)");
+		check("exp(x)+atan2(x,y)+clamp(y,0,1)");
+		check("floor(x)+ceil(y)+todeg(x)+acos(y)");
+	}
+
+	public void testConditions() {
+		check("iff(x>y,x,y)");
+		check("iff(x<=y&(x=y),1.5,iff(x<>0|y>=2,x,2))");
+	}
+
+	public void testIntegerArithmetic() {
+		EncogProgram program = create("(3/2)+x");
+		Assert.assertNull(program.compile());
+		double[][] output = new double[INPUT.length][1];
+		program.compute(INPUT, output);
+		Assert.assertEquals(1.5, output[0][0], 0);
+	}
+
+	public void testFallback() {
+		EncogProgram program = create("round(x)+y");
+		Assert.assertNull(program.compile());
+		double[][] output = new double[INPUT.length][1];
+		program.compute(INPUT, output);
+		for (int i = 0; i < INPUT.length; i++) {
+			Assert.assertEquals(Math.round(INPUT[i][0]) + INPUT[i][1], output[i][0], 0);
+		}
+	}
+
+	public void testDivisionByZero() {
+		EncogProgram program = create("x/(y-y)");
+		Assert.assertNotNull(program.compile());
+		try {
+			program.compute(INPUT, new double[INPUT.length][1]);
+			Assert.fail("Expected a division by zero.");
+		} catch (DivisionByZeroError ex) {
+			// expected
+		}
+	}
+
+	public void testCompiledIsKeptUntilTreeChanges() {
+		EncogProgram program = create("x+y*2");
+		CompiledNode compiled = program.compile();
+		Assert.assertSame(compiled, program.compile());
+
+		program.compileExpression("x-y");
+		Assert.assertNotSame(compiled, program.compile());
+		double[][] output = new double[INPUT.length][1];
+		program.compute(INPUT, output);
+		for (int i = 0; i < INPUT.length; i++) {
+			Assert.assertEquals(INPUT[i][0] - INPUT[i][1], output[i][0], 0);
+		}
+
+		// a rewrite that replaces children in place must discard it too
+		program = create("x+(2*3)");
+		compiled = program.compile();
+		Assert.assertTrue(new RewriteConstants().rewrite(program));
+		Assert.assertNotSame(compiled, program.compile());
+		check("x+6", program);
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.svm;
+
+import java.util.Random;
+
+import org.encog.mathutil.libsvm.svm;
+import org.encog.mathutil.libsvm.svm_node;
+import org.encog.ml.data.MLDataSet;
+import org.encog.ml.data.basic.BasicMLData;
+import org.encog.ml.data.basic.BasicMLDataSet;
+import org.encog.ml.svm.training.SVMTrain;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+public class TestDenseSVM extends TestCase {
+
+	private double[][] createInput(Random rnd, int count, int width) {
+		double[][] result = new double[count][width];
+		for (int i = 0; i < count; i++) {
+			for (int j = 0; j < width; j++) {
+				result[i][j] = rnd.nextDouble() * 2 - 1;
+			}
+		}
+		return result;
+	}
+
+	private SVM train(SVMType type, KernelType kernel, double[][] input, boolean classes) {
+		double[][] ideal = new double[input.length][1];
+		for (int i = 0; i < input.length; i++) {
+			double v = input[i][0] * input[i][1] + 0.5 * input[i][2];
+			ideal[i][0] = classes ? (v > 0.2 ? 2 : (v < -0.2 ? 0 : 1)) : v;
+		}
+		MLDataSet training = new BasicMLDataSet(input, ideal);
+		SVM result = new SVM(input[0].length, type, kernel);
+		new SVMTrain(result, training).iteration();
+		return result;
+	}
+
+	private void checkMatchesSparse(SVM network, double[][] input) {
+		Assert.assertTrue(network.getDenseModel() != null);
+		double[] batch = new double[input.length];
+		network.compute(input, batch);
+		for (int i = 0; i < input.length; i++) {
+			BasicMLData data = new BasicMLData(input[i]);
+			double expected = svm.svm_predict(network.getModel(), network.makeSparse(data));
+			Assert.assertEquals(expected, network.compute(data).getData(0), 1e-12);
+			Assert.assertEquals(expected, batch[i], 1e-12);
+		}
+	}
+
+	public void testRegression() {
+		Random rnd = new Random(11);
+		double[][] input = this.createInput(rnd, 60, 4);
+		for (KernelType kernel : new KernelType[] { KernelType.Linear, KernelType.Poly,
+				KernelType.RadialBasisFunction, KernelType.Sigmoid }) {
+			SVM network = this.train(SVMType.EpsilonSupportVectorRegression, kernel, input, false);
+			this.checkMatchesSparse(network, this.createInput(rnd, 40, 4));
+		}
+	}
+
+	public void testClassification() {
+		Random rnd = new Random(12);
+		double[][] input = this.createInput(rnd, 90, 3);
+		SVM network = this.train(SVMType.SupportVectorClassification, KernelType.RadialBasisFunction, input, true);
+		Assert.assertTrue(network.getModel().nr_class == 3);
+		this.checkMatchesSparse(network, this.createInput(rnd, 40, 3));
+		for (double[] row : input) {
+			BasicMLData data = new BasicMLData(row);
+			Assert.assertEquals((int) svm.svm_predict(network.getModel(), network.makeSparse(data)),
+					network.classify(data));
+		}
+	}
+
+	public void testSparseSupportVectors() {
+		Random rnd = new Random(13);
+		double[][] input = this.createInput(rnd, 40, 3);
+		SVM network = this.train(SVMType.EpsilonSupportVectorRegression, KernelType.RadialBasisFunction, input,
+				false);
+
+		// drop the middle value of every support vector, as a sparse model would
+		for (int i = 0; i < network.getModel().l; i++) {
+			svm_node[] sv = network.getModel().SV[i];
+			network.getModel().SV[i] = new svm_node[] { sv[0], sv[2] };
+		}
+		network.setModel(network.getModel());
+		this.checkMatchesSparse(network, this.createInput(rnd, 20, 3));
+	}
+}
@@ -0,0 +1,142 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.world;
+
+import org.encog.ml.world.basic.BasicState;
+import org.encog.ml.world.grid.GridWorld;
+import org.encog.ml.world.grid.probability.GridStochasticProbability;
+import org.encog.ml.world.learning.mdp.ValueIteration;
+import org.encog.ml.world.learning.q.QLearning;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+public class TestValueIteration extends TestCase {
+
+	private GridWorld createWorld() {
+		GridWorld world = new GridWorld(4, 5);
+		world.setProbability(new GridStochasticProbability(world));
+		world.setAllRewards(-0.04);
+		world.setBlocked(1, 1);
+		world.createAbsorbingState(world.getState(0, 4), 1);
+		world.createAbsorbingState(world.getState(1, 4), -1);
+		return world;
+	}
+
+	public void testSameFixedPoint() {
+		GridWorld expected = this.createWorld();
+		ValueIteration inPlace = new ValueIteration(expected, 0.9);
+		for (int i = 0; i < 1000; i++) {
+			for (State state : expected.getStates()) {
+				inPlace.calculateValue(state);
+			}
+		}
+
+		GridWorld actual = this.createWorld();
+		ValueIteration vi = new ValueIteration(actual, 0.9);
+		int iterations = vi.solve(1e-13, 10000);
+		Assert.assertTrue(iterations < 10000);
+		Assert.assertTrue(vi.getMaxChange() <= 1e-13);
+
+		for (int i = 0; i < expected.getStates().size(); i++) {
+			Assert.assertEquals(expected.getStates().get(i).getPolicyValue()[0],
+					actual.getStates().get(i).getPolicyValue()[0], 1e-10);
+		}
+	}
+
+	public void testThreadCount() {
+		GridWorld w1 = this.createWorld();
+		ValueIteration vi1 = new ValueIteration(w1, 0.9);
+		vi1.setThreadCount(1);
+		GridWorld w2 = this.createWorld();
+		ValueIteration vi2 = new ValueIteration(w2, 0.9);
+		for (int i = 0; i < 25; i++) {
+			vi1.iteration();
+			vi2.iteration();
+		}
+		for (int i = 0; i < w1.getStates().size(); i++) {
+			Assert.assertEquals(w1.getStates().get(i).getPolicyValue()[0],
+					w2.getStates().get(i).getPolicyValue()[0], 0);
+		}
+	}
+
+	public void testQLearning() {
+		GridWorld expected = this.createWorld();
+		GridWorld actual = this.createWorld();
+		QLearning q = new QLearning(actual, 0.5, 0.9);
+
+		for (int i = 0; i < 200; i++) {
+			int s1 = i % expected.getStates().size();
+			int s2 = (i * 7 + 3) % expected.getStates().size();
+			Action a1 = expected.getActions().get(i % 4);
+			Action a2 = expected.getActions().get((i / 4) % 4);
+
+			State e1 = expected.getStates().get(s1);
+			State e2 = expected.getStates().get(s2);
+			double q1 = expected.getPolicyValue(e1, a1);
+			double q2 = expected.getPolicyValue(e2, a2);
+			expected.setPolicyValue(e1, a1, q1 + 0.5 * (e1.getReward() + 0.9 * q2 - q1));
+
+			q.learn(actual.getStates().get(s1), actual.getActions().get(i % 4), actual.getStates().get(s2),
+					actual.getActions().get((i / 4) % 4));
+		}
+
+		for (int s = 0; s < expected.getStates().size(); s++) {
+			for (int a = 0; a < 4; a++) {
+				Assert.assertEquals(expected.getStates().get(s).getPolicyValue()[a], q.getValue(s, a), 0);
+				Assert.assertEquals(expected.getStates().get(s).getPolicyValue()[a],
+						actual.getStates().get(s).getPolicyValue()[a], 0);
+			}
+		}
+	}
+
+	public void testQLearningAfterWorldChanges() {
+		GridWorld world = this.createWorld();
+		QLearning q = new QLearning(world, 0.5, 0.9);
+		Action a = world.getActions().get(0);
+
+		// a state added after construction
+		BasicState added = new BasicState();
+		added.setPolicyValueSize(world.getActions().size());
+		added.setReward(2);
+		world.addState(added);
+		State s2 = world.getStates().get(0);
+		q.learn(added, a, s2, a);
+		Assert.assertEquals(0.5 * 2, added.getPolicyValue()[0], 1e-12);
+
+		// a policy value changed by other code
+		State s1 = world.getStates().get(2);
+		world.setPolicyValue(s1, a, 10);
+		q.learn(s1, a, s2, a);
+		double expected = 10 + 0.5 * (s1.getReward() - 10);
+		Assert.assertEquals(expected, world.getPolicyValue(s1, a), 1e-12);
+		Assert.assertEquals(expected, q.getValue(2, 0), 1e-12);
+
+		// reset picks up the new state for the index based methods
+		q.reset();
+		int index = q.getCompiledWorld().getStateIndex(added);
+		Assert.assertTrue(index != -1);
+		Assert.assertEquals(0.5 * 2, q.getValue(index, 0), 1e-12);
+	}
+}
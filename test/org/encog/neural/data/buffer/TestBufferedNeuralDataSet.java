@@ -27,6 +27,7 @@ import java.io.File;
 
 import org.encog.ml.data.basic.BasicMLData;
 import org.encog.ml.data.buffer.BufferedMLDataSet;
+import org.encog.ml.data.buffer.MappedMLDataSet;
 import org.encog.neural.networks.XOR;
 
 import junit.framework.TestCase;
@@ -49,4 +50,23 @@ public class TestBufferedNeuralDataSet extends TestCase {
 		XOR.testXORDataSet(set);
 
 	}
+
+	public void testMappedData() throws Exception {
+		new File(FILENAME).delete();
+		BufferedMLDataSet set = new BufferedMLDataSet(new File(FILENAME));
+		set.beginLoad(2, 1);
+		for (int i = 0; i < XOR.XOR_INPUT.length; i++) {
+			BasicMLData input = new BasicMLData(XOR.XOR_INPUT[i]);
+			BasicMLData ideal = new BasicMLData(XOR.XOR_IDEAL[i]);
+			set.add(input, ideal);
+		}
+		set.endLoad();
+		set.close();
+
+		MappedMLDataSet mapped = new MappedMLDataSet(new File(FILENAME));
+		assertEquals(1, mapped.getEGB().getSegmentCount());
+		assertSame(mapped, mapped.openAdditional());
+		XOR.testXORDataSet(mapped);
+		mapped.close();
+	}
 }
@@ -1,6 +1,9 @@
 package org.encog.neural.flat;
 
 import org.encog.EncogError;
+import org.encog.util.concurrency.EngineConcurrency;
+import org.encog.util.concurrency.EngineTask;
+import org.encog.util.concurrency.TaskGroup;
 import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
@@ -45,4 +48,129 @@ public class FlatNetworkTest {
 
 		Assert.assertArrayEquals(weights, flatNetwork.getWeights(), 0);
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void testComputeWithContext() throws Exception {
+
+		FlatNetwork flatNetwork = new FlatNetwork(3, 5, 4, 2, false);
+		flatNetwork.randomize();
+
+		double[] input = { 0.1, -0.4, 0.7 };
+		double[] expected = new double[2];
+		double[] actual = new double[2];
+
+		flatNetwork.compute(input, expected);
+		double[] layerOutput = flatNetwork.getLayerOutput().clone();
+
+		FlatNetworkContext context = flatNetwork.createContext();
+		context.compute(input, actual);
+
+		Assert.assertArrayEquals(expected, actual, 0);
+		Assert.assertArrayEquals(layerOutput, context.getLayerOutput(), 0);
+	}
+
+	@Test
+	public void testComputeWithContextPoolIsThreadSafe() throws Exception {
+
+		final FlatNetwork flatNetwork = new FlatNetwork(3, 5, 4, 2, true);
+		flatNetwork.randomize();
+
+		final double[][] input = new double[50][3];
+		final double[][] expected = new double[input.length][2];
+		for (int i = 0; i < input.length; i++) {
+			for (int j = 0; j < 3; j++) {
+				input[i][j] = Math.sin(i + j);
+			}
+			flatNetwork.compute(input[i], expected[i]);
+		}
+
+		final FlatNetworkContextPool pool = new FlatNetworkContextPool(flatNetwork);
+		final boolean[] failed = new boolean[1];
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					double[] actual = new double[2];
+					for (int pass = 0; pass < 200; pass++) {
+						for (int i = 0; i < input.length; i++) {
+							pool.compute(input[i], actual);
+							if (actual[0] != expected[i][0] || actual[1] != expected[i][1]) {
+								failed[0] = true;
+							}
+						}
+					}
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		Assert.assertFalse(failed[0]);
+	}
+
+	@Test
+	public void testComputeBatch() throws Exception {
+
+		FlatNetwork flatNetwork = new FlatNetwork(3, 5, 4, 2, true);
+		flatNetwork.randomize();
+
+		double[][] input = new double[FlatNetwork.BATCH_BLOCK_ROWS * 2 + 5][3];
+		for (int i = 0; i < input.length; i++) {
+			for (int j = 0; j < 3; j++) {
+				input[i][j] = Math.sin(i * 3 + j);
+			}
+		}
+
+		double[][] actual = new double[input.length][2];
+		flatNetwork.compute(input, actual);
+
+		double[] expected = new double[2];
+		for (int i = 0; i < input.length; i++) {
+			flatNetwork.compute(input[i], expected);
+			Assert.assertArrayEquals(expected, actual[i], 1e-12);
+		}
+	}
+
+	@Test
+	public void testComputeBatchFromPoolTasks() throws Exception {
+
+		final FlatNetwork flatNetwork = new FlatNetwork(3, 5, 4, 2, true);
+		flatNetwork.randomize();
+
+		final double[][] input = new double[FlatNetwork.BATCH_BLOCK_ROWS * 16][3];
+		for (int i = 0; i < input.length; i++) {
+			for (int j = 0; j < 3; j++) {
+				input[i][j] = Math.cos(i * 3 + j);
+			}
+		}
+		final double[][] expected = new double[input.length][2];
+		for (int i = 0; i < input.length; i++) {
+			flatNetwork.compute(input[i], expected[i]);
+		}
+
+		// more tasks than pool threads, each running a parallel batch
+		final int tasks = Runtime.getRuntime().availableProcessors() * 2 + 2;
+		final double[][][] actual = new double[tasks][input.length][2];
+		final TaskGroup group = EngineConcurrency.getInstance().createTaskGroup();
+		for (int t = 0; t < tasks; t++) {
+			final double[][] output = actual[t];
+			EngineConcurrency.getInstance().processTask(new EngineTask() {
+				@Override
+				public void run() {
+					flatNetwork.compute(input, output);
+				}
+			}, group);
+		}
+		group.waitForComplete();
+		EngineConcurrency.getInstance().checkError();
+
+		for (int t = 0; t < tasks; t++) {
+			for (int i = 0; i < input.length; i++) {
+				Assert.assertArrayEquals(expected[i], actual[t][i], 1e-12);
+			}
+		}
+	}
+}
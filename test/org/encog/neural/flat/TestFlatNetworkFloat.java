@@ -0,0 +1,132 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.neural.flat;
+
+import java.io.File;
+
+import org.encog.ml.data.MLDataSet;
+import org.encog.ml.data.basic.BasicMLDataSet;
+import org.encog.neural.networks.BasicNetwork;
+import org.encog.neural.networks.NetworkUtil;
+import org.encog.neural.networks.XOR;
+import org.encog.neural.networks.training.propagation.resilient.FloatResilientPropagation;
+import org.encog.neural.networks.training.propagation.sgd.FloatStochasticGradientDescent;
+import org.encog.persist.EncogDirectoryPersistence;
+import org.encog.util.TempDir;
+import org.encog.util.benchmark.RandomTrainingFactory;
+import org.encog.util.simple.EncogUtility;
+import org.junit.Assert;
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+public class TestFlatNetworkFloat extends TestCase {
+
+	public final TempDir TEMP_DIR = new TempDir();
+	public final File EG_FILENAME = this.TEMP_DIR.createFile("encogtest.eg");
+
+	@Test
+	public void testCompute() {
+		BasicNetwork network = NetworkUtil.createXORNetworkUntrained();
+		FlatNetworkFloat flat = new FlatNetworkFloat(network.getFlat());
+
+		double[] expected = new double[1];
+		double[] actual = new double[1];
+		for (double[] input : XOR.XOR_INPUT) {
+			network.compute(input, expected);
+			flat.compute(input, actual);
+			Assert.assertEquals(expected[0], actual[0], 1e-5);
+		}
+	}
+
+	@Test
+	public void testConvertAndPersist() {
+		BasicNetwork network = NetworkUtil.createXORNetworkUntrained();
+		FlatNetworkFloat flat = new FlatNetworkFloat(network.getFlat());
+
+		BasicNetwork converted = flat.toBasicNetwork();
+		for (int i = 0; i < flat.getWeights().length; i++) {
+			Assert.assertEquals(flat.getWeights()[i], converted.getFlat().getWeights()[i], 0);
+		}
+
+		EncogDirectoryPersistence.saveObject(this.EG_FILENAME, flat);
+		FlatNetworkFloat flat2 = (FlatNetworkFloat) EncogDirectoryPersistence.loadObject(this.EG_FILENAME);
+		Assert.assertArrayEquals(flat.getWeights(), flat2.getWeights(), 0);
+	}
+
+	@Test
+	public void testTrainRPROP() {
+		MLDataSet trainingData = new BasicMLDataSet(XOR.XOR_INPUT, XOR.XOR_IDEAL);
+		FlatNetworkFloat flat = new FlatNetworkFloat(NetworkUtil.createXORNetworkUntrained().getFlat());
+		FloatResilientPropagation train = new FloatResilientPropagation(flat, trainingData);
+
+		for (int i = 0; i < 200; i++) {
+			train.iteration();
+		}
+
+		Assert.assertTrue(flat.calculateError(trainingData) < 0.01);
+	}
+
+	@Test
+	public void testTrainSGD() {
+		MLDataSet trainingData = new BasicMLDataSet(XOR.XOR_INPUT, XOR.XOR_IDEAL);
+		FlatNetworkFloat flat = new FlatNetworkFloat(NetworkUtil.createXORNetworkUntrained().getFlat());
+		FloatStochasticGradientDescent train = new FloatStochasticGradientDescent(flat, trainingData, 0.7, 0.3);
+		train.setBatchSize(2);
+
+		train.iteration();
+		double error1 = train.getError();
+		for (int i = 0; i < 100; i++) {
+			train.iteration();
+		}
+
+		Assert.assertTrue(train.getError() < error1);
+	}
+
+	private float[] trainSGD(final FlatNetwork source, final MLDataSet trainingData, final int threads,
+			final int batchSize) {
+		FlatNetworkFloat flat = new FlatNetworkFloat(source);
+		FloatStochasticGradientDescent train = new FloatStochasticGradientDescent(flat, trainingData, 0.01, 0.5);
+		train.setThreadCount(threads);
+		train.setBatchSize(batchSize);
+		for (int i = 0; i < 3; i++) {
+			train.iteration();
+		}
+		return flat.getWeights();
+	}
+
+	@Test
+	public void testThreadsMatchSingleThread() {
+		// enough weights for the gradients to be reduced in several stripes
+		BasicNetwork network = EncogUtility.simpleFeedForward(100, 100, 0, 1, true);
+		network.reset(42);
+		MLDataSet trainingData = RandomTrainingFactory.generate(42, 40, 100, 1, -1, 1);
+
+		for (int batchSize : new int[] { 0, 15 }) {
+			float[] expected = trainSGD(network.getFlat(), trainingData, 1, batchSize);
+			float[] actual = trainSGD(network.getFlat(), trainingData, 2, batchSize);
+			Assert.assertArrayEquals(expected, actual, 1e-5f);
+		}
+	}
+}
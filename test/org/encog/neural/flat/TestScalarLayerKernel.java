@@ -0,0 +1,150 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.neural.flat;
+
+import org.encog.engine.network.activation.ActivationFunction;
+import org.encog.engine.network.activation.ActivationLinear;
+import org.encog.engine.network.activation.ActivationReLU;
+import org.encog.engine.network.activation.ActivationSigmoid;
+import org.encog.engine.network.activation.ActivationTANH;
+import org.junit.Assert;
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+public class TestScalarLayerKernel extends TestCase {
+
+	private static double[] series(int length, double phase) {
+		double[] result = new double[length];
+		for (int i = 0; i < length; i++) {
+			result[i] = Math.sin(i + phase) * 3;
+		}
+		return result;
+	}
+
+	private void checkDot(LayerKernel kernel, double delta) {
+		double[] a = series(40, 0);
+		double[] b = series(45, 1);
+
+		for (int length = 0; length <= 35; length++) {
+			double expected = 0;
+			for (int i = 0; i < length; i++) {
+				expected += a[i + 2] * b[i + 3];
+			}
+			Assert.assertEquals(expected, kernel.dot(a, 2, b, 3, length), delta);
+		}
+	}
+
+	@Test
+	public void testDot() {
+		// summed in order, so the result is exactly that of a plain loop
+		checkDot(new ScalarLayerKernel(), 0);
+		checkDot(new UnrolledLayerKernel(), 1e-12);
+	}
+
+	@Test
+	public void testActivation() {
+		LayerKernel kernel = new ScalarLayerKernel();
+		ActivationFunction af = new ActivationSigmoid();
+		double[] expected = series(10, 0);
+		double[] actual = expected.clone();
+		af.activationFunction(expected, 2, 5);
+		kernel.activationFunction(af, actual, 2, 5);
+		Assert.assertArrayEquals(expected, actual, 0);
+	}
+
+	@Test
+	public void testVectorKernel() {
+		// the scalar kernel is returned when the vector kernel is not built,
+		// or the jdk.incubator.vector module was not added
+		LayerKernel kernel = createWithProperty(LayerKernelFactory.VECTOR_KERNEL);
+		LayerKernel scalar = new ScalarLayerKernel();
+		checkDot(kernel, 1e-12);
+
+		double[] x = series(37, 0);
+		double[] expected = series(40, 2);
+		double[] actual = expected.clone();
+		scalar.axpy(0.75, x, 1, expected, 2, 35);
+		kernel.axpy(0.75, x, 1, actual, 2, 35);
+		Assert.assertArrayEquals(expected, actual, 1e-12);
+
+		ActivationFunction[] functions = { new ActivationSigmoid(), new ActivationTANH(), new ActivationReLU(),
+				new ActivationReLU(-0.5, 0), new ActivationLinear() };
+		for (ActivationFunction af : functions) {
+			for (int size = 0; size <= 35; size += 7) {
+				expected = series(40, 0);
+				actual = expected.clone();
+				scalar.activationFunction(af, expected, 3, size);
+				kernel.activationFunction(af, actual, 3, size);
+				Assert.assertArrayEquals(expected, actual, 1e-12);
+			}
+		}
+	}
+
+	@Test
+	public void testAxpy() {
+		LayerKernel kernel = new ScalarLayerKernel();
+		double[] x = { 1, 2, 3, 4, 5 };
+		double[] y = { 1, 1, 1, 1, 1, 1 };
+
+		kernel.axpy(2, x, 1, y, 2, 3);
+
+		Assert.assertArrayEquals(new double[] { 1, 1, 5, 7, 9, 1 }, y, 0);
+	}
+
+	public static class NamedLayerKernel extends ScalarLayerKernel {
+	}
+
+	private LayerKernel createWithProperty(String name) {
+		String old = System.getProperty(LayerKernelFactory.PROPERTY_KERNEL);
+		try {
+			if (name == null) {
+				System.clearProperty(LayerKernelFactory.PROPERTY_KERNEL);
+			} else {
+				System.setProperty(LayerKernelFactory.PROPERTY_KERNEL, name);
+			}
+			return LayerKernelFactory.create();
+		} finally {
+			if (old == null) {
+				System.clearProperty(LayerKernelFactory.PROPERTY_KERNEL);
+			} else {
+				System.setProperty(LayerKernelFactory.PROPERTY_KERNEL, old);
+			}
+		}
+	}
+
+	@Test
+	public void testFactory() {
+		Assert.assertEquals(ScalarLayerKernel.class, createWithProperty(null).getClass());
+		Assert.assertEquals(NamedLayerKernel.class, createWithProperty(NamedLayerKernel.class.getName()).getClass());
+	}
+
+	@Test
+	public void testFactoryFallback() {
+		// missing, not a kernel, and no public no-argument constructor
+		Assert.assertEquals(ScalarLayerKernel.class, createWithProperty("org.encog.NoSuchKernel").getClass());
+		Assert.assertEquals(ScalarLayerKernel.class, createWithProperty("java.lang.String").getClass());
+		Assert.assertEquals(ScalarLayerKernel.class, createWithProperty("java.lang.Integer").getClass());
+	}
+}
@@ -0,0 +1,150 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.neural.neat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.encog.engine.network.activation.ActivationFunction;
+import org.encog.engine.network.activation.ActivationLinear;
+import org.encog.engine.network.activation.ActivationSteepenedSigmoid;
+import org.encog.engine.network.activation.ActivationTANH;
+import org.encog.ml.data.MLData;
+import org.encog.ml.data.basic.BasicMLData;
+import org.junit.Assert;
+
+public class TestNEATNetwork extends TestCase {
+
+	private static final int INPUTS = 3;
+	private static final int OUTPUTS = 2;
+	private static final int HIDDEN = 8;
+
+	private ActivationFunction[] functions(Random rnd) {
+		ActivationFunction[] result = new ActivationFunction[1 + INPUTS + OUTPUTS + HIDDEN];
+		for (int i = 0; i < result.length; i++) {
+			switch (rnd.nextInt(3)) {
+			case 0:
+				result[i] = new ActivationSteepenedSigmoid();
+				break;
+			case 1:
+				result[i] = new ActivationTANH();
+				break;
+			default:
+				result[i] = new ActivationLinear();
+				break;
+			}
+		}
+		return result;
+	}
+
+	private List<NEATLink> links(Random rnd, boolean recurrent) {
+		// a random rank for each neuron, feed forward links only go up in
+		// rank, which is not the order of the neuron indexes
+		int count = 1 + INPUTS + OUTPUTS + HIDDEN;
+		List<Integer> rank = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			rank.add(i < 1 + INPUTS ? -1 : rnd.nextInt(1000));
+		}
+
+		List<NEATLink> result = new ArrayList<>();
+		for (int from = 0; from < count; from++) {
+			for (int to = 1 + INPUTS; to < count; to++) {
+				boolean forward = rank.get(from) < rank.get(to);
+				if ((forward || (recurrent && from >= 1 + INPUTS)) && rnd.nextDouble() < 0.4) {
+					result.add(new NEATLink(from, to, rnd.nextGaussian()));
+				}
+			}
+		}
+		Collections.sort(result);
+		return result;
+	}
+
+	private double[] reference(List<NEATLink> links, ActivationFunction[] afs, double[] input, int cycles) {
+		double[] pre = new double[afs.length];
+		double[] post = new double[afs.length];
+		post[0] = 1.0;
+		System.arraycopy(input, 0, post, 1, INPUTS);
+		for (int c = 0; c < cycles; c++) {
+			for (NEATLink link : links) {
+				pre[link.getToNeuron()] += post[link.getFromNeuron()] * link.getWeight();
+			}
+			for (int j = 1 + INPUTS; j < afs.length; j++) {
+				post[j] = pre[j];
+				afs[j].activationFunction(post, j, 1);
+				pre[j] = 0;
+			}
+		}
+		double[] result = new double[OUTPUTS];
+		System.arraycopy(post, 1 + INPUTS, result, 0, OUTPUTS);
+		return result;
+	}
+
+	private void check(boolean recurrent, int cycles) {
+		Random rnd = new Random(recurrent ? 42 : 7);
+		for (int trial = 0; trial < 20; trial++) {
+			ActivationFunction[] afs = functions(rnd);
+			List<NEATLink> links = links(rnd, recurrent);
+			NEATNetwork network = new NEATNetwork(INPUTS, OUTPUTS, links, afs);
+			network.setActivationCycles(cycles);
+			for (int row = 0; row < 5; row++) {
+				double[] input = new double[INPUTS];
+				for (int i = 0; i < INPUTS; i++) {
+					input[i] = rnd.nextDouble() * 2 - 1;
+				}
+				MLData output = network.compute(new BasicMLData(input));
+				Assert.assertArrayEquals(reference(links, afs, input, cycles), output.getData(), 0);
+			}
+		}
+	}
+
+	public void testFeedForwardSinglePass() {
+		check(false, 20);
+	}
+
+	public void testFeedForwardFewCycles() {
+		check(false, 2);
+	}
+
+	public void testRecurrent() {
+		check(true, 4);
+	}
+
+	public void testRelaxation() {
+		ActivationFunction[] afs = new ActivationFunction[3];
+		for (int i = 0; i < afs.length; i++) {
+			afs[i] = new ActivationSteepenedSigmoid();
+		}
+		List<NEATLink> links = new ArrayList<>();
+		links.add(new NEATLink(1, 2, 1.0));
+		links.add(new NEATLink(2, 2, 0.0));
+		NEATNetwork network = new NEATNetwork(1, 1, links, afs);
+		network.setActivationCycles(0);
+		network.compute(new BasicMLData(new double[] { 0.5 }));
+		Assert.assertTrue(network.isHasRelaxed());
+	}
+}
@@ -0,0 +1,180 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.neural.networks.neat.training.species;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import org.encog.mathutil.randomize.factory.BasicRandomFactory;
+import org.encog.ml.CalculateScore;
+import org.encog.ml.data.MLDataSet;
+import org.encog.ml.data.basic.BasicMLDataSet;
+import org.encog.ml.ea.genome.Genome;
+import org.encog.ml.ea.species.BasicSpecies;
+import org.encog.ml.ea.species.Species;
+import org.encog.ml.ea.train.basic.TrainEA;
+import org.encog.neural.neat.NEATPopulation;
+import org.encog.neural.neat.NEATUtil;
+import org.encog.neural.neat.training.NEATGenome;
+import org.encog.neural.neat.training.NEATLinkGene;
+import org.encog.neural.neat.training.species.OriginalNEATSpeciation;
+import org.encog.neural.networks.XOR;
+import org.encog.neural.networks.training.TrainingSetScore;
+import org.encog.util.concurrency.SharedExecutor;
+
+public class TestOriginalNEATSpeciation extends TestCase {
+
+	private static final int SPECIES = 6;
+	private static final double THRESHOLD = 0.3;
+
+	private TrainEA create() {
+		MLDataSet trainingSet = new BasicMLDataSet(XOR.XOR_INPUT, XOR.XOR_IDEAL);
+		NEATPopulation pop = new NEATPopulation(2, 1, 300);
+		pop.setRandomNumberFactory(new BasicRandomFactory(1234));
+		pop.reset();
+
+		Random rnd = new Random(99);
+		List<Genome> genomes = pop.flatten();
+		pop.getSpecies().clear();
+		for (int i = 0; i < genomes.size(); i++) {
+			Genome genome = genomes.get(i);
+			genome.setScore(rnd.nextDouble());
+			genome.setAdjustedScore(genome.getScore());
+			if (i < SPECIES) {
+				pop.getSpecies().add(new BasicSpecies(pop, genome));
+			} else {
+				pop.getSpecies().get(i % SPECIES).add(genome);
+			}
+			genome.setSpecies(pop.getSpecies().get(i % SPECIES));
+		}
+
+		CalculateScore score = new TrainingSetScore(trainingSet);
+		TrainEA train = NEATUtil.constructNEATTrainer(pop, score);
+		OriginalNEATSpeciation speciation = (OriginalNEATSpeciation) train.getSpeciation();
+		speciation.init(train);
+		speciation.setCompatibilityThreshold(THRESHOLD);
+		speciation.setMaxNumberOfSpecies(0);
+		return train;
+	}
+
+	private int[] leaders(List<Genome> genomes) {
+		int[] result = new int[genomes.size()];
+		for (int i = 0; i < genomes.size(); i++) {
+			result[i] = genomes.indexOf(genomes.get(i).getSpecies().getLeader());
+		}
+		return result;
+	}
+
+	private double reference(NEATGenome genome1, NEATGenome genome2) {
+		List<NEATLinkGene> links1 = genome1.getLinksChromosome();
+		List<NEATLinkGene> links2 = genome2.getLinksChromosome();
+		double excess = 0;
+		double disjoint = 0;
+		double matched = 0;
+		double weight = 0;
+		int g1 = 0;
+		int g2 = 0;
+		while (g1 < links1.size() || g2 < links2.size()) {
+			if (g1 == links1.size()) {
+				g2++;
+				excess++;
+			} else if (g2 == links2.size()) {
+				g1++;
+				excess++;
+			} else if (links1.get(g1).getInnovationId() == links2.get(g2).getInnovationId()) {
+				weight += Math.abs(links1.get(g1).getWeight() - links2.get(g2).getWeight());
+				g1++;
+				g2++;
+				matched++;
+			} else if (links1.get(g1).getInnovationId() < links2.get(g2).getInnovationId()) {
+				disjoint++;
+				g1++;
+			} else {
+				disjoint++;
+				g2++;
+			}
+		}
+		return excess + disjoint + 0.4 * (weight / matched);
+	}
+
+	public void testCompatibilityScore() {
+		TrainEA train = create();
+		OriginalNEATSpeciation speciation = (OriginalNEATSpeciation) train.getSpeciation();
+		List<Genome> genomes = train.getPopulation().flatten();
+		for (int i = 0; i < 20; i++) {
+			for (int j = 0; j < 20; j++) {
+				NEATGenome a = (NEATGenome) genomes.get(i);
+				NEATGenome b = (NEATGenome) genomes.get(j);
+				Assert.assertEquals(reference(a, b), speciation.getCompatibilityScore(a, b), 0);
+			}
+		}
+	}
+
+	public void testParallelMatchesSequential() {
+		// the sequential assignment, done by hand
+		TrainEA expectedTrain = create();
+		OriginalNEATSpeciation expectedSpeciation = (OriginalNEATSpeciation) expectedTrain.getSpeciation();
+		List<Genome> expectedGenomes = expectedTrain.getPopulation().flatten();
+		List<Species> expectedSpecies = expectedTrain.getPopulation().getSpecies();
+		List<Genome> leaders = new ArrayList<>();
+		for (Species s : expectedSpecies) {
+			((BasicSpecies) s).purge();
+			leaders.add(s.getLeader());
+		}
+		for (Genome genome : expectedGenomes) {
+			if (leaders.contains(genome)) {
+				continue;
+			}
+			Species found = null;
+			for (Species s : expectedSpecies) {
+				if (expectedSpeciation.getCompatibilityScore(genome, s.getLeader()) <= THRESHOLD) {
+					found = s;
+					expectedSpeciation.addSpeciesMember(s, genome);
+					genome.setSpecies(s);
+					break;
+				}
+			}
+			if (found == null) {
+				expectedSpecies.add(new BasicSpecies(expectedTrain.getPopulation(), genome));
+			}
+		}
+
+		SharedExecutor.getInstance().setThreadCount(4);
+		try {
+			TrainEA train = create();
+			List<Genome> genomes = train.getPopulation().flatten();
+			train.getSpeciation().performSpeciation(genomes);
+			Assert.assertTrue(expectedSpecies.size() > SPECIES);
+			Assert.assertEquals(expectedSpecies.size(), train.getPopulation().getSpecies().size());
+			Assert.assertTrue(Arrays.equals(leaders(expectedGenomes), leaders(genomes)));
+		} finally {
+			SharedExecutor.getInstance().setThreadCount(0);
+		}
+	}
+}
@@ -26,6 +26,8 @@ package org.encog.neural.networks.training;
 import org.encog.ml.CalculateScore;
 import org.encog.ml.MLMethod;
 import org.encog.ml.MethodFactory;
+import org.encog.mathutil.error.ErrorCalculation;
+import org.encog.mathutil.error.ErrorCalculationMode;
 import org.encog.ml.data.MLDataSet;
 import org.encog.ml.data.basic.BasicMLDataSet;
 import org.encog.ml.genetic.MLMethodGeneticAlgorithm;
@@ -43,6 +45,7 @@ import org.encog.neural.networks.training.propagation.scg.ScaledConjugateGradien
 import org.encog.neural.pnn.BasicPNN;
 import org.encog.neural.pnn.PNNKernelType;
 import org.encog.neural.pnn.PNNOutputMode;
+import org.encog.util.benchmark.RandomTrainingFactory;
 import org.junit.Test;
 
 import junit.framework.TestCase;
@@ -58,6 +61,58 @@ public class TestTraining extends TestCase {
 		NetworkUtil.testTraining(trainingData, rprop, 0.03);
 	}
 
+	@Test
+	public void testRPROPMiniBatchThreaded() throws Throwable {
+		MLDataSet trainingData = new BasicMLDataSet(XOR.XOR_INPUT, XOR.XOR_IDEAL);
+
+		BasicNetwork network1 = NetworkUtil.createXORNetworkUntrained();
+		ResilientPropagation rprop1 = new ResilientPropagation(network1, trainingData);
+		rprop1.setBatchSize(2);
+		rprop1.setThreadCount(1);
+
+		BasicNetwork network2 = NetworkUtil.createXORNetworkUntrained();
+		ResilientPropagation rprop2 = new ResilientPropagation(network2, trainingData);
+		rprop2.setBatchSize(2);
+		rprop2.setThreadCount(2);
+
+		for (int i = 0; i < 20; i++) {
+			rprop1.iteration();
+			rprop2.iteration();
+		}
+
+		double[] weights1 = network1.getFlat().getWeights();
+		double[] weights2 = network2.getFlat().getWeights();
+		for (int i = 0; i < weights1.length; i++) {
+			assertEquals(weights1[i], weights2[i], 1e-10);
+		}
+		assertEquals(rprop1.getError(), rprop2.getError(), 1e-10);
+	}
+
+	@Test
+	public void testMiniBatchErrorUnevenSplit() throws Throwable {
+		MLDataSet trainingData = RandomTrainingFactory.generate(42, 10, 2, 1, -1, 1);
+		BasicNetwork network = NetworkUtil.createXORNetworkUntrained();
+
+		try {
+			for (ErrorCalculationMode mode : new ErrorCalculationMode[] { ErrorCalculationMode.MSE,
+					ErrorCalculationMode.RMS }) {
+				ErrorCalculation.setMode(mode);
+				// batches of 4, 4 and 2 records, and of 5 and 5 records, split
+				// between 4 threads
+				for (int batchSize : new int[] { 4, 5 }) {
+					// a learning rate of zero keeps the weights unchanged
+					Backpropagation train = new Backpropagation(network, trainingData, 0, 0);
+					train.setBatchSize(batchSize);
+					train.setThreadCount(4);
+					train.iteration();
+					assertEquals(network.calculateError(trainingData), train.getError(), 1e-12);
+				}
+			}
+		} finally {
+			ErrorCalculation.setMode(ErrorCalculationMode.MSE);
+		}
+	}
+
 	@Test
 	public void testLMA() throws Throwable {
 		MLDataSet trainingData = new BasicMLDataSet(XOR.XOR_INPUT, XOR.XOR_IDEAL);
@@ -0,0 +1,130 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.neural.pnn;
+
+import java.util.Random;
+
+import org.encog.ml.data.MLData;
+import org.encog.ml.data.basic.BasicMLData;
+import org.encog.ml.data.basic.BasicMLDataSet;
+import org.encog.neural.networks.training.pnn.TrainBasicPNN;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+public class TestPNNIndex extends TestCase {
+
+	private BasicMLDataSet createData(int count, int inputCount, boolean classify) {
+		Random random = new Random(42);
+		BasicMLDataSet result = new BasicMLDataSet();
+		for (int i = 0; i < count; i++) {
+			int c = random.nextInt(3);
+			double[] input = new double[inputCount];
+			for (int j = 0; j < inputCount; j++) {
+				input[j] = c + random.nextGaussian() * 0.3;
+			}
+			double[] ideal = classify ? new double[] { c } : new double[] { c * 0.5 + input[0] * 0.1 };
+			result.add(new BasicMLData(input), new BasicMLData(ideal));
+		}
+		return result;
+	}
+
+	private BasicPNN createNetwork(PNNOutputMode mode, int outputCount, BasicMLDataSet data, double sigma) {
+		BasicPNN network = new BasicPNN(PNNKernelType.Gaussian, mode, data.getInputSize(), outputCount);
+		network.setSamples(data);
+		for (int i = 0; i < network.getSigma().length; i++) {
+			network.getSigma()[i] = sigma;
+		}
+		return network;
+	}
+
+	private void checkSame(PNNOutputMode mode, int outputCount, boolean classify) {
+		BasicMLDataSet data = this.createData(600, 3, classify);
+		BasicPNN expected = this.createNetwork(mode, outputCount, data, 0.05);
+		BasicPNN actual = this.createNetwork(mode, outputCount, data, 0.05);
+		actual.setIndexEpsilon(1e-40);
+
+		Random random = new Random(7);
+		for (int q = 0; q < 50; q++) {
+			MLData input = new BasicMLData(new double[] { random.nextDouble() * 3 - 0.5,
+					random.nextDouble() * 3 - 0.5, random.nextDouble() * 3 - 0.5 });
+			if (q % 2 == 0) {
+				input = data.get(q).getInput();
+				expected.setExclude(q);
+				actual.setExclude(q);
+			} else {
+				expected.setExclude(-1);
+				actual.setExclude(-1);
+			}
+			MLData e = expected.compute(input);
+			MLData a = actual.compute(input);
+			for (int i = 0; i < e.size(); i++) {
+				Assert.assertEquals(e.getData(i), a.getData(i), 1e-9 * Math.max(1, Math.abs(e.getData(i))));
+			}
+		}
+	}
+
+	public void testClassification() {
+		this.checkSame(PNNOutputMode.Classification, 3, true);
+	}
+
+	public void testRegression() {
+		this.checkSame(PNNOutputMode.Regression, 1, false);
+	}
+
+	public void testUnsupervised() {
+		this.checkSame(PNNOutputMode.Unsupervised, 3, false);
+	}
+
+	public void testPruning() {
+		BasicMLDataSet data = this.createData(2000, 2, true);
+		PNNIndex index = new PNNIndex(data.getData(), PNNOutputMode.Classification, 2, 3);
+		PNNIndex.Result result = new PNNIndex.Result(index.getTargetSize());
+		index.query(data.get(0).getInputArray(), new double[] { 0.01, 0.01 }, -Math.log(1e-6), 0, result);
+		Assert.assertTrue(result.getCandidateCount() < 200);
+		Assert.assertEquals(1999, result.getCandidateCount() + result.getPrunedCount());
+		double total = 0;
+		for (double d : result.getPrunedSum()) {
+			total += d;
+		}
+		Assert.assertEquals(result.getPrunedCount(), total, 1e-9);
+	}
+
+	public void testTraining() {
+		BasicMLDataSet data = this.createData(200, 2, true);
+		BasicPNN expected = new BasicPNN(PNNKernelType.Gaussian, PNNOutputMode.Classification, 2, 3);
+		BasicPNN actual = new BasicPNN(PNNKernelType.Gaussian, PNNOutputMode.Classification, 2, 3);
+		actual.setIndexEpsilon(1e-40);
+
+		TrainBasicPNN t1 = new TrainBasicPNN(expected, data);
+		TrainBasicPNN t2 = new TrainBasicPNN(actual, data);
+		t1.iteration();
+		t2.iteration();
+
+		Assert.assertEquals(t1.getError(), t2.getError(), 1e-6);
+		for (int i = 0; i < 2; i++) {
+			Assert.assertEquals(expected.getSigma()[i], actual.getSigma()[i], 1e-4);
+		}
+	}
+}
@@ -0,0 +1,143 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.util.concurrency;
+
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+public class TestSharedExecutor extends TestCase {
+
+	private void checkProcess(final int count, final int threads) {
+		final AtomicIntegerArray visits = new AtomicIntegerArray(count);
+		SharedExecutor.getInstance().process(count, threads, new RangeTask() {
+			@Override
+			public void run(final int low, final int high) {
+				for (int i = low; i < high; i++) {
+					visits.incrementAndGet(i);
+				}
+			}
+		});
+		for (int i = 0; i < count; i++) {
+			Assert.assertEquals(1, visits.get(i));
+		}
+	}
+
+	@Test
+	public void testProcessVisitsEveryItemOnce() {
+		checkProcess(0, 4);
+		checkProcess(1, 4);
+		checkProcess(1000, 1);
+		checkProcess(1000, 8);
+		checkProcess(997, Integer.MAX_VALUE);
+	}
+
+	@Test
+	public void testProcessThrowsTaskException() {
+		try {
+			SharedExecutor.getInstance().process(100, 4, new RangeTask() {
+				@Override
+				public void run(final int low, final int high) {
+					throw new IllegalStateException("failed");
+				}
+			});
+			Assert.fail("Exception was not thrown");
+		} catch (final IllegalStateException ex) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testNestedProcessRunsInParallel() throws Exception {
+		final SharedExecutor executor = SharedExecutor.getInstance();
+		final int oldThreads = executor.getThreadCount();
+		executor.setThreadCount(4);
+		try {
+			final CyclicBarrier barrier = new CyclicBarrier(2);
+			// both halves must run at once to pass the barrier
+			final Future<?> outer = executor.getPool().submit(new Runnable() {
+				@Override
+				public void run() {
+					executor.process(2, 2, new RangeTask() {
+						@Override
+						public void run(final int low, final int high) {
+							try {
+								barrier.await(30, TimeUnit.SECONDS);
+							} catch (final Exception e) {
+								throw new IllegalStateException(e);
+							}
+						}
+					});
+				}
+			});
+			outer.get(60, TimeUnit.SECONDS);
+		} finally {
+			executor.setThreadCount(oldThreads);
+		}
+	}
+
+	@Test
+	public void testThreadCountCapsConcurrentPieces() {
+		final SharedExecutor executor = SharedExecutor.getInstance();
+		final int oldThreads = executor.getThreadCount();
+		executor.setThreadCount(6);
+		try {
+			final AtomicInteger active = new AtomicInteger();
+			final AtomicInteger most = new AtomicInteger();
+			final AtomicIntegerArray visits = new AtomicIntegerArray(200);
+			executor.process(200, 2, new RangeTask() {
+				@Override
+				public void run(final int low, final int high) {
+					final int now = active.incrementAndGet();
+					int seen;
+					while ((seen = most.get()) < now && !most.compareAndSet(seen, now)) {
+						// retry
+					}
+					try {
+						Thread.sleep(1);
+					} catch (final InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					for (int i = low; i < high; i++) {
+						visits.incrementAndGet(i);
+					}
+					active.decrementAndGet();
+				}
+			});
+			Assert.assertTrue(most.get() <= 2);
+			for (int i = 0; i < 200; i++) {
+				Assert.assertEquals(1, visits.get(i));
+			}
+		} finally {
+			executor.setThreadCount(oldThreads);
+		}
+	}
+}
@@ -0,0 +1,159 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.util.csv;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+public class TestCSVTokenizer extends TestCase {
+
+	private static final String[] NUMBERS = { "0", "-0", "1", "-1", "007", "3.25", "-3.25", ".5", "5.", "-.5",
+			"1.5E3", "1.5E-3", "1.5e3", "1E+3", "1E", "1E400", "1E-400", "0.1", "0.30000000000000004",
+			"123456789012345678901234", "9007199254740993", "1,234.5", "1.2.3", "12abc", "nan", "NaN", "?",
+			"2.2250738585072014E-308", "4.9E-324", "1.7976931348623157E308", "0.000000000000000000000000001" };
+
+	private void checkLine(final CSVFormat format, final String line) {
+		final CSVTokenizer tokenizer = new CSVTokenizer(new StringReader(line), format);
+		Assert.assertTrue(tokenizer.nextLine());
+		final List<String> expected = new ParseCSVLine(format).parse(line);
+		Assert.assertEquals(line, expected.size(), tokenizer.getFieldCount());
+		for (int i = 0; i < expected.size(); i++) {
+			Assert.assertEquals(line, expected.get(i), tokenizer.getString(i));
+		}
+	}
+
+	private void checkNumber(final CSVFormat format, final String str) {
+		final CSVTokenizer tokenizer = new CSVTokenizer(new StringReader("\"" + str + "\""), format);
+		Assert.assertTrue(tokenizer.nextLine());
+		Double expected;
+		try {
+			expected = format.parse(str);
+		} catch (final CSVError e) {
+			expected = null;
+		}
+		try {
+			final double actual = tokenizer.getDouble(0);
+			Assert.assertTrue(str, expected != null);
+			Assert.assertEquals(str, Double.doubleToLongBits(expected), Double.doubleToLongBits(actual));
+		} catch (final CSVError e) {
+			Assert.assertTrue(str, expected == null);
+		}
+	}
+
+	public void testSplitCharSep() {
+		final String[] lines = { "a,b,c", " a , b ,c ", "a,,c", "a,b,", "a,b, ", ",", "\"a,b\",c",
+				"\"a \"\"quoted\"\" b\",c", "\" a \",b", " \"a\",b", "\"ab\"c\"d,e", "\"unterminated,x", "\"\",x",
+				"x,\"\"" };
+		for (final String line : lines) {
+			checkLine(CSVFormat.DECIMAL_POINT, line);
+			checkLine(CSVFormat.DECIMAL_COMMA, line.replace(',', ';'));
+		}
+	}
+
+	public void testSplitSpaceSep() {
+		final CSVFormat format = new CSVFormat('.', ' ');
+		final String[] lines = { "one 1 \"test one two\"", " lead", "a\tb  c", "\"a\"b c", "\"open", "x \"\" y" };
+		for (final String line : lines) {
+			checkLine(format, line);
+		}
+	}
+
+	public void testLines() {
+		final CSVTokenizer tokenizer = new CSVTokenizer(new StringReader("a\r\nb\rc\n\n  \nd"),
+				CSVFormat.DECIMAL_POINT);
+		final String[] expected = { "a", "b", "c", "d" };
+		for (final String str : expected) {
+			Assert.assertTrue(tokenizer.next());
+			Assert.assertEquals(str, tokenizer.getString(0));
+		}
+		Assert.assertFalse(tokenizer.next());
+	}
+
+	public void testLongLine() {
+		final StringBuilder line = new StringBuilder();
+		for (int i = 0; i < 20000; i++) {
+			if (i > 0) {
+				line.append(',');
+			}
+			line.append(i);
+		}
+		final CSVTokenizer tokenizer = new CSVTokenizer(new StringReader(line + "\n1,2"), CSVFormat.DECIMAL_POINT);
+		Assert.assertTrue(tokenizer.next());
+		Assert.assertEquals(20000, tokenizer.getFieldCount());
+		for (int i = 0; i < 20000; i++) {
+			Assert.assertEquals(i, tokenizer.getInt(i));
+		}
+		Assert.assertTrue(tokenizer.next());
+		Assert.assertEquals(2.0, tokenizer.getDouble(1), 0);
+	}
+
+	public void testNumbers() {
+		for (final String str : NUMBERS) {
+			checkNumber(CSVFormat.DECIMAL_POINT, str);
+			checkNumber(CSVFormat.DECIMAL_COMMA, str.replace('.', ','));
+		}
+
+		final Random rnd = new Random(42);
+		for (int i = 0; i < 10000; i++) {
+			final double d = (rnd.nextDouble() - 0.5) * Math.pow(10, rnd.nextInt(40) - 20);
+			checkNumber(CSVFormat.DECIMAL_POINT, Double.toString(d));
+			checkNumber(CSVFormat.DECIMAL_POINT, CSVFormat.DECIMAL_POINT.format(d, rnd.nextInt(12)));
+			checkNumber(CSVFormat.DECIMAL_COMMA, CSVFormat.DECIMAL_COMMA.format(d, rnd.nextInt(12)));
+		}
+	}
+
+	public void testShortRow() {
+		final ReadCSV csv = new ReadCSV(new ByteArrayInputStream("1,2,3\n4,5\n6\n".getBytes()), false,
+				CSVFormat.DECIMAL_POINT);
+		Assert.assertTrue(csv.next());
+		Assert.assertTrue(csv.next());
+		Assert.assertEquals("3", csv.get(2));
+		Assert.assertTrue(csv.next());
+		Assert.assertEquals(6.0, csv.getDouble(0), 0);
+		Assert.assertEquals(5.0, csv.getDouble(1), 0);
+		Assert.assertEquals(3, csv.getInt(2));
+		Assert.assertFalse(csv.next());
+		csv.close();
+	}
+
+	public void testShortRowAfterBlankLine() {
+		final String[] blanks = { "", "   " };
+		for (final String blank : blanks) {
+			final ReadCSV csv = new ReadCSV(new ByteArrayInputStream(("1,2,3\n" + blank + "\n4,5\n").getBytes()),
+					false, CSVFormat.DECIMAL_POINT);
+			Assert.assertTrue(csv.next());
+			Assert.assertTrue(csv.next());
+			Assert.assertEquals("3", csv.get(2));
+			Assert.assertEquals(3.0, csv.getDouble(2), 0);
+			Assert.assertEquals(5.0, csv.getDouble(1), 0);
+			Assert.assertFalse(csv.next());
+			csv.close();
+		}
+	}
+}